@@ -133,6 +133,14 @@ public class PdfRendererWithAttributes extends Renderer {
         cb.endMarkedContentSequence();
     }
 
+    /**
+     * The labels are drawn with their feature, in its marked content.
+     */
+    @Override
+    protected boolean isPlacingLabels() {
+        return false;
+    }
+
     @Override
     public void beginLayer(String name) {
         //container.beginLayer(new PdfLayer(name, writer));
@@ -86,8 +86,10 @@ public interface DataManager extends RowSetFactory {
      * Table update done through ReversibleRowSet will be fire through theses listeners
      * @param table Table identifier [[catalog.]schema.]table
      * @param listener Listener instance
+     * @return True if a trigger reports all the edits of the table, false if only the
+     * edits done through this DataManager are reported (remote or non-H2 database).
      */
-    void addTableEditListener(String table, TableEditListener listener);
+    boolean addTableEditListener(String table, TableEditListener listener);
 
     /**
      * Remove registered listener
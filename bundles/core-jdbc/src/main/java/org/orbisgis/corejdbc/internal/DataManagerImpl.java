@@ -24,6 +24,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Implementation of the DataManager service.
@@ -37,8 +39,9 @@ public class DataManagerImpl implements DataManager {
     private boolean isLocalH2Table = true;
     private static final String H2TRIGGER = "org.orbisgis.h2triggers.H2Trigger";
 
-    /** ReversibleRowSet fire row updates to their DataManager  */
-    private Map<String, List<TableEditListener>> tableEditionListener = new HashMap<>();
+    /** ReversibleRowSet fire row updates to their DataManager. Listeners are added and removed under the lock of
+     * this map, events are fired without lock. */
+    private final Map<String, List<TableEditListener>> tableEditionListener = new ConcurrentHashMap<>();
     private static final Logger LOG = Logger.getLogger(DataManagerImpl.class);
     private Map<StateEvent.DB_STATES, ArrayList<DatabaseProgressionListener>> progressionListenerMap = new HashMap<>();
 
@@ -209,45 +212,54 @@ public class DataManagerImpl implements DataManager {
     }
 
     @Override
-    public void addTableEditListener(String table, TableEditListener listener) {
+    public boolean addTableEditListener(String table, TableEditListener listener) {
         String parsedTable = TableLocation.parse(table, isH2).toString(isH2);
-        List<TableEditListener> listeners = tableEditionListener.get(parsedTable);
-        if(listeners == null) {
-            listeners = new ArrayList<>();
-            tableEditionListener.put(parsedTable, listeners);
-        }
-        if(!listeners.contains(listener)) {
-            listeners.add(listener);
-        }
-        try(Connection connection = dataSource.getConnection();
-            Statement st = connection.createStatement()) {
-            // Add trigger
-            if(isLocalH2Table) {
-                    String triggerName = getH2TriggerName(table);
-                    st.execute("CREATE FORCE TRIGGER IF NOT EXISTS "+triggerName+" AFTER INSERT, UPDATE, DELETE ON "+table+" CALL \""+H2TRIGGER+"\"");
+        synchronized (tableEditionListener) {
+            List<TableEditListener> listeners = tableEditionListener.get(parsedTable);
+            if(listeners == null) {
+                listeners = new CopyOnWriteArrayList<>();
+                tableEditionListener.put(parsedTable, listeners);
             }
-        } catch (SQLException ex) {
-            listeners.remove(listener);
-            LOGGER.error(ex.getLocalizedMessage(), ex);
+            if(!listeners.contains(listener)) {
+                listeners.add(listener);
+            }
+            try(Connection connection = dataSource.getConnection();
+                Statement st = connection.createStatement()) {
+                // Add trigger
+                if(isLocalH2Table) {
+                        String triggerName = getH2TriggerName(table);
+                        st.execute("CREATE FORCE TRIGGER IF NOT EXISTS "+triggerName+" AFTER INSERT, UPDATE, DELETE ON "+table+" CALL \""+H2TRIGGER+"\"");
+                        return true;
+                }
+            } catch (SQLException ex) {
+                listeners.remove(listener);
+                if(listeners.isEmpty()) {
+                    tableEditionListener.remove(parsedTable);
+                }
+                LOGGER.error(ex.getLocalizedMessage(), ex);
+            }
+            return false;
         }
     }
 
     @Override
     public void removeTableEditListener(String table, TableEditListener listener) {
-        String parsedTable = TableLocation.parse(table).toString();
-        List<TableEditListener> listeners = tableEditionListener.get(parsedTable);
-        if(listeners != null) {
-            listeners.remove(listener);
-            if(listeners.isEmpty()) {
-                // Remove trigger
-                String triggerName = getH2TriggerName(table);
-                try(Connection connection = dataSource.getConnection();
-                    Statement st = connection.createStatement()) {
-                    st.execute("DROP TRIGGER IF EXISTS "+triggerName);
-                } catch (SQLException ex) {
-                    LOGGER.error(ex.getLocalizedMessage(), ex);
+        String parsedTable = TableLocation.parse(table, isH2).toString(isH2);
+        synchronized (tableEditionListener) {
+            List<TableEditListener> listeners = tableEditionListener.get(parsedTable);
+            if(listeners != null) {
+                listeners.remove(listener);
+                if(listeners.isEmpty()) {
+                    // Remove trigger
+                    String triggerName = getH2TriggerName(table);
+                    try(Connection connection = dataSource.getConnection();
+                        Statement st = connection.createStatement()) {
+                        st.execute("DROP TRIGGER IF EXISTS "+triggerName);
+                    } catch (SQLException ex) {
+                        LOGGER.error(ex.getLocalizedMessage(), ex);
+                    }
+                    tableEditionListener.remove(parsedTable);
                 }
-                tableEditionListener.remove(parsedTable);
             }
         }
     }
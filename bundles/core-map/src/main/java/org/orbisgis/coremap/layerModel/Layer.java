@@ -52,6 +52,8 @@ import org.orbisgis.coremap.stream.GeoStream;
 import org.orbisgis.coremap.stream.SimpleWMSDriver;
 import org.orbisgis.coremap.stream.WMSStreamSource;
 import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.coremap.renderer.OverviewTables;
+import org.orbisgis.coremap.renderer.Renderer;
 import org.orbisgis.coremap.renderer.se.Rule;
 import org.orbisgis.coremap.renderer.se.Style;
 import org.h2gis.utilities.SFSUtilities;
@@ -167,7 +169,9 @@ public class Layer extends BeanLayer {
 
     @Override
 	public void close() throws LayerException {
-
+        // The renderer monitors the edits of the table while the layer is open
+        Renderer.releaseStrokeCache(this);
+        OverviewTables.release(this);
 	}
 
     @Override
@@ -36,6 +36,7 @@ import java.util.List;
 
 import org.orbisgis.coremap.map.MapTransform;
 import org.orbisgis.coremap.renderer.se.Symbolizer;
+import org.orbisgis.coremap.renderer.se.graphic.SpriteCache;
 
 /**
  * ImageRender extends the renderer in order to produce an image
@@ -60,6 +61,8 @@ public class ImageRenderer extends Renderer {
             BufferedImage bufImg = new BufferedImage(mt.getWidth(), mt.getHeight(), BufferedImage.TYPE_INT_ARGB);
             Graphics2D sG2 = bufImg.createGraphics();
             sG2.addRenderingHints(mt.getRenderingHints());
+            // constant point symbols are copied from pre-rendered images
+            sG2.setRenderingHint(SpriteCache.KEY_SPRITES, Boolean.TRUE);
             graphics.add(sG2);
             imgSymbs.add(bufImg);
         }
@@ -0,0 +1,489 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import org.apache.log4j.Logger;
+import org.h2gis.utilities.JDBCUtilities;
+import org.h2gis.utilities.SFSUtilities;
+import org.h2gis.utilities.TableLocation;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.ReadTable;
+import org.orbisgis.corejdbc.TableEditEvent;
+import org.orbisgis.corejdbc.TableEditListener;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.orbisgis.coremap.map.MapTransform;
+import org.xnap.commons.i18n.I18n;
+import org.xnap.commons.i18n.I18nFactory;
+
+/**
+ * Generalized copies of the table of a layer, drawn instead of the table at
+ * small scales.
+ *
+ * For each level of {@link #LEVELS}, the geometries of the table are
+ * simplified with a tolerance of half a pixel at the scale of the level, and
+ * stored in a temporary table of the database, with a spatial index. When the
+ * map is drawn at a scale denominator greater than the one of a level, the
+ * features are read from its overview : they are fewer points to fetch and to
+ * draw, without visible difference.
+ *
+ * The overviews are built in the background the first time they are needed,
+ * the table itself is drawn in the meantime. Only tables of
+ * {@link #MIN_ROWS} to {@link #getMaxRows()} rows of a local H2 database
+ * have overviews, as each level copies all the columns of the table. The
+ * edits of the table are monitored by a trigger from the first build. The
+ * overviews are forgotten as soon as the table is edited or the layer is
+ * closed, and are dropped once the renderings reading them are done.
+ */
+public final class OverviewTables implements TableEditListener {
+
+    /**
+     * Scale denominators from which each overview is drawn, in increasing
+     * order.
+     */
+    static final double[] LEVELS = {250000, 1000000, 5000000};
+    /**
+     * Tables with fewer rows are always drawn directly.
+     */
+    static final long MIN_ROWS = 5000;
+    /**
+     * Default maximum number of rows of a table with overviews.
+     */
+    public static final long DEFAULT_MAX_ROWS = 1000000;
+    /**
+     * Tolerance of the simplification, in pixels at the scale of the level.
+     */
+    static final double TOLERANCE_PX = 0.5;
+    private static final Logger LOGGER = Logger.getLogger(OverviewTables.class);
+    private static final I18n I18N = I18nFactory.getI18n(OverviewTables.class);
+    private static final Map<ILayer, OverviewTables> PYRAMIDS = new WeakHashMap<ILayer, OverviewTables>();
+    private static final ExecutorService BUILDER = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Overview tables");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
+    private static volatile long maxRows = DEFAULT_MAX_ROWS;
+    private final DataManager dataManager;
+    private final String table;
+    // overview of each level, null while not built
+    private final String[] overviews = new String[LEVELS.length];
+    // forgotten overviews, dropped when no rendering reads them anymore
+    private final List<String> retired = new ArrayList<String>();
+    // renderings between startReading and endReading
+    private int readers;
+    // map units per pixel, divided by the scale denominator, used to build the overviews
+    private double builtUnits;
+    // incremented each time the table changes, builds of a former generation are dropped
+    private int generation;
+    private boolean scheduled;
+    private boolean disabled;
+    private boolean closed;
+    // true while this is a listener of the edits of the table
+    private boolean monitored;
+
+    /**
+     * Builds the (empty) overviews of {@code table}.
+     * @param dataManager
+     * @param table
+     */
+    OverviewTables(DataManager dataManager, String table) {
+        this.dataManager = dataManager;
+        this.table = table;
+    }
+
+    /**
+     * Gets the overviews of {@code layer} to draw it with {@code mt},
+     * creating them the first time. They are released by
+     * {@link #release(ILayer)} when the layer is closed.
+     * @param layer
+     * @param mt
+     * @return The overviews, or null if the table of the layer must be drawn.
+     */
+    public static OverviewTables get(ILayer layer, MapTransform mt) {
+        String table = layer.getTableReference();
+        if (table == null || table.isEmpty() || getLevel(mt.getScaleDenominator()) < 0
+                || mt.getWidth() <= 0 || mt.getAdjustedExtent() == null) {
+            return null;
+        }
+        synchronized (PYRAMIDS) {
+            if (PYRAMIDS.containsKey(layer)) {
+                return PYRAMIDS.get(layer);
+            }
+            OverviewTables pyramid = new OverviewTables(layer.getDataManager(), table);
+            PYRAMIDS.put(layer, pyramid);
+            return pyramid;
+        }
+    }
+
+    /**
+     * Forgets the overviews of {@code layer}, and stops monitoring the edits
+     * of its table for them.
+     * @param layer
+     */
+    public static void release(ILayer layer) {
+        OverviewTables pyramid;
+        synchronized (PYRAMIDS) {
+            pyramid = PYRAMIDS.remove(layer);
+        }
+        if (pyramid != null) {
+            pyramid.close();
+        }
+    }
+
+    /**
+     * Gets the maximum number of rows of a table with overviews.
+     * @return
+     */
+    public static long getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * Sets the maximum number of rows of a table with overviews, 0 disables
+     * them. It applies to the overviews built afterwards.
+     * @param rows
+     */
+    public static void setMaxRows(long rows) {
+        maxRows = rows;
+    }
+
+    /**
+     * Gets the level to draw at the given scale.
+     * @param scaleDenominator
+     * @return The index of the level in {@link #LEVELS}, -1 if the table
+     * itself must be drawn.
+     */
+    static int getLevel(double scaleDenominator) {
+        int level = -1;
+        for (int i = 0; i < LEVELS.length && LEVELS[i] <= scaleDenominator; i++) {
+            level = i;
+        }
+        return level;
+    }
+
+    /**
+     * Gets the table to read to draw the layer with {@code mt} : the table of
+     * the layer, or one of its overviews. It is not dropped before
+     * {@link #endReading()} is called.
+     * @param mt
+     * @return A table reference.
+     */
+    public String startReading(MapTransform mt) {
+        double units = mt.getAdjustedExtent().getWidth() / mt.getWidth() / mt.getScaleDenominator();
+        return startReading(mt.getScaleDenominator(), units);
+    }
+
+    synchronized String startReading(double scaleDenominator, double units) {
+        readers++;
+        String overview = getOverview(scaleDenominator, units);
+        return overview != null ? overview : table;
+    }
+
+    /**
+     * Ends a reading started by {@link #startReading(MapTransform)}.
+     */
+    public synchronized void endReading() {
+        readers--;
+        dropRetired();
+    }
+
+    /**
+     * Gets the overview to draw at the given scale, scheduling the build of
+     * the missing ones. A coarser overview than expected is never returned.
+     * @param scaleDenominator
+     * @param units The size of a pixel in map units, divided by the scale
+     * denominator. It depends on the resolution and on the CRS of the map.
+     * @return The overview, or null if the table must be drawn.
+     */
+    synchronized String getOverview(double scaleDenominator, double units) {
+        int level = getLevel(scaleDenominator);
+        if (level < 0 || disabled || closed) {
+            return null;
+        }
+        if (overviews[level] == null && !scheduled) {
+            scheduled = true;
+            final int gen = generation;
+            final double buildUnits = units;
+            BUILDER.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    build(gen, buildUnits);
+                }
+            });
+        }
+        // Overviews built for a finer resolution would be visibly simplified
+        if (units < builtUnits / 2) {
+            return null;
+        }
+        for (int i = level; i >= 0; i--) {
+            if (overviews[i] != null) {
+                return overviews[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds the missing overviews.
+     * @param gen The generation of the table the build has been requested for.
+     * @param units The size of a pixel in map units, divided by the scale
+     * denominator.
+     */
+    void build(int gen, double units) {
+        try (Connection connection = dataManager.getDataSource().getConnection();
+                Statement st = connection.createStatement()) {
+            synchronized (this) {
+                if (gen != generation) {
+                    return;
+                }
+            }
+            List<String> geometryFields = SFSUtilities.getGeometryFields(connection, TableLocation.parse(table));
+            long rowCount = geometryFields.isEmpty() ? 0 : ReadTable.getRowCount(connection, table);
+            if (!JDBCUtilities.isH2DataBase(connection.getMetaData()) || geometryFields.isEmpty()
+                    || rowCount < MIN_ROWS || rowCount > maxRows) {
+                synchronized (this) {
+                    disabled = gen == generation;
+                }
+                return;
+            }
+            if (!startMonitoring()) {
+                return;
+            }
+            String geometryField = geometryFields.get(0);
+            double buildUnits;
+            synchronized (this) {
+                if (units < builtUnits / 2) {
+                    // The former overviews are too coarse for this resolution
+                    retire(clear());
+                }
+                if (isEmpty()) {
+                    builtUnits = units;
+                }
+                // The missing levels are built like the existing ones
+                buildUnits = builtUnits;
+            }
+            TableLocation source = TableLocation.parse(table);
+            for (int i = 0; i < LEVELS.length; i++) {
+                synchronized (this) {
+                    if (gen != generation) {
+                        return;
+                    }
+                    if (overviews[i] != null) {
+                        continue;
+                    }
+                }
+                String overview = dataManager.findUniqueTableName(new TableLocation(source.getCatalog(),
+                        source.getSchema(), source.getTable() + "_OVERVIEW" + (i + 1)).toString());
+                double tolerance = TOLERANCE_PX * LEVELS[i] * buildUnits;
+                st.execute(String.format("CREATE CACHED GLOBAL TEMPORARY TABLE %s AS SELECT %s FROM %s",
+                        overview, getColumns(connection, geometryField, tolerance), table));
+                try {
+                    st.execute(String.format("CREATE SPATIAL INDEX ON %s(%s)", overview,
+                            TableLocation.quoteIdentifier(geometryField)));
+                } catch (SQLException ex) {
+                    // Still usable, the whole overview is read
+                    LOGGER.debug(ex.getLocalizedMessage(), ex);
+                }
+                synchronized (this) {
+                    if (gen != generation) {
+                        List<String> outdated = new ArrayList<String>();
+                        outdated.add(overview);
+                        retire(outdated);
+                        return;
+                    }
+                    overviews[i] = overview;
+                }
+            }
+        } catch (SQLException ex) {
+            LOGGER.warn(I18N.tr("Cannot build the overviews of {0}, it will always be drawn directly", table), ex);
+            synchronized (this) {
+                disabled = true;
+            }
+        } finally {
+            synchronized (this) {
+                scheduled = false;
+            }
+        }
+    }
+
+    /**
+     * Monitors the edits of the table, since overviews are about to be built.
+     * Only a trigger reports all of them : without it, the overviews are
+     * disabled.
+     * @return False if the overviews must not be built.
+     */
+    private boolean startMonitoring() {
+        synchronized (this) {
+            if (monitored || closed) {
+                return monitored;
+            }
+        }
+        // Not registered under the lock : an edit holding locks on the table may be waiting for it
+        boolean triggered = dataManager.addTableEditListener(table, this);
+        boolean kept;
+        synchronized (this) {
+            kept = triggered && !closed;
+            monitored = kept;
+            if (!triggered) {
+                disabled = true;
+            }
+        }
+        if (!kept) {
+            dataManager.removeTableEditListener(table, this);
+            if (!triggered) {
+                LOGGER.warn(I18N.tr("The edits of {0} cannot be monitored, it will always be drawn directly", table));
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Gets the columns of the overview : the ones of the table, the geometry
+     * being simplified.
+     */
+    private String getColumns(Connection connection, String geometryField, double tolerance)
+            throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        TableLocation tableLocation = TableLocation.parse(table);
+        StringBuilder fields = new StringBuilder();
+        try (ResultSet rs = meta.getColumns(tableLocation.getCatalog(), tableLocation.getSchema(),
+                tableLocation.getTable(), null)) {
+            while (rs.next()) {
+                if (fields.length() != 0) {
+                    fields.append(", ");
+                }
+                String field = TableLocation.quoteIdentifier(rs.getString("COLUMN_NAME"));
+                if (geometryField.equals(rs.getString("COLUMN_NAME"))) {
+                    fields.append(String.format("ST_SimplifyPreserveTopology(%s, %s) %s", field,
+                            Double.toString(tolerance), field));
+                } else {
+                    fields.append(field);
+                }
+            }
+        }
+        return fields.toString();
+    }
+
+    private synchronized boolean isEmpty() {
+        for (String overview : overviews) {
+            if (overview != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forgets the overviews.
+     * @return The overviews to drop.
+     */
+    private synchronized List<String> clear() {
+        List<String> dropped = new ArrayList<String>();
+        for (int i = 0; i < overviews.length; i++) {
+            if (overviews[i] != null) {
+                dropped.add(overviews[i]);
+                overviews[i] = null;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Drops {@code dropped} once no rendering reads the overviews anymore.
+     */
+    private synchronized void retire(List<String> dropped) {
+        retired.addAll(dropped);
+        dropRetired();
+    }
+
+    private synchronized void dropRetired() {
+        if (readers > 0 || retired.isEmpty()) {
+            return;
+        }
+        final List<String> dropped = new ArrayList<String>(retired);
+        retired.clear();
+        // Not dropped in the calling thread, that may be an edition holding locks on the table
+        BUILDER.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try (Connection connection = dataManager.getDataSource().getConnection();
+                        Statement st = connection.createStatement()) {
+                    for (String overview : dropped) {
+                        st.execute("DROP TABLE IF EXISTS " + overview);
+                    }
+                } catch (SQLException ex) {
+                    LOGGER.warn(I18N.tr("Cannot drop the overviews of {0}", table), ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Forgets the overviews for good, the layer being closed, and stops
+     * monitoring the edits of the table.
+     */
+    void close() {
+        boolean wasMonitored;
+        synchronized (this) {
+            closed = true;
+            generation++;
+            retire(clear());
+            wasMonitored = monitored;
+            monitored = false;
+        }
+        if (wasMonitored) {
+            dataManager.removeTableEditListener(table, this);
+        }
+    }
+
+    @Override
+    public synchronized void tableChange(TableEditEvent event) {
+        generation++;
+        disabled = false;
+        retire(clear());
+    }
+}
@@ -43,7 +43,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import org.apache.log4j.Logger;
 import org.h2gis.utilities.TableLocation;
 import org.orbisgis.coremap.layerModel.ILayer;
@@ -52,9 +54,14 @@ import org.orbisgis.coremap.map.MapTransform;
 import org.orbisgis.coremap.renderer.se.Rule;
 import org.orbisgis.coremap.renderer.se.Style;
 import org.orbisgis.coremap.renderer.se.Symbolizer;
+import org.orbisgis.coremap.renderer.se.TextSymbolizer;
 import org.orbisgis.coremap.renderer.se.VectorSymbolizer;
+import org.orbisgis.coremap.renderer.se.label.LabelPlacement;
 import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
+import org.orbisgis.coremap.renderer.se.stroke.StrokeCache;
 import org.orbisgis.coremap.stream.GeoStream;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.MetaData;
 import org.orbisgis.progress.NullProgressMonitor;
 import org.orbisgis.progress.ProgressMonitor;
 import org.h2gis.utilities.SFSUtilities;
@@ -79,6 +86,10 @@ public abstract class Renderer {
         private static final Logger LOGGER = Logger.getLogger(Renderer.class);
         private static final I18n I18N = I18nFactory.getI18n(Renderer.class);
         private static final int FETCH_SIZE = 300;
+        // labels of the map being drawn, null when the labels are drawn with their features
+        private LabelPlacement labelPlacement;
+        // stroke decorations of the layers, kept from one rendering to another
+        private static final Map<ILayer, StrokeCache> STROKE_CACHES = new WeakHashMap<ILayer, StrokeCache>();
         /**
          * This method shall returns a graphics2D for each symbolizers in the list.
          * This is useful to make the diff bw pdf purpose and image purpose
@@ -99,6 +110,36 @@ public abstract class Renderer {
 
         protected abstract void releaseGraphics2D(Graphics2D g2);
 
+        /**
+         * Gets the {@code Graphics2D} the labels of the map are drawn on, once
+         * all the layers have been rendered.
+         * @param g2 the graphics the map is drawn on
+         * @param mt the drawing parameters
+         * @return a graphics that carries the rendering hints of {@code mt}
+         */
+        protected Graphics2D getLabelGraphics2D(Graphics2D g2, MapTransform mt) {
+                Graphics2D labels = (Graphics2D) g2.create();
+                labels.addRenderingHints(mt.getRenderingHints());
+                return labels;
+        }
+
+        /**
+         * Releases the graphics returned by {@link #getLabelGraphics2D}.
+         * @param g2 the graphics of the labels
+         */
+        protected void releaseLabelGraphics2D(Graphics2D g2) {
+                g2.dispose();
+        }
+
+        /**
+         * @return true if the labels of all the layers are placed together once
+         * the layers are rendered, false if each label is drawn with its feature
+         * between {@link #beginFeature} and {@link #endFeature}
+         */
+        protected boolean isPlacingLabels() {
+                return true;
+        }
+
         /**
          * Is called once the layer has been rendered
          * @param g2 the graphics the layer has to be drawn on
@@ -192,7 +233,23 @@ public abstract class Renderer {
                         if(geometryFields.isEmpty()) {
                             throw new SQLException(I18N.tr("Table {0} does not contains geometry fields",tableReference));
                         }
-                        try(PreparedStatement st = createStatement(connection, geometryFields.get(0), tableReference, !selected.isEmpty())) {
+                        StrokeCache strokeCache = getStrokeCache(layer, connection);
+                        if(strokeCache != null) {
+                            for(Symbolizer s : symbs) {
+                                getGraphics2D(s).setRenderingHint(StrokeCache.KEY_STROKES, strokeCache);
+                            }
+                        }
+                        // Selected features are identified by their row in the table itself,
+                        // otherwise small scales are drawn from a generalized copy of the table
+                        String drawnTable = tableReference;
+                        OverviewTables overviews = null;
+                        if(selected.isEmpty()) {
+                            overviews = OverviewTables.get(layer, mt);
+                        }
+                        if(overviews != null) {
+                            drawnTable = overviews.startReading(mt);
+                        }
+                        try(PreparedStatement st = createStatement(connection, geometryFields.get(0), drawnTable, !selected.isEmpty())) {
                             st.setFetchSize(FETCH_SIZE);
                             GeometryFactory geometryFactory = new GeometryFactory();
                             if(st.getParameterMetaData().getParameterCount() > 0) {
@@ -242,6 +299,13 @@ public abstract class Renderer {
                                 endLayer(r.getName());
                             } finally {
                                 pm.removePropertyChangeListener(cancelListener);
+                                for (Symbolizer s : r.getCompositeSymbolizer().getSymbolizerList()) {
+                                    s.releaseFeatures();
+                                }
+                            }
+                        } finally {
+                            if(overviews != null) {
+                                overviews.endReading();
                             }
                         }
                     } catch (SQLException ex) {
@@ -259,6 +323,57 @@ public abstract class Renderer {
             return layerCount;
         }
 
+        /**
+         * Gets the cache of the stroke decorations of {@code layer}, creating
+         * it the first time. The features of the layer must be identified by
+         * an integer primary key and the edits of its table must be
+         * monitored, otherwise there is no cache. The cache is released by
+         * {@link #releaseStrokeCache(ILayer)} when the layer is closed.
+         * @param layer
+         * @param connection
+         * @return The cache, or null if the layer can't have one.
+         * @throws SQLException
+         */
+        private static StrokeCache getStrokeCache(ILayer layer, Connection connection) throws SQLException {
+                synchronized (STROKE_CACHES) {
+                        if (STROKE_CACHES.containsKey(layer)) {
+                                return STROKE_CACHES.get(layer);
+                        }
+                        StrokeCache cache = null;
+                        String table = layer.getTableReference();
+                        String pkName = MetaData.getPkName(connection, table, false);
+                        if (!pkName.isEmpty()) {
+                                // decorations are outdated as soon as the table is edited
+                                DataManager dataManager = layer.getDataManager();
+                                StrokeCache candidate = new StrokeCache(pkName);
+                                if (dataManager.addTableEditListener(table, candidate)) {
+                                        cache = candidate;
+                                } else {
+                                        dataManager.removeTableEditListener(table, candidate);
+                                        LOGGER.warn(I18N.tr("The edits of {0} can't be monitored, its stroke decorations are not kept", table));
+                                }
+                        }
+                        STROKE_CACHES.put(layer, cache);
+                        return cache;
+                }
+        }
+
+        /**
+         * Forgets the stroke decorations of {@code layer}, and stops
+         * monitoring the edits of its table for them.
+         * @param layer
+         */
+        public static void releaseStrokeCache(ILayer layer) {
+                StrokeCache cache;
+                synchronized (STROKE_CACHES) {
+                        cache = STROKE_CACHES.remove(layer);
+                }
+                if (cache != null) {
+                        layer.getDataManager().removeTableEditListener(layer.getTableReference(), cache);
+                        cache.clear();
+                }
+        }
+
         private boolean drawFeature(Symbolizer s, Geometry geom, ResultSet rs,
                         Integer originalIndex, Envelope extent, boolean selected,
                         MapTransform mt) throws ParameterException,
@@ -278,7 +393,12 @@ public abstract class Renderer {
                 if(somethingReached || theGeom != null){
                         Graphics2D g2S;
                         g2S = getGraphics2D(s);
-                        s.draw(g2S, rs, originalIndex, selected, mt, theGeom);
+                        if (labelPlacement != null && s instanceof TextSymbolizer) {
+                                ((TextSymbolizer) s).collectLabels(labelPlacement, g2S, rs,
+                                        originalIndex, selected, mt, theGeom);
+                        } else {
+                                s.draw(g2S, rs, originalIndex, selected, mt, theGeom);
+                        }
                         releaseGraphics2D(g2S);
                         return true;
                 }else {
@@ -361,26 +481,44 @@ public abstract class Renderer {
                 } else {
                     pm = progressMonitor.startTask(numLayers);
                 }
-                for (int i = numLayers - 1; i >= 0; i--) {
-                        if (pm.isCancelled()) {
-                                break;
-                        } else {
-                                ILayer layer = layers[i];
-                                if (layer.isVisible() && extent.intersects(layer.getEnvelope())) {
-                                        try {
-                                                if (layer.isStream()) {
-                                                    drawStreamLayer(g2, layer, width, height, extent, pm);
-                                                } else if(layer.isVectorial()) {
-                                                    drawVector(g2, mt, layer, pm);
+                // The labels of all layers are placed and drawn once the
+                // other symbols are rendered, so that they do not overlap
+                labelPlacement = isPlacingLabels() ? new LabelPlacement(width, height) : null;
+                try {
+                        for (int i = numLayers - 1; i >= 0; i--) {
+                                if (pm.isCancelled()) {
+                                        break;
+                                } else {
+                                        ILayer layer = layers[i];
+                                        if (layer.isVisible() && extent.intersects(layer.getEnvelope())) {
+                                                if (labelPlacement != null) {
+                                                        labelPlacement.nextLevel();
+                                                }
+                                                try {
+                                                        if (layer.isStream()) {
+                                                            drawStreamLayer(g2, layer, width, height, extent, pm);
+                                                        } else if(layer.isVectorial()) {
+                                                            drawVector(g2, mt, layer, pm);
+                                                        }
+                                                        // TODO
+                                                        // if (layer.isRaster()) {
+                                                        // this.drawRaster(g2, mt, layer,width,height, pm, perm);
+                                                } catch (SQLException | LayerException e) {
+                                                        LOGGER.error(I18N.tr("Layer {0} not drawn",layer.getName()), e);
                                                 }
-                                                // TODO
-                                                // if (layer.isRaster()) {
-                                                // this.drawRaster(g2, mt, layer,width,height, pm, perm);
-                                        } catch (SQLException | LayerException e) {
-                                                LOGGER.error(I18N.tr("Layer {0} not drawn",layer.getName()), e);
                                         }
                                 }
                         }
+                        if (labelPlacement != null && !pm.isCancelled()) {
+                                Graphics2D labels = getLabelGraphics2D(g2, mt);
+                                try {
+                                        labelPlacement.drawLabels(labels, mt);
+                                } finally {
+                                        releaseLabelGraphics2D(labels);
+                                }
+                        }
+                } finally {
+                        labelPlacement = null;
                 }
         }
 
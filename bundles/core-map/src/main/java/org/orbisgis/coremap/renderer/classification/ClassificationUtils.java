@@ -61,7 +61,9 @@ public class ClassificationUtils {
      * @return
      * @throws SQLException
      * @throws ParameterException
+     * @deprecated The whole column is loaded in memory, use {@link FieldStatistics} instead.
      */
+    @Deprecated
     public static List<Double> getSortedValues(Connection connection, String table, RealParameter value)
             throws SQLException, ParameterException {
         List<Double> values = new ArrayList<>();
@@ -97,4 +99,48 @@ public class ClassificationUtils {
         }
         return minAndMax;
     }
+
+    /**
+     * Gets at most {@code limit} distinct non null values of {@code field} in
+     * {@code table}, from the most to the least frequent. Values are grouped
+     * by the database, only the returned ones are transferred.
+     *
+     * @param connection SQL Connection
+     * @param table      Table identifier
+     * @param field      Field
+     * @param limit      Maximum number of values
+     * @return The most frequent values, as String instances.
+     * @throws SQLException
+     */
+    public static List<String> getMostFrequentValues(Connection connection, String table, String field, int limit)
+            throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            return getMostFrequentValues(st, table, field, limit);
+        }
+    }
+
+    /**
+     * Gets at most {@code limit} distinct non null values of {@code field} in
+     * {@code table}, from the most to the least frequent, using the given
+     * statement so that the caller can cancel the query.
+     *
+     * @param st         SQL Statement
+     * @param table      Table identifier
+     * @param field      Field
+     * @param limit      Maximum number of values
+     * @return The most frequent values, as String instances.
+     * @throws SQLException
+     */
+    public static List<String> getMostFrequentValues(Statement st, String table, String field, int limit)
+            throws SQLException {
+        List<String> values = new ArrayList<>();
+        String column = TableLocation.quoteIdentifier(field);
+        try (ResultSet rs = st.executeQuery("SELECT " + column + " fieldName, COUNT(*) cnt FROM " + table +
+                " WHERE " + column + " IS NOT NULL GROUP BY fieldName ORDER BY cnt DESC, fieldName LIMIT " + limit)) {
+            while (rs.next()) {
+                values.add(rs.getString(1));
+            }
+        }
+        return values;
+    }
 }
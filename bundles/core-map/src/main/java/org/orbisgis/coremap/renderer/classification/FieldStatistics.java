@@ -0,0 +1,314 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.classification;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.h2gis.utilities.TableLocation;
+
+/**
+ * Statistics on a numeric field, used to build classifications.
+ *
+ * <p>The count, extrema, mean and standard deviation are computed by the
+ * database. The quantiles and the means of value ranges are computed on the
+ * field values gathered in a single streaming pass: all of them if the
+ * table has less than {@link #SAMPLE_SIZE} non null values, a uniform random
+ * sample of {@link #SAMPLE_SIZE} values otherwise. The memory used does not
+ * depend on the size of the table.</p>
+ *
+ * <p>Null values are ignored.</p>
+ */
+public final class FieldStatistics {
+
+    /**
+     * Maximum number of values kept to estimate quantiles and range means.
+     */
+    public static final int SAMPLE_SIZE = 100000;
+    /**
+     * The sample is drawn with a fixed seed, so that a classification built
+     * twice on the same data gives the same thresholds.
+     */
+    private static final long SEED = 42L;
+    private static final int FETCH_SIZE = 1000;
+
+    private final long count;
+    private final double min;
+    private final double max;
+    private final double mean;
+    private final double standardDeviation;
+    private final boolean exact;
+    /**
+     * The sorted values, or a sorted sample of them.
+     */
+    private final double[] values;
+    /**
+     * sums[i] is the sum of the i first entries of values.
+     */
+    private final double[] sums;
+
+    private FieldStatistics(long count, double min, double max, double mean, double standardDeviation,
+                double[] values, boolean exact) {
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.standardDeviation = standardDeviation;
+        this.exact = exact;
+        Arrays.sort(values);
+        this.values = values;
+        sums = new double[values.length + 1];
+        for (int i = 0; i < values.length; i++) {
+            sums[i + 1] = sums[i] + values[i];
+        }
+    }
+
+    /**
+     * Computes the statistics of {@code field} in {@code table}.
+     * @param connection SQL Connection
+     * @param table      Table identifier
+     * @param field      Field name
+     * @return The statistics of the field
+     * @throws SQLException
+     */
+    public static FieldStatistics compute(Connection connection, String table, String field) throws SQLException {
+        return compute(connection, table, field, SAMPLE_SIZE);
+    }
+
+    /**
+     * Computes the statistics of {@code field} in {@code table}, using at most
+     * {@code sampleSize} values to estimate the quantiles.
+     * @param connection SQL Connection
+     * @param table      Table identifier
+     * @param field      Field name
+     * @param sampleSize The maximum number of values kept in memory
+     * @return The statistics of the field
+     * @throws SQLException
+     */
+    public static FieldStatistics compute(Connection connection, String table, String field, int sampleSize)
+            throws SQLException {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("The sample size must be positive");
+        }
+        String column = "CAST(" + TableLocation.quoteIdentifier(field) + " AS DOUBLE)";
+        long count = 0;
+        double min = Double.NaN;
+        double max = Double.NaN;
+        double mean = Double.NaN;
+        double stdDev = Double.NaN;
+        try (Statement st = connection.createStatement()) {
+            try (ResultSet rs = st.executeQuery("SELECT COUNT(" + column + "), MIN(" + column + "), MAX(" + column
+                    + "), AVG(" + column + "), STDDEV_SAMP(" + column + ") FROM " + table)) {
+                if (rs.next()) {
+                    count = rs.getLong(1);
+                    if (count > 0) {
+                        min = rs.getDouble(2);
+                        max = rs.getDouble(3);
+                        mean = rs.getDouble(4);
+                        stdDev = count > 1 ? rs.getDouble(5) : 0;
+                    }
+                }
+            }
+            if (count == 0) {
+                return new FieldStatistics(0, min, max, mean, stdDev, new double[0], true);
+            }
+            double[] sample = new double[(int) Math.min(count, sampleSize)];
+            Random random = new Random(SEED);
+            long seen = 0;
+            int filled = 0;
+            st.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = st.executeQuery("SELECT " + column + " FROM " + table + " WHERE "
+                    + TableLocation.quoteIdentifier(field) + " IS NOT NULL")) {
+                while (rs.next()) {
+                    double v = rs.getDouble(1);
+                    if (filled < sample.length) {
+                        sample[filled++] = v;
+                    } else {
+                        // Reservoir sampling : the value replaces a random
+                        // element with probability sample.length / (seen + 1)
+                        long j = (long) (random.nextDouble() * (seen + 1));
+                        if (j < sample.length) {
+                            sample[(int) j] = v;
+                        }
+                    }
+                    seen++;
+                }
+            }
+            if (filled < sample.length) {
+                sample = Arrays.copyOf(sample, filled);
+            }
+            return new FieldStatistics(count, min, max, mean, stdDev, sample, seen == filled);
+        }
+    }
+
+    /**
+     * Computes the statistics of the given values.
+     * @param values The values, that are not modified.
+     * @return The statistics of the values
+     */
+    public static FieldStatistics fromValues(double... values) {
+        double[] sorted = Arrays.copyOf(values, values.length);
+        int n = sorted.length;
+        if (n == 0) {
+            return new FieldStatistics(0, Double.NaN, Double.NaN, Double.NaN, Double.NaN, sorted, true);
+        }
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double v : sorted) {
+            sum += v;
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        double mean = sum / n;
+        double squares = 0;
+        for (double v : sorted) {
+            squares += (v - mean) * (v - mean);
+        }
+        double stdDev = n > 1 ? Math.sqrt(squares / (n - 1)) : 0;
+        return new FieldStatistics(n, min, max, mean, stdDev, sorted, true);
+    }
+
+    /**
+     * Gets the number of non null values.
+     * @return The number of values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the minimum value, or NaN if there is no value.
+     * @return The minimum
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Gets the maximum value, or NaN if there is no value.
+     * @return The maximum
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the mean of the values, or NaN if there is no value.
+     * @return The mean
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Gets the sample standard deviation of the values.
+     * @return The standard deviation
+     */
+    public double getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    /**
+     * Tells whether the quantiles and range means are computed on all the
+     * values or estimated on a sample.
+     * @return true if all the values have been used.
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Gets the {@code p}th percentile of the values, using the same
+     * estimation as Apache commons-math {@code Percentile}.
+     * @param p The percentile, in ]0, 100]
+     * @return The percentile, or NaN if there is no value.
+     */
+    public double getPercentile(double p) {
+        if (p <= 0 || p > 100) {
+            throw new IllegalArgumentException("The percentile must be in ]0,100]");
+        }
+        int n = values.length;
+        if (n == 0) {
+            return Double.NaN;
+        }
+        if (n == 1) {
+            return values[0];
+        }
+        double pos = p * (n + 1) / 100;
+        double fpos = Math.floor(pos);
+        int intPos = (int) fpos;
+        if (pos < 1) {
+            return values[0];
+        }
+        if (pos >= n) {
+            return values[n - 1];
+        }
+        double lower = values[intPos - 1];
+        double upper = values[intPos];
+        return lower + (pos - fpos) * (upper - lower);
+    }
+
+    /**
+     * Gets the mean of the values that are greater than or equal to
+     * {@code lower} and strictly lower than {@code upper}.
+     * @param lower The inclusive lower bound
+     * @param upper The exclusive upper bound
+     * @return The mean of the range, or NaN if it is empty.
+     */
+    public double getRangeMean(double lower, double upper) {
+        int from = lowerBound(lower);
+        int to = lowerBound(upper);
+        if (to <= from) {
+            return Double.NaN;
+        }
+        return (sums[to] - sums[from]) / (to - from);
+    }
+
+    /**
+     * Gets the index of the first value that is greater than or equal to {@code v}.
+     */
+    private int lowerBound(double v) {
+        int lo = 0;
+        int hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < v) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -57,6 +57,7 @@ import org.orbisgis.coremap.renderer.se.parameter.real.RealParameter;
 import org.orbisgis.coremap.renderer.se.parameter.real.RealParameterContext;
 import org.orbisgis.coremap.renderer.se.stroke.PenStroke;
 import org.orbisgis.coremap.renderer.se.stroke.Stroke;
+import org.orbisgis.coremap.renderer.se.stroke.StrokeCache;
 import org.orbisgis.coremap.renderer.se.transform.Translate;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
@@ -167,6 +168,7 @@ public final class AreaSymbolizer extends VectorSymbolizer implements FillNode,
         public void setTranslate(Translate translate) {
                 this.translate = translate;
                 //translate.setParent(this);
+                update();
         }
 
         /**
@@ -233,7 +235,7 @@ public final class AreaSymbolizer extends VectorSymbolizer implements FillNode,
                                                 offset = Uom.toPixel(perpendicularOffset.getValue(rs, fid),
                                                         getUom(), mt.getDpi(), mt.getScaleDenominator(), null);
                                         }
-                                        stroke.draw(g2, map, shp, selected, mt, offset);
+                                        StrokeCache.draw(g2, stroke, rs, map, shp, selected, mt, offset);
                                 }
                         }
                 }
@@ -54,6 +54,7 @@ import org.orbisgis.coremap.renderer.se.parameter.real.RealParameter;
 import org.orbisgis.coremap.renderer.se.parameter.real.RealParameterContext;
 import org.orbisgis.coremap.renderer.se.stroke.PenStroke;
 import org.orbisgis.coremap.renderer.se.stroke.Stroke;
+import org.orbisgis.coremap.renderer.se.stroke.StrokeCache;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
@@ -176,7 +177,7 @@ public final class LineSymbolizer extends VectorSymbolizer implements StrokeNode
 
 
                         if (shp != null) {
-                                stroke.draw(g2, map, shp, selected, mt, offset);
+                                StrokeCache.draw(g2, stroke, rs, map, shp, selected, mt, offset);
 
                         }
                 }
@@ -0,0 +1,119 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.orbisgis.coremap.renderer.se.visitors.FeaturesVisitor;
+
+/**
+ * Least recently used images of a symbolizer node that does not depend on
+ * the features.
+ *
+ * When none of the parameters of a node depends on the features, what it
+ * draws only depends on the rendering state (scale, resolution, selection...)
+ * : it can be rendered once for each state and reused for every feature. The
+ * last {@code maxEntries} rendered states are kept. The rendering itself is
+ * done by the caller, outside of the lock of the cache.
+ * @param <K> The rendering state.
+ * @param <V> The rendered value.
+ */
+public abstract class RenderingCache<K, V> {
+
+    private final SymbolizerNode node;
+    private final Map<K, V> entries;
+    private Boolean constant;
+
+    /**
+     * Builds the cache of {@code node}.
+     * @param node
+     * @param maxEntries The maximum number of rendered states kept.
+     */
+    protected RenderingCache(SymbolizerNode node, final int maxEntries) {
+        this.node = node;
+        entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Forgets the rendered values, and whether the node depends on the
+     * features. It must be called each time the node changes.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        constant = null;
+    }
+
+    /**
+     * Checks whether the node can use the cache, i.e. if none of its
+     * parameters depends on the features.
+     * @return
+     */
+    public synchronized boolean isConstant() {
+        if (constant == null) {
+            FeaturesVisitor fv = new FeaturesVisitor();
+            node.acceptVisitor(fv);
+            constant = fv.getResult().isEmpty();
+        }
+        return constant;
+    }
+
+    /**
+     * Checks whether a value, that may be null, has been kept for {@code key}.
+     * @param key
+     * @return
+     */
+    public synchronized boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Gets the value rendered for the given key.
+     * @param key
+     * @return The value, or null if it has not been rendered yet.
+     */
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Keeps the value rendered for {@code key}. Values are rendered outside
+     * of the lock : the last rendered one wins.
+     * @param key
+     * @param value
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+}
@@ -36,6 +36,7 @@ import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.xml.bind.JAXBElement;
 import net.opengis.se._2_0.core.*;
 import net.opengis.se._2_0.raster.RasterSymbolizerType;
@@ -67,7 +68,13 @@ public abstract class Symbolizer extends AbstractSymbolizerNode implements Symbo
     protected int level;
     private Set<String> features;
     private Map<String,Object> featuresMap;
+    // Columns of features in featuresSource, resolved once per ResultSet
+    private ResultSet featuresSource;
+    private String[] featuresNames;
+    private int[] featuresColumns;
     private FeaturesVisitor featuresVisitor = new FeaturesVisitor();
+    // Incremented each time the symbolizer, or one of its children, changes
+    private final AtomicInteger revision = new AtomicInteger();
 
     /**
      * Build an empty Symbolizer, with the default name and no description.
@@ -253,7 +260,9 @@ public abstract class Symbolizer extends AbstractSymbolizerNode implements Symbo
      * Map<String,Object>}. This method is based on {@see
      * SymbolizerNode#dependsOnFeature()}. Using the field names retrieved with
      * this method, we search for {@code Values} at index {@code fid} in {@code
-     * sds}.
+     * sds}. The indexes of the needed columns are resolved once for a given
+     * {@code ResultSet}, so that all the values of a feature are fetched in a
+     * single pass, by index.
      * @param sds
      * @param fid
      * @return
@@ -268,19 +277,53 @@ public abstract class Symbolizer extends AbstractSymbolizerNode implements Symbo
             featuresMap = new HashMap<String,Object>();
         }
         if(sds != null) {
-            for(String s : features){
-                featuresMap.put(s, sds.getObject(s));
+            if(sds != featuresSource || featuresColumns == null){
+                featuresNames = features.toArray(new String[features.size()]);
+                featuresColumns = new int[featuresNames.length];
+                for(int i = 0; i < featuresNames.length; i++){
+                    featuresColumns[i] = sds.findColumn(featuresNames[i]);
+                }
+                featuresSource = sds;
+            }
+            for(int i = 0; i < featuresColumns.length; i++){
+                featuresMap.put(featuresNames[i], sds.getObject(featuresColumns[i]));
             }
         }
         return featuresMap;
     }
 
+    /**
+     * Forgets the {@code ResultSet} the features have been read from, and the
+     * values of the last feature. It must be called when the rendering ends,
+     * so that the symbolizer does not hold the result set.
+     */
+    public void releaseFeatures(){
+            featuresSource = null;
+            featuresColumns = null;
+            if(featuresMap != null){
+                    featuresMap.clear();
+            }
+    }
+
     public void refreshFeatures(){
             features = null;
+            featuresColumns = null;
+            featuresSource = null;
+    }
+
+    /**
+     * Gets the revision of this symbolizer. It changes each time the
+     * symbolizer or one of its children is updated, so that what has been
+     * computed from it before can be recognized as outdated.
+     * @return
+     */
+    public int getRevision(){
+            return revision.get();
     }
 
     @Override
     public void update(){
+            revision.incrementAndGet();
             refreshFeatures();
             if(getParent() != null){
                 getParent().update();
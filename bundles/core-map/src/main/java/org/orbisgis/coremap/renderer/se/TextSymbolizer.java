@@ -46,6 +46,7 @@ import org.orbisgis.coremap.renderer.se.SeExceptions.InvalidStyle;
 import org.orbisgis.coremap.renderer.se.common.ShapeHelper;
 import org.orbisgis.coremap.renderer.se.common.Uom;
 import org.orbisgis.coremap.renderer.se.label.Label;
+import org.orbisgis.coremap.renderer.se.label.LabelPlacement;
 import org.orbisgis.coremap.renderer.se.label.PointLabel;
 import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
 import org.orbisgis.coremap.renderer.se.parameter.SeParameterFactory;
@@ -152,23 +153,51 @@ public final class TextSymbolizer extends VectorSymbolizer {
         public void draw(Graphics2D g2, ResultSet rs, long fid,
                 boolean selected, MapTransform mt, Geometry the_geom)
                 throws ParameterException, IOException, SQLException {
-                Shape shape = this.getShape(rs, fid, mt, the_geom, false);
                 Map<String,Object> map = getFeaturesMap(rs, fid);
-                if (shape != null) {
-                        List<Shape> shps;
-                        if (perpendicularOffset != null) {
-                                Double pOffset = perpendicularOffset.getValue(map);
-                                shps = ShapeHelper.perpendicularOffset(shape, pOffset);
-                        } else {
-                                shps = new LinkedList<Shape>();
-                                shps.add(shape);
-                        }
-                        for (Shape s : shps) {
-                                label.draw(g2, map, s, selected, mt);
-                        }
+                for (Shape s : getLabelShapes(rs, fid, mt, the_geom, map)) {
+                        label.draw(g2, map, s, selected, mt);
                 }
+        }
 
+        /**
+         * Gives the labels of a feature to the deferred labeling stage instead
+         * of drawing them. They will be drawn by {@link LabelPlacement#drawLabels(Graphics2D, MapTransform)}
+         * if they do not collide with other labels.
+         * @param placement The labeling stage of the current map
+         * @param g2 The graphics the labels would be drawn with
+         * @param rs The input feature set
+         * @param fid The index of the feature
+         * @param selected If true, the feature has been selected
+         * @param mt The current MapTransform
+         * @param the_geom The geometry of the feature, if already known
+         * @throws ParameterException
+         * @throws IOException
+         * @throws SQLException
+         */
+        public void collectLabels(LabelPlacement placement, Graphics2D g2, ResultSet rs, long fid,
+                boolean selected, MapTransform mt, Geometry the_geom)
+                throws ParameterException, IOException, SQLException {
+                Map<String,Object> map = getFeaturesMap(rs, fid);
+                for (Shape s : getLabelShapes(rs, fid, mt, the_geom, map)) {
+                        placement.add(label.getCandidate(g2, map, s, selected, mt));
+                }
+        }
 
+        private List<Shape> getLabelShapes(ResultSet rs, long fid, MapTransform mt,
+                Geometry the_geom, Map<String,Object> map)
+                throws ParameterException, IOException, SQLException {
+                Shape shape = this.getShape(rs, fid, mt, the_geom, false);
+                List<Shape> shps;
+                if (shape == null) {
+                        shps = new LinkedList<Shape>();
+                } else if (perpendicularOffset != null) {
+                        Double pOffset = perpendicularOffset.getValue(map);
+                        shps = ShapeHelper.perpendicularOffset(shape, pOffset);
+                } else {
+                        shps = new LinkedList<Shape>();
+                        shps.add(shape);
+                }
+                return shps;
         }
 
         @Override
@@ -94,6 +94,7 @@ public abstract class VectorSymbolizer extends Symbolizer implements UomNode {
          */
         public final void setGeometryAttribute(GeometryAttribute theGeom) {
                 this.theGeom = theGeom;
+                update();
         }
 
         /**
@@ -335,5 +336,6 @@ public abstract class VectorSymbolizer extends Symbolizer implements UomNode {
                 } else {
                         this.uom = Uom.PX;
                 }
+                update();
         }
 }
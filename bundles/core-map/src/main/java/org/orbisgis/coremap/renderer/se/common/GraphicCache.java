@@ -0,0 +1,402 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.common;
+
+import com.kitfox.svg.app.beans.SVGIcon;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.DataBuffer;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.media.jai.InterpolationBicubic2;
+import javax.media.jai.JAI;
+import javax.media.jai.PlanarImage;
+import javax.media.jai.RenderedOp;
+import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
+
+/**
+ * Process-wide cache of the graphics loaded by {@link OnlineResource} and
+ * {@link VariableOnlineResource}.
+ *
+ * The same files are used by many symbolizers, legend previews and features :
+ * they are downloaded and decoded once, and the raster images are also kept at
+ * the pixel sizes they are drawn with. The rotation of a graphic is applied when
+ * drawing it, so it is not part of the keys, but the rendering hints the images
+ * are resampled with are. The cache is bounded by an
+ * estimation of the memory used by its entries, and forgets the least recently
+ * used ones first.
+ */
+public final class GraphicCache {
+
+    /**
+     * Default memory budget of the cache, in bytes.
+     */
+    public static final long DEFAULT_BUDGET = 64L * 1024 * 1024;
+    /**
+     * Estimation of the memory used by a font or by a parsed SVG document
+     * without any raster size, in bytes.
+     */
+    static final long DEFAULT_WEIGHT = 64L * 1024;
+    private static final Logger LOGGER = Logger.getLogger(GraphicCache.class.getName());
+    // rendering hints that change the resampling of a scaled image
+    private static final RenderingHints.Key[] SCALING_HINTS = new RenderingHints.Key[]{
+        RenderingHints.KEY_INTERPOLATION, RenderingHints.KEY_RENDERING,
+        JAI.KEY_INTERPOLATION, JAI.KEY_BORDER_EXTENDER};
+    private static final Map<Key, Entry> CACHE = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+    private static long budget = DEFAULT_BUDGET;
+    private static long size = 0;
+
+    private GraphicCache() {
+    }
+
+    /**
+     * Gets the decoded raster image stored at {@code uri}.
+     * @param uri
+     * @return
+     * The image, shared by all the callers.
+     * @throws ParameterException
+     * If the image can't be read.
+     */
+    public static PlanarImage getImage(URI uri) throws ParameterException {
+        Key key = new Key(Kind.IMAGE, uri, 0, 0);
+        PlanarImage img = (PlanarImage) get(key);
+        if (img == null) {
+            try {
+                RenderedOp raw = JAI.create("url", uri.toURL());
+                LOGGER.log(Level.INFO, "Download ExternalGraphic from: {0}", uri);
+                img = PlanarImage.wrapRenderedImage(raw.getAsBufferedImage());
+            } catch (Exception ex) {
+                throw new ParameterException("Can't process the input URL", ex);
+            }
+            put(key, img, sizeOf(img));
+        }
+        return img;
+    }
+
+    /**
+     * Gets the raster image stored at {@code uri}, resampled to {@code width}
+     * x {@code height} pixels.
+     * @param uri
+     * @param width
+     * @param height
+     * @param hints
+     * The rendering hints used to resample the image.
+     * @return
+     * The resampled image, shared by all the callers.
+     * @throws ParameterException
+     * If the image can't be read.
+     */
+    public static RenderedImage getScaledImage(URI uri, int width, int height,
+            RenderingHints hints) throws ParameterException {
+        Object[] scaling = new Object[SCALING_HINTS.length];
+        for (int i = 0; hints != null && i < scaling.length; i++) {
+            scaling[i] = hints.get(SCALING_HINTS[i]);
+        }
+        Key key = new Key(Kind.SCALED_IMAGE, uri, width, height, scaling);
+        RenderedImage img = (RenderedImage) get(key);
+        if (img == null) {
+            PlanarImage raw = getImage(uri);
+            float ratioX = (float) width / raw.getWidth();
+            float ratioY = (float) height / raw.getHeight();
+            RenderedOp op;
+            if (ratioX > 1.0 || ratioY > 1.0) {
+                op = JAI.create("scale", raw, ratioX, ratioY, 0.0f, 0.0f,
+                        InterpolationBicubic2.getInstance(InterpolationBicubic2.INTERP_BICUBIC_2),
+                        hints);
+            } else {
+                op = JAI.create("SubsampleAverage", raw, (double) ratioX, (double) ratioY, hints);
+            }
+            img = op.getAsBufferedImage();
+            put(key, img, sizeOf(img));
+        }
+        return img;
+    }
+
+    /**
+     * Gets the SVG document stored at {@code uri}.
+     * @param uri
+     * @return
+     * The document, shared by all the callers.
+     */
+    public static SvgGraphic getSvg(URI uri) {
+        Key key = new Key(Kind.SVG, uri, 0, 0);
+        SvgGraphic svg = (SvgGraphic) get(key);
+        if (svg == null) {
+            SVGIcon icon = new SVGIcon();
+            icon.setSvgURI(uri);
+            icon.setAntiAlias(true);
+            svg = new SvgGraphic(icon);
+            put(key, svg, Math.max(DEFAULT_WEIGHT, 4L * icon.getIconWidth() * icon.getIconHeight()));
+        }
+        return svg;
+    }
+
+    /**
+     * Gets the TrueType font stored at {@code uri}.
+     * @param uri
+     * @return
+     * The font, shared by all the callers.
+     * @throws IOException
+     * @throws FontFormatException
+     */
+    public static Font getFont(URI uri) throws IOException, FontFormatException {
+        Key key = new Key(Kind.FONT, uri, 0, 0);
+        Font font = (Font) get(key);
+        if (font == null) {
+            try (InputStream iStream = uri.toURL().openStream()) {
+                font = Font.createFont(Font.TRUETYPE_FONT, iStream);
+            }
+            put(key, font, DEFAULT_WEIGHT);
+        }
+        return font;
+    }
+
+    /**
+     * Gets the maximum memory used by the cache, in bytes.
+     * @return
+     */
+    public static long getBudget() {
+        synchronized (CACHE) {
+            return budget;
+        }
+    }
+
+    /**
+     * Sets the maximum memory used by the cache, in bytes.
+     * @param bytes
+     */
+    public static void setBudget(long bytes) {
+        synchronized (CACHE) {
+            budget = bytes;
+            evict();
+        }
+    }
+
+    /**
+     * Gets the estimated memory currently used by the cache, in bytes.
+     * @return
+     */
+    public static long getSize() {
+        synchronized (CACHE) {
+            return size;
+        }
+    }
+
+    /**
+     * Empties the cache.
+     */
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+            size = 0;
+        }
+    }
+
+    private static Object get(Key key) {
+        synchronized (CACHE) {
+            Entry e = CACHE.get(key);
+            return e == null ? null : e.value;
+        }
+    }
+
+    /**
+     * Registers a loaded graphic. Graphics are loaded outside of the lock : if
+     * two threads load the same one, the last one wins.
+     */
+    private static void put(Key key, Object value, long bytes) {
+        synchronized (CACHE) {
+            Entry old = CACHE.put(key, new Entry(value, bytes));
+            if (old != null) {
+                size -= old.bytes;
+            }
+            size += bytes;
+            evict();
+        }
+    }
+
+    /**
+     * Forgets the least recently used graphics until the budget is respected.
+     * The most recent graphic is kept even if it is bigger than the budget.
+     */
+    private static void evict() {
+        Iterator<Entry> it = CACHE.values().iterator();
+        while (size > budget && CACHE.size() > 1 && it.hasNext()) {
+            size -= it.next().bytes;
+            it.remove();
+        }
+    }
+
+    /**
+     * Estimates the memory used by the pixels of {@code img}.
+     * @param img
+     * @return
+     */
+    static long sizeOf(RenderedImage img) {
+        SampleModel sm = img.getSampleModel();
+        long bits = (long) DataBuffer.getDataTypeSize(sm.getDataType()) * sm.getNumBands();
+        return Math.max(1, (long) img.getWidth() * img.getHeight() * bits / 8);
+    }
+
+    /**
+     * A parsed SVG document. Its natural size is kept apart from the icon, as
+     * the icon reports the size it has been drawn with last.
+     */
+    public static final class SvgGraphic {
+
+        private final SVGIcon icon;
+        private final double width;
+        private final double height;
+
+        SvgGraphic(SVGIcon icon) {
+            this.icon = icon;
+            this.width = icon.getIconWidth();
+            this.height = icon.getIconHeight();
+        }
+
+        /**
+         * Gets the underlying icon. It is shared : its state must not be
+         * changed.
+         * @return
+         */
+        public SVGIcon getIcon() {
+            return icon;
+        }
+
+        /**
+         * Gets the natural width of the document.
+         * @return
+         */
+        public double getWidth() {
+            return width;
+        }
+
+        /**
+         * Gets the natural height of the document.
+         * @return
+         */
+        public double getHeight() {
+            return height;
+        }
+
+        /**
+         * Draws the document centered on the origin of {@code at}.
+         * @param g2
+         * @param at
+         * @param w
+         * The width of the drawn document, in pixels.
+         * @param h
+         * The height of the drawn document, in pixels.
+         */
+        public void paint(Graphics2D g2, AffineTransform at, double w, double h) {
+            AffineTransform fat = new AffineTransform(at);
+            fat.concatenate(AffineTransform.getTranslateInstance(-w / 2, -h / 2));
+            AffineTransform atMedia = new AffineTransform(g2.getTransform());
+            g2.transform(fat);
+            // the icon is shared by all the renderers
+            synchronized (icon) {
+                icon.setPreferredSize(new Dimension((int) (w + 0.5), (int) (h + 0.5)));
+                icon.setScaleToFit(true);
+                icon.paintIcon((Component) null, g2, 0, 0);
+            }
+            g2.setTransform(atMedia);
+        }
+    }
+
+    private enum Kind {
+
+        IMAGE, SCALED_IMAGE, SVG, FONT
+    }
+
+    private static final class Key {
+
+        private final Kind kind;
+        private final URI uri;
+        private final int width;
+        private final int height;
+        // values of the scaling hints, null if they do not apply
+        private final Object[] hints;
+
+        Key(Kind kind, URI uri, int width, int height) {
+            this(kind, uri, width, height, null);
+        }
+
+        Key(Kind kind, URI uri, int width, int height, Object[] hints) {
+            this.kind = kind;
+            this.uri = uri;
+            this.width = width;
+            this.height = height;
+            this.hints = hints;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return kind == other.kind && uri.equals(other.uri)
+                    && width == other.width && height == other.height
+                    && Arrays.equals(hints, other.hints);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = kind.hashCode();
+            h = 31 * h + uri.hashCode();
+            h = 31 * h + width;
+            h = 31 * h + height;
+            return 31 * h + Arrays.hashCode(hints);
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final long bytes;
+
+        Entry(Object value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
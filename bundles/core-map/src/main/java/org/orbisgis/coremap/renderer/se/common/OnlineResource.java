@@ -38,7 +38,6 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
@@ -48,7 +47,6 @@ import java.util.logging.Logger;
 import javax.media.jai.InterpolationBicubic2;
 import javax.media.jai.JAI;
 import javax.media.jai.PlanarImage;
-import javax.media.jai.RenderedOp;
 import net.opengis.ows._2.OnlineResourceType;
 import net.opengis.se._2_0.core.ExternalGraphicType;
 import net.opengis.se._2_0.core.MarkGraphicType;
@@ -77,19 +75,14 @@ public class OnlineResource extends AbstractSymbolizerNode implements ExternalGr
 
 
     private URI uri;
-    private PlanarImage rawImage;
-    private SVGIcon svgIcon;
     private Double effectiveWidth;
     private Double effectiveHeight;
-    private Double svgInitialWidth;
-    private Double svgInitialHeight;
 
     /**
      * Build a new {@code OnlineResource}
      */
     public OnlineResource() {
         uri = null;
-        svgIcon = null;
     }
 
     /**
@@ -101,7 +94,6 @@ public class OnlineResource extends AbstractSymbolizerNode implements ExternalGr
      */
     public OnlineResource(String url) throws URISyntaxException {
         this.uri = new URI(url);
-        svgIcon = null;
     }
 
     /**
@@ -114,7 +106,6 @@ public class OnlineResource extends AbstractSymbolizerNode implements ExternalGr
      */
     public OnlineResource(OnlineResourceType onlineResource) throws URISyntaxException {
         this.uri = new URI(onlineResource.getHref());
-        svgIcon = null;
     }
 
     /**
@@ -150,14 +141,7 @@ public class OnlineResource extends AbstractSymbolizerNode implements ExternalGr
      * @throws ParameterException
      */
     public Rectangle2D.Double getJAIBounds(ViewBox viewBox, Map<String,Object> map, MapTransform mt, String mimeType) throws ParameterException {
-        try {
-            if (rawImage == null) {
-                rawImage = JAI.create("url", uri);
-                Logger.getLogger(OnlineResource.class.getName()).log(Level.INFO, "Download ExternalGraphic from: {0}", uri);
-            }
-        } catch (Exception ex) {
-            throw new ParameterException(ex);
-        }
+        PlanarImage rawImage = GraphicCache.getImage(uri);
 
         double width = rawImage.getWidth();
         double height = rawImage.getHeight();
@@ -200,17 +184,9 @@ public class OnlineResource extends AbstractSymbolizerNode implements ExternalGr
      */
     public Rectangle2D.Double getSvgBounds(ViewBox viewBox, Map<String,Object> map,
             MapTransform mt, String mimeType) throws ParameterException {
-            /*
-             * Fetch SVG if not already done
-             */
-            if (svgIcon == null) {
-                svgIcon = new SVGIcon();
-                svgIcon.setSvgURI(uri);
-                svgIcon.setAntiAlias(true);
-
-                this.svgInitialHeight = (double) svgIcon.getIconHeight();
-                this.svgInitialWidth = (double) svgIcon.getIconWidth();
-            }
+            GraphicCache.SvgGraphic svg = GraphicCache.getSvg(uri);
+            double svgInitialWidth = svg.getWidth();
+            double svgInitialHeight = svg.getHeight();
 
             if (viewBox != null && mt != null && viewBox.usable()) {
                 FeaturesVisitor fv = new FeaturesVisitor();
@@ -261,21 +237,12 @@ public class OnlineResource extends AbstractSymbolizerNode implements ExternalGr
      * @param opacity
      */
     public void drawSVG(Graphics2D g2, AffineTransform at, double opacity) {
-        AffineTransform fat = new AffineTransform(at);
-
+        GraphicCache.SvgGraphic svg = GraphicCache.getSvg(uri);
         if (effectiveHeight != null && effectiveWidth != null) {
-            svgIcon.setPreferredSize(new Dimension((int) (effectiveWidth + 0.5), (int) (effectiveHeight + 0.5)));
-            fat.concatenate(AffineTransform.getTranslateInstance(-effectiveWidth / 2, -effectiveHeight / 2));
+            svg.paint(g2, at, effectiveWidth, effectiveHeight);
         } else {
-            svgIcon.setPreferredSize(new Dimension((int) (svgInitialWidth + 0.5), (int) (svgInitialHeight + 0.5)));
-            fat.concatenate(AffineTransform.getTranslateInstance(-svgInitialWidth / 2, -svgInitialHeight / 2));
+            svg.paint(g2, at, svg.getWidth(), svg.getHeight());
         }
-        svgIcon.setScaleToFit(true);
-        AffineTransform atMedia = new AffineTransform(g2.getTransform());
-        g2.transform(fat);
-
-        svgIcon.paintIcon((Component) null, g2, 0, 0);
-        g2.setTransform(atMedia);
     }
 
     /**
@@ -285,27 +252,20 @@ public class OnlineResource extends AbstractSymbolizerNode implements ExternalGr
      * @param at
      * @param mt
      * @param opacity
+     * @throws ParameterException
      */
-    public void drawJAI(Graphics2D g2, AffineTransform at, MapTransform mt, double opacity) {
+    public void drawJAI(Graphics2D g2, AffineTransform at, MapTransform mt, double opacity)
+            throws ParameterException {
         AffineTransform fat = new AffineTransform(at);
+        PlanarImage rawImage = GraphicCache.getImage(uri);
         double width = rawImage.getWidth();
         double height = rawImage.getHeight();
 
         if (effectiveHeight != null && effectiveWidth != null) {
-            double ratioX = effectiveWidth / width;
-            double ratioY = effectiveHeight / height;
-
-            RenderedOp img;
-
-            if (ratioX > 1.0 || ratioY > 1.0) {
-                img = JAI.create("scale", rawImage,
-                        (float) ratioX, (float) ratioY,
-                        0.0f, 0.0f,
-                        InterpolationBicubic2.getInstance(InterpolationBicubic2.INTERP_BICUBIC_2),
-                        mt.getRenderingHints());
-            } else {
-                img = JAI.create("SubsampleAverage", rawImage, ratioX, ratioY, mt.getRenderingHints());
-            }
+            RenderedImage img = GraphicCache.getScaledImage(uri,
+                    Math.max(1, (int) Math.round(effectiveWidth)),
+                    Math.max(1, (int) Math.round(effectiveHeight)),
+                    mt.getRenderingHints());
             fat.concatenate(AffineTransform.getTranslateInstance(-img.getWidth() / 2.0, -img.getHeight() / 2.0));
             g2.drawRenderedImage(img, fat);
         } else {
@@ -315,7 +275,8 @@ public class OnlineResource extends AbstractSymbolizerNode implements ExternalGr
     }
 
     @Override
-    public void draw(Graphics2D g2, Map<String,Object> map,AffineTransform at, MapTransform mt, double opacity, String mimeType) {
+    public void draw(Graphics2D g2, Map<String,Object> map,AffineTransform at, MapTransform mt, double opacity, String mimeType)
+            throws ParameterException {
         if (mimeType != null && mimeType.equalsIgnoreCase("image/svg+xml")) {
             drawSVG(g2, at, opacity);
         } else {
@@ -378,15 +339,7 @@ public class OnlineResource extends AbstractSymbolizerNode implements ExternalGr
     public PlanarImage getJAIImage(ViewBox viewBox, Map<String,Object> map, MapTransform mt, String mimeType)
             throws IOException, ParameterException {
 
-        try {
-            if (rawImage == null) {
-                rawImage = JAI.create("url", uri);
-                Logger.getLogger(OnlineResource.class.getName()).log(Level.INFO, "Download ExternalGraphic from: {0}", uri);
-            }
-        } catch (Exception ex) {
-            throw new IOException(ex);
-        }
-
+        PlanarImage rawImage = GraphicCache.getImage(uri);
         PlanarImage img = rawImage;
 
 
@@ -450,17 +403,10 @@ public class OnlineResource extends AbstractSymbolizerNode implements ExternalGr
      * otherwise.
      */
     public Font getFont() {
-        InputStream iStream = null;
         try {
-            iStream = uri.toURL().openStream();
-            return Font.createFont(Font.TRUETYPE_FONT, iStream);
+            return GraphicCache.getFont(uri);
         } catch (FontFormatException ex) {
         } catch (IOException ex) {
-        } finally {
-            try {
-                iStream.close();
-            } catch (IOException ex) {
-            }
         }
         return null;
     }
@@ -469,9 +415,7 @@ public class OnlineResource extends AbstractSymbolizerNode implements ExternalGr
             Double dpi, RealParameter markIndex) throws ParameterException, IOException {
 
         try {
-            InputStream iStream = uri.toURL().openStream();
-            Font font = Font.createFont(Font.TRUETYPE_FONT, iStream);
-            iStream.close();
+            Font font = GraphicCache.getFont(uri);
 
             double value = markIndex.getValue(map);
 
@@ -559,9 +503,7 @@ public class OnlineResource extends AbstractSymbolizerNode implements ExternalGr
             /*Double scale, Double dpi,*/ RealParameter markIndex)
             throws IOException, ParameterException {
         try {
-            InputStream iStream = uri.toURL().openStream();
-            Font font = Font.createFont(Font.TRUETYPE_FONT, iStream);
-            iStream.close();
+            Font font = GraphicCache.getFont(uri);
 
             double value = markIndex.getValue(map);
             char[] data = {(char) value};
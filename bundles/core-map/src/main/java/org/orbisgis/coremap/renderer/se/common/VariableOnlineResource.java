@@ -35,8 +35,8 @@ import java.awt.font.TextLayout;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.RenderedImage;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -45,10 +45,7 @@ import java.util.*;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.media.jai.InterpolationBicubic2;
-import javax.media.jai.JAI;
 import javax.media.jai.PlanarImage;
-import javax.media.jai.RenderedOp;
 import net.opengis.se._2_0.core.ExternalGraphicType;
 import net.opengis.se._2_0.core.MarkGraphicType;
 import net.opengis.se._2_0.core.VariableOnlineResourceType;
@@ -69,18 +66,16 @@ import org.orbisgis.coremap.renderer.se.visitors.FeaturesVisitor;
  * This class intends to make the link between an online image and the current symbolizing tree. It can be used for
  * constant symbols and for classification. Indeed, the inner URL is stored in a StringParameter. Consequently, it can
  * be computed through a SE String function.
- * In order to improve performances, this class embeds two image caches : one for SVG images, the other one for raster
- * images. If the underlying StringParameter changes, these caches are emptied in order to avoid incoherences between
- * this class content and what is drawn on the map.
+ * In order to improve performances, the images are loaded through the process-wide {@link GraphicCache}, shared
+ * with all the other symbols. Only the bounds of the images are kept here : if the underlying StringParameter
+ * changes, they are emptied in order to avoid incoherences between this class content and what is drawn on the map.
  * @author Maxence Laurent
  * @author Alexis Guéganno
  */
 public class VariableOnlineResource extends AbstractSymbolizerNode implements ExternalGraphicSource, MarkGraphicSource {
 
     private StringParameter url;
-    private Map<URL,PlanarImage> imageCache = new HashMap<URL,PlanarImage>();
     private Map<URL,Rectangle2D.Double> jaiBounds = new HashMap<URL,Rectangle2D.Double>();
-    private Map<URI,SVGIcon> svgCache = new HashMap<URI,SVGIcon>();
     private Map<URI,Rectangle2D.Double> svgBounds = new HashMap<URI,Rectangle2D.Double>();
 
 
@@ -139,14 +134,8 @@ public class VariableOnlineResource extends AbstractSymbolizerNode implements Ex
      */
     public PlanarImage getPlanarJAI(Map<String, Object> map) throws ParameterException {
         try {
-            URL link = new URL(url.getValue(map));
-            if (!imageCache.containsKey(link)) {
-                PlanarImage raw = JAI.create("url", link);
-                imageCache.put(link, raw);
-                Logger.getLogger(VariableOnlineResource.class.getName()).log(Level.INFO, "Download ExternalGraphic from: {0}", url);
-            }
-            return imageCache.get(link);
-        } catch (Exception ex) {
+            return GraphicCache.getImage(new URI(url.getValue(map)));
+        } catch (URISyntaxException ex) {
             throw new ParameterException("Can't process the input URL",ex);
         }
     }
@@ -196,15 +185,12 @@ public class VariableOnlineResource extends AbstractSymbolizerNode implements Ex
      * @throws ParameterException If the given configuration can't be processed.
      */
     public SVGIcon getSVGIcon(Map<String,Object> map) throws ParameterException {
+        return getSvg(map).getIcon();
+    }
+
+    private GraphicCache.SvgGraphic getSvg(Map<String,Object> map) throws ParameterException {
         try {
-            URI uri = new URI(url.getValue(map));
-            if(!svgCache.containsKey(uri)){
-                SVGIcon svgIcon = new SVGIcon();
-                svgIcon.setSvgURI(new URI(url.getValue(map)));
-                svgIcon.setAntiAlias(true);
-                svgCache.put(uri,svgIcon);
-            }
-            return svgCache.get(uri);
+            return GraphicCache.getSvg(new URI(url.getValue(map)));
         } catch (URISyntaxException e) {
             throw new ParameterException("Can't process the input URI", e);
         }
@@ -223,9 +209,9 @@ public class VariableOnlineResource extends AbstractSymbolizerNode implements Ex
     public Rectangle2D.Double getSvgBounds(ViewBox viewBox,
                                            Map<String,Object> map, MapTransform mt,
                                            String mimeType) throws ParameterException {
-        SVGIcon svgIcon = getSVGIcon(map);
-        double svgInitialHeight = (double) svgIcon.getIconHeight();
-        double svgInitialWidth = (double) svgIcon.getIconWidth();
+        GraphicCache.SvgGraphic svg = getSvg(map);
+        double svgInitialHeight = svg.getHeight();
+        double svgInitialWidth = svg.getWidth();
         if (viewBox != null && mt != null && viewBox.usable()) {
             FeaturesVisitor fv = new FeaturesVisitor();
             viewBox.acceptVisitor(fv);
@@ -285,28 +271,15 @@ public class VariableOnlineResource extends AbstractSymbolizerNode implements Ex
     public void drawSVG(Graphics2D g2, Map<String,Object> map, AffineTransform at, double opacity)
             throws ParameterException {
         try {
-            AffineTransform fat = new AffineTransform(at);
             URI u = new URI(url.getValue(map));
             Rectangle2D.Double rect = svgBounds.get(u);
-            SVGIcon svgIcon = getSVGIcon(map);
+            GraphicCache.SvgGraphic svg = GraphicCache.getSvg(u);
 
             if (rect != null) {
-                double effectiveWidth = rect.getWidth();
-                double effectiveHeight = rect.getHeight();
-                svgIcon.setPreferredSize(new Dimension((int) (effectiveWidth + 0.5), (int) (effectiveHeight + 0.5)));
-                fat.concatenate(AffineTransform.getTranslateInstance(-effectiveWidth / 2, -effectiveHeight / 2));
+                svg.paint(g2, at, rect.getWidth(), rect.getHeight());
             } else {
-                double svgInitialWidth = svgIcon.getIconWidth();
-                double svgInitialHeight = svgIcon.getIconHeight();
-                svgIcon.setPreferredSize(new Dimension((int) (svgInitialWidth + 0.5), (int) (svgInitialHeight + 0.5)));
-                fat.concatenate(AffineTransform.getTranslateInstance(-svgInitialWidth / 2, -svgInitialHeight / 2));
+                svg.paint(g2, at, svg.getWidth(), svg.getHeight());
             }
-            svgIcon.setScaleToFit(true);
-            AffineTransform atMedia = new AffineTransform(g2.getTransform());
-            g2.transform(fat);
-
-            svgIcon.paintIcon((Component) null, g2, 0, 0);
-            g2.setTransform(atMedia);
         } catch (URISyntaxException e){
             throw new ParameterException("Can't process the input URI",e);
         }
@@ -328,28 +301,21 @@ public class VariableOnlineResource extends AbstractSymbolizerNode implements Ex
             PlanarImage rawImage = getPlanarJAI(map);
             double width = rawImage.getWidth();
             double height = rawImage.getHeight();
-            Rectangle2D.Double rect = jaiBounds.get(new URL(url.getValue(map)));
+            URL link = new URL(url.getValue(map));
+            Rectangle2D.Double rect = jaiBounds.get(link);
 
             if (rect != null) {
-                double ratioX = rect.getWidth() / width;
-                double ratioY = rect.getHeight() / height;
-                RenderedOp img;
-                if (ratioX > 1.0 || ratioY > 1.0) {
-                    img = JAI.create("scale", rawImage,
-                                     (float) ratioX, (float) ratioY,
-                                     0.0f, 0.0f,
-                                     InterpolationBicubic2.getInstance(InterpolationBicubic2.INTERP_BICUBIC_2),
-                                     mt.getRenderingHints());
-                } else {
-                    img = JAI.create("SubsampleAverage", rawImage, ratioX, ratioY, mt.getRenderingHints());
-                }
+                RenderedImage img = GraphicCache.getScaledImage(link.toURI(),
+                        Math.max(1, (int) Math.round(rect.getWidth())),
+                        Math.max(1, (int) Math.round(rect.getHeight())),
+                        mt.getRenderingHints());
                 fat.concatenate(AffineTransform.getTranslateInstance(-img.getWidth() / 2.0, -img.getHeight() / 2.0));
                 g2.drawRenderedImage(img, fat);
             } else {
                 fat.concatenate(AffineTransform.getTranslateInstance(-width / 2.0, -height / 2.0));
                 g2.drawRenderedImage(rawImage, fat);
             }
-        } catch (MalformedURLException e){
+        } catch (MalformedURLException | URISyntaxException e){
             throw new ParameterException("Can't process the input URL",e);
         }
     }
@@ -375,29 +341,33 @@ public class VariableOnlineResource extends AbstractSymbolizerNode implements Ex
 
 
     public Font getFont(Map<String,Object> map) {
-        InputStream iStream;
         try {
-            URL u = new URL(this.url.getValue(map));
-            iStream = u.openStream();
-            return Font.createFont(Font.TRUETYPE_FONT, iStream);
+            return GraphicCache.getFont(new URI(this.url.getValue(map)));
         } catch (FontFormatException ex) {
         } catch (ParameterException ex) {
+        } catch (URISyntaxException ex) {
         } catch (IOException ex) {
         }
         return null;
     }
 
 
+    private Font getTrueTypeFont(Map<String,Object> map)
+            throws ParameterException, IOException, FontFormatException {
+        try {
+            return GraphicCache.getFont(new URI(url.getValue(map)));
+        } catch (URISyntaxException e) {
+            throw new ParameterException("Can't process the input URI", e);
+        }
+    }
+
     private Shape getTrueTypeGlyph(ViewBox viewBox,
                                    Map<String,Object> map,
                                    Double scale, Double dpi,
                                    RealParameter markIndex) throws ParameterException, IOException {
 
         try {
-            URL u = new URL(this.url.getValue(map));
-            InputStream iStream = u.openStream();
-            Font font = Font.createFont(Font.TRUETYPE_FONT, iStream);
-            iStream.close();
+            Font font = getTrueTypeFont(map);
 
             double value = markIndex.getValue(map);
 
@@ -447,8 +417,6 @@ public class VariableOnlineResource extends AbstractSymbolizerNode implements Ex
     public void update(){
         svgBounds = new HashMap<URI,Rectangle2D.Double>();
         jaiBounds = new HashMap<URL,Rectangle2D.Double>();
-        svgCache = new HashMap<URI,SVGIcon>();
-        imageCache = new HashMap<URL,PlanarImage>();
         SymbolizerNode par = getParent();
         if(par != null) {
             getParent().update();
@@ -495,10 +463,7 @@ public class VariableOnlineResource extends AbstractSymbolizerNode implements Ex
                                            /*Double scale, Double dpi,*/ RealParameter markIndex)
             throws IOException, ParameterException {
         try {
-            URL u = new URL(url.getValue(map));
-            InputStream iStream = u.openStream();
-            Font font = Font.createFont(Font.TRUETYPE_FONT, iStream);
-            iStream.close();
+            Font font = getTrueTypeFont(map);
             double value = markIndex.getValue(map);
             char[] data = {(char) value};
             String text = String.copyValueOf(data);
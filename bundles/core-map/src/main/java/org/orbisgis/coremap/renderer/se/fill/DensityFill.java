@@ -68,6 +68,7 @@ public final class DensityFill extends Fill implements GraphicNode {
     private RealParameter orientation;
     private GraphicCollection mark;
     private RealParameter percentageCovered;
+    private final TileCache tiles = new TileCache(this);
     //Some constants we don't want to be considered as magic numbers.
     private static final double ONE_HUNDRED = 100;
     private static final double FIFTY = 50;
@@ -237,7 +238,13 @@ public final class DensityFill extends Fill implements GraphicNode {
             // Perpendiculat dist bw two hatches
             pDist = ONE_HUNDRED * sWidth / percentage;
 
-            HatchedFill.drawHatch(g2, map, shp, selected, mt, alpha, pDist, hatches, 0.0);
+            Paint paint = HatchedFill.getHatchPaint(tiles, g2, map, selected, mt, alpha, pDist, hatches, 0.0);
+            if (paint != null) {
+                g2.setPaint(paint);
+                g2.fill(shp);
+            } else {
+                HatchedFill.drawHatch(g2, map, shp, selected, mt, alpha, pDist, hatches, 0.0);
+            }
         } else {
 
             Paint painter = getPaint(map, selected, mt);
@@ -273,7 +280,7 @@ public final class DensityFill extends Fill implements GraphicNode {
                 double gapX =  bounds.getWidth()*ratio - bounds.getWidth();
                 double gapY =  bounds.getHeight()*ratio - bounds.getHeight();
 
-                painter = GraphicFill.getPaint(map, selected, mt, mark, gapX, gapY, bounds);
+                painter = GraphicFill.getPaint(tiles, map, selected, mt, mark, gapX, gapY, bounds);
             } else {
                 throw new ParameterException("Neither marks or hatches are defined");
             }
@@ -282,6 +289,12 @@ public final class DensityFill extends Fill implements GraphicNode {
         return null;
     }
 
+    @Override
+    public void update() {
+        tiles.clear();
+        super.update();
+    }
+
     private double getTextureSize(double markSize, double percentage) {
         double size = ONE_HUNDRED * (markSize) / percentage;
 
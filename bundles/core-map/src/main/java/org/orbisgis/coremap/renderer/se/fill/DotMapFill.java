@@ -49,7 +49,6 @@ import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
 import java.awt.geom.Point2D;
-import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -58,7 +57,8 @@ import java.util.Random;
 
 /**
  * Descriptor for dot maps. Each point represents a given quantity. Points are randomly placed
- * in the polygon that contains them.<br/>
+ * in the polygon that contains them, with a uniform distribution : the polygon is decomposed
+ * in triangles once, and each point is drawn in one of them.<br/>
  * A DotMapFill is defined with three things : <br/>
  *   * The quantity represented by a single dot<br/>
  *   * The total quantity to represent<br/>
@@ -69,8 +69,6 @@ public final class DotMapFill extends Fill implements GraphicNode {
 
     private static final Logger LOGGER = Logger.getLogger(DotMapFill.class);
     private static final I18n I18N = I18nFactory.getI18n(DotMapFill.class);
-    
-    static final int MAX_ATTEMPT = 100;
 
     private GraphicCollection mark;
     private RealParameter quantityPerMark;
@@ -196,38 +194,21 @@ public final class DotMapFill extends Fill implements GraphicNode {
 
         int nb = (int) Math.round(total / perMark);
 
-        //Area area = new Area(shapes.get(0));
-        Area area = new Area(shp);
+        if (nb <= 0) {
+            return;
+        }
+        ShapeTriangulation triangles = new ShapeTriangulation(new Area(shp));
+        if (triangles.isEmpty()) {
+            LOGGER.error(I18N.tr("Could not find position for mark within area"));
+            return;
+        }
 
         // setting the seed to the scale denom will ensure that mark will not move when panning
         rand.setSeed((long) mt.getScaleDenominator());
         for (int i = 0; i < nb; i++) {
-            Point2D.Double pos = findMarkPosition(area);
-            if (pos != null) {
-                mark.draw(g2, map, selected, mt, AffineTransform.getTranslateInstance(pos.x, pos.y));
-            } else {
-                LOGGER.error(I18N.tr("Could not find position for mark within area"));
-            }
-        }
-    }
-
-    /**
-     * Ugly version to find a random point which stand within the area
-     * @param area
-     * @return
-     */
-    private Point2D.Double findMarkPosition(Area area) {
-        Rectangle2D bounds2D = area.getBounds2D();
-
-        for (int i = 0; i < MAX_ATTEMPT; i++) {
-            double x = rand.nextDouble() * bounds2D.getWidth() + bounds2D.getMinX();
-            double y = rand.nextDouble() * bounds2D.getHeight() + bounds2D.getMinY();
-
-            if (area.contains(x, y)) {
-                return new Point2D.Double(x, y);
-            }
+            Point2D.Double pos = triangles.sample(rand);
+            mark.draw(g2, map, selected, mt, AffineTransform.getTranslateInstance(pos.x, pos.y));
         }
-        return null;
     }
 
     @Override
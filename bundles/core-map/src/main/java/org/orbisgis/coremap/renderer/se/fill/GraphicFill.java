@@ -71,6 +71,7 @@ public final class GraphicFill extends Fill {
      * Distance between two graphics in the fill, in Y direction.
      */
     private RealParameter gapY;
+    private final TileCache tiles = new TileCache(this);
 
     /**
      * Creates a new GraphicFill, with the gap's measures set to null.
@@ -217,45 +218,91 @@ public final class GraphicFill extends Fill {
         gX = Uom.toPixel(gX, getUom(), mt.getDpi(), mt.getScaleDenominator(), bounds.getWidth());
         gY = Uom.toPixel(gY, getUom(), mt.getDpi(), mt.getScaleDenominator(), bounds.getHeight());
 
-        return getPaint(map, selected, mt, graphic, gX, gY, bounds);
+        return getPaint(tiles, map, selected, mt, graphic, gX, gY, bounds);
     }
 
+    @Override
+    public void update() {
+        tiles.clear();
+        super.update();
+    }
+
+    /**
+     * Create a new TexturePaint where {@code graphic} is repeated with the
+     * given gaps.
+     * @return The paint, or null if {@code bounds} is null.
+     */
     public static Paint getPaint(Map<String,Object> map, boolean selected,
             MapTransform mt, GraphicCollection graphic, double gX, double gY, Rectangle2D bounds)
             throws ParameterException, IOException {
-
         if (bounds != null) {
+            return getPaint(getTile(map, selected, mt, graphic, gX, gY, bounds), mt);
+        } else {
+            return null;
+        }
+    }
 
-            Point2D.Double geoRef = new Point2D.Double(0, 0);
-            Point2D ref = mt.getAffineTransform().transform(geoRef, null);
-
-            int tWidth = (int) (bounds.getWidth() + gX);
-            int tHeight = (int) (bounds.getHeight() + gY);
-
-            int deltaX = (int) (ref.getX() - Math.ceil(ref.getX() / tWidth) * tWidth);
-            int deltaY = (int) (ref.getY() - Math.ceil(ref.getY() / tHeight) * tHeight);
+    /**
+     * Gets the TexturePaint where {@code graphic} is repeated with the given
+     * gaps, reusing the tile kept in {@code tiles} if the fill does not
+     * depend on the features.
+     * @return The paint, or null if {@code bounds} is null.
+     */
+    static Paint getPaint(TileCache tiles, Map<String,Object> map, boolean selected,
+            MapTransform mt, GraphicCollection graphic, double gX, double gY, Rectangle2D bounds)
+            throws ParameterException, IOException {
+        if (bounds == null || !tiles.isConstant()) {
+            return getPaint(map, selected, mt, graphic, gX, gY, bounds);
+        }
+        TileCache.TileKey key = TileCache.key(mt, selected, gX, gY);
+        BufferedImage tile = tiles.get(key);
+        if (tile == null) {
+            tile = getTile(map, selected, mt, graphic, gX, gY, bounds);
+            tiles.put(key, tile);
+        }
+        return getPaint(tile, mt);
+    }
 
+    /**
+     * Renders a tile containing {@code graphic}, surrounded by half the gaps.
+     * The graphic is drawn on the neighbouring tiles too, so that parts out of
+     * its bounds wrap around.
+     */
+    private static BufferedImage getTile(Map<String,Object> map, boolean selected,
+            MapTransform mt, GraphicCollection graphic, double gX, double gY, Rectangle2D bounds)
+            throws ParameterException, IOException {
+        int tWidth = (int) (bounds.getWidth() + gX);
+        int tHeight = (int) (bounds.getHeight() + gY);
 
-            BufferedImage i = new BufferedImage(tWidth, tHeight, BufferedImage.TYPE_INT_ARGB);
-            Graphics2D tile = i.createGraphics();
+        BufferedImage i = new BufferedImage(tWidth, tHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D tile = i.createGraphics();
+        try {
             tile.setRenderingHints(mt.getRenderingHints());
-
-            int ix;
-            int iy;
-            for (ix = 0; ix < 2; ix++) {
-                for (iy = 0; iy < 2; iy++) {
+            for (int ix = -1; ix < 2; ix++) {
+                for (int iy = -1; iy < 2; iy++) {
                     graphic.draw(tile, map, selected, mt,
                             AffineTransform.getTranslateInstance(
-                            -bounds.getMinX() + gX / 2.0 + deltaX + tWidth * ix,
-                            -bounds.getMinY() + gY / 2.0 + deltaY + tHeight * iy));
+                            -bounds.getMinX() + gX / 2.0 + tWidth * ix,
+                            -bounds.getMinY() + gY / 2.0 + tHeight * iy));
                 }
             }
-
-            return new TexturePaint(i, new Rectangle2D.Double(0, 0, i.getWidth(), i.getHeight()));
-        } else {
-            return null;
+        } finally {
+            tile.dispose();
         }
+        return i;
+    }
 
+    /**
+     * Builds a TexturePaint repeating {@code tile}, anchored on the origin of
+     * the map so that the pattern does not move when panning.
+     */
+    static Paint getPaint(BufferedImage tile, MapTransform mt) {
+        Point2D ref = mt.getAffineTransform().transform(new Point2D.Double(0, 0), null);
+        int tWidth = tile.getWidth();
+        int tHeight = tile.getHeight();
+        int deltaX = (int) (ref.getX() - Math.ceil(ref.getX() / tWidth) * tWidth);
+        int deltaY = (int) (ref.getY() - Math.ceil(ref.getY() / tHeight) * tHeight);
+        return new TexturePaint(tile, new Rectangle2D.Double(deltaX, deltaY, tWidth, tHeight));
     }
 
     @Override
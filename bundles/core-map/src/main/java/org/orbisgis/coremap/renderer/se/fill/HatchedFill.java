@@ -36,6 +36,7 @@ import org.orbisgis.coremap.renderer.se.SeExceptions.InvalidStyle;
 import org.orbisgis.coremap.renderer.se.StrokeNode;
 import org.orbisgis.coremap.renderer.se.SymbolizerNode;
 import org.orbisgis.coremap.renderer.se.common.Uom;
+import org.orbisgis.coremap.renderer.se.graphic.SpriteCache;
 import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
 import org.orbisgis.coremap.renderer.se.parameter.SeParameterFactory;
 import org.orbisgis.coremap.renderer.se.parameter.real.RealParameter;
@@ -48,6 +49,7 @@ import java.awt.*;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -84,10 +86,24 @@ public final class HatchedFill extends Fill implements StrokeNode {
      * 
      */
     public static final double DEFAULT_NATURAL_LENGTH = 100;
+    /**
+     * Hatches closer than this distance, in pixels, are never drawn with tiles.
+     */
+    static final double MIN_TILED_DISTANCE = 2.0;
+    /**
+     * Maximum number of hatch periods a tile can contain along each axis.
+     */
+    private static final int MAX_PERIODS = 16;
+    /**
+     * Maximum relative difference accepted between the size of a tile and the
+     * length of the periods it contains.
+     */
+    private static final double PERIOD_TOLERANCE = 0.005;
     private RealParameter angle;
     private RealParameter distance;
     private RealParameter offset;
     private Stroke stroke;
+    private final TileCache tiles = new TileCache(this);
 
 
     /**
@@ -143,7 +159,13 @@ public final class HatchedFill extends Fill implements StrokeNode {
                     hOffset = Uom.toPixel(this.offset.getValue(map), this.getUom(), mt.getDpi(), mt.getScaleDenominator(), null);
                 }
 
-                drawHatch(g2, map, shp, selected, mt, alpha, pDist, stroke, hOffset);
+                Paint paint = getHatchPaint(tiles, g2, map, selected, mt, alpha, pDist, stroke, hOffset);
+                if (paint != null) {
+                    g2.setPaint(paint);
+                    g2.fill(shp);
+                } else {
+                    drawHatch(g2, map, shp, selected, mt, alpha, pDist, stroke, hOffset);
+                }
                 
             } catch (RuntimeException eee) {
                 System.out.println("Error " + eee);
@@ -404,6 +426,159 @@ public final class HatchedFill extends Fill implements StrokeNode {
     }
 
 
+    /**
+     * Gets a paint filling shapes with the given hatches. The hatches are
+     * periodic : they are drawn in a tile containing a whole number of
+     * periods along each axis, kept in {@code tiles}, that is repeated over
+     * the shape.
+     *
+     * @param tiles the cache of the fill
+     * @param g2 the g2 the shapes will be filled on
+     * @param selected is the feature selected ?
+     * @param mt the well known map transform
+     * @param alph hatches orientation
+     * @param pDist perpendicular distance between two hatch line
+     * @param stroke the stroke to use to draw hatches
+     * @param hOffset offset between the references point and the reference hatch
+     * @return The paint, or null if the hatches must be drawn with
+     * {@link #drawHatch} : the fill depends on the features, g2 does not draw
+     * in an image, the stroke is not a plain {@code PenStroke} or the tile
+     * would be too big.
+     * @throws ParameterException
+     * @throws IOException
+     */
+    static Paint getHatchPaint(TileCache tiles, Graphics2D g2, Map<String,Object> map,
+            boolean selected, MapTransform mt, double alph, double pDist, Stroke stroke,
+            double hOffset) throws ParameterException, IOException {
+        if (!Boolean.TRUE.equals(g2.getRenderingHint(SpriteCache.KEY_SPRITES))
+                || !(pDist >= MIN_TILED_DISTANCE) || !isPlain(stroke, map) || !tiles.isConstant()) {
+            return null;
+        }
+        // The tile is anchored on the pixel that contains the map origin
+        Point2D ref = mt.getAffineTransform().transform(new Point2D.Double(0, 0), null);
+        double originX = Math.floor(ref.getX());
+        double originY = Math.floor(ref.getY());
+        double fx = ref.getX() - originX;
+        double fy = ref.getY() - originY;
+        TileCache.TileKey key = TileCache.key(mt, selected, alph, pDist, hOffset, fx, fy);
+        BufferedImage tile = tiles.get(key);
+        if (tile == null) {
+            tile = getHatchTile(map, selected, mt, alph, pDist, (PenStroke) stroke, hOffset, fx, fy);
+            if (tile == null) {
+                return null;
+            }
+            tiles.put(key, tile);
+        }
+        return new TexturePaint(tile, new Rectangle2D.Double(originX, originY, tile.getWidth(), tile.getHeight()));
+    }
+
+    /**
+     * Renders a tile of hatches, whose reference hatch crosses (fx, fy).
+     * @return The tile, or null if it would be too big.
+     */
+    private static BufferedImage getHatchTile(Map<String,Object> map, boolean selected, MapTransform mt,
+            double alph, double pDist, PenStroke stroke, double hOffset, double fx, double fy)
+            throws ParameterException, IOException {
+        double alpha = alph * Math.PI / PI_DEG;
+        double beta = Math.PI / 2.0 + alpha;
+        double cosAlpha = Math.cos(alpha);
+        double sinAlpha = Math.sin(alpha);
+        // Same approximations as drawHatch
+        double dirX = Math.abs(cosAlpha) < EPSILON ? 0.0 : cosAlpha;
+        double dirY = Math.abs(sinAlpha) < EPSILON ? 0.0 : sinAlpha;
+        // Two neighbour hatches are separated by periodX along the x axis and
+        // by periodY along the y axis. The period along an axis parallel to
+        // the hatches is arbitrary.
+        double periodX = dirY == 0.0 ? pDist : pDist / Math.abs(sinAlpha);
+        double periodY = dirX == 0.0 ? pDist : pDist / Math.abs(cosAlpha);
+        double[] fitX = fitPeriods(periodX);
+        double[] fitY = fitPeriods(periodY);
+        if (fitX == null || fitY == null) {
+            return null;
+        }
+        int width = (int) fitX[1];
+        int height = (int) fitY[1];
+        double spanX = fitX[0] * periodX;
+        double spanY = fitY[0] * periodY;
+
+        double norm = Math.hypot(dirX, dirY);
+        double ux = dirX / norm;
+        double uy = dirY / norm;
+        // The step between two hatches, along the axis they are not parallel to
+        double stepX = dirY == 0.0 ? 0.0 : periodX;
+        double stepY = dirY == 0.0 ? periodY : 0.0;
+        double x0 = fx + Math.cos(beta) * hOffset;
+        double y0 = fy + Math.sin(beta) * hOffset;
+        double margin = stroke.getWidthInPixel(map, mt) + 1;
+        double length = 2 * (spanX + spanY + Math.abs(x0) + Math.abs(y0) + margin);
+        int n = (int) Math.ceil(length / Math.max(stepX, stepY)) + 1;
+
+        BufferedImage i = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D tile = i.createGraphics();
+        try {
+            tile.setRenderingHints(mt.getRenderingHints());
+            tile.setRenderingHint(SpriteCache.KEY_SPRITES, Boolean.FALSE);
+            // Stretch the whole periods on the whole pixels of the tile
+            tile.scale(width / spanX, height / spanY);
+            Line2D.Double l = new Line2D.Double();
+            for (int j = -n; j <= n; j++) {
+                double x = x0 + j * stepX;
+                double y = y0 + j * stepY;
+                l.setLine(x - ux * length, y - uy * length, x + ux * length, y + uy * length);
+                stroke.draw(tile, map, l, selected, mt, 0.0);
+            }
+        } finally {
+            tile.dispose();
+        }
+        return i;
+    }
+
+    /**
+     * Finds the number of periods whose total length is the closest to a
+     * whole number of pixels.
+     * @param period The length of a period, in pixels
+     * @return {number of periods, size in pixels}, or null if even a
+     * single period is too long.
+     */
+    static double[] fitPeriods(double period) {
+        double[] best = null;
+        double bestError = Double.POSITIVE_INFINITY;
+        for (int k = 1; k <= MAX_PERIODS && k * period <= TileCache.MAX_TILE_SIZE; k++) {
+            double size = Math.max(1, Math.round(k * period));
+            double error = Math.abs(size - k * period) / (k * period);
+            if (error < bestError) {
+                bestError = error;
+                best = new double[]{k, size};
+                if (error < PERIOD_TOLERANCE) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Checks that {@code stroke} draws the same line all along the hatches,
+     * i.e. that it is a {@code PenStroke} without dashes.
+     */
+    private static boolean isPlain(Stroke stroke, Map<String,Object> map) throws ParameterException {
+        if (!(stroke instanceof PenStroke)) {
+            return false;
+        }
+        PenStroke pen = (PenStroke) stroke;
+        if (pen.getDashArray() == null) {
+            return true;
+        }
+        String dash = pen.getDashArray().getValue(map);
+        return dash == null || dash.trim().isEmpty();
+    }
+
+    @Override
+    public void update() {
+        tiles.clear();
+        super.update();
+    }
+
     /**
      * Hatched fill cannot be converted to a native java fill
      * @param selected
@@ -0,0 +1,270 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.fill;
+
+import java.awt.geom.Area;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * A decomposition of an {@code Area} in triangles, used to draw uniformly
+ * distributed random points in it.
+ *
+ * The outline of an {@code Area} never crosses itself. Cutting it with
+ * horizontal lines at the ordinate of each vertex gives slabs where the edges
+ * do not cross : in each slab, consecutive edges bound trapezoids that are
+ * alternatively inside and outside the area. Each inner trapezoid is split in
+ * two triangles. A random point is then found by choosing a triangle with a
+ * probability proportional to its area, and a uniform point in it.
+ */
+final class ShapeTriangulation {
+
+    /**
+     * The maximum distance between the curves of the area and the segments
+     * used to approximate them.
+     */
+    static final double FLATNESS = 0.25;
+    private static final int EDGE = 4;
+    private static final int TRIANGLE = 6;
+    /**
+     * The vertices of the triangles : x0, y0, x1, y1, x2, y2 for each of them.
+     */
+    private double[] triangles = new double[TRIANGLE * 16];
+    /**
+     * cumulatedAreas[i] is the area of the i+1 first triangles.
+     */
+    private double[] cumulatedAreas = new double[16];
+    private int count;
+
+    /**
+     * Triangulates {@code area}.
+     * @param area
+     */
+    ShapeTriangulation(Area area) {
+        double[] edges = getEdges(area);
+        int nEdges = edges.length / EDGE;
+        if (nEdges < 2) {
+            return;
+        }
+        // Distinct ordinates of the vertices
+        double[] ys = new double[2 * nEdges];
+        for (int i = 0; i < nEdges; i++) {
+            ys[2 * i] = edges[EDGE * i + 1];
+            ys[2 * i + 1] = edges[EDGE * i + 3];
+        }
+        Arrays.sort(ys);
+        int nYs = 0;
+        for (int i = 0; i < ys.length; i++) {
+            if (i == 0 || ys[i] != ys[nYs - 1]) {
+                ys[nYs++] = ys[i];
+            }
+        }
+        // Edges sorted by their upper ordinate
+        Integer[] order = new Integer[nEdges];
+        for (int i = 0; i < nEdges; i++) {
+            order[i] = i;
+        }
+        final double[] e = edges;
+        Arrays.sort(order, new Comparator<Integer>() {
+
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(e[EDGE * a + 1], e[EDGE * b + 1]);
+            }
+        });
+        int[] active = new int[nEdges];
+        int nActive = 0;
+        double[] top = new double[nEdges];
+        double[] bottom = new double[nEdges];
+        int next = 0;
+        for (int s = 0; s + 1 < nYs; s++) {
+            double ya = ys[s];
+            double yb = ys[s + 1];
+            // Update the edges that cross the slab
+            int kept = 0;
+            for (int i = 0; i < nActive; i++) {
+                if (edges[EDGE * active[i] + 3] > ya) {
+                    active[kept++] = active[i];
+                }
+            }
+            nActive = kept;
+            while (next < nEdges && edges[EDGE * order[next] + 1] <= ya) {
+                if (edges[EDGE * order[next] + 3] > ya) {
+                    active[nActive++] = order[next];
+                }
+                next++;
+            }
+            // Sort them from the left to the right, using an insertion sort
+            // as there are usually a few of them.
+            for (int i = 0; i < nActive; i++) {
+                int edge = active[i];
+                double xa = xAt(edges, edge, ya);
+                double xb = xAt(edges, edge, yb);
+                int j = i;
+                while (j > 0 && top[j - 1] + bottom[j - 1] > xa + xb) {
+                    top[j] = top[j - 1];
+                    bottom[j] = bottom[j - 1];
+                    j--;
+                }
+                top[j] = xa;
+                bottom[j] = xb;
+            }
+            for (int i = 0; i + 1 < nActive; i += 2) {
+                addTriangle(top[i], ya, top[i + 1], ya, bottom[i + 1], yb);
+                addTriangle(top[i], ya, bottom[i + 1], yb, bottom[i], yb);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the area contains no triangle.
+     * @return
+     */
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Gets the area covered by the triangles.
+     * @return
+     */
+    double getArea() {
+        return count == 0 ? 0 : cumulatedAreas[count - 1];
+    }
+
+    /**
+     * Draws a random point, uniformly distributed in the area.
+     * @param rand
+     * @return The point, or null if the area is empty.
+     */
+    Point2D.Double sample(Random rand) {
+        if (count == 0) {
+            return null;
+        }
+        double r = rand.nextDouble() * cumulatedAreas[count - 1];
+        int i = Arrays.binarySearch(cumulatedAreas, 0, count, r);
+        i = i < 0 ? -i - 1 : i + 1;
+        i = Math.min(i, count - 1);
+        double u = rand.nextDouble();
+        double v = rand.nextDouble();
+        if (u + v > 1) {
+            u = 1 - u;
+            v = 1 - v;
+        }
+        int t = TRIANGLE * i;
+        double x0 = triangles[t];
+        double y0 = triangles[t + 1];
+        return new Point2D.Double(
+                x0 + u * (triangles[t + 2] - x0) + v * (triangles[t + 4] - x0),
+                y0 + u * (triangles[t + 3] - y0) + v * (triangles[t + 5] - y0));
+    }
+
+    private void addTriangle(double x0, double y0, double x1, double y1, double x2, double y2) {
+        double a = Math.abs((x1 - x0) * (y2 - y0) - (x2 - x0) * (y1 - y0)) / 2;
+        if (!(a > 0)) {
+            return;
+        }
+        if (count == cumulatedAreas.length) {
+            cumulatedAreas = Arrays.copyOf(cumulatedAreas, 2 * count);
+            triangles = Arrays.copyOf(triangles, 2 * TRIANGLE * count);
+        }
+        int t = TRIANGLE * count;
+        triangles[t] = x0;
+        triangles[t + 1] = y0;
+        triangles[t + 2] = x1;
+        triangles[t + 3] = y1;
+        triangles[t + 4] = x2;
+        triangles[t + 5] = y2;
+        cumulatedAreas[count] = (count == 0 ? 0 : cumulatedAreas[count - 1]) + a;
+        count++;
+    }
+
+    /**
+     * Gets the abscissa of {@code edge} at the ordinate {@code y}.
+     */
+    private static double xAt(double[] edges, int edge, double y) {
+        int i = EDGE * edge;
+        double x0 = edges[i];
+        double y0 = edges[i + 1];
+        double x1 = edges[i + 2];
+        double y1 = edges[i + 3];
+        return x0 + (x1 - x0) * (y - y0) / (y1 - y0);
+    }
+
+    /**
+     * Gets the non horizontal edges of the flattened outline of
+     * {@code area}, as x0, y0, x1, y1 with y0 < y1.
+     */
+    private static double[] getEdges(Area area) {
+        double[] edges = new double[EDGE * 16];
+        int n = 0;
+        double[] coords = new double[6];
+        double startX = 0;
+        double startY = 0;
+        double lastX = 0;
+        double lastY = 0;
+        for (PathIterator it = area.getPathIterator(null, FLATNESS); !it.isDone(); it.next()) {
+            double x;
+            double y;
+            switch (it.currentSegment(coords)) {
+                case PathIterator.SEG_MOVETO:
+                    startX = coords[0];
+                    startY = coords[1];
+                    lastX = startX;
+                    lastY = startY;
+                    continue;
+                case PathIterator.SEG_CLOSE:
+                    x = startX;
+                    y = startY;
+                    break;
+                default:
+                    x = coords[0];
+                    y = coords[1];
+                    break;
+            }
+            if (y != lastY) {
+                if (n + EDGE > edges.length) {
+                    edges = Arrays.copyOf(edges, 2 * edges.length);
+                }
+                boolean down = lastY < y;
+                edges[n] = down ? lastX : x;
+                edges[n + 1] = down ? lastY : y;
+                edges[n + 2] = down ? x : lastX;
+                edges[n + 3] = down ? y : lastY;
+                n += EDGE;
+            }
+            lastX = x;
+            lastY = y;
+        }
+        return Arrays.copyOf(edges, n);
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.fill;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.se.RenderingCache;
+import org.orbisgis.coremap.renderer.se.SymbolizerNode;
+
+/**
+ * Rendered tiles of a fill that does not depend on the features.
+ *
+ * When all the parameters of a fill are literals, its pattern only depends on
+ * the scale, the resolution, the selection state and a few values computed
+ * from its parameters. The pattern is then rendered once in a tile that is
+ * used as a {@code TexturePaint} for every feature, instead of being built
+ * again for each of them. The tiles do not depend on the position of the map :
+ * the paints are anchored on the map origin when they are created.
+ */
+final class TileCache extends RenderingCache<TileCache.TileKey, BufferedImage> {
+
+    /**
+     * Maximum width and height of a cached tile, in pixels.
+     */
+    static final int MAX_TILE_SIZE = 512;
+    /**
+     * Maximum number of tiles kept for a fill.
+     */
+    static final int MAX_TILES = 8;
+
+    /**
+     * Builds the tile cache of {@code fill}.
+     * @param fill
+     */
+    TileCache(SymbolizerNode fill) {
+        super(fill, MAX_TILES);
+    }
+
+    /**
+     * Keeps {@code tile}, if it is not too big.
+     * @param key
+     * @param tile
+     */
+    @Override
+    public void put(TileKey key, BufferedImage tile) {
+        if (tile.getWidth() <= MAX_TILE_SIZE && tile.getHeight() <= MAX_TILE_SIZE) {
+            super.put(key, tile);
+        }
+    }
+
+    /**
+     * Builds the key of a tile.
+     * @param mt
+     * @param selected
+     * @param values The values, computed from the fill parameters, the tile depends on.
+     * @return
+     */
+    static TileKey key(MapTransform mt, boolean selected, double... values) {
+        double[] v = Arrays.copyOf(values, values.length + 2);
+        v[values.length] = mt.getScaleDenominator();
+        v[values.length + 1] = mt.getDpi();
+        return new TileKey(v, selected);
+    }
+
+    /**
+     * The state a tile has been rendered for.
+     */
+    static final class TileKey {
+
+        private final double[] values;
+        private final boolean selected;
+
+        private TileKey(double[] values, boolean selected) {
+            this.values = values;
+            this.selected = selected;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof TileKey)) {
+                return false;
+            }
+            TileKey other = (TileKey) obj;
+            return selected == other.selected && Arrays.equals(values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(values) + (selected ? 1 : 0);
+        }
+    }
+}
@@ -109,6 +109,10 @@ public final class AxisChart extends Graphic implements UomNode, FillNode,
          * The default width of each bar.
          */
         public static final double DEFAULT_WIDTH_PX = 15; //px
+        /**
+         * The stroke used to draw the measures of polar charts.
+         */
+        private static final BasicStroke STICK_STROKE = new BasicStroke(1);
 
         //private Categories stakc;
         /**
@@ -521,6 +525,11 @@ public final class AxisChart extends Graphic implements UomNode, FillNode,
                         bounds.setRect(shp.getBounds2D());
                 }
 
+                // Charts smaller than a pixel are not worth drawing
+                if (ChartShapes.isSubPixel(at, Math.max(width, maxHeight - minHeight))) {
+                        return;
+                }
+
                 double currentX = -width / 2 + INITIAL_GAP_PX;
 
                 double xOffset[] = new double[nCat];
@@ -537,12 +546,7 @@ public final class AxisChart extends Graphic implements UomNode, FillNode,
                 for (i = 0; i < nCat; i++) {
                         Category c = categories.get(i);
                         if (c.getFill() != null || c.getStroke() != null) {
-                                Path2D.Double bar = new Path2D.Double();
-                                bar.moveTo(xOffset[i], 0);
-                                bar.lineTo(xOffset[i], -heights[i]);
-                                bar.lineTo(xOffset[i] + cWidth, -heights[i]);
-                                bar.lineTo(xOffset[i] + cWidth, 0);
-                                bar.closePath();
+                                Shape bar = ChartShapes.bar(xOffset[i], cWidth, heights[i]);
                                 Shape shp = bar;
                                 if (at != null) {
                                         shp = at.createTransformedShape(bar);
@@ -673,6 +677,11 @@ public final class AxisChart extends Graphic implements UomNode, FillNode,
                         at.concatenate(transform.getGraphicalAffineTransform(false, map, mt, 2 * radius, 2 * radius));
                 }
 
+                // Charts smaller than a pixel are not worth drawing
+                if (ChartShapes.isSubPixel(at, 2 * radius)) {
+                        return;
+                }
+
 
                 double alphas[] = new double[nCat];
                 double beta = 2 * Math.PI / nCat;
@@ -754,7 +763,7 @@ public final class AxisChart extends Graphic implements UomNode, FillNode,
                         if (at != null) {
                                 shp = at.createTransformedShape(stick);
                         }
-                        g2.setStroke(new BasicStroke(1));
+                        g2.setStroke(STICK_STROKE);
                         //g2.setColor(Color.black);
                         g2.setPaint(Color.GRAY);
                         g2.draw(shp);
@@ -0,0 +1,106 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.graphic;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Outlines shared by the chart graphics. Slices and bars are built directly
+ * from their analytic definition, scaled for the current feature, rather than
+ * by combining {@code Area}s, which is by far the most expensive part of
+ * drawing a chart.
+ */
+final class ChartShapes {
+
+    private ChartShapes() {
+    }
+
+    /**
+     * Builds the outline of a pie slice, in pixels, centred on the origin.
+     * @param r The radius of the chart.
+     * @param holeR The radius of the hole, 0 for a plain disc.
+     * @param aStart The starting angle, in degrees.
+     * @param aExtent The angular extent, in degrees.
+     * @return The slice outline.
+     */
+    static Shape slice(double r, double holeR, double aStart, double aExtent) {
+        if (holeR <= 0.0) {
+            return new Arc2D.Double(-r, -r, 2 * r, 2 * r, aStart, aExtent, Arc2D.PIE);
+        }
+        Arc2D outer = new Arc2D.Double(-r, -r, 2 * r, 2 * r, aStart, aExtent, Arc2D.OPEN);
+        if (Math.abs(aExtent) >= 360.0) {
+            // A whole ring : two closed circles, the inner one being a hole.
+            Path2D.Double ring = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+            ring.append(outer, false);
+            ring.closePath();
+            ring.append(new Arc2D.Double(-holeR, -holeR, 2 * holeR, 2 * holeR,
+                    aStart, aExtent, Arc2D.OPEN), false);
+            ring.closePath();
+            return ring;
+        }
+        // Outer arc, then the inner one walked backward : the radial edges
+        // come from the connections between both arcs.
+        Path2D.Double ring = new Path2D.Double();
+        ring.append(outer, false);
+        ring.append(new Arc2D.Double(-holeR, -holeR, 2 * holeR, 2 * holeR,
+                aStart + aExtent, -aExtent, Arc2D.OPEN), true);
+        ring.closePath();
+        return ring;
+    }
+
+    /**
+     * Builds the outline of a bar standing on the x axis, in pixels. As the y
+     * axis points downward, positive heights are drawn above the axis.
+     * @param x The left side of the bar.
+     * @param width The width of the bar.
+     * @param height The height of the bar, may be negative.
+     * @return The bar outline.
+     */
+    static Shape bar(double x, double width, double height) {
+        return new Rectangle2D.Double(x, Math.min(0.0, -height), width, Math.abs(height));
+    }
+
+    /**
+     * Checks whether a graphic whose largest extent is {@code size} pixels
+     * would cover less than a pixel once drawn through {@code at}. Such a
+     * graphic can be skipped without any visible difference.
+     * @param at The transformation applied to the graphic, may be null.
+     * @param size The largest extent of the graphic, in pixels.
+     * @return {@code true} if the graphic can be skipped.
+     */
+    static boolean isSubPixel(AffineTransform at, double size) {
+        double scale = at == null ? 1.0 : Math.sqrt(Math.abs(at.getDeterminant()));
+        // Written so that NaN sizes are skipped too.
+        return !(size * scale >= 1.0);
+    }
+}
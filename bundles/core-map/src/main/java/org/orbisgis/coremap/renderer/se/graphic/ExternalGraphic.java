@@ -87,6 +87,7 @@ public final class ExternalGraphic extends Graphic implements UomNode, Transform
     //private PlanarImage graphic;
     private Uom uom;
     private String mimeType;
+    private final SpriteCache sprites = new SpriteCache(this);
 
     public ExternalGraphic() {
     }
@@ -150,6 +151,7 @@ public final class ExternalGraphic extends Graphic implements UomNode, Transform
     @Override
     public void setUom(Uom uom) {
         this.uom = uom;
+        updateGraphic();
     }
 
     @Override
@@ -163,6 +165,7 @@ public final class ExternalGraphic extends Graphic implements UomNode, Transform
         if (transform != null) {
             transform.setParent(this);
         }
+        updateGraphic();
     }
 
     /**
@@ -185,6 +188,7 @@ public final class ExternalGraphic extends Graphic implements UomNode, Transform
         if (halo != null) {
             halo.setParent(this);
         }
+        updateGraphic();
     }
 
     /**
@@ -207,6 +211,7 @@ public final class ExternalGraphic extends Graphic implements UomNode, Transform
             this.opacity.setContext(RealParameterContext.PERCENTAGE_CONTEXT);
             this.opacity.setParent(this);
         }
+        updateGraphic();
     }
 
         @Override
@@ -232,6 +237,13 @@ public final class ExternalGraphic extends Graphic implements UomNode, Transform
         } catch (Exception ex) {
         ex.printStackTrace();
         }*/
+        sprites.clear();
+    }
+
+    @Override
+    public void update() {
+        sprites.clear();
+        super.update();
     }
 
     public void setSource(ExternalGraphicSource src) throws IOException {
@@ -281,7 +293,10 @@ public final class ExternalGraphic extends Graphic implements UomNode, Transform
     @Override
     public void draw(Graphics2D g2, Map<String,Object> map,
             boolean selected, MapTransform mt, AffineTransform fat) throws ParameterException, IOException {
-
+        // If the graphic doesn't depend on features, we copy its sprite
+        if (sprites.draw(g2, selected, mt, fat)) {
+            return;
+        }
 
         Rectangle2D.Double bounds = source.updateCacheAndGetBounds(viewBox, map, mt, mimeType);
 
@@ -106,6 +106,8 @@ public final class MarkGraphic extends Graphic implements FillNode, StrokeNode,
     // cached shape : only available with shape that doesn't depends on features
     private Shape shape;
     private String mimeType;
+    // sprites : only used when the graphic doesn't depend on features
+    private final SpriteCache sprites = new SpriteCache(this);
 
     /**
      * Build a default {@code MarkGraphic}. It is built using the {@link WellKnownName#CIRCLE}
@@ -206,6 +208,7 @@ public final class MarkGraphic extends Graphic implements FillNode, StrokeNode,
     @Override
     public void setUom(Uom uom) {
         this.uom = uom;
+        updateGraphic();
     }
 
     @Override
@@ -219,6 +222,7 @@ public final class MarkGraphic extends Graphic implements FillNode, StrokeNode,
         if (transform != null) {
             transform.setParent(this);
         }
+        updateGraphic();
     }
 
     @Override
@@ -232,6 +236,7 @@ public final class MarkGraphic extends Graphic implements FillNode, StrokeNode,
         if (fill != null) {
             fill.setParent(this);
         }
+        updateGraphic();
     }
 
     /**
@@ -251,6 +256,7 @@ public final class MarkGraphic extends Graphic implements FillNode, StrokeNode,
         if (halo != null) {
             halo.setParent(this);
         }
+        updateGraphic();
     }
 
     @Override
@@ -264,6 +270,7 @@ public final class MarkGraphic extends Graphic implements FillNode, StrokeNode,
         if (stroke != null) {
             stroke.setParent(this);
         }
+        updateGraphic();
     }
 
     @Override
@@ -281,7 +288,7 @@ public final class MarkGraphic extends Graphic implements FillNode, StrokeNode,
         this.viewBox = viewBox;
 
         viewBox.setParent(this);
-        //updateGraphic();
+        updateGraphic();
     }
 
     /*
@@ -306,6 +313,7 @@ public final class MarkGraphic extends Graphic implements FillNode, StrokeNode,
             this.pOffset.setContext(RealParameterContext.REAL_CONTEXT);
             this.pOffset.setParent(this);
         }
+        updateGraphic();
     }
 
     /**
@@ -317,6 +325,7 @@ public final class MarkGraphic extends Graphic implements FillNode, StrokeNode,
         this.markIndex = mIndex;
         this.markIndex.setContext(RealParameterContext.NON_NEGATIVE_CONTEXT);
         this.markIndex.setParent(this);
+        updateGraphic();
     }
 
     /*
@@ -332,6 +341,13 @@ public final class MarkGraphic extends Graphic implements FillNode, StrokeNode,
         shape = null;
         }*/
         shape = null;
+        sprites.clear();
+    }
+
+    @Override
+    public void update() {
+        sprites.clear();
+        super.update();
     }
 
     /**
@@ -397,6 +413,10 @@ public final class MarkGraphic extends Graphic implements FillNode, StrokeNode,
     @Override
     public void draw(Graphics2D g2, Map<String,Object> map,
             boolean selected, MapTransform mt, AffineTransform fat) throws ParameterException, IOException {
+        // If the graphic doesn't depend on features, we copy its sprite
+        if (sprites.draw(g2, selected, mt, fat)) {
+            return;
+        }
         Shape shp;
 
         AffineTransform at = new AffineTransform(fat);
@@ -521,6 +541,7 @@ public final class MarkGraphic extends Graphic implements FillNode, StrokeNode,
             wkn = null;
             onlineResource.setParent(this);
         }
+        updateGraphic();
     }
 
     /**
@@ -542,6 +563,7 @@ public final class MarkGraphic extends Graphic implements FillNode, StrokeNode,
             this.onlineResource = null;
             this.wkn.setParent(this);
         }
+        updateGraphic();
     }
 
     @Override
@@ -31,8 +31,6 @@ package org.orbisgis.coremap.renderer.se.graphic;
 import java.awt.Graphics2D;
 import java.awt.Shape;
 import java.awt.geom.AffineTransform;
-import java.awt.geom.Arc2D;
-import java.awt.geom.Area;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -450,10 +448,8 @@ public final class PieChart extends Graphic implements StrokeNode, UomNode,
 
         double holeR = 0.0;
 
-        Area hole = null;
         if (this.holeRadius != null) {
             holeR = Uom.toPixel(this.getHoleRadius().getValue(map), this.getUom(), mt.getDpi(), mt.getScaleDenominator(), r);
-            hole = new Area(new Arc2D.Double(-holeR, -holeR, 2 * holeR, 2 * holeR, 0, 360, Arc2D.CHORD));
         }
 
         for (int i = 0; i < nSlices; i++) {
@@ -474,6 +470,11 @@ public final class PieChart extends Graphic implements StrokeNode, UomNode,
             at.concatenate(this.getTransform().getGraphicalAffineTransform(false, map, mt, r, r));
         }
 
+        // Nothing to share out, or a chart smaller than a pixel : skip it
+        if (total == 0.0 || ChartShapes.isSubPixel(at, 2 * r)) {
+            return;
+        }
+
         // Now, the total is defines, we can compute percentages and slices begin/end angles
         double[] percentages = new double[nSlices];
 
@@ -508,12 +509,7 @@ public final class PieChart extends Graphic implements StrokeNode, UomNode,
             }
 
 
-            Area gSlc = new Area(new Arc2D.Double(-r, -r, 2 * r, 2 * r, aStart, aExtend, Arc2D.PIE));
-
-            if (hole != null) {
-                gSlc.subtract(hole);
-            }
-
+            Shape gSlc = ChartShapes.slice(r, holeR, aStart, aExtend);
 
             double alphaMiddle = (aStart + aExtend / 2.0) * Math.PI / 180.0;
 
@@ -0,0 +1,294 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.graphic;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.se.RenderingCache;
+import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
+
+/**
+ * Pre-rasterized images of a {@link Graphic} that does not depend on the
+ * features.
+ *
+ * When all the parameters of a graphic are literals, its rendering only
+ * depends on the scale, the resolution and the selection state. It is then
+ * drawn once in a small image (a sprite) that is simply copied at the location
+ * of each feature. Sprites are only used on the {@code Graphics2D} that enable
+ * them with {@link #KEY_SPRITES}, i.e. when drawing in an image : vector
+ * outputs (PDF...) still receive the shapes. Sprites are positioned on whole
+ * pixels, which may move a symbol by half a pixel at most.
+ */
+public final class SpriteCache extends RenderingCache<SpriteCache.SpriteKey, SpriteCache.Sprite> {
+
+    /**
+     * Rendering hint enabling the sprites on a {@code Graphics2D}, and the
+     * tiles that replace the hatches of the fills. Its value is a
+     * {@code Boolean}.
+     */
+    public static final RenderingHints.Key KEY_SPRITES = new RenderingHints.Key(0x5e5e) {
+
+        @Override
+        public boolean isCompatibleValue(Object val) {
+            return val instanceof Boolean;
+        }
+
+        @Override
+        public String toString() {
+            return "Symbol sprites";
+        }
+    };
+    /**
+     * Maximum width and height of a sprite, in pixels. Bigger graphics are
+     * always drawn as shapes.
+     */
+    static final int MAX_SPRITE_SIZE = 256;
+    /**
+     * Maximum number of sprites kept for a graphic (scales, resolutions and
+     * selection states).
+     */
+    static final int MAX_SPRITES = 8;
+    private final Graphic graphic;
+
+    /**
+     * Builds the sprite cache of {@code graphic}.
+     * @param graphic
+     */
+    SpriteCache(Graphic graphic) {
+        super(graphic, MAX_SPRITES);
+        this.graphic = graphic;
+    }
+
+    /**
+     * Draws the graphic as a sprite, if possible.
+     * @param g2
+     * @param selected
+     * @param mt
+     * @param at
+     * The transformation of the graphic. Only translations are accepted.
+     * @return
+     * {@code true} if the graphic has been drawn, {@code false} if it must be
+     * drawn by the caller.
+     * @throws ParameterException
+     * @throws IOException
+     */
+    boolean draw(Graphics2D g2, boolean selected, MapTransform mt, AffineTransform at)
+            throws ParameterException, IOException {
+        if (mt == null || !Boolean.TRUE.equals(g2.getRenderingHint(KEY_SPRITES))
+                || !isTranslation(at) || !isTranslation(g2.getTransform())) {
+            return false;
+        }
+        Sprite sprite = getSprite(g2, selected, mt);
+        if (sprite == null) {
+            return false;
+        }
+        int x = (int) Math.floor(at.getTranslateX() + 0.5) + sprite.x;
+        int y = (int) Math.floor(at.getTranslateY() + 0.5) + sprite.y;
+        g2.drawImage(sprite.image, x, y, null);
+        return true;
+    }
+
+    /**
+     * Gets the sprite matching the given state, rendering it if needed.
+     * @return
+     * The sprite, or null if the graphic can't be drawn as a sprite.
+     */
+    private Sprite getSprite(Graphics2D g2, boolean selected, MapTransform mt)
+            throws ParameterException, IOException {
+        SpriteKey key = new SpriteKey(mt.getScaleDenominator(), mt.getDpi(), selected);
+        if (!isConstant()) {
+            return null;
+        }
+        synchronized (this) {
+            if (containsKey(key)) {
+                return get(key);
+            }
+        }
+        Sprite sprite = render(g2, selected, mt);
+        put(key, sprite);
+        return sprite;
+    }
+
+    /**
+     * Renders the graphic in a new sprite.
+     * @return
+     * The sprite, or null if the graphic is empty or too big.
+     */
+    private Sprite render(Graphics2D g2, boolean selected, MapTransform mt)
+            throws ParameterException, IOException {
+        Map<String, Object> map = Collections.emptyMap();
+        Rectangle2D bounds = graphic.getBounds(map, mt);
+        if (bounds == null || bounds.isEmpty()) {
+            return null;
+        }
+        if (graphic instanceof TransformNode && ((TransformNode) graphic).getTransform() != null) {
+            bounds = ((TransformNode) graphic).getTransform().getGraphicalAffineTransform(false,
+                    map, mt, bounds.getWidth(), bounds.getHeight()).createTransformedShape(bounds).getBounds2D();
+        }
+        // The bounds of a graphic don't always include its stroke and its
+        // halo : the graphic is drawn with a wide margin and the image is
+        // cropped afterwards.
+        double margin = Math.max(bounds.getWidth(), bounds.getHeight()) + 2;
+        int minX = (int) Math.floor(bounds.getMinX() - margin);
+        int minY = (int) Math.floor(bounds.getMinY() - margin);
+        int width = (int) Math.ceil(bounds.getMaxX() + margin) - minX;
+        int height = (int) Math.ceil(bounds.getMaxY() + margin) - minY;
+        if (width > 3 * MAX_SPRITE_SIZE || height > 3 * MAX_SPRITE_SIZE) {
+            return null;
+        }
+        BufferedImage canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D cg = canvas.createGraphics();
+        try {
+            cg.setRenderingHints(g2.getRenderingHints());
+            cg.setRenderingHint(KEY_SPRITES, Boolean.FALSE);
+            graphic.draw(cg, map, selected, mt, AffineTransform.getTranslateInstance(-minX, -minY));
+        } finally {
+            cg.dispose();
+        }
+        return crop(canvas, minX, minY);
+    }
+
+    /**
+     * Crops {@code canvas} to its non-transparent pixels.
+     * @param canvas
+     * @param minX
+     * The x coordinate of the canvas origin, relative to the graphic origin.
+     * @param minY
+     * The y coordinate of the canvas origin, relative to the graphic origin.
+     * @return
+     * The sprite, or null if the canvas is empty or too big.
+     */
+    static Sprite crop(BufferedImage canvas, int minX, int minY) {
+        int width = canvas.getWidth();
+        int height = canvas.getHeight();
+        int[] argb = canvas.getRGB(0, 0, width, height, null, 0, width);
+        int x0 = width;
+        int y0 = height;
+        int x1 = -1;
+        int y1 = -1;
+        for (int j = 0; j < height; j++) {
+            int row = j * width;
+            for (int i = 0; i < width; i++) {
+                if ((argb[row + i] >>> 24) != 0) {
+                    x0 = Math.min(x0, i);
+                    x1 = Math.max(x1, i);
+                    y0 = Math.min(y0, j);
+                    y1 = Math.max(y1, j);
+                }
+            }
+        }
+        if (x1 < 0) {
+            return null;
+        }
+        int w = x1 - x0 + 1;
+        int h = y1 - y0 + 1;
+        if (w > MAX_SPRITE_SIZE || h > MAX_SPRITE_SIZE) {
+            return null;
+        }
+        BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, w, h, argb, y0 * width + x0, width);
+        return new Sprite(image, minX + x0, minY + y0);
+    }
+
+    private static boolean isTranslation(AffineTransform at) {
+        return at != null && (at.getType() & ~AffineTransform.TYPE_TRANSLATION) == 0;
+    }
+
+    /**
+     * A rendered graphic, with the position of its upper left corner relative
+     * to the graphic origin.
+     */
+    static final class Sprite {
+
+        private final BufferedImage image;
+        private final int x;
+        private final int y;
+
+        Sprite(BufferedImage image, int x, int y) {
+            this.image = image;
+            this.x = x;
+            this.y = y;
+        }
+
+        BufferedImage getImage() {
+            return image;
+        }
+
+        int getX() {
+            return x;
+        }
+
+        int getY() {
+            return y;
+        }
+    }
+
+    /**
+     * The state a sprite has been rendered for.
+     */
+    static final class SpriteKey {
+
+        private final double scale;
+        private final double dpi;
+        private final boolean selected;
+
+        SpriteKey(double scale, double dpi, boolean selected) {
+            this.scale = scale;
+            this.dpi = dpi;
+            this.selected = selected;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SpriteKey)) {
+                return false;
+            }
+            SpriteKey other = (SpriteKey) obj;
+            return Double.compare(scale, other.scale) == 0
+                    && Double.compare(dpi, other.dpi) == 0
+                    && selected == other.selected;
+        }
+
+        @Override
+        public int hashCode() {
+            long s = Double.doubleToLongBits(scale);
+            long d = Double.doubleToLongBits(dpi);
+            int h = (int) (s ^ (s >>> 32));
+            h = 31 * h + (int) (d ^ (d >>> 32));
+            return 31 * h + (selected ? 1 : 0);
+        }
+    }
+}
@@ -338,6 +338,24 @@ public abstract class Label extends AbstractSymbolizerNode implements UomNode {
             Shape shp, boolean selected, MapTransform mt)
             throws ParameterException, IOException;
 
+    /**
+     * Get the candidate used to place this {@code Label} among the labels of
+     * the whole map. Building it must not lay out the glyphs of the text :
+     * only the area the text will cover is computed.
+     * @param g2
+     * @param feat
+     * @param shp
+     * @param selected
+     * @param mt
+     * @return The candidate, drawn with {@link #draw(Graphics2D, Map, Shape, boolean, MapTransform) draw}
+     * if it is placed.
+     * @throws ParameterException
+     * @throws IOException
+     */
+    public abstract LabelCandidate getCandidate(Graphics2D g2, Map<String, Object> feat,
+            Shape shp, boolean selected, MapTransform mt)
+            throws ParameterException, IOException;
+
     /**
      * Get a JAXB representation of this {@code Label}
      * @return
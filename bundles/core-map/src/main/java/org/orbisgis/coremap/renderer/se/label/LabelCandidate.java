@@ -0,0 +1,125 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.label;
+
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
+
+/**
+ * A label waiting to be placed on the map. It knows the area its text will
+ * cover once drawn, so that it can be checked against the labels already
+ * placed without laying out its glyphs.
+ */
+public final class LabelCandidate {
+
+    private final Label label;
+    private final Map<String, Object> map;
+    private final Shape shape;
+    private final boolean selected;
+    private final Rectangle2D bounds;
+    private final Rectangle2D reserved;
+    private final double priority;
+    private int level;
+    private int order;
+
+    /**
+     * Builds a new candidate.
+     * @param label The label to draw
+     * @param map The input values of the feature. They are copied.
+     * @param shape The shape the label is attached to
+     * @param selected If true, the input geometry has been selected
+     * @param bounds The area covered by the text, in pixels
+     * @param reserved The area where no other text must be drawn, in pixels
+     * @param priority The candidates with the greater priority are placed first
+     */
+    LabelCandidate(Label label, Map<String, Object> map, Shape shape, boolean selected,
+            Rectangle2D bounds, Rectangle2D reserved, double priority) {
+        this.label = label;
+        this.map = new HashMap<String, Object>(map);
+        this.shape = shape;
+        this.selected = selected;
+        this.bounds = bounds;
+        this.reserved = reserved;
+        this.priority = priority;
+    }
+
+    /**
+     * Gets the area covered by the text of this label.
+     * @return The bounds, in pixels
+     */
+    public Rectangle2D getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Gets the area around this label where no other text must be drawn.
+     * @return The reserved area, in pixels
+     */
+    public Rectangle2D getReservedArea() {
+        return reserved;
+    }
+
+    /**
+     * Gets the priority of this candidate among the candidates of its level.
+     * @return The priority
+     */
+    public double getPriority() {
+        return priority;
+    }
+
+    int getLevel() {
+        return level;
+    }
+
+    int getOrder() {
+        return order;
+    }
+
+    void setRank(int level, int order) {
+        this.level = level;
+        this.order = order;
+    }
+
+    /**
+     * Draws this label.
+     * @param g2 The graphics we draw with
+     * @param mt The current MapTransform
+     * @throws ParameterException
+     * @throws IOException
+     */
+    public void draw(Graphics2D g2, MapTransform mt) throws ParameterException, IOException {
+        label.draw(g2, map, shape, selected, mt);
+    }
+}
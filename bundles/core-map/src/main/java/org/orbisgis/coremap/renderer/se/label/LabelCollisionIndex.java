@@ -0,0 +1,144 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.label;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A uniform grid over the screen that keeps the areas taken by the labels
+ * already placed on the map.
+ *
+ * Each label is registered with two rectangles: the area covered by its text
+ * and the area reserved around it by its {@link ExclusionZone}. A new label
+ * collides with a placed one if its text overlaps the reserved area of the
+ * other, or if its own reserved area overlaps the text of the other.
+ */
+public final class LabelCollisionIndex {
+
+    /**
+     * Default size of a grid cell, in pixels.
+     */
+    public static final int DEFAULT_CELL_SIZE = 64;
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final List<Entry>[] cells;
+
+    /**
+     * Builds an empty index covering an image of the given size, with
+     * {@link #DEFAULT_CELL_SIZE} cells.
+     * @param width The width of the image, in pixels
+     * @param height The height of the image, in pixels
+     */
+    public LabelCollisionIndex(int width, int height) {
+        this(width, height, DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Builds an empty index covering an image of the given size.
+     * @param width The width of the image, in pixels
+     * @param height The height of the image, in pixels
+     * @param cellSize The size of a grid cell, in pixels
+     */
+    @SuppressWarnings("unchecked")
+    public LabelCollisionIndex(int width, int height, int cellSize) {
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (width + cellSize - 1) / cellSize);
+        this.rows = Math.max(1, (height + cellSize - 1) / cellSize);
+        this.cells = new List[columns * rows];
+    }
+
+    /**
+     * Registers a label if it does not collide with any label already placed.
+     * @param bounds The area covered by the text of the label
+     * @param reserved The area around the label where no other text must be
+     * drawn. It must contain {@code bounds}.
+     * @return true if the label has been placed, false if it collides
+     */
+    public boolean add(Rectangle2D bounds, Rectangle2D reserved) {
+        int minCol = column(reserved.getMinX());
+        int maxCol = column(reserved.getMaxX());
+        int minRow = row(reserved.getMinY());
+        int maxRow = row(reserved.getMaxY());
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                List<Entry> cell = cells[r * columns + c];
+                if (cell != null) {
+                    for (Entry e : cell) {
+                        if (e.reserved.intersects(bounds) || e.bounds.intersects(reserved)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        Entry entry = new Entry(bounds, reserved);
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                int i = r * columns + c;
+                if (cells[i] == null) {
+                    cells[i] = new ArrayList<Entry>(4);
+                }
+                cells[i].add(entry);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes all the labels of this index.
+     */
+    public void clear() {
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = null;
+        }
+    }
+
+    // Labels that are partially out of the image are kept in the border cells
+    private int column(double x) {
+        return Math.min(columns - 1, Math.max(0, (int) Math.floor(x / cellSize)));
+    }
+
+    private int row(double y) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor(y / cellSize)));
+    }
+
+    private static final class Entry {
+
+        private final Rectangle2D bounds;
+        private final Rectangle2D reserved;
+
+        private Entry(Rectangle2D bounds, Rectangle2D reserved) {
+            this.bounds = bounds;
+            this.reserved = reserved;
+        }
+    }
+}
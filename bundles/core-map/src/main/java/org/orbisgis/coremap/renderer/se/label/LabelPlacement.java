@@ -0,0 +1,133 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.label;
+
+import java.awt.Graphics2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.apache.log4j.Logger;
+import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
+
+/**
+ * The deferred labeling stage of the renderer.
+ *
+ * The labels of all the layers are collected while the map is drawn, and
+ * placed once all the other symbols have been rendered. The candidates of the
+ * upper layers are placed first, then the ones with the greatest priority ;
+ * a candidate that collides with a label already placed, or with its
+ * {@link ExclusionZone}, is dropped without being laid out.
+ */
+public final class LabelPlacement {
+
+    private static final Logger LOGGER = Logger.getLogger(LabelPlacement.class);
+    private static final Comparator<LabelCandidate> RANKING = new Comparator<LabelCandidate>() {
+
+        @Override
+        public int compare(LabelCandidate a, LabelCandidate b) {
+            if (a.getLevel() != b.getLevel()) {
+                return a.getLevel() > b.getLevel() ? -1 : 1;
+            }
+            int c = Double.compare(b.getPriority(), a.getPriority());
+            if (c != 0) {
+                return c;
+            }
+            return a.getOrder() < b.getOrder() ? -1 : (a.getOrder() == b.getOrder() ? 0 : 1);
+        }
+    };
+    private final int width;
+    private final int height;
+    private final List<LabelCandidate> candidates = new ArrayList<LabelCandidate>();
+    private int level;
+
+    /**
+     * Builds a new labeling stage for an image of the given size.
+     * @param width The width of the image, in pixels
+     * @param height The height of the image, in pixels
+     */
+    public LabelPlacement(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Starts a new level: the candidates added from now on are placed before
+     * all the ones added previously. It is called for each layer.
+     */
+    public void nextLevel() {
+        level++;
+    }
+
+    /**
+     * Adds a candidate.
+     * @param candidate The candidate
+     */
+    public void add(LabelCandidate candidate) {
+        candidate.setRank(level, candidates.size());
+        candidates.add(candidate);
+    }
+
+    /**
+     * Gets the number of candidates waiting to be placed.
+     * @return The number of candidates
+     */
+    public int size() {
+        return candidates.size();
+    }
+
+    /**
+     * Places the candidates and draws the ones that do not collide. The
+     * candidates are then forgotten.
+     * @param g2 The graphics we draw with
+     * @param mt The current MapTransform
+     * @return The number of labels drawn
+     */
+    public int drawLabels(Graphics2D g2, MapTransform mt) {
+        Collections.sort(candidates, RANKING);
+        LabelCollisionIndex index = new LabelCollisionIndex(width, height);
+        int drawn = 0;
+        for (LabelCandidate candidate : candidates) {
+            if (index.add(candidate.getBounds(), candidate.getReservedArea())) {
+                try {
+                    candidate.draw(g2, mt);
+                    drawn++;
+                } catch (ParameterException ex) {
+                    LOGGER.warn("Could not draw a label", ex);
+                } catch (IOException ex) {
+                    LOGGER.warn("Could not draw a label", ex);
+                }
+            }
+        }
+        candidates.clear();
+        return drawn;
+    }
+}
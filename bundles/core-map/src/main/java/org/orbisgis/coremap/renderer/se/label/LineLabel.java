@@ -112,6 +112,24 @@ public class LineLabel extends Label {
     public void draw(Graphics2D g2, Map<String,Object> map,
             Shape shp, boolean selected, MapTransform mt)
             throws ParameterException, IOException {
+        getLabel().drawOutlines(g2, getGlyphOutlines(g2, map, shp, mt), map, selected, mt);
+    }
+
+    /**
+     * Gets the outlines of the glyphs of the label, laid out along {@code shp}.
+     * They are the shapes filled and stroked by {@link #draw(Graphics2D, Map,
+     * Shape, boolean, MapTransform) draw}.
+     * @param g2
+     * @param map
+     * @param shp
+     * @param mt
+     * @return The outlines of the glyphs, in pixels.
+     * @throws ParameterException
+     * @throws IOException
+     */
+    public ArrayList<Shape> getGlyphOutlines(Graphics2D g2, Map<String,Object> map,
+            Shape shp, MapTransform mt)
+            throws ParameterException, IOException {
 
         Rectangle2D bounds = getLabel().getBounds(g2, map, mt);
         double totalWidth = bounds.getWidth();
@@ -145,7 +163,6 @@ public class LineLabel extends Label {
          */
 
         VerticalAlignment vA = getVerticalAlign();
-        HorizontalAlignment hA = getHorizontalAlign();
         RelativeOrientation ra = getOrientation();
 
         if (vA == null) {
@@ -153,37 +170,13 @@ public class LineLabel extends Label {
             //The four important lines, here, according to the SE norm, are the
             //middle line, the baseline, the ascent line and the descent line.
         }
-        if (hA == null) {
-            hA = HorizontalAlignment.CENTER;
-        }
         if(ra == null) {
             ra= RelativeOrientation.NORMAL_UP;
         }
         double lineLength = ShapeHelper.getLineLength(shp);
-        double startAt;
-        double stopAt;
-        switch (hA) {
-            case RIGHT:
-                startAt = lineLength - totalWidth;
-                stopAt = lineLength;
-                break;
-            case LEFT:
-                startAt = 0.0;
-                stopAt = totalWidth;
-                break;
-            default:
-            case CENTER:
-                startAt = (lineLength - totalWidth) / 2.0;
-                stopAt = (lineLength + totalWidth) / 2.0;
-                break;
-
-        }
-        if (startAt < 0.0) {
-            startAt = 0.0;
-        }
-        if (stopAt > lineLength){
-            stopAt = lineLength;
-        }
+        double[] range = getRange(lineLength, totalWidth);
+        double startAt = range[0];
+        double stopAt = range[1];
         Point2D.Double ptStart = ShapeHelper.getPointAt(shp, startAt);
         Point2D.Double ptStop = ShapeHelper.getPointAt(shp, stopAt);
         int way = 1;
@@ -222,7 +215,69 @@ public class LineLabel extends Label {
                 //currentPos += emWidth*way;
             }
         }
-        getLabel().drawOutlines(g2, outlines, map, selected, mt);
+        return outlines;
+    }
+
+    /**
+     * The candidate covers the part of the line where the glyphs will be
+     * drawn, widened by the height of the text on both sides.
+     */
+    @Override
+    public LabelCandidate getCandidate(Graphics2D g2, Map<String, Object> map,
+            Shape shp, boolean selected, MapTransform mt)
+            throws ParameterException, IOException {
+        Rectangle2D bounds = getLabel().getBounds(g2, map, mt);
+        double height = bounds.getHeight();
+        double lineLength = ShapeHelper.getLineLength(shp);
+        double[] range = getRange(lineLength, bounds.getWidth());
+        double step = Math.max(1.0, height);
+        Point2D.Double pt = ShapeHelper.getPointAt(shp, range[0]);
+        Rectangle2D.Double area = new Rectangle2D.Double(pt.x, pt.y, 0, 0);
+        for (double pos = range[0] + step; pos < range[1]; pos += step) {
+            pt = ShapeHelper.getPointAt(shp, pos);
+            area.add(pt);
+        }
+        area.add(ShapeHelper.getPointAt(shp, range[1]));
+        area.setRect(area.x - height, area.y - height, area.width + 2 * height, area.height + 2 * height);
+        return new LabelCandidate(this, map, shp, selected, area, area,
+                getLabel().getEmInPixel(map, mt));
+    }
+
+    /**
+     * Gets the part of the line covered by a text of the given width,
+     * according to the horizontal alignment.
+     * @return The start and the end of the text along the line
+     */
+    private double[] getRange(double lineLength, double totalWidth) {
+        HorizontalAlignment hA = getHorizontalAlign();
+        if (hA == null) {
+            hA = HorizontalAlignment.CENTER;
+        }
+        double startAt;
+        double stopAt;
+        switch (hA) {
+            case RIGHT:
+                startAt = lineLength - totalWidth;
+                stopAt = lineLength;
+                break;
+            case LEFT:
+                startAt = 0.0;
+                stopAt = totalWidth;
+                break;
+            default:
+            case CENTER:
+                startAt = (lineLength - totalWidth) / 2.0;
+                stopAt = (lineLength + totalWidth) / 2.0;
+                break;
+
+        }
+        if (startAt < 0.0) {
+            startAt = 0.0;
+        }
+        if (stopAt > lineLength){
+            stopAt = lineLength;
+        }
+        return new double[]{startAt, stopAt};
     }
 
     @Override
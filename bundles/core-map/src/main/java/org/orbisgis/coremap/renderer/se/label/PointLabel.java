@@ -31,6 +31,7 @@ package org.orbisgis.coremap.renderer.se.label;
 import java.awt.Graphics2D;
 import java.awt.Shape;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -153,17 +154,49 @@ public final class PointLabel extends Label {
     public void draw(Graphics2D g2, Map<String, Object> map,
             Shape shp, boolean selected, MapTransform mt)
             throws ParameterException, IOException {
+        AffineTransform at = getTransform(g2, map, shp, mt);
+        getLabel().draw(g2, map, selected, mt, at, this.getVerticalAlign());
+    }
+
+    @Override
+    public LabelCandidate getCandidate(Graphics2D g2, Map<String, Object> map,
+            Shape shp, boolean selected, MapTransform mt)
+            throws ParameterException, IOException {
+        AffineTransform at = getTransform(g2, map, shp, mt);
+        String text = getLabel().getText().getValue(map);
+        Rectangle2D bounds = getLabel().getBounds(g2, text, map, mt, at, this.getVerticalAlign());
+        Point2D exclusion = getExclusion(map, mt);
+        Rectangle2D reserved = new Rectangle2D.Double(bounds.getX() - exclusion.getX(),
+                bounds.getY() - exclusion.getY(),
+                bounds.getWidth() + 2 * exclusion.getX(),
+                bounds.getHeight() + 2 * exclusion.getY());
+        return new LabelCandidate(this, map, shp, selected, bounds, reserved,
+                getLabel().getEmInPixel(map, mt));
+    }
+
+    /**
+     * Gets the transformation that puts the text at its place on the map.
+     */
+    private AffineTransform getTransform(Graphics2D g2, Map<String, Object> map,
+            Shape shp, MapTransform mt) throws ParameterException, IOException {
         double x;
         double y;
 
         // TODO RenderPermission !
-        double deltaX = 0;
-        double deltaY = 0;
-
         Rectangle2D bounds = getLabel().getBounds(g2, map, mt);
         x = shp.getBounds2D().getCenterX() + getHorizontalDisplacement(bounds);
         y = shp.getBounds2D().getCenterY() + bounds.getHeight() / 2;
 
+        Point2D exclusion = getExclusion(map, mt);
+        return AffineTransform.getTranslateInstance(x + exclusion.getX(), y + exclusion.getY());
+    }
+
+    /**
+     * Gets the size of the exclusion zone along the X and Y axis, in pixels.
+     */
+    private Point2D getExclusion(Map<String, Object> map, MapTransform mt) throws ParameterException {
+        double deltaX = 0;
+        double deltaY = 0;
         if (this.exclusionZone != null) {
             if (this.exclusionZone instanceof ExclusionRadius) {
                 double radius = ((ExclusionRadius) (this.exclusionZone)).getRadius().getValue(map);
@@ -178,10 +211,7 @@ public final class PointLabel extends Label {
                 deltaY = Uom.toPixel(deltaY, getUom(), mt.getDpi(), mt.getScaleDenominator(), null);
             }
         }
-
-        AffineTransform at = AffineTransform.getTranslateInstance(x + deltaX, y + deltaY);
-
-        getLabel().draw(g2, map, selected, mt, at, this.getVerticalAlign());
+        return new Point2D.Double(deltaX, deltaY);
     }
 
     /**
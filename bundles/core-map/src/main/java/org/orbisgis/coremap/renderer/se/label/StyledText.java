@@ -29,7 +29,6 @@
 package org.orbisgis.coremap.renderer.se.label;
 
 import java.awt.*;
-import java.awt.font.TextLayout;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
@@ -378,7 +377,7 @@ public final class StyledText extends AbstractSymbolizerNode implements UomNode,
             }
         }
 
-        return new Font(family, st, (int) size);
+        return TextCache.getFont(family, st, (int) size);
     }
 
     /**
@@ -498,8 +497,37 @@ public final class StyledText extends AbstractSymbolizerNode implements UomNode,
             MapTransform mt, AffineTransform at, Label.VerticalAlignment va)
             throws ParameterException, IOException {
         Font font = getFont(map, mt);
-        TextLayout tl = new TextLayout(text, font, g2.getFontRenderContext());
+        Shape outline = TextCache.getOutline(text, font, g2.getFontRenderContext());
         FontMetrics metrics = g2.getFontMetrics(font);
+        return getAlignedTransform(metrics, at, va).createTransformedShape(outline);
+    }
+
+    /**
+     * Gets the bounds of the given {@code String} once drawn with {@code at}
+     * and {@code va}, as {@link #getOutline(Graphics2D, String, Map, MapTransform, AffineTransform, Label.VerticalAlignment)
+     * getOutline} would do. Only the font metrics are used : the glyphs are
+     * not laid out.
+     * @param g2 The graphics we draw with
+     * @param text The text for which we need the bounds.
+     * @param map The map of input values
+     * @param mt The current MapTransform
+     * @param at The AffineTransform that will be applied to the text.
+     * @param va The vertical alignment of the text.
+     * @return The bounds of the text, in pixels
+     * @throws ParameterException
+     * @throws IOException
+     */
+    public Rectangle2D getBounds(Graphics2D g2, String text, Map<String, Object> map,
+            MapTransform mt, AffineTransform at, Label.VerticalAlignment va)
+            throws ParameterException, IOException {
+        Font font = getFont(map, mt);
+        FontMetrics metrics = g2.getFontMetrics(font);
+        Rectangle2D bounds = metrics.getStringBounds(text, g2);
+        return getAlignedTransform(metrics, at, va).createTransformedShape(bounds).getBounds2D();
+    }
+
+    private AffineTransform getAlignedTransform(FontMetrics metrics, AffineTransform at,
+            Label.VerticalAlignment va) {
         double dy=0;
         switch(va){
             case BASELINE:
@@ -523,7 +551,7 @@ public final class StyledText extends AbstractSymbolizerNode implements UomNode,
         //We apply the translation used to manage the height of the text on the
         //line BEFORE to apply at : we use concatenate.
         rat.concatenate(AffineTransform.getTranslateInstance(0, dy));
-        return tl.getOutline(rat);
+        return rat;
     }
 
     /**
@@ -0,0 +1,188 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.label;
+
+import java.awt.Font;
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide caches of the fonts and text outlines used to draw the labels.
+ *
+ * A map often shows thousands of labels sharing a few styles and many of them
+ * share their text (road names, category codes...). Both caches are bounded
+ * and forget the least recently used entries first. {@code Font} instances are
+ * immutable and the outlines are never modified : they are only transformed
+ * into new shapes, so the cached objects can be shared between threads.
+ */
+final class TextCache {
+
+    /**
+     * Maximum number of fonts kept in the cache.
+     */
+    static final int FONT_CACHE_SIZE = 256;
+    /**
+     * Maximum number of outlines kept in the cache.
+     */
+    static final int OUTLINE_CACHE_SIZE = 8192;
+    private static final Map<FontKey, Font> FONTS = new LruMap<FontKey, Font>(FONT_CACHE_SIZE);
+    private static final Map<OutlineKey, Shape> OUTLINES = new LruMap<OutlineKey, Shape>(OUTLINE_CACHE_SIZE);
+
+    private TextCache() {
+    }
+
+    /**
+     * Gets the font with the given family, style and size.
+     * @param family The font family
+     * @param style The style, as a combination of {@code Font.PLAIN}, {@code Font.BOLD}
+     * and {@code Font.ITALIC}
+     * @param size The size of the font, in pixels
+     * @return A shared {@code Font} instance
+     */
+    static Font getFont(String family, int style, int size) {
+        FontKey key = new FontKey(family, style, size);
+        synchronized (FONTS) {
+            Font font = FONTS.get(key);
+            if (font == null) {
+                font = new Font(family, style, size);
+                FONTS.put(key, font);
+            }
+            return font;
+        }
+    }
+
+    /**
+     * Gets the outline of {@code text} drawn with {@code font}, with its
+     * baseline starting at (0,0).
+     * @param text The text
+     * @param font The font
+     * @param frc The context the text is rendered with
+     * @return A shared shape that must not be modified
+     */
+    static Shape getOutline(String text, Font font, FontRenderContext frc) {
+        OutlineKey key = new OutlineKey(text, font, frc);
+        Shape outline;
+        synchronized (OUTLINES) {
+            outline = OUTLINES.get(key);
+        }
+        if (outline == null) {
+            // laid out without holding the lock : two threads may compute the
+            // same outline, which is harmless.
+            outline = new TextLayout(text, font, frc).getOutline(null);
+            synchronized (OUTLINES) {
+                OUTLINES.put(key, outline);
+            }
+        }
+        return outline;
+    }
+
+    /**
+     * Empties the caches.
+     */
+    static void clear() {
+        synchronized (FONTS) {
+            FONTS.clear();
+        }
+        synchronized (OUTLINES) {
+            OUTLINES.clear();
+        }
+    }
+
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private final int maxSize;
+
+        private LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    private static final class FontKey {
+
+        private final String family;
+        private final int style;
+        private final int size;
+
+        private FontKey(String family, int style, int size) {
+            this.family = family;
+            this.style = style;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof FontKey)) {
+                return false;
+            }
+            FontKey other = (FontKey) obj;
+            return style == other.style && size == other.size && family.equals(other.family);
+        }
+
+        @Override
+        public int hashCode() {
+            return (family.hashCode() * 31 + style) * 31 + size;
+        }
+    }
+
+    private static final class OutlineKey {
+
+        private final String text;
+        private final Font font;
+        private final FontRenderContext frc;
+
+        private OutlineKey(String text, Font font, FontRenderContext frc) {
+            this.text = text;
+            this.font = font;
+            this.frc = frc;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof OutlineKey)) {
+                return false;
+            }
+            OutlineKey other = (OutlineKey) obj;
+            return text.equals(other.text) && font.equals(other.font) && frc.equals(other.frc);
+        }
+
+        @Override
+        public int hashCode() {
+            return (text.hashCode() * 31 + font.hashCode()) * 31 + frc.hashCode();
+        }
+    }
+}
@@ -119,6 +119,11 @@ public abstract class Categorize<ToType extends SeParameter, FallbackType extend
     private double sdFactor;
     private List<CategorizeListener> listeners;
     private SortedMap<RealLiteral,ToType> mapping;
+    /**
+     * The mapping compiled in arrays, built lazily and dropped each time the
+     * mapping changes.
+     */
+    private volatile Lookup<ToType> lookup;
 
     /**
      * Describes the methods that can be used to build a categorization.
@@ -233,6 +238,7 @@ public abstract class Categorize<ToType extends SeParameter, FallbackType extend
      * @param value The new value
      */
     public void put(RealLiteral threshold, ToType value) {
+        lookup = null;
         mapping.put(threshold,value);
         threshold.setContext(RealParameterContext.REAL_CONTEXT);
         threshold.register(this);
@@ -249,6 +255,7 @@ public abstract class Categorize<ToType extends SeParameter, FallbackType extend
         if(threshold == null){
             throw new NullPointerException("");
         }
+        lookup = null;
         Double d = threshold.getValue(null);
         if(Double.isInfinite(d) && d<0){
             if(mapping.size() <= 1){
@@ -275,6 +282,7 @@ public abstract class Categorize<ToType extends SeParameter, FallbackType extend
      * @return true if the class has been removed.
      */
     public boolean remove(int i) {
+        lookup = null;
         RealLiteral rl = getKey(i);
         if(rl != null){
             if(rl.getValue(null) == Double.NEGATIVE_INFINITY){
@@ -382,6 +390,7 @@ public abstract class Categorize<ToType extends SeParameter, FallbackType extend
      * @param threshold The new threshold to be used.
      */
     public void setThreshold(int i, RealLiteral threshold) {
+        lookup = null;
         if(i==0){
             ToType rem = mapping.remove(mapping.firstKey());
             mapping.put(threshold,rem);
@@ -404,6 +413,12 @@ public abstract class Categorize<ToType extends SeParameter, FallbackType extend
         sortClasses();
     }
 
+    @Override
+    public void update() {
+        lookup = null;
+        super.update();
+    }
+
     /**
      * Get the ith threshold value of this categorization.
      * @param i The range of the needed threshold.
@@ -456,6 +471,7 @@ public abstract class Categorize<ToType extends SeParameter, FallbackType extend
             nMap.put(entry.getKey(), entry.getValue());
         }
         mapping = nMap;
+        lookup = null;
         fireNewThresoldsOrder();
     }
 
@@ -473,7 +489,7 @@ public abstract class Categorize<ToType extends SeParameter, FallbackType extend
                 if(value == null){
                         return fallbackValue;
                 }
-                return getClassValue(new RealLiteral(value));
+                return getClassValue(value);
             } else { // Means nbClass == 1
                 return mapping.get(new RealLiteral(Double.NEGATIVE_INFINITY));
             }
@@ -484,21 +500,34 @@ public abstract class Categorize<ToType extends SeParameter, FallbackType extend
         return fallbackValue;
     }
 
-    private ToType getClassValue(RealLiteral limit){
-        if(mapping.containsKey(limit)){
-            if(succeeding || limit.getValue(null) == Double.NEGATIVE_INFINITY){
-                return mapping.get(limit);
-            } else {
-                SortedMap<RealLiteral, ToType> head = mapping.headMap(limit);
-                return head.get(head.lastKey());
+    /**
+     * Gets the class value of {@code value} with a binary search in the
+     * compiled thresholds.
+     * @param value The value to classify
+     * @return The class value, or the fallback value if {@code value} is lower than all the thresholds.
+     */
+    private ToType getClassValue(double value){
+        Lookup<ToType> l = getLookup();
+        int i = Arrays.binarySearch(l.thresholds, value);
+        if(i >= 0){
+            //we're on a limit between two intervals
+            if(!succeeding && l.thresholds[i] != Double.NEGATIVE_INFINITY){
+                i--;
             }
         } else {
-            //we're not on a limit between two intervals
-            //We get the map of all the keys that are lower than limit (ie the headMap) and get the greatest
-            //element
-            SortedMap<RealLiteral, ToType> head = mapping.headMap(limit);
-            return head.get(head.lastKey());
+            //We get the greatest threshold that is lower than value
+            i = -i - 2;
         }
+        return i < 0 ? fallbackValue : l.values.get(i);
+    }
+
+    private Lookup<ToType> getLookup(){
+        Lookup<ToType> l = lookup;
+        if(l == null){
+            l = new Lookup<ToType>(mapping);
+            lookup = l;
+        }
+        return l;
     }
 
     /**
@@ -514,7 +543,7 @@ public abstract class Categorize<ToType extends SeParameter, FallbackType extend
                 if(value == null){
                         return fallbackValue;
                 }
-                return getClassValue(new RealLiteral(value));
+                return getClassValue(value);
             } else { // Means nbClass == 1
                 return mapping.get(new RealLiteral(Double.NEGATIVE_INFINITY));
             }
@@ -719,6 +748,26 @@ public abstract class Categorize<ToType extends SeParameter, FallbackType extend
         return ls;
     }
 
+    /**
+     * The thresholds of the mapping in a sorted array of primitive values,
+     * with the class values in the same order.
+     */
+    private static final class Lookup<ToType> {
+
+        private final double[] thresholds;
+        private final List<ToType> values;
+
+        Lookup(SortedMap<RealLiteral,ToType> mapping) {
+            thresholds = new double[mapping.size()];
+            values = new ArrayList<ToType>(mapping.size());
+            int i = 0;
+            for(Map.Entry<RealLiteral,ToType> entry : mapping.entrySet()){
+                thresholds[i++] = entry.getKey().getValue(null);
+                values.add(entry.getValue());
+            }
+        }
+    }
+
     //**********************************************************************************
      /* Management of the listeners associated to this categorization.
      * 
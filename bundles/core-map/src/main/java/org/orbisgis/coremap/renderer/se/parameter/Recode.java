@@ -31,6 +31,7 @@ package org.orbisgis.coremap.renderer.se.parameter;
 import java.sql.ResultSet;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.xml.bind.JAXBElement;
 import net.opengis.se._2_0.core.MapItemType;
 import net.opengis.se._2_0.core.ObjectFactory;
@@ -39,6 +40,7 @@ import net.opengis.se._2_0.core.RecodeType;
 import org.apache.log4j.Logger;
 import org.orbisgis.coremap.renderer.se.AbstractSymbolizerNode;
 import org.orbisgis.coremap.renderer.se.SymbolizerNode;
+import org.orbisgis.coremap.renderer.se.parameter.string.StringAttribute;
 import org.orbisgis.coremap.renderer.se.parameter.string.StringParameter;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
@@ -56,10 +58,21 @@ public abstract class Recode<ToType extends SeParameter, FallbackType extends To
                 implements SeParameter {
     private static final I18n I18N = I18nFactory.getI18n(Recode.class);
     private static final Logger LOGGER = Logger.getLogger(Recode.class);
+    /**
+     * Maximum number of raw values whose result is remembered.
+     */
+    static final int MAX_RESOLVED_VALUES = 4096;
     
     private FallbackType fallbackValue;
     private StringParameter lookupValue;
     private LinkedHashMap<String, ToType> mapItems;
+    /**
+     * The results already resolved for the raw values of a {@code
+     * StringAttribute} lookup value. It spares the conversion of the values to
+     * {@code String} and the hash of these strings. It is emptied each time the
+     * map items change.
+     */
+    private final Map<Object, ToType> resolved = new ConcurrentHashMap<Object, ToType>();
 
     /**
      * Build a new instance of Recode with an empty map of items.
@@ -85,6 +98,7 @@ public abstract class Recode<ToType extends SeParameter, FallbackType extends To
      */
     public void setFallbackValue(FallbackType fallbackValue) {
         this.fallbackValue = fallbackValue;
+        resolved.clear();
         if(this.fallbackValue != null){
                 this.fallbackValue.setParent(this);
                 update();
@@ -105,6 +119,7 @@ public abstract class Recode<ToType extends SeParameter, FallbackType extends To
     // TODO  On doit pouvoir récuperer des string ou des couleurs
     public void setLookupValue(StringParameter lookupValue) {
         this.lookupValue = lookupValue;
+        resolved.clear();
         if(this.lookupValue != null){
                 this.lookupValue.setParent(this);
         }
@@ -133,6 +148,7 @@ public abstract class Recode<ToType extends SeParameter, FallbackType extends To
      */
     public void addMapItem(String key, ToType value) {
             mapItems.put(key, value);
+            resolved.clear();
             value.setParent(this);
             update();
     }
@@ -168,7 +184,7 @@ public abstract class Recode<ToType extends SeParameter, FallbackType extends To
         while(it.hasNext()){
             Map.Entry<String, ToType> cur = it.next();
             if(index == i){
-                return cur;
+                return new MapItem(cur.getKey());
             }
             index++;
         }
@@ -184,6 +200,15 @@ public abstract class Recode<ToType extends SeParameter, FallbackType extends To
         return getMapItem(i).getValue();
     }
 
+    /**
+     * Set the value stored in the ith <code>MapItem</code> in this <code>Recode</code> instance.
+     * @param i
+     * @param value
+     */
+    public void setMapItemValue(int i, ToType value) {
+        addMapItem(getMapItemKey(i), value);
+    }
+
     /**
      * Get the key stored in the ith <code>MapItem</code> in this <code>Recode</code> instance.
      * @param i
@@ -199,6 +224,7 @@ public abstract class Recode<ToType extends SeParameter, FallbackType extends To
      */
     public void removeMapItem(String key) {
         mapItems.remove(key);
+        resolved.clear();
     }
     /**
      * Remove the ith <code>MapItem</code>
@@ -224,6 +250,12 @@ public abstract class Recode<ToType extends SeParameter, FallbackType extends To
     public ToType getParameter(ResultSet rs, long fid) {
         String key = "";
         try {
+            if (lookupValue instanceof StringAttribute) {
+                Object raw = ((StringAttribute) lookupValue).getFieldObject(rs, fid);
+                if (raw != null) {
+                    return getParameter(raw);
+                }
+            }
             key = lookupValue.getValue(rs, fid);
             ToType ret = getMapItemValue(key);
             return ret == null ? fallbackValue : ret;
@@ -233,6 +265,26 @@ public abstract class Recode<ToType extends SeParameter, FallbackType extends To
         }
     }
 
+    /**
+     * Gets the value associated to the raw value of a {@code StringAttribute},
+     * remembering it for the next features.
+     * @param raw The value of the attribute, before its conversion to a String.
+     * @return
+     */
+    private ToType getParameter(Object raw) {
+        ToType ret = resolved.get(raw);
+        if (ret == null) {
+            ret = getMapItemValue(raw.toString());
+            if (ret == null) {
+                ret = fallbackValue;
+            }
+            if (ret != null && resolved.size() < MAX_RESOLVED_VALUES) {
+                resolved.put(raw, ret);
+            }
+        }
+        return ret;
+    }
+
     /**
     * Get the value associated to the key sored in {@code map}. The needed value
     * will be retrieved using the 
@@ -281,6 +333,7 @@ public abstract class Recode<ToType extends SeParameter, FallbackType extends To
             i++;
         }
         mapItems = lhm;
+        resolved.clear();
         update();
     }
 
@@ -317,6 +370,37 @@ public abstract class Recode<ToType extends SeParameter, FallbackType extends To
         return of.createRecode(r);
     }
 
+    /**
+     * A map item of this {@code Recode}. Setting its value goes through
+     * {@link #addMapItem(String, SeParameter)}, so that the resolved values are
+     * forgotten.
+     */
+    private final class MapItem implements Map.Entry<String, ToType> {
+
+        private final String key;
+
+        private MapItem(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public ToType getValue() {
+            return mapItems.get(key);
+        }
+
+        @Override
+        public ToType setValue(ToType value) {
+            ToType old = mapItems.get(key);
+            addMapItem(key, value);
+            return old;
+        }
+    }
+
     @Override
     public List<SymbolizerNode> getChildren() {
         List<SymbolizerNode> ls = new ArrayList<SymbolizerNode>();
@@ -70,12 +70,27 @@ public class StringAttribute extends ValueReference implements StringParameter{
 
     @Override
     public String getValue(ResultSet rs, long fid) throws ParameterException{ // TODO implement
+        Object fieldValue = getFieldObject(rs, fid);
+        if (fieldValue == null) {
+            throw new ParameterException("Could not fetch feature attribute \""+ getColumnName() +"\" (null value)");
+        }
+        return fieldValue.toString();
+    }
+
+    /**
+     * Gets the value found in {@code rs} at line {@code fid}, before its
+     * conversion to a {@code String}.
+     * @param rs
+     * @param fid
+     * @return The raw value, that may be null.
+     * @throws ParameterException
+     */
+    public Object getFieldObject(ResultSet rs, long fid) throws ParameterException {
         try {
             if(rs.getRow() != fid) {
                 rs.absolute((int)fid);
             }
-			Object fieldValue = getFieldValue(rs, fid);
-			return fieldValue.toString();
+            return getFieldValue(rs, fid);
         } catch (Exception e) {
             throw new ParameterException("Could not fetch feature attribute \""+ getColumnName() +"\" (" + e + ")");
         }
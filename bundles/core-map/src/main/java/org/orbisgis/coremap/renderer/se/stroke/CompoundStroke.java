@@ -30,6 +30,7 @@ package org.orbisgis.coremap.renderer.se.stroke;
 
 import java.awt.Graphics2D;
 import java.awt.Shape;
+import java.awt.geom.AffineTransform;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -203,6 +204,13 @@ public final class CompoundStroke extends Stroke implements UomNode {
     @Override
     public void draw(Graphics2D g2, Map<String,Object> map, Shape shape,
             boolean selected, MapTransform mt, double off) throws ParameterException, IOException {
+        getDecoration(g2, map, shape, mt, off).draw(g2, map, selected, mt, null);
+    }
+
+    @Override
+    StrokeDecoration getDecoration(Graphics2D g2, Map<String,Object> map, Shape shape,
+            MapTransform mt, double off) throws ParameterException, IOException {
+        List<StrokeDecoration> parts = new ArrayList<StrokeDecoration>();
         double offset = off;
         double initGap;
         double endGap;
@@ -355,7 +363,8 @@ public final class CompoundStroke extends Stroke implements UomNode {
                         // get two lines. first is the one we'll style with i'est element
                         List<Shape> splitLine = ShapeHelper.splitLine(scrap, lengths[i]);
                         Shape seg = splitLine.remove(0);
-                        strokes[i].draw(g2, map, seg, selected, mt, offset);
+                        StrokeDecoration part = strokes[i].getDecoration(g2, map, seg, mt, offset);
+                        parts.add(part != null ? part : new Segment(strokes[i], seg, offset));
 
                         if (splitLine.size() > 0) {
                             scrap = splitLine.remove(0);
@@ -441,6 +450,49 @@ public final class CompoundStroke extends Stroke implements UomNode {
                 }*/
             }
         }
+        return new Parts(parts);
+    }
+
+    /**
+     * The decorations of the elements, in the order they are drawn.
+     */
+    private static final class Parts extends StrokeDecoration {
+
+        private final List<StrokeDecoration> parts;
+
+        Parts(List<StrokeDecoration> parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        void draw(Graphics2D g2, Map<String,Object> map, boolean selected,
+                MapTransform mt, AffineTransform shift) throws ParameterException, IOException {
+            for (StrokeDecoration part : parts) {
+                part.draw(g2, map, selected, mt, shift);
+            }
+        }
+    }
+
+    /**
+     * A piece of the line drawn by an element without decoration.
+     */
+    private static final class Segment extends StrokeDecoration {
+
+        private final Stroke stroke;
+        private final Shape segment;
+        private final double offset;
+
+        Segment(Stroke stroke, Shape segment, double offset) {
+            this.stroke = stroke;
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        @Override
+        void draw(Graphics2D g2, Map<String,Object> map, boolean selected,
+                MapTransform mt, AffineTransform shift) throws ParameterException, IOException {
+            stroke.draw(g2, map, move(segment, shift), selected, mt, offset);
+        }
     }
 
     @Override
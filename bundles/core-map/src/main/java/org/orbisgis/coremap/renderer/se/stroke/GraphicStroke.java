@@ -117,7 +117,7 @@ public final class GraphicStroke extends Stroke implements GraphicNode, UomNode
      */
     public GraphicStroke() {
         super();
-        this.graphic = new GraphicCollection();
+        setGraphicCollection(new GraphicCollection());
         MarkGraphic mg = new MarkGraphic();
         mg.setTo3mmCircle();
         graphic.addGraphic(mg);
@@ -127,6 +127,9 @@ public final class GraphicStroke extends Stroke implements GraphicNode, UomNode
     @Override
     public void setGraphicCollection(GraphicCollection graphic) {
         this.graphic = graphic;
+        if (graphic != null) {
+            graphic.setParent(this);
+        }
     }
 
 
@@ -163,6 +166,7 @@ public final class GraphicStroke extends Stroke implements GraphicNode, UomNode
      */
     public void setRelativeOrientation(RelativeOrientation orientation) {
         this.orientation = orientation;
+        update();
     }
 
     /**
@@ -240,7 +244,15 @@ public final class GraphicStroke extends Stroke implements GraphicNode, UomNode
     public void draw(Graphics2D g2, Map<String,Object> map,
             Shape shape, boolean selected, MapTransform mt, double offset)
             throws ParameterException, IOException {
+        getDecoration(g2, map, shape, mt, offset).draw(g2, map, selected, mt, null);
+    }
+
+    @Override
+    StrokeDecoration getDecoration(Graphics2D g2, Map<String,Object> map,
+            Shape shape, MapTransform mt, double offset)
+            throws ParameterException, IOException {
 
+        List<AffineTransform> placements = new ArrayList<AffineTransform>();
         List<Shape> shapes;
 
         if (!this.isOffsetRapport() && Math.abs(offset) > 0.0) {
@@ -343,13 +355,14 @@ public final class GraphicStroke extends Stroke implements GraphicNode, UomNode
                                     at.concatenate(AffineTransform.getRotateInstance(theta));
                                 }
 
-                                graphic.draw(g2, map, selected, mt, at);
+                                placements.add(at);
                             }
                         }
                     }
                 }
             }
         }
+        return new Placements(graphic, placements);
     }
 
     @Override
@@ -374,6 +387,28 @@ public final class GraphicStroke extends Stroke implements GraphicNode, UomNode
     }
 
 
+    /**
+     * The graphic of the stroke, and where it is drawn along the line.
+     */
+    private static final class Placements extends StrokeDecoration {
+
+        private final GraphicCollection graphic;
+        private final List<AffineTransform> placements;
+
+        Placements(GraphicCollection graphic, List<AffineTransform> placements) {
+            this.graphic = graphic;
+            this.placements = placements;
+        }
+
+        @Override
+        void draw(Graphics2D g2, Map<String,Object> map, boolean selected,
+                MapTransform mt, AffineTransform shift) throws ParameterException, IOException {
+            for (AffineTransform at : placements) {
+                graphic.draw(g2, map, selected, mt, move(at, shift));
+            }
+        }
+    }
+
     private GraphicStrokeType getJAXBType() {
         GraphicStrokeType s = new GraphicStrokeType();
 
@@ -32,6 +32,7 @@ import java.awt.Graphics2D;
 import java.awt.Shape;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.xml.bind.JAXBElement;
 import net.opengis.se._2_0.core.*;
 import org.orbisgis.coremap.map.MapTransform;
@@ -51,6 +52,8 @@ public abstract class Stroke extends AbstractSymbolizerNode implements UomNode {
     private Uom uom;
     private boolean linearRapport;
     private boolean offsetRapport;
+    // Incremented each time the stroke, or one of its children, changes
+    private final AtomicInteger version = new AtomicInteger();
 
     /**
      * Instanciate a new default {@code Stroke}, with linear and offset rapports
@@ -124,6 +127,7 @@ public abstract class Stroke extends AbstractSymbolizerNode implements UomNode {
      */
     public void setLengthRapport(boolean lengthRapport) {
         this.linearRapport = lengthRapport;
+        update();
     }
 
     /**
@@ -143,6 +147,7 @@ public abstract class Stroke extends AbstractSymbolizerNode implements UomNode {
      */
     public void setOffsetRapport(boolean offsetRapport) {
         this.offsetRapport = offsetRapport;
+        update();
     }
 
     /**
@@ -162,6 +167,41 @@ public abstract class Stroke extends AbstractSymbolizerNode implements UomNode {
     public abstract void draw(Graphics2D g2, Map<String,Object> map, Shape shp,
             boolean selected, MapTransform mt, double offset) throws ParameterException, IOException;
 
+    /**
+     * Computes where the elements of this stroke are placed along {@code shp},
+     * without drawing anything. Strokes that only delegate to a
+     * {@code java.awt.Stroke} have no decoration and return null : this is
+     * the default.
+     * @param g2
+     * @param map
+     * @param shp
+     * @param mt
+     * @param offset perpendicular offset to apply
+     * @return The decoration, or null if the stroke has to be drawn directly.
+     * @throws ParameterException
+     * @throws IOException
+     */
+    StrokeDecoration getDecoration(Graphics2D g2, Map<String,Object> map, Shape shp,
+            MapTransform mt, double offset) throws ParameterException, IOException {
+        return null;
+    }
+
+    /**
+     * Gets the version of this stroke. It changes each time the stroke or one
+     * of its children is updated, so that the decorations computed before can
+     * be recognized as outdated.
+     * @return
+     */
+    int getVersion() {
+        return version.get();
+    }
+
+    @Override
+    public void update() {
+        version.incrementAndGet();
+        super.update();
+    }
+
     /**
      * Get a JAXB representation of this {@code Label}
      * @return
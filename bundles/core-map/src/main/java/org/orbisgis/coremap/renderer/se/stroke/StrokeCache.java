@@ -0,0 +1,290 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.stroke;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.se.Symbolizer;
+import org.orbisgis.coremap.renderer.se.SymbolizerNode;
+import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
+import org.orbisgis.corejdbc.TableEditEvent;
+import org.orbisgis.corejdbc.TableEditListener;
+
+/**
+ * The decorations computed by the strokes of a layer, kept between two
+ * renderings.
+ *
+ * Graphic, compound and text strokes split the lines and place their elements
+ * along them, which is much more expensive than drawing. At a given scale,
+ * this work only depends on the feature and on the style : the decorations
+ * are kept, anchored to the map, and moved with it when the map is panned.
+ * They are identified by the primary key of the features, the versions of the
+ * stroke and of its symbolizer, and the scale. The symbolizer holds settings
+ * the stroke inherits or is drawn with, such as its unit of measure, the
+ * geometry or the translation. All the decorations of the layer are forgotten when
+ * its table is edited.
+ *
+ * A cache is enabled on a {@code Graphics2D} with {@link #KEY_STROKES}.
+ */
+public final class StrokeCache implements TableEditListener {
+
+    /**
+     * Rendering hint giving the {@code StrokeCache} of the layer being drawn.
+     */
+    public static final RenderingHints.Key KEY_STROKES = new RenderingHints.Key(0x5e5f) {
+
+        @Override
+        public boolean isCompatibleValue(Object val) {
+            return val instanceof StrokeCache;
+        }
+
+        @Override
+        public String toString() {
+            return "Stroke decorations";
+        }
+    };
+    /**
+     * Maximum number of decorations kept for a layer.
+     */
+    static final int MAX_DECORATIONS = 10000;
+    private final String idColumn;
+    private final Map<DecorationKey, Decoration> decorations = new LinkedHashMap<DecorationKey, Decoration>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<DecorationKey, Decoration> eldest) {
+            return size() > MAX_DECORATIONS;
+        }
+    };
+    // Index of idColumn in the last ResultSet used
+    private volatile IdIndex idIndex;
+
+    /**
+     * Builds the cache of a layer.
+     * @param idColumn
+     * The name of a column of the table that identifies the features, i.e.
+     * its integer primary key.
+     */
+    public StrokeCache(String idColumn) {
+        this.idColumn = idColumn;
+    }
+
+    /**
+     * Draws {@code stroke}, reusing the decoration computed for the current
+     * feature of {@code rs} if the cache of the layer is enabled on
+     * {@code g2}.
+     * @param g2
+     * @param stroke
+     * @param rs The features, at the one being drawn.
+     * @param map
+     * @param shp
+     * @param selected
+     * @param mt
+     * @param offset
+     * @throws ParameterException
+     * @throws IOException
+     * @throws SQLException
+     */
+    public static void draw(Graphics2D g2, Stroke stroke, ResultSet rs, Map<String,Object> map,
+            Shape shp, boolean selected, MapTransform mt, double offset)
+            throws ParameterException, IOException, SQLException {
+        Object cache = g2.getRenderingHint(KEY_STROKES);
+        // Pen strokes are drawn at once by Java2D : they have no decoration
+        if (cache instanceof StrokeCache && rs != null && !(stroke instanceof PenStroke)) {
+            ((StrokeCache) cache).drawCached(g2, stroke, rs, map, shp, selected, mt, offset);
+        } else {
+            stroke.draw(g2, map, shp, selected, mt, offset);
+        }
+    }
+
+    private void drawCached(Graphics2D g2, Stroke stroke, ResultSet rs, Map<String,Object> map,
+            Shape shp, boolean selected, MapTransform mt, double offset)
+            throws ParameterException, IOException, SQLException {
+        long id = rs.getLong(getIdIndex(rs));
+        if (rs.wasNull()) {
+            stroke.draw(g2, map, shp, selected, mt, offset);
+            return;
+        }
+        AffineTransform trans = mt.getAffineTransform();
+        DecorationKey key = new DecorationKey(stroke, id, offset, trans.getScaleX(),
+                trans.getScaleY(), mt.getDpi(), mt.getScaleDenominator());
+        Decoration decoration;
+        synchronized (this) {
+            decoration = decorations.get(key);
+        }
+        if (decoration == null) {
+            // Computed outside of the lock, the last computed decoration wins.
+            StrokeDecoration computed = stroke.getDecoration(g2, map, shp, mt, offset);
+            if (computed == null) {
+                stroke.draw(g2, map, shp, selected, mt, offset);
+                return;
+            }
+            decoration = new Decoration(computed, trans.getTranslateX(), trans.getTranslateY());
+            synchronized (this) {
+                decorations.put(key, decoration);
+            }
+        }
+        double dx = trans.getTranslateX() - decoration.originX;
+        double dy = trans.getTranslateY() - decoration.originY;
+        AffineTransform shift = null;
+        if (dx != 0.0 || dy != 0.0) {
+            shift = AffineTransform.getTranslateInstance(dx, dy);
+        }
+        decoration.decoration.draw(g2, map, selected, mt, shift);
+    }
+
+    private int getIdIndex(ResultSet rs) throws SQLException {
+        IdIndex index = idIndex;
+        if (index == null || index.rs != rs) {
+            index = new IdIndex(rs, rs.findColumn(idColumn));
+            idIndex = index;
+        }
+        return index.column;
+    }
+
+    /**
+     * Forgets all the decorations.
+     */
+    public synchronized void clear() {
+        decorations.clear();
+    }
+
+    @Override
+    public void tableChange(TableEditEvent event) {
+        clear();
+    }
+
+    /**
+     * A decoration, with the translation of the map when it was computed.
+     */
+    private static final class Decoration {
+
+        private final StrokeDecoration decoration;
+        private final double originX;
+        private final double originY;
+
+        Decoration(StrokeDecoration decoration, double originX, double originY) {
+            this.decoration = decoration;
+            this.originX = originX;
+            this.originY = originY;
+        }
+    }
+
+    private static final class IdIndex {
+
+        private final ResultSet rs;
+        private final int column;
+
+        IdIndex(ResultSet rs, int column) {
+            this.rs = rs;
+            this.column = column;
+        }
+    }
+
+    /**
+     * Gets the revision of the symbolizer {@code stroke} belongs to.
+     * @param stroke
+     * @return The revision, or 0 if the stroke is not in a symbolizer.
+     */
+    private static int getSymbolizerRevision(Stroke stroke) {
+        SymbolizerNode node = stroke.getParent();
+        while (node != null && !(node instanceof Symbolizer)) {
+            node = node.getParent();
+        }
+        return node == null ? 0 : ((Symbolizer) node).getRevision();
+    }
+
+    /**
+     * Key of a decoration : the stroke and its symbolizer as they were, the
+     * feature, and the scale.
+     */
+    private static final class DecorationKey {
+
+        private final Stroke stroke;
+        private final int version;
+        private final int symbolizerRevision;
+        private final long id;
+        private final double offset;
+        private final double scaleX;
+        private final double scaleY;
+        private final double dpi;
+        private final double scaleDenominator;
+
+        DecorationKey(Stroke stroke, long id, double offset, double scaleX, double scaleY,
+                double dpi, double scaleDenominator) {
+            this.stroke = stroke;
+            this.version = stroke.getVersion();
+            this.symbolizerRevision = getSymbolizerRevision(stroke);
+            this.id = id;
+            this.offset = offset;
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+            this.dpi = dpi;
+            this.scaleDenominator = scaleDenominator;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof DecorationKey)) {
+                return false;
+            }
+            DecorationKey other = (DecorationKey) obj;
+            return stroke == other.stroke && version == other.version
+                    && symbolizerRevision == other.symbolizerRevision && id == other.id
+                    && Double.compare(offset, other.offset) == 0
+                    && Double.compare(scaleX, other.scaleX) == 0
+                    && Double.compare(scaleY, other.scaleY) == 0
+                    && Double.compare(dpi, other.dpi) == 0
+                    && Double.compare(scaleDenominator, other.scaleDenominator) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = System.identityHashCode(stroke);
+            h = 31 * h + version;
+            h = 31 * h + symbolizerRevision;
+            h = 31 * h + (int) (id ^ (id >>> 32));
+            long bits = Double.doubleToLongBits(offset);
+            h = 31 * h + (int) (bits ^ (bits >>> 32));
+            bits = Double.doubleToLongBits(scaleX);
+            h = 31 * h + (int) (bits ^ (bits >>> 32));
+            bits = Double.doubleToLongBits(scaleY);
+            h = 31 * h + (int) (bits ^ (bits >>> 32));
+            bits = Double.doubleToLongBits(scaleDenominator);
+            return 31 * h + (int) (bits ^ (bits >>> 32));
+        }
+    }
+}
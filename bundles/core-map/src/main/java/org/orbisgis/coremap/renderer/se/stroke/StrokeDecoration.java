@@ -0,0 +1,87 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.stroke;
+
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.io.IOException;
+import java.util.Map;
+import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
+
+/**
+ * The result of the linear referencing work of a {@link Stroke} along a line :
+ * where its graphics, glyphs or sub-strokes are placed. Once computed, a
+ * decoration can be drawn again, possibly moved by a translation, without
+ * splitting the line again. This is what {@link StrokeCache} keeps between
+ * two renderings at the same scale.
+ */
+abstract class StrokeDecoration {
+
+    /**
+     * Draws the decoration.
+     * @param g2
+     * @param map
+     * @param selected
+     * @param mt
+     * @param shift
+     * The translation to apply to the decoration, null to draw it where it
+     * has been computed.
+     * @throws ParameterException
+     * @throws IOException
+     */
+    abstract void draw(Graphics2D g2, Map<String,Object> map, boolean selected,
+            MapTransform mt, AffineTransform shift) throws ParameterException, IOException;
+
+    /**
+     * Moves a shape of the decoration with {@code shift}.
+     * @param shp
+     * @param shift
+     * @return
+     */
+    static Shape move(Shape shp, AffineTransform shift) {
+        return shift == null ? shp : shift.createTransformedShape(shp);
+    }
+
+    /**
+     * Moves the placement of a graphic of the decoration with {@code shift}.
+     * @param at
+     * @param shift
+     * @return
+     */
+    static AffineTransform move(AffineTransform at, AffineTransform shift) {
+        if (shift == null) {
+            return at;
+        }
+        AffineTransform moved = new AffineTransform(at);
+        moved.preConcatenate(shift);
+        return moved;
+    }
+}
@@ -30,6 +30,7 @@ package org.orbisgis.coremap.renderer.se.stroke;
 
 import java.awt.Graphics2D;
 import java.awt.Shape;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -43,6 +44,7 @@ import org.orbisgis.coremap.map.MapTransform;
 import org.orbisgis.coremap.renderer.se.SeExceptions.InvalidStyle;
 import org.orbisgis.coremap.renderer.se.SymbolizerNode;
 import org.orbisgis.coremap.renderer.se.label.LineLabel;
+import org.orbisgis.coremap.renderer.se.label.StyledText;
 import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
 
 /**
@@ -114,6 +116,42 @@ public final class TextStroke extends Stroke {
                 }
         }
 
+        @Override
+        StrokeDecoration getDecoration(Graphics2D g2, Map<String,Object> map, Shape shp,
+                        MapTransform mt, double offset) throws ParameterException, IOException {
+                if (this.lineLabel == null) {
+                        return null;
+                }
+                return new Glyphs(lineLabel.getLabel(), lineLabel.getGlyphOutlines(g2, map, shp, mt));
+        }
+
+        /**
+         * The outlines of the glyphs laid out along the line.
+         */
+        private static final class Glyphs extends StrokeDecoration {
+
+                private final StyledText label;
+                private final ArrayList<Shape> outlines;
+
+                Glyphs(StyledText label, ArrayList<Shape> outlines) {
+                        this.label = label;
+                        this.outlines = outlines;
+                }
+
+                @Override
+                void draw(Graphics2D g2, Map<String,Object> map, boolean selected,
+                                MapTransform mt, AffineTransform shift) throws ParameterException, IOException {
+                        ArrayList<Shape> moved = outlines;
+                        if (shift != null) {
+                                moved = new ArrayList<Shape>(outlines.size());
+                                for (Shape outline : outlines) {
+                                        moved.add(move(outline, shift));
+                                }
+                        }
+                        label.drawOutlines(g2, moved, map, selected, mt);
+                }
+        }
+
         @Override
         public JAXBElement<TextStrokeType> getJAXBElement() {
                 ObjectFactory of = new ObjectFactory();
@@ -0,0 +1,274 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer;
+
+import com.vividsolutions.jts.geom.Envelope;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.h2gis.h2spatial.ut.SpatialH2UT;
+import org.h2gis.h2spatialext.CreateSpatialExtension;
+import org.h2gis.utilities.JDBCUtilities;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.TableEditEvent;
+import org.orbisgis.corejdbc.internal.DataManagerImpl;
+import org.orbisgis.coremap.layerModel.ILayer;
+import org.orbisgis.coremap.layerModel.Layer;
+import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.se.Style;
+import org.orbisgis.progress.NullProgressMonitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OverviewTablesTest {
+
+    private static Connection connection;
+    private static DataManager dataManager;
+
+    @BeforeClass
+    public static void tearUpClass() throws Exception {
+        DataSource dataSource = SpatialH2UT.createDataSource(OverviewTablesTest.class.getSimpleName(), false);
+        connection = dataSource.getConnection();
+        CreateSpatialExtension.initSpatialExtension(connection);
+        dataManager = new DataManagerImpl(dataSource);
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        connection.close();
+        dataManager.dispose();
+    }
+
+    @Test
+    public void testLevels() {
+        assertEquals(-1, OverviewTables.getLevel(100000));
+        assertEquals(0, OverviewTables.getLevel(250000));
+        assertEquals(1, OverviewTables.getLevel(2000000));
+        assertEquals(2, OverviewTables.getLevel(1e8));
+    }
+
+    /**
+     * Creates the table WAVES, of 6000 lines of 50 points, slightly waving.
+     */
+    private static void createWaves(Statement st) throws SQLException {
+        st.execute("DROP TABLE IF EXISTS WAVES");
+        st.execute("CREATE TABLE WAVES(ID INT PRIMARY KEY, THE_GEOM GEOMETRY)");
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO WAVES VALUES(?, ST_GeomFromText(?))")) {
+            for (int id = 0; id < 6000; id++) {
+                StringBuilder wkt = new StringBuilder("LINESTRING(");
+                for (int i = 0; i < 50; i++) {
+                    if (i > 0) {
+                        wkt.append(", ");
+                    }
+                    wkt.append(i).append(' ').append(id + (i % 2) * 0.01);
+                }
+                insert.setInt(1, id);
+                insert.setString(2, wkt.append(')').toString());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    /**
+     * Waits for the overview to be dropped in the background.
+     */
+    private static boolean isDropped(String overview) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            if (!JDBCUtilities.tableExists(connection, overview)) {
+                return true;
+            }
+            Thread.sleep(100);
+        }
+        return false;
+    }
+
+    @Test
+    public void testBuild() throws Exception {
+        try (Statement st = connection.createStatement()) {
+            createWaves(st);
+            OverviewTables pyramid = new OverviewTables(dataManager, "WAVES");
+            assertFalse(dataManager.hasTableEditListener("WAVES"));
+            // A pixel is one map unit at 1:1 000 000
+            pyramid.build(0, 1e-6);
+            // The edits are monitored from the first build
+            assertTrue(dataManager.hasTableEditListener("WAVES"));
+            assertNull(pyramid.getOverview(100000, 1e-6));
+            String overview = pyramid.getOverview(2000000, 1e-6);
+            assertNotNull(overview);
+            try (ResultSet rs = st.executeQuery("SELECT COUNT(*), SUM(ST_NumPoints(THE_GEOM)) FROM " + overview)) {
+                assertTrue(rs.next());
+                assertEquals(6000, rs.getLong(1));
+                assertEquals(6000 * 2, rs.getLong(2));
+            }
+            // Too fine for the overviews
+            assertNull(pyramid.getOverview(2000000, 1e-7));
+            // Edits drop the overviews
+            pyramid.tableChange(new TableEditEvent("WAVES"));
+            assertTrue(isDropped(overview));
+            assertNull(pyramid.getOverview(2000000, 1e-6));
+            pyramid.close();
+            assertFalse(dataManager.hasTableEditListener("WAVES"));
+        }
+    }
+
+    @Test
+    public void testDropAfterReading() throws Exception {
+        try (Statement st = connection.createStatement()) {
+            createWaves(st);
+            OverviewTables pyramid = new OverviewTables(dataManager, "WAVES");
+            pyramid.build(0, 1e-6);
+            assertEquals("WAVES", pyramid.startReading(100000, 1e-6));
+            pyramid.endReading();
+            String overview = pyramid.startReading(2000000, 1e-6);
+            assertFalse("WAVES".equals(overview));
+            // Forgotten, but still read by the rendering
+            pyramid.close();
+            try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + overview)) {
+                assertTrue(rs.next());
+                assertEquals(6000, rs.getLong(1));
+            }
+            pyramid.endReading();
+            assertTrue(isDropped(overview));
+        }
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        try (Statement st = connection.createStatement()) {
+            createWaves(st);
+            OverviewTables pyramid = new OverviewTables(dataManager, "WAVES");
+            pyramid.build(0, 1e-6);
+            String overview = pyramid.getOverview(2000000, 1e-6);
+            assertNotNull(overview);
+            pyramid.close();
+            assertNull(pyramid.getOverview(2000000, 1e-6));
+            assertTrue(isDropped(overview));
+            // Not built again once closed
+            pyramid.tableChange(new TableEditEvent("WAVES"));
+            assertNull(pyramid.getOverview(2000000, 1e-6));
+        }
+    }
+
+    @Test
+    public void testMaxRows() throws Exception {
+        try (Statement st = connection.createStatement()) {
+            createWaves(st);
+            OverviewTables.setMaxRows(5500);
+            try {
+                OverviewTables pyramid = new OverviewTables(dataManager, "WAVES");
+                pyramid.build(0, 1e-6);
+                assertNull(pyramid.getOverview(2000000, 1e-6));
+            } finally {
+                OverviewTables.setMaxRows(OverviewTables.DEFAULT_MAX_ROWS);
+            }
+        }
+    }
+
+    @Test
+    public void testSmallTable() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS SMALL");
+            st.execute("CREATE TABLE SMALL(ID INT PRIMARY KEY, THE_GEOM GEOMETRY)");
+            st.execute("INSERT INTO SMALL VALUES(1, 'LINESTRING(0 0, 1 0.01, 2 0)')");
+            OverviewTables pyramid = new OverviewTables(dataManager, "SMALL");
+            pyramid.build(0, 1e-6);
+            assertNull(pyramid.getOverview(2000000, 1e-6));
+            // Nothing built, nothing to monitor
+            assertFalse(dataManager.hasTableEditListener("SMALL"));
+        }
+    }
+
+    /**
+     * Draws a layer at a small scale : its table is drawn while the overviews
+     * are built, then the overviews are drawn until the layer is closed.
+     */
+    @Test
+    public void testRenderer() throws Exception {
+        try (Statement st = connection.createStatement()) {
+            createWaves(st);
+            ILayer layer = new Layer("waves", "WAVES", dataManager);
+            layer.setStyle(0, new Style(layer, true));
+            MapTransform mt = new MapTransform();
+            mt.resizeImage(100, 100);
+            mt.setExtent(new Envelope(-30000, 30000, -27000, 33000));
+            assertTrue(OverviewTables.getLevel(mt.getScaleDenominator()) >= 0);
+            Renderer renderer = new ImageRenderer();
+
+            BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2 = image.createGraphics();
+            renderer.drawVector(g2, mt, layer, new NullProgressMonitor());
+            assertTrue(isDrawn(image));
+            OverviewTables pyramid = OverviewTables.get(layer, mt);
+            assertNotNull(pyramid);
+            // Wait for the overviews to be built in the background
+            String overview = "WAVES";
+            for (int i = 0; i < 100 && "WAVES".equals(overview); i++) {
+                Thread.sleep(100);
+                overview = pyramid.startReading(mt);
+                pyramid.endReading();
+            }
+            assertFalse("WAVES".equals(overview));
+            assertTrue(dataManager.hasTableEditListener("WAVES"));
+
+            image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+            g2 = image.createGraphics();
+            renderer.drawVector(g2, mt, layer, new NullProgressMonitor());
+            assertTrue(isDrawn(image));
+
+            layer.close();
+            assertTrue(isDropped(overview));
+            assertFalse(dataManager.hasTableEditListener("WAVES"));
+        }
+    }
+
+    private static boolean isDrawn(BufferedImage image) {
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                if ((image.getRGB(x, y) >>> 24) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.common;
+
+import java.awt.RenderingHints;
+import java.net.URI;
+import javax.media.jai.PlanarImage;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class GraphicCacheTest {
+
+    @Test
+    public void testScaledImages() throws Exception {
+        URI uri = GraphicCacheTest.class.getResource("21.gif").toURI();
+        assertTrue(GraphicCache.getScaledImage(uri, 10, 12, null)
+                == GraphicCache.getScaledImage(uri, 10, 12, null));
+        assertFalse(GraphicCache.getScaledImage(uri, 10, 12, null)
+                == GraphicCache.getScaledImage(uri, 12, 10, null));
+        assertTrue(GraphicCache.getScaledImage(uri, 12, 10, null).getWidth() == 12);
+    }
+
+    @Test
+    public void testScaledImagesHints() throws Exception {
+        URI uri = GraphicCacheTest.class.getResource("21.gif").toURI();
+        RenderingHints bilinear = new RenderingHints(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        RenderingHints bicubic = new RenderingHints(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        assertTrue(GraphicCache.getScaledImage(uri, 10, 12, bilinear)
+                == GraphicCache.getScaledImage(uri, 10, 12, (RenderingHints) bilinear.clone()));
+        assertFalse(GraphicCache.getScaledImage(uri, 10, 12, bilinear)
+                == GraphicCache.getScaledImage(uri, 10, 12, bicubic));
+        // hints that do not change the resampling share the image
+        RenderingHints text = new RenderingHints(RenderingHints.KEY_TEXT_ANTIALIASING,
+                RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        assertTrue(GraphicCache.getScaledImage(uri, 10, 12, null)
+                == GraphicCache.getScaledImage(uri, 10, 12, text));
+    }
+
+    @Test
+    public void testBudget() throws Exception {
+        long budget = GraphicCache.getBudget();
+        try {
+            GraphicCache.clear();
+            URI first = GraphicCacheTest.class.getResource("3.gif").toURI();
+            URI second = GraphicCacheTest.class.getResource("21.gif").toURI();
+            PlanarImage img = GraphicCache.getImage(first);
+            assertTrue(img == GraphicCache.getImage(first));
+            GraphicCache.setBudget(GraphicCache.getSize());
+            GraphicCache.getImage(second);
+            assertTrue(GraphicCache.getSize() <= GraphicCache.getBudget()
+                    || GraphicCache.getSize() == GraphicCache.sizeOf(GraphicCache.getImage(second)));
+            // the first image has been forgotten
+            assertFalse(img == GraphicCache.getImage(first));
+        } finally {
+            GraphicCache.setBudget(budget);
+            GraphicCache.clear();
+        }
+    }
+}
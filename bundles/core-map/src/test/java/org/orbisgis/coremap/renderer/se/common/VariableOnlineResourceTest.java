@@ -26,15 +26,29 @@ public class VariableOnlineResourceTest {
         PlanarImage second = vor.getPlanarJAI(null);
         assertTrue(first == second);
         lit.setValue(VariableOnlineResourceTest.class.getResource("21.gif").toString());
+        PlanarImage other = vor.getPlanarJAI(null);
+        assertFalse(other == second);
+        // The decoded images are shared : going back to the first URL
+        // doesn't load it again.
         lit.setValue(VariableOnlineResourceTest.class.getResource("3.gif").toString());
         PlanarImage third = vor.getPlanarJAI(null);
-        assertFalse(third == second);
+        assertTrue(third == second);
+    }
+
+    @Test
+    public void testSharedImages() throws Exception {
+        URL resource = VariableOnlineResourceTest.class.getResource("3.gif");
+        VariableOnlineResource first = new VariableOnlineResource(new StringLiteral(resource.toString()));
+        VariableOnlineResource second = new VariableOnlineResource(new StringLiteral(resource.toString()));
+        assertTrue(first.getPlanarJAI(null) == second.getPlanarJAI(null));
     }
 
     @Test
     public void testCacheRecode() throws Exception {
         Map<String,Object> input = new HashMap<String,Object>();
         input.put("field", "s");
+        Map<String,Object> other = new HashMap<String,Object>();
+        other.put("field", "t");
         URL resourceF = VariableOnlineResourceTest.class.getResource("3.gif");
         URL resourceD = VariableOnlineResourceTest.class.getResource("21.gif");
         StringLiteral fb = new StringLiteral(resourceF.toString());
@@ -44,13 +58,14 @@ public class VariableOnlineResourceTest {
         PlanarImage first = vor.getPlanarJAI(input);
         PlanarImage second = vor.getPlanarJAI(input);
         assertTrue(first == second);
+        PlanarImage fallback = vor.getPlanarJAI(other);
+        assertFalse(fallback == second);
         rs.addMapItem("s",new StringLiteral(resourceF.toString()));
-        rs.addMapItem("s",new StringLiteral(resourceD.toString()));
         PlanarImage third = vor.getPlanarJAI(input);
-        assertFalse(third == second);
-        second = vor.getPlanarJAI(input);
+        assertTrue(third == fallback);
+        rs.addMapItem("s",new StringLiteral(resourceD.toString()));
+        assertTrue(vor.getPlanarJAI(input) == second);
         fb.setValue(resourceD.toString());
-        third = vor.getPlanarJAI(input);
-        assertFalse(second == third);
+        assertTrue(vor.getPlanarJAI(other) == second);
     }
 }
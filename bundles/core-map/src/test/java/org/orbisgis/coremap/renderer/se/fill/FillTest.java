@@ -33,14 +33,21 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Container;
 import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.geom.Rectangle2D;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 import org.orbisgis.coremap.map.MapTransform;
@@ -49,8 +56,10 @@ import org.orbisgis.coremap.renderer.se.SeExceptions.InvalidStyle;
 import org.orbisgis.coremap.renderer.se.Style;
 import org.orbisgis.coremap.renderer.se.common.Uom;
 import org.orbisgis.coremap.renderer.se.graphic.GraphicCollection;
+import org.orbisgis.coremap.renderer.se.graphic.SpriteCache;
 import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
 import org.orbisgis.coremap.renderer.se.parameter.real.RealLiteral;
+import org.orbisgis.coremap.renderer.se.stroke.PenStroke;
 
 /**
  *
@@ -70,6 +79,75 @@ public class FillTest  {
 
     }
 
+    @Test
+    public void testHatchTilePeriods() {
+        // 10 * sqrt(2) : five periods are the closest to a whole number of pixels
+        double[] fit = HatchedFill.fitPeriods(10 * Math.sqrt(2));
+        assertEquals(5, fit[0], 0);
+        assertEquals(71, fit[1], 0);
+        fit = HatchedFill.fitPeriods(12);
+        assertEquals(1, fit[0], 0);
+        assertEquals(12, fit[1], 0);
+        assertNull(HatchedFill.fitPeriods(TileCache.MAX_TILE_SIZE + 1));
+        assertNull(HatchedFill.fitPeriods(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void testHatchTileMatchesLines() throws Exception {
+        assertHatchTileMatchesLines(0);
+        assertHatchTileMatchesLines(45);
+    }
+
+    /**
+     * Fills a square with the tile of a plain hatch, draws the same hatch
+     * with lines, and compares the pixels of the two images.
+     */
+    private void assertHatchTileMatchesLines(double alpha) throws Exception {
+        final int size = 150;
+        final double pDist = 10;
+        Map<String, Object> map = Collections.emptyMap();
+        MapTransform mt = new MapTransform();
+        PenStroke stroke = new PenStroke();
+        Rectangle2D square = new Rectangle2D.Double(0, 0, size, size);
+
+        BufferedImage tiled = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = tiled.createGraphics();
+        g2.addRenderingHints(mt.getRenderingHints());
+        g2.setRenderingHint(SpriteCache.KEY_SPRITES, Boolean.TRUE);
+        Paint paint = HatchedFill.getHatchPaint(new TileCache(new HatchedFill()), g2, map, false, mt,
+                alpha, pDist, stroke, 0);
+        assertNotNull(paint);
+        g2.setPaint(paint);
+        g2.fill(square);
+        g2.dispose();
+
+        BufferedImage lines = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        g2 = lines.createGraphics();
+        g2.addRenderingHints(mt.getRenderingHints());
+        HatchedFill.drawHatch(g2, map, square, false, mt, alpha, pDist, stroke, 0);
+        g2.dispose();
+
+        // The tile is stretched on whole pixels : a hatch may move by a
+        // fraction of pixel, the pixels on the edges of the hatches differ.
+        long tiledCoverage = 0;
+        long linesCoverage = 0;
+        int different = 0;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int a1 = tiled.getRGB(x, y) >>> 24;
+                int a2 = lines.getRGB(x, y) >>> 24;
+                tiledCoverage += a1;
+                linesCoverage += a2;
+                if (Math.abs(a1 - a2) > 128) {
+                    different++;
+                }
+            }
+        }
+        assertTrue(linesCoverage > 0);
+        assertEquals(linesCoverage, tiledCoverage, linesCoverage * 0.05);
+        assertTrue("" + different + " different pixels at " + alpha, different < size * size / 50);
+    }
+
     public void drawGraphic() throws IOException, ParameterException, InvalidStyle {
         JFrame frame = new JFrame();
         frame.setTitle("Test GraphicCollection");
@@ -0,0 +1,99 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.fill;
+
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ShapeTriangulationTest {
+
+    @Test
+    public void testSquareWithHole() {
+        Path2D p = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+        p.append(new Rectangle2D.Double(0, 0, 100, 100), false);
+        p.moveTo(20, 20);
+        p.lineTo(60, 20);
+        p.lineTo(40, 70);
+        p.closePath();
+        Area area = new Area(p);
+        ShapeTriangulation t = new ShapeTriangulation(area);
+        assertFalse(t.isEmpty());
+        assertEquals(10000 - 1000, t.getArea(), 1e-9);
+        Random rand = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            Point2D.Double pt = t.sample(rand);
+            assertTrue(area.contains(pt) || area.intersects(pt.x - 1e-9, pt.y - 1e-9, 2e-9, 2e-9));
+        }
+    }
+
+    @Test
+    public void testUniformDistribution() {
+        Path2D p = new Path2D.Double();
+        p.append(new Rectangle2D.Double(0, 0, 100, 100), false);
+        p.append(new Ellipse2D.Double(200, 0, 100, 100), false);
+        // A self-intersecting bow tie
+        p.moveTo(400, 0);
+        p.lineTo(500, 100);
+        p.lineTo(500, 0);
+        p.lineTo(400, 100);
+        p.closePath();
+        ShapeTriangulation t = new ShapeTriangulation(new Area(p));
+        double[] expected = {10000, Math.PI * 2500, 5000};
+        double total = expected[0] + expected[1] + expected[2];
+        // The circle is approximated by segments
+        assertEquals(total, t.getArea(), total * 1e-3);
+        int[] counts = new int[3];
+        int n = 100000;
+        Random rand = new Random(0);
+        for (int i = 0; i < n; i++) {
+            counts[(int) (t.sample(rand).x / 200)]++;
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals(expected[i] / total, counts[i] / (double) n, 0.01);
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        ShapeTriangulation t = new ShapeTriangulation(new Area(new Line2D.Double(0, 0, 10, 10)));
+        assertTrue(t.isEmpty());
+        assertEquals(0, t.getArea(), 0);
+        assertNull(t.sample(new Random()));
+    }
+}
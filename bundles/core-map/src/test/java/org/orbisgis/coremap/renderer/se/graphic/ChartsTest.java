@@ -33,6 +33,7 @@ import com.sun.media.jai.widget.DisplayJAI;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Container;
+import java.awt.Shape;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.RenderedImage;
@@ -43,6 +44,7 @@ import java.util.logging.Logger;
 import javax.imageio.ImageIO;
 import javax.media.jai.RenderableGraphics;
 import javax.swing.JFrame;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 import org.orbisgis.coremap.map.MapTransform;
@@ -70,6 +72,36 @@ public class ChartsTest {
             
     }
 
+    @Test
+    public void testRingSlice() {
+            Shape slice = ChartShapes.slice(30, 10, 0, 90);
+            assertTrue(slice.contains(14, -14));
+            assertFalse(slice.contains(5, -5));
+            assertFalse(slice.contains(14, 14));
+            assertFalse(slice.contains(30, -30));
+            Shape ring = ChartShapes.slice(30, 10, 0, 360);
+            assertTrue(ring.contains(0, 20));
+            assertTrue(ring.contains(-20, 0));
+            assertFalse(ring.contains(0, 0));
+            Shape pie = ChartShapes.slice(30, 0, 90, 180);
+            assertTrue(pie.contains(-10, 0));
+            assertFalse(pie.contains(10, 0));
+    }
+
+    @Test
+    public void testBar() {
+            assertTrue(ChartShapes.bar(0, 10, 20).contains(5, -10));
+            assertFalse(ChartShapes.bar(0, 10, 20).contains(5, 10));
+            assertTrue(ChartShapes.bar(0, 10, -20).contains(5, 10));
+    }
+
+    @Test
+    public void testSubPixel() {
+            assertFalse(ChartShapes.isSubPixel(new AffineTransform(), 2));
+            assertTrue(ChartShapes.isSubPixel(AffineTransform.getScaleInstance(0.1, 0.1), 2));
+            assertTrue(ChartShapes.isSubPixel(null, Double.NaN));
+    }
+
     public void drawGraphic() throws IOException, ParameterException, InvalidStyle {
         JFrame frame = new JFrame();
         frame.setTitle("Test GraphicCollection");
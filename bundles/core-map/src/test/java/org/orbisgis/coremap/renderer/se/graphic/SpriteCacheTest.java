@@ -0,0 +1,92 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.graphic;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+import org.orbisgis.coremap.map.MapTransform;
+
+public class SpriteCacheTest {
+
+    @Test
+    public void testCrop() throws Exception {
+        BufferedImage canvas = new BufferedImage(40, 40, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = canvas.createGraphics();
+        g2.setColor(Color.RED);
+        g2.fillRect(10, 20, 5, 3);
+        g2.dispose();
+        SpriteCache.Sprite sprite = SpriteCache.crop(canvas, -20, -30);
+        assertEquals(5, sprite.getImage().getWidth());
+        assertEquals(3, sprite.getImage().getHeight());
+        assertEquals(-10, sprite.getX());
+        assertEquals(-10, sprite.getY());
+        assertEquals(Color.RED.getRGB(), sprite.getImage().getRGB(4, 2));
+    }
+
+    @Test
+    public void testCropEmptyOrTooBig() throws Exception {
+        BufferedImage canvas = new BufferedImage(SpriteCache.MAX_SPRITE_SIZE + 2, 4, BufferedImage.TYPE_INT_ARGB);
+        assertNull(SpriteCache.crop(canvas, 0, 0));
+        Graphics2D g2 = canvas.createGraphics();
+        g2.setColor(Color.RED);
+        g2.fillRect(0, 0, SpriteCache.MAX_SPRITE_SIZE + 2, 1);
+        g2.dispose();
+        assertNull(SpriteCache.crop(canvas, 0, 0));
+    }
+
+    @Test
+    public void testSpriteMatchesShapes() throws Exception {
+        MarkGraphic mark = new MarkGraphic();
+        MapTransform mt = new MapTransform();
+        BufferedImage shapes = draw(mark, mt, false);
+        BufferedImage sprites = draw(mark, mt, true);
+        // drawn twice : the second time comes from the cache
+        BufferedImage again = draw(mark, mt, true);
+        int[] expected = shapes.getRGB(0, 0, 100, 100, null, 0, 100);
+        assertArrayEquals(expected, sprites.getRGB(0, 0, 100, 100, null, 0, 100));
+        assertArrayEquals(expected, again.getRGB(0, 0, 100, 100, null, 0, 100));
+    }
+
+    private BufferedImage draw(Graphic graphic, MapTransform mt, boolean useSprites) throws Exception {
+        BufferedImage img = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = img.createGraphics();
+        g2.addRenderingHints(mt.getRenderingHints());
+        g2.setRenderingHint(SpriteCache.KEY_SPRITES, useSprites);
+        graphic.draw(g2, null, false, mt, AffineTransform.getTranslateInstance(30, 40));
+        graphic.draw(g2, null, false, mt, AffineTransform.getTranslateInstance(70, 60));
+        g2.dispose();
+        return img;
+    }
+}
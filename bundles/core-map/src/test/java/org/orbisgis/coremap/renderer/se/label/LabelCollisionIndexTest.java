@@ -0,0 +1,75 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.label;
+
+import java.awt.geom.Rectangle2D;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LabelCollisionIndexTest {
+
+    @Test
+    public void testOverlappingLabels() {
+        LabelCollisionIndex index = new LabelCollisionIndex(200, 200, 16);
+        Rectangle2D first = new Rectangle2D.Double(10, 10, 50, 10);
+        assertTrue(index.add(first, first));
+        Rectangle2D second = new Rectangle2D.Double(40, 15, 50, 10);
+        assertFalse(index.add(second, second));
+        Rectangle2D third = new Rectangle2D.Double(70, 10, 50, 10);
+        assertTrue(index.add(third, third));
+    }
+
+    @Test
+    public void testExclusionZone() {
+        LabelCollisionIndex index = new LabelCollisionIndex(200, 200, 16);
+        Rectangle2D first = new Rectangle2D.Double(10, 10, 50, 10);
+        Rectangle2D reserved = new Rectangle2D.Double(0, 0, 70, 30);
+        assertTrue(index.add(first, reserved));
+        // The text is out of the label but in its exclusion zone
+        Rectangle2D second = new Rectangle2D.Double(62, 10, 20, 10);
+        assertFalse(index.add(second, second));
+        // The exclusion zone of the new label covers the first one
+        Rectangle2D third = new Rectangle2D.Double(100, 10, 20, 10);
+        assertFalse(index.add(third, new Rectangle2D.Double(50, 0, 80, 30)));
+        assertTrue(index.add(third, third));
+    }
+
+    @Test
+    public void testLabelsOutOfTheImage() {
+        LabelCollisionIndex index = new LabelCollisionIndex(100, 100);
+        Rectangle2D first = new Rectangle2D.Double(-20, -20, 30, 25);
+        assertTrue(index.add(first, first));
+        Rectangle2D second = new Rectangle2D.Double(-30, 0, 20, 10);
+        assertFalse(index.add(second, second));
+        Rectangle2D third = new Rectangle2D.Double(150, 150, 20, 10);
+        assertTrue(index.add(third, third));
+    }
+}
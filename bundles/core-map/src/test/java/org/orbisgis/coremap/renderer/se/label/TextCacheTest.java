@@ -0,0 +1,64 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.label;
+
+import java.awt.Font;
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TextCacheTest {
+
+    @Test
+    public void testFontCache() {
+        Font font = TextCache.getFont("Arial", Font.BOLD, 12);
+        assertSame(font, TextCache.getFont("Arial", Font.BOLD, 12));
+        assertNotSame(font, TextCache.getFont("Arial", Font.BOLD, 13));
+        assertNotSame(font, TextCache.getFont("Arial", Font.PLAIN, 12));
+        assertEquals(12, font.getSize());
+        assertEquals(Font.BOLD, font.getStyle());
+    }
+
+    @Test
+    public void testOutlineCache() {
+        Font font = TextCache.getFont("Arial", Font.PLAIN, 12);
+        FontRenderContext frc = new FontRenderContext(null, true, true);
+        Shape outline = TextCache.getOutline("Rue de la Paix", font, frc);
+        assertSame(outline, TextCache.getOutline("Rue de la Paix", font, frc));
+        Shape expected = new TextLayout("Rue de la Paix", font, frc).getOutline(null);
+        assertEquals(expected.getBounds2D(), outline.getBounds2D());
+        FontRenderContext other = new FontRenderContext(null, false, false);
+        assertNotSame(outline, TextCache.getOutline("Rue de la Paix", font, other));
+    }
+}
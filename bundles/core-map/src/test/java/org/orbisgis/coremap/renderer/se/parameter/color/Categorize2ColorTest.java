@@ -271,6 +271,48 @@ public class Categorize2ColorTest {
             assertTrue(cpm == categorize.getFallbackValue().getColor(null, -1));
     }
 
+    @Test
+    public void testLookupBoundaries() throws Exception {
+        Categorize2Color c2c = new Categorize2Color(new ColorLiteral(Color.BLACK),
+                new ColorLiteral(Color.WHITE), new RealAttribute("height"));
+        c2c.put(new RealLiteral(50), new ColorLiteral(Color.RED));
+        c2c.put(new RealLiteral(100), new ColorLiteral(Color.GREEN));
+        // -INF     -> BLACK
+        // 50       -> RED
+        // 100      -> GREEN
+        assertEquals(Color.BLACK, c2c.getColor(getFeature(-1000.0)));
+        assertEquals(Color.BLACK, c2c.getColor(getFeature(49.9)));
+        assertEquals(Color.RED, c2c.getColor(getFeature(50.0)));
+        assertEquals(Color.RED, c2c.getColor(getFeature(99.9)));
+        assertEquals(Color.GREEN, c2c.getColor(getFeature(100.0)));
+        assertEquals(Color.GREEN, c2c.getColor(getFeature(1e9)));
+        c2c.setThresholdsPreceding();
+        assertEquals(Color.BLACK, c2c.getColor(getFeature(50.0)));
+        assertEquals(Color.RED, c2c.getColor(getFeature(100.0)));
+        assertEquals(Color.GREEN, c2c.getColor(getFeature(100.1)));
+    }
+
+    @Test
+    public void testLookupAfterChanges() throws Exception {
+        Categorize2Color c2c = new Categorize2Color(new ColorLiteral(Color.BLACK),
+                new ColorLiteral(Color.WHITE), new RealAttribute("height"));
+        RealLiteral threshold = new RealLiteral(50);
+        c2c.put(threshold, new ColorLiteral(Color.RED));
+        assertEquals(Color.RED, c2c.getColor(getFeature(60.0)));
+        c2c.put(new RealLiteral(55), new ColorLiteral(Color.GREEN));
+        assertEquals(Color.GREEN, c2c.getColor(getFeature(60.0)));
+        c2c.remove(new RealLiteral(55));
+        assertEquals(Color.RED, c2c.getColor(getFeature(60.0)));
+        threshold.setValue(70.0);
+        assertEquals(Color.BLACK, c2c.getColor(getFeature(60.0)));
+    }
+
+    private HashMap<String, Object> getFeature(double height) {
+        HashMap<String, Object> feature = new HashMap<String, Object>();
+        feature.put("height", height);
+        return feature;
+    }
+
     /**
      * test that e are able to build a Categorize2Color directly from a Jaxb categorize
      * structure.
@@ -28,19 +28,27 @@
  */
 package org.orbisgis.coremap.renderer.se.parameter.color;
 
+import java.awt.Color;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.sql.DataSource;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 import net.opengis.se._2_0.core.*;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import org.h2gis.h2spatial.ut.SpatialH2UT;
 import org.junit.Before;
 import org.junit.Test;
 import org.orbisgis.coremap.renderer.se.Style;
 import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
+import org.orbisgis.coremap.renderer.se.parameter.string.StringAttribute;
 import org.orbisgis.coremap.renderer.se.parameter.string.StringLiteral;
 import org.orbisgis.coremap.renderer.se.parameter.string.StringParameter;
 
@@ -142,6 +150,30 @@ public class Recode2ColorTest {
         }
     }
 
+    @Test
+    public void testEditedMapItemIsResolvedAgain() throws Exception {
+        DataSource dataSource = SpatialH2UT.createDataSource(Recode2ColorTest.class.getSimpleName(), false);
+        try (Connection connection = dataSource.getConnection();
+             Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS RECODED");
+            st.execute("CREATE TABLE RECODED(kind varchar)");
+            st.execute("INSERT INTO RECODED VALUES ('k1')");
+            try (ResultSet rs = st.executeQuery("select * from RECODED")) {
+                rs.next();
+                recode.setLookupValue(new StringAttribute("kind"));
+                recode.addMapItem(key1, new ColorLiteral(Color.RED));
+                assertEquals(Color.RED, recode.getColor(rs, 1));
+                // The value of the feature is now remembered, editing the item must forget it.
+                recode.getMapItem(0).setValue(new ColorLiteral(Color.BLUE));
+                assertEquals(Color.BLUE, recode.getColor(rs, 1));
+                recode.setMapItemValue(0, new ColorLiteral(Color.GREEN));
+                assertEquals(Color.GREEN, recode.getColor(rs, 1));
+            } finally {
+                st.execute("DROP TABLE RECODED");
+            }
+        }
+    }
+
     @Test
     public void testRemoveMapItem(){
         testAddMapItems();
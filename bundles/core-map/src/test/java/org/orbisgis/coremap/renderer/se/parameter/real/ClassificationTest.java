@@ -6,14 +6,18 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.orbisgis.coremap.renderer.classification.ClassificationUtils;
+import org.orbisgis.coremap.renderer.classification.FieldStatistics;
 import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Nicolas Fortin
@@ -48,4 +52,52 @@ public class ClassificationTest {
             assertEquals(83, minMax[1], 1e-12);
         }
     }
+
+    @Test
+    public void testFieldStatistics() throws SQLException {
+        try(Statement st = getConnection().createStatement()) {
+            st.execute("DROP TABLE IF EXISTS TEST");
+            st.execute("CREATE TABLE TEST(val int)");
+            st.execute("INSERT INTO TEST VALUES (null), (3), (1), (2), (4), (5), (6), (7), (8), (9), (10)");
+            FieldStatistics stats = FieldStatistics.compute(connection, "TEST", "VAL");
+            assertTrue(stats.isExact());
+            assertEquals(10, stats.getCount());
+            assertEquals(1, stats.getMin(), 1e-12);
+            assertEquals(10, stats.getMax(), 1e-12);
+            assertEquals(5.5, stats.getMean(), 1e-12);
+            assertEquals(3.0276503540974917, stats.getStandardDeviation(), 1e-12);
+            assertEquals(5.5, stats.getPercentile(50), 1e-12);
+            assertEquals(2.75, stats.getPercentile(25), 1e-12);
+            assertEquals(3, stats.getRangeMean(Double.NEGATIVE_INFINITY, 5.5), 1e-12);
+            assertEquals(8, stats.getRangeMean(5.5, Double.POSITIVE_INFINITY), 1e-12);
+            assertTrue(Double.isNaN(stats.getRangeMean(20, 30)));
+        }
+    }
+
+    @Test
+    public void testFieldStatisticsSample() throws SQLException {
+        try(Statement st = getConnection().createStatement()) {
+            st.execute("DROP TABLE IF EXISTS TEST");
+            st.execute("CREATE TABLE TEST AS SELECT X val FROM SYSTEM_RANGE(1, 10000)");
+            FieldStatistics stats = FieldStatistics.compute(connection, "TEST", "VAL", 1000);
+            assertFalse(stats.isExact());
+            assertEquals(10000, stats.getCount());
+            assertEquals(1, stats.getMin(), 1e-12);
+            assertEquals(10000, stats.getMax(), 1e-12);
+            assertEquals(5000.5, stats.getMean(), 1e-12);
+            assertEquals(5000, stats.getPercentile(50), 500);
+            assertEquals(2500, stats.getPercentile(25), 500);
+        }
+    }
+
+    @Test
+    public void testMostFrequentValues() throws SQLException {
+        try(Statement st = getConnection().createStatement()) {
+            st.execute("DROP TABLE IF EXISTS TEST");
+            st.execute("CREATE TABLE TEST(val varchar)");
+            st.execute("INSERT INTO TEST VALUES ('a'), ('b'), ('b'), (null), (null), (null), ('c'), ('c'), ('c')");
+            assertEquals(Arrays.asList("c", "b"), ClassificationUtils.getMostFrequentValues(connection, "TEST", "VAL", 2));
+            assertEquals(Arrays.asList("c", "b", "a"), ClassificationUtils.getMostFrequentValues(connection, "TEST", "VAL", 10));
+        }
+    }
 }
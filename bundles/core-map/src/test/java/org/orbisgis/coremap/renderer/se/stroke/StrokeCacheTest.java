@@ -0,0 +1,159 @@
+/**
+ * OrbisGIS is a GIS application dedicated to scientific spatial simulation.
+ * This cross-platform GIS is developed at French IRSTV institute and is able to
+ * manipulate and create vector and raster spatial information.
+ *
+ * OrbisGIS is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV (FR CNRS 2488)
+ *
+ * This file is part of OrbisGIS.
+ *
+ * OrbisGIS is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OrbisGIS is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OrbisGIS. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.coremap.renderer.se.stroke;
+
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import javax.xml.bind.JAXBElement;
+import net.opengis.se._2_0.core.StrokeType;
+import org.h2gis.h2spatial.ut.SpatialH2UT;
+import org.junit.Test;
+import org.orbisgis.coremap.map.MapTransform;
+import org.orbisgis.coremap.renderer.se.AreaSymbolizer;
+import org.orbisgis.coremap.renderer.se.SymbolizerNode;
+import org.orbisgis.coremap.renderer.se.common.Uom;
+import org.orbisgis.corejdbc.TableEditEvent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StrokeCacheTest {
+
+    @Test
+    public void testHitMissAndTableChange() throws Exception {
+        DataSource dataSource = SpatialH2UT.createDataSource(StrokeCacheTest.class.getSimpleName(), false);
+        try (Connection connection = dataSource.getConnection();
+             Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS STROKED");
+            st.execute("CREATE TABLE STROKED(ID INT PRIMARY KEY)");
+            st.execute("INSERT INTO STROKED VALUES (1), (2)");
+            try (ResultSet rs = st.executeQuery("SELECT * FROM STROKED ORDER BY ID")) {
+                StrokeCache cache = new StrokeCache("ID");
+                CountingStroke stroke = new CountingStroke();
+                MapTransform mt = new MapTransform();
+                Map<String, Object> map = Collections.emptyMap();
+                Shape line = new Line2D.Double(0, 0, 10, 10);
+                BufferedImage image = new BufferedImage(20, 20, BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g2 = image.createGraphics();
+                g2.setRenderingHint(StrokeCache.KEY_STROKES, cache);
+
+                assertTrue(rs.next());
+                StrokeCache.draw(g2, stroke, rs, map, line, false, mt, 0);
+                assertEquals(1, stroke.computed);
+                assertEquals(1, stroke.drawn);
+                // Same feature, same scale : the decoration is reused
+                StrokeCache.draw(g2, stroke, rs, map, line, false, mt, 0);
+                assertEquals(1, stroke.computed);
+                assertEquals(2, stroke.drawn);
+                // Another feature
+                assertTrue(rs.next());
+                StrokeCache.draw(g2, stroke, rs, map, line, false, mt, 0);
+                assertEquals(2, stroke.computed);
+                // The stroke changes
+                stroke.update();
+                StrokeCache.draw(g2, stroke, rs, map, line, false, mt, 0);
+                assertEquals(3, stroke.computed);
+                StrokeCache.draw(g2, stroke, rs, map, line, false, mt, 0);
+                assertEquals(3, stroke.computed);
+                // The symbolizer of the stroke changes
+                AreaSymbolizer symbolizer = new AreaSymbolizer();
+                symbolizer.setStroke(stroke);
+                StrokeCache.draw(g2, stroke, rs, map, line, false, mt, 0);
+                assertEquals(4, stroke.computed);
+                StrokeCache.draw(g2, stroke, rs, map, line, false, mt, 0);
+                assertEquals(4, stroke.computed);
+                symbolizer.setUom(Uom.MM);
+                StrokeCache.draw(g2, stroke, rs, map, line, false, mt, 0);
+                assertEquals(5, stroke.computed);
+                // The table is edited
+                cache.tableChange(new TableEditEvent("STROKED"));
+                StrokeCache.draw(g2, stroke, rs, map, line, false, mt, 0);
+                assertEquals(6, stroke.computed);
+                assertEquals(9, stroke.drawn);
+                g2.dispose();
+            } finally {
+                st.execute("DROP TABLE STROKED");
+            }
+        }
+    }
+
+    /**
+     * A stroke that counts its decorations and their drawings.
+     */
+    private static final class CountingStroke extends Stroke {
+
+        private int computed;
+        private int drawn;
+
+        @Override
+        StrokeDecoration getDecoration(Graphics2D g2, Map<String, Object> map, Shape shp,
+                MapTransform mt, double offset) {
+            computed++;
+            return new StrokeDecoration() {
+
+                @Override
+                void draw(Graphics2D g2, Map<String, Object> map, boolean selected,
+                        MapTransform mt, AffineTransform shift) {
+                    drawn++;
+                }
+            };
+        }
+
+        @Override
+        public void draw(Graphics2D g2, Map<String, Object> map, Shape shp,
+                boolean selected, MapTransform mt, double offset) {
+            throw new IllegalStateException("The decorations must be used");
+        }
+
+        @Override
+        public JAXBElement<? extends StrokeType> getJAXBElement() {
+            return null;
+        }
+
+        @Override
+        public Double getNaturalLength(Map<String, Object> map, Shape shp, MapTransform mt) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        @Override
+        public List<SymbolizerNode> getChildren() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -31,6 +31,7 @@ package org.orbisgis.coremap.renderer.se.stroke;
 import com.sun.media.jai.widget.DisplayJAI;
 import java.awt.*;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -38,15 +39,18 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 import org.orbisgis.coremap.map.MapTransform;
 import org.orbisgis.coremap.renderer.se.PointSymbolizer;
 import org.orbisgis.coremap.renderer.se.SeExceptions.InvalidStyle;
 import org.orbisgis.coremap.renderer.se.Style;
+import org.orbisgis.coremap.renderer.se.common.RelativeOrientation;
 import org.orbisgis.coremap.renderer.se.common.Uom;
 import org.orbisgis.coremap.renderer.se.graphic.GraphicCollection;
 import org.orbisgis.coremap.renderer.se.parameter.ParameterException;
+import org.orbisgis.coremap.renderer.se.parameter.real.RealLiteral;
 import org.orbisgis.coremap.renderer.se.parameter.string.StringLiteral;
 
 /**
@@ -77,6 +81,49 @@ public class StrokeTest {
             assertTrue(res == 9);
     }
 
+    @Test
+    public void testVersionChanges() {
+            GraphicStroke gs = new GraphicStroke();
+            int version = gs.getVersion();
+            gs.setRelativeOrientation(RelativeOrientation.LINE);
+            assertTrue(gs.getVersion() != version);
+            version = gs.getVersion();
+            gs.setLength(new RealLiteral(10));
+            assertTrue(gs.getVersion() != version);
+    }
+
+    @Test
+    public void testMovedDecoration() throws IOException, ParameterException {
+            MapTransform mt = new MapTransform();
+            GraphicStroke gs = new GraphicStroke();
+            gs.setUom(Uom.PX);
+            gs.setLength(new RealLiteral(20));
+            Path2D.Double line = new Path2D.Double();
+            line.moveTo(10, 20);
+            line.lineTo(90, 60);
+            line.lineTo(150, 20);
+            AffineTransform shift = AffineTransform.getTranslateInstance(12, 7);
+
+            BufferedImage moved = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2 = moved.createGraphics();
+            gs.getDecoration(g2, null, line, mt, 0.0).draw(g2, null, false, mt, shift);
+            g2.dispose();
+
+            BufferedImage drawn = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+            g2 = drawn.createGraphics();
+            gs.draw(g2, null, shift.createTransformedShape(line), false, mt, 0.0);
+            g2.dispose();
+
+            boolean painted = false;
+            for (int y = 0; y < 100; y++) {
+                    for (int x = 0; x < 200; x++) {
+                            assertEquals(drawn.getRGB(x, y), moved.getRGB(x, y));
+                            painted |= drawn.getRGB(x, y) != 0;
+                    }
+            }
+            assertTrue(painted);
+    }
+
     //@Test
     public void experimentGraphic() throws IOException, ParameterException, InvalidStyle {
         JFrame frame = new JFrame();
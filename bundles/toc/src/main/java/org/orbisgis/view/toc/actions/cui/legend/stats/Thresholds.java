@@ -1,9 +1,9 @@
 package org.orbisgis.view.toc.actions.cui.legend.stats;
 
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.orbisgis.coremap.renderer.classification.FieldStatistics;
 import org.orbisgis.coremap.renderer.se.parameter.Categorize;
 
-import java.util.Arrays;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -12,19 +12,28 @@ import java.util.TreeSet;
  * @author Alexis Guéganno
  */
 public class Thresholds {
-    private DescriptiveStatistics stats;
+    private FieldStatistics stats;
     private String fieldName;
 
     /**
-     * Builds a new {@code Thresholds} instance using the given {@code DescriptiveStatistics} and {@code String} instance.
+     * Builds a new {@code Thresholds} instance using the given {@code FieldStatistics} and {@code String} instance.
      * @param input The computed statistics.
      * @param name The name of the field we took the data from.
      */
-    public Thresholds(DescriptiveStatistics input, String name){
+    public Thresholds(FieldStatistics input, String name){
         this.stats = input;
         this.fieldName = name;
     }
 
+    /**
+     * Builds a new {@code Thresholds} instance using the given {@code DescriptiveStatistics} and {@code String} instance.
+     * @param input The computed statistics.
+     * @param name The name of the field we took the data from.
+     */
+    public Thresholds(DescriptiveStatistics input, String name){
+        this(FieldStatistics.fromValues(input.getValues()), name);
+    }
+
     /**
      * Gets {@code classNumber} of methods according to the given classification
      * @param method The classification method
@@ -77,7 +86,8 @@ public class Thresholds {
 
     /**
      * Retrieve the thresholds for a quantile classification. The first threshold is the minimum value of the input set.
-     * Thresholds are computed using the percentile computation capabilities of Apache commons-math.
+     * Thresholds are computed with the same estimation as Apache commons-math, on a sample of the input set if it is
+     * too large.
      * @param classNumber The number of classes.
      * @return The thresholds.
      */
@@ -103,29 +113,33 @@ public class Thresholds {
         SortedSet<Double> ret = new TreeSet<Double>();
         ret.add(stats.getMin());
         int levels = classNumber == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(classNumber) -1;
-        computeBoxedMeans(stats, ret, levels-1);
+        double mean = stats.getMean();
+        ret.add(mean);
+        if(levels > 1){
+            computeBoxedMeans(Double.NEGATIVE_INFINITY, mean, ret, levels-2);
+            computeBoxedMeans(mean, Double.POSITIVE_INFINITY, ret, levels-2);
+        }
         return ret;
     }
 
     /**
      * This method :
-     * - Feeds the given SortedSet with the mean of the given statistics.
-     * - Calls itself recursively on the two subset obtained by dividing the set around its mean, if lev > 0.
-     * @param inpStat The input statistics
+     * - Feeds the given SortedSet with the mean of the values in [lower, upper[.
+     * - Calls itself recursively on the two ranges obtained by dividing the range around its mean, if lev > 0.
+     * @param lower The inclusive lower bound of the range
+     * @param upper The exclusive upper bound of the range
      * @param toFeed The SortedSet we want to feed
      * @param lev The remaining number of levels we have to process.
      */
-    private void computeBoxedMeans(DescriptiveStatistics inpStat, SortedSet<Double> toFeed, int lev){
-        double[] input = inpStat.getSortedValues();
-        double mean = inpStat.getMean();
+    private void computeBoxedMeans(double lower, double upper, SortedSet<Double> toFeed, int lev){
+        double mean = stats.getRangeMean(lower, upper);
+        if(Double.isNaN(mean)){
+            return;
+        }
         toFeed.add(mean);
         if(lev > 0){
-            int i = Arrays.binarySearch(input, mean);
-            int ind = i < 0 ? -i-1 : i;
-            double[] first = Arrays.copyOf(input, ind);
-            double[] tail = Arrays.copyOfRange(input, ind, input.length);
-            computeBoxedMeans(new DescriptiveStatistics(first), toFeed, lev-1);
-            computeBoxedMeans(new DescriptiveStatistics(tail), toFeed, lev-1);
+            computeBoxedMeans(lower, mean, toFeed, lev-1);
+            computeBoxedMeans(mean, upper, toFeed, lev-1);
         }
     }
 
@@ -29,17 +29,19 @@
 package org.orbisgis.view.toc.actions.cui.legend.ui;
 
 import net.miginfocom.swing.MigLayout;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.apache.log4j.Logger;
-import org.h2gis.utilities.TableLocation;
+import org.orbisgis.core.Services;
 import org.orbisgis.corejdbc.MetaData;
+import org.orbisgis.coremap.renderer.classification.FieldStatistics;
 import org.orbisgis.coremap.renderer.se.parameter.Categorize;
 import org.orbisgis.legend.thematic.LineParameters;
 import org.orbisgis.legend.thematic.categorize.AbstractCategorizedLegend;
 import org.orbisgis.legend.thematic.map.MappedLegend;
-import org.orbisgis.progress.NullProgressMonitor;
+import org.orbisgis.progress.ProgressMonitor;
 import org.orbisgis.sif.common.ContainerItemProperties;
 import org.orbisgis.sif.components.WideComboBox;
+import org.orbisgis.view.background.BackgroundJob;
+import org.orbisgis.view.background.BackgroundManager;
 import org.orbisgis.view.toc.actions.cui.LegendContext;
 import org.orbisgis.view.toc.actions.cui.legend.components.ColorConfigurationPanel;
 import org.orbisgis.view.toc.actions.cui.legend.components.ColorScheme;
@@ -54,9 +56,7 @@ import javax.swing.*;
 import java.awt.event.ActionListener;
 import java.beans.EventHandler;
 import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.SortedSet;
@@ -72,7 +72,7 @@ public abstract class PnlAbstractCategorized<U extends LineParameters> extends P
     public static final Logger LOGGER = Logger.getLogger(PnlAbstractCategorized.class);
     private static final I18n I18N = I18nFactory.getI18n(PnlAbstractCategorized.class);
     private ColorConfigurationPanel colorConfig;
-    private Thresholds thresholds;
+    private volatile Thresholds thresholds;
     public static final Integer[] THRESHOLDS_NUMBER =
             new Integer[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
     public static final Integer[] THRESHOLDS_SQUARE =
@@ -114,13 +114,9 @@ public abstract class PnlAbstractCategorized<U extends LineParameters> extends P
     }
 
     private Thresholds computeStats(String fieldName){
-        DescriptiveStatistics stats = new DescriptiveStatistics();
-        try(Connection connection = getDataSource().getConnection();
-            Statement st = connection.createStatement();
-            ResultSet rs = st.executeQuery("select "+ TableLocation.quoteIdentifier(fieldName)+ " from "+getTable())) {
-            while(rs.next()) {
-                stats.addValue(rs.getDouble(1));
-            }
+        FieldStatistics stats = FieldStatistics.fromValues();
+        try(Connection connection = getDataSource().getConnection()) {
+            stats = FieldStatistics.compute(connection, getTable(), fieldName);
         } catch (SQLException e) {
             LOGGER.warn(I18N.tr("The application has ended unexpectedly"),e);
         }
@@ -228,25 +224,63 @@ public abstract class PnlAbstractCategorized<U extends LineParameters> extends P
 
     /**
      * This method is called by EventHandler when clicking on the button dedicated to classification creation.
+     * The statistics are computed in a background job, as they need a full pass on the field.
      */
     public void onComputeClassification(){
-        String name = getFieldName();
-        if(thresholds == null || !thresholds.getFieldName().equals(name)){
-            thresholds = computeStats(name);
-        }
         ContainerItemProperties selectedItem = (ContainerItemProperties) methodCombo.getSelectedItem();
         CategorizeMethod cm = CategorizeMethod.valueOf(selectedItem.getKey());
         Integer number = (Integer) numberCombo.getSelectedItem();
-        SortedSet<Double> set = thresholds.getThresholds(cm,number);
-        if(!set.isEmpty()){
-            ColorScheme sc = colorConfig.getColorScheme();
-            MappedLegend<Double,U> cl = createColouredClassification(
-                    set,
-                    new NullProgressMonitor(),
-                    sc);
-            cl.setLookupFieldName(((MappedLegend)getLegend()).getLookupFieldName());
-            cl.setName(getLegend().getName());
-            setLegend(cl);
+        BackgroundManager bm = Services.getService(BackgroundManager.class);
+        bm.nonBlockingBackgroundOperation(new ClassificationJob(getFieldName(), cm, number));
+    }
+
+    /**
+     * This Job computes the statistics of a field, if they are not already known, and feeds the legend with the
+     * thresholds of the selected classification.
+     */
+    private class ClassificationJob implements BackgroundJob {
+
+        private final String fieldName;
+        private final CategorizeMethod method;
+        private final int classNumber;
+
+        /**
+         * Builds the BackgroundJob.
+         * @param f The name of the field we want the data from.
+         * @param cm The classification method
+         * @param n The number of classes
+         */
+        public ClassificationJob(String f, CategorizeMethod cm, int n){
+            fieldName = f;
+            method = cm;
+            classNumber = n;
+        }
+
+        @Override
+        public void run(ProgressMonitor pm) {
+            Thresholds th = thresholds;
+            if(th == null || !th.getFieldName().equals(fieldName)){
+                th = computeStats(fieldName);
+                thresholds = th;
+            }
+            SortedSet<Double> set = th.getThresholds(method,classNumber);
+            if(!set.isEmpty()){
+                ColorScheme sc = colorConfig.getColorScheme();
+                MappedLegend<Double,U> cl = createColouredClassification(
+                        set,
+                        pm,
+                        sc);
+                if(cl != null){
+                    cl.setLookupFieldName(((MappedLegend)getLegend()).getLookupFieldName());
+                    cl.setName(getLegend().getName());
+                    setLegend(cl);
+                }
+            }
+        }
+
+        @Override
+        public String getTaskName() {
+            return I18N.tr("Creating classification...");
         }
     }
 
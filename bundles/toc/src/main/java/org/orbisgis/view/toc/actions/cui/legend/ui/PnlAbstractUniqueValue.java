@@ -30,10 +30,9 @@ package org.orbisgis.view.toc.actions.cui.legend.ui;
 
 import net.miginfocom.swing.MigLayout;
 import org.apache.log4j.Logger;
-import org.h2gis.utilities.TableLocation;
 import org.orbisgis.core.Services;
 import org.orbisgis.corejdbc.MetaData;
-import org.orbisgis.corejdbc.ReadTable;
+import org.orbisgis.coremap.renderer.classification.ClassificationUtils;
 import org.orbisgis.legend.thematic.LineParameters;
 import org.orbisgis.legend.thematic.map.MappedLegend;
 import org.orbisgis.legend.thematic.recode.AbstractRecodedLegend;
@@ -60,12 +59,11 @@ import java.beans.EventHandler;
 import java.beans.PropertyChangeListener;
 import java.net.URL;
 import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.List;
 import java.util.TreeSet;
 
 /**
@@ -91,6 +89,10 @@ public abstract class PnlAbstractUniqueValue<U extends LineParameters> extends P
 
     private static final String COMPUTED = "Computed";
     protected final static String JOB_NAME = "recodeSelectDistinct";
+    /**
+     * The maximum number of distinct values used to build a classification.
+     */
+    public static final int MAXIMUM_VALUES = 1000;
 
     /**
      * Contructor
@@ -287,9 +289,10 @@ public abstract class PnlAbstractUniqueValue<U extends LineParameters> extends P
         }
 
         /**
-         * Gathers all the distinct values of the input DataSource in a {@link HashSet}.
+         * Gathers the {@link #MAXIMUM_VALUES} most frequent non null values of the input DataSource in a {@link TreeSet}.
+         * NULL is not a class of its own: the features without value use the fallback parameters.
          * @param progress Used to be able to cancel the job.
-         * @return The distinct values as String instances in a {@link HashSet} or null if the job has been cancelled.
+         * @return The distinct values as String instances in a {@link TreeSet} or null if the job has been cancelled.
          */
         public TreeSet<String> getValues(ProgressMonitor progress){
             Comparator<String> comparator = getComparator();
@@ -298,13 +301,17 @@ public abstract class PnlAbstractUniqueValue<U extends LineParameters> extends P
                 Statement st = connection.createStatement()) {
                 PropertyChangeListener cancelPm = EventHandler.create(PropertyChangeListener.class, st, "cancel");
                 progress.addPropertyChangeListener(ProgressMonitor.PROP_CANCEL, cancelPm);
-                try(ResultSet rs = st.executeQuery("SELECT DISTINCT "+ TableLocation.quoteIdentifier(fieldName)+" FROM "+ getTable())) {
-                    final ProgressMonitor pm = progress.startTask(I18N.tr("Retrieving classes"),
-                            ReadTable.getRowCount(connection, getTable()));
+                try {
+                    List<String> values = ClassificationUtils.getMostFrequentValues(st, getTable(), fieldName,
+                            MAXIMUM_VALUES);
+                    if(values.size() == MAXIMUM_VALUES){
+                        LOGGER.warn(I18N.tr("Only the {0} most frequent values are used", MAXIMUM_VALUES));
+                    }
+                    final ProgressMonitor pm = progress.startTask(I18N.tr("Retrieving classes"), values.size());
                     final int warn = 100;
                     int size = 0;
-                    while(rs.next()) {
-                        ret.add(rs.getString(1));
+                    for(String value : values) {
+                        ret.add(value);
                         size++;
                         if(size == warn){
                             final UIPanel cancel = new CancelPanel(warn);
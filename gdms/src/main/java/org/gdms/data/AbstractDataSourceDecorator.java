@@ -34,6 +34,8 @@
 package org.gdms.data;
 
 import java.util.Iterator;
+
+import com.vividsolutions.jts.geom.Envelope;
 import org.cts.crs.CoordinateReferenceSystem;
 import org.gdms.data.edition.Commiter;
 import org.gdms.data.edition.EditionListener;
@@ -42,6 +44,7 @@ import org.gdms.data.indexes.IndexQuery;
 import org.gdms.data.schema.Metadata;
 import org.gdms.data.types.Type;
 import org.gdms.data.values.Value;
+import org.gdms.data.values.ValueBatch;
 import org.gdms.driver.DataSet;
 import org.gdms.driver.Driver;
 import org.gdms.driver.DriverException;
@@ -145,6 +148,17 @@ public abstract class AbstractDataSourceDecorator extends AbstractDataSource {
                 return internalDataSource.getFieldValue(rowIndex, fieldId);
         }
 
+        @Override
+        public Envelope getEnvelope(long rowIndex, int fieldId)
+                throws DriverException {
+                return internalDataSource.getEnvelope(rowIndex, fieldId);
+        }
+
+        @Override
+        public Iterator<ValueBatch> batchIterator(int batchSize) throws DriverException {
+                return internalDataSource.batchIterator(batchSize);
+        }
+
         @Override
         public String getName() {
                 return internalDataSource.getName();
@@ -37,7 +37,6 @@ import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Envelope;
 import org.gdms.data.schema.Metadata;
 import org.gdms.data.types.Type;
-import org.gdms.data.values.Value;
 import org.gdms.driver.DriverException;
 import org.gdms.source.CommitListener;
 import org.gdms.source.DefaultSourceManager;
@@ -107,9 +106,8 @@ public final class CacheDecorator extends AbstractDataSourceDecorator implements
                                         for (int j = 0; j < m.getFieldCount(); j++) {
                                                 if ((m.getFieldType(j).getTypeCode() & Type.GEOMETRY) != 0) {
 
-                                                        Value v = getFieldValue(i, j);
-                                                        if ((v != null) && (!v.isNull())) {
-                                                                Envelope r = v.getAsGeometry().getEnvelopeInternal();
+                                                        Envelope r = getEnvelope(i, j);
+                                                        if (r != null) {
                                                                 if (extent == null) {
                                                                         extent = new Envelope(r);
                                                                 } else {
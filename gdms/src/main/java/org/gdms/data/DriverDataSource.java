@@ -37,6 +37,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import com.vividsolutions.jts.geom.Envelope;
 import org.apache.log4j.Logger;
 
 import org.gdms.data.edition.Commiter;
@@ -47,6 +48,7 @@ import org.gdms.data.indexes.IndexQueryException;
 import org.gdms.data.indexes.ResultIterator;
 import org.gdms.data.schema.Metadata;
 import org.gdms.data.values.Value;
+import org.gdms.data.values.ValueBatch;
 import org.gdms.driver.DataSet;
 import org.gdms.driver.DriverException;
 import org.gdms.source.Source;
@@ -131,6 +133,17 @@ public abstract class DriverDataSource extends DataSourceCommonImpl {
                 return getDriverTable().getFieldValue(rowIndex, fieldId);
         }
 
+        @Override
+        public synchronized Envelope getEnvelope(long rowIndex, int fieldId)
+                throws DriverException {
+                return getDriverTable().getEnvelope(rowIndex, fieldId);
+        }
+
+        @Override
+        public Iterator<ValueBatch> batchIterator(int batchSize) throws DriverException {
+                return getDriverTable().batchIterator(batchSize);
+        }
+
         /**
          * @see org.gdms.driver.DataSet#getRowCount()
          */
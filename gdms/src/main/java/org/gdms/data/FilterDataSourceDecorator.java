@@ -35,14 +35,19 @@ package org.gdms.data;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
+import com.vividsolutions.jts.geom.Envelope;
+
 import org.gdms.data.edition.EditionEvent;
 import org.gdms.data.edition.EditionListener;
 import org.gdms.data.edition.MultipleEditionEvent;
 import org.gdms.data.values.Value;
+import org.gdms.data.values.ValueBatch;
 import org.gdms.driver.DataSet;
 import org.gdms.driver.DriverException;
+import org.gdms.driver.DataSetBatchIterator;
 import org.gdms.driver.driverManager.DriverManager;
 import org.gdms.driver.memory.MemoryDataSetDriver;
 import org.gdms.source.SourceManager;
@@ -113,6 +118,20 @@ public final class FilterDataSourceDecorator extends AbstractDataSourceDecorator
                 return super.getFieldValue(map.get((int) rowIndex), fieldId);
         }
 
+        @Override
+        public Envelope getEnvelope(long rowIndex, int fieldId) throws DriverException {
+                if (map == null && super.isOpen()) {
+                        map = getMapDriver();
+                }
+                return super.getEnvelope(map.get((int) rowIndex), fieldId);
+        }
+
+        @Override
+        public Iterator<ValueBatch> batchIterator(int batchSize) throws DriverException {
+                // rows are remapped, they cannot be read by batches from the filtered source
+                return new DataSetBatchIterator(this, batchSize);
+        }
+
         /**
          * Returns the index in the original data source (unfiltered). This index
          * is kept in memory only, it is NOT written to disk.
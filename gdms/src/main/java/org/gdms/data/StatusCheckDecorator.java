@@ -33,9 +33,14 @@
  */
 package org.gdms.data;
 
+import java.util.Iterator;
+
+import com.vividsolutions.jts.geom.Envelope;
+
 import org.gdms.data.schema.Metadata;
 import org.gdms.data.types.Type;
 import org.gdms.data.values.Value;
+import org.gdms.data.values.ValueBatch;
 import org.gdms.driver.DataSet;
 import org.gdms.driver.DriverException;
 
@@ -126,6 +131,27 @@ public final class StatusCheckDecorator extends AbstractDataSourceDecorator {
 		}
 	}
 
+        @Override
+	public Envelope getEnvelope(long rowIndex, int fieldId)
+			throws DriverException {
+		if (isOpen()) {
+			return getDataSource().getEnvelope(rowIndex, fieldId);
+		} else {
+			throw new ClosedDataSourceException(
+					MUST_BE_OPEN);
+		}
+	}
+
+        @Override
+        public Iterator<ValueBatch> batchIterator(int batchSize) throws DriverException {
+                if (isOpen()) {
+                        return getDataSource().batchIterator(batchSize);
+                } else {
+                        throw new ClosedDataSourceException(
+                                MUST_BE_OPEN);
+                }
+        }
+
         @Override
 	public long getRowCount() throws DriverException {
 		if (isOpen()) {
@@ -31,14 +31,17 @@
  */
 package org.gdms.data.crs;
 
-import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.CoordinateSequenceFilter;
 import com.vividsolutions.jts.geom.Geometry;
-import com.vividsolutions.jts.geom.impl.CoordinateArraySequence;
 import com.vividsolutions.jts.geom.util.GeometryTransformer;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import org.apache.log4j.Logger;
 import org.cts.IllegalCoordinateException;
 import org.cts.crs.CRSException;
+import org.cts.crs.CoordinateReferenceSystem;
 import org.cts.crs.GeodeticCRS;
 import org.cts.op.CoordinateOperation;
 import org.cts.op.CoordinateOperationFactory;
@@ -51,9 +54,26 @@ import org.gdms.data.values.ValueFactory;
  *
  * Transform a geometry from crs code to another one.
  *
+ * Instances are immutable once built and can be shared between threads. Use
+ * {@link #getInstance(GeodeticCRS, GeodeticCRS)} to get a process-wide cached
+ * instance instead of resolving the coordinate operation again.
+ *
  */
 public class SpatialReferenceSystem {
 
+    /**
+     * Maximum number of (source, target) pairs kept in the shared cache.
+     */
+    private static final int CACHE_SIZE = 64;
+    private static final Map<CRSPair, SpatialReferenceSystem> CACHE =
+            new LinkedHashMap<CRSPair, SpatialReferenceSystem>(16, 0.75f, true) {
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<CRSPair, SpatialReferenceSystem> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+    private static final Logger LOG = Logger.getLogger(SpatialReferenceSystem.class);
     private GeodeticCRS targetCRS;
     private CoordinateOperation coordinateOperation;
 
@@ -87,48 +107,133 @@ public class SpatialReferenceSystem {
 
     }
 
+    /**
+     * Gets the transformation from {@code sourceCRS} to {@code targetCRS}.
+     *
+     * The coordinate operation of a given pair is only resolved once: the
+     * instances are kept in a bounded, process-wide cache.
+     *
+     * @param sourceCRS the source crs
+     * @param targetCRS the target crs
+     * @return a shared SpatialReferenceSystem
+     */
+    public static SpatialReferenceSystem getInstance(GeodeticCRS sourceCRS, GeodeticCRS targetCRS) {
+        CRSPair key = new CRSPair(sourceCRS, targetCRS);
+        synchronized (CACHE) {
+            SpatialReferenceSystem srs = CACHE.get(key);
+            if (srs != null) {
+                return srs;
+            }
+        }
+        // resolved outside of the lock: two threads may build the same
+        // operation concurrently, the last one wins and both are valid.
+        SpatialReferenceSystem srs = new SpatialReferenceSystem(sourceCRS, targetCRS);
+        synchronized (CACHE) {
+            CACHE.put(key, srs);
+        }
+        return srs;
+    }
+
+    /**
+     * Empties the shared cache of transformations.
+     */
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
     public CoordinateOperation getCoordinateOperationSequence() {
         return coordinateOperation;
     }
 
     public Value transform(Geometry geom) {
-        Geometry g = getGeometryTransformer().transform(geom);
+        Geometry g = (Geometry) geom.clone();
+        g.apply(new TransformFilter());
         return ValueFactory.createValue(g, targetCRS);
     }
 
     public GeometryTransformer getGeometryTransformer() {
-        GeometryTransformer gt = null;
-        if (gt == null) {
-            gt = new GeometryTransformer() {
-                @Override
-                protected CoordinateSequence transformCoordinates(
-                        CoordinateSequence cs, Geometry geom) {
-                    Coordinate[] cc = geom.getCoordinates();
-                    CoordinateSequence newcs = new CoordinateArraySequence(cc);
-                    for (int i = 0; i < cc.length; i++) {
-                        Coordinate c = cc[i];
-                        try {
-                            if(Double.isNaN(c.z)){
-                                c.z=0;
-                            }                            
-                            double[] xyz = coordinateOperation
-                                    .transform(new double[]{c.x, c.y, c.z});
-                            newcs.setOrdinate(i, 0, xyz[0]);
-                            newcs.setOrdinate(i, 1, xyz[1]);
-                            if (xyz.length > 2) {
-                                newcs.setOrdinate(i, 2, xyz[2]);
-                            } else {
-                                newcs.setOrdinate(i, 2, Double.NaN);
-                            }
-                        } catch (IllegalCoordinateException ice) {
-                            ice.printStackTrace();
-                        }
-                    }
-                    return newcs;
+        return new GeometryTransformer() {
+            @Override
+            protected CoordinateSequence transformCoordinates(
+                    CoordinateSequence cs, Geometry geom) {
+                CoordinateSequence newcs = (CoordinateSequence) cs.clone();
+                TransformFilter filter = new TransformFilter();
+                for (int i = 0; i < newcs.size(); i++) {
+                    filter.filter(newcs, i);
                 }
-            };
+                return newcs;
+            }
+        };
+    }
+
+    /**
+     * Transforms the coordinates of a sequence in place.
+     */
+    private final class TransformFilter implements CoordinateSequenceFilter {
+
+        private final double[] xyz = new double[3];
+
+        @Override
+        public void filter(CoordinateSequence seq, int i) {
+            xyz[0] = seq.getOrdinate(i, CoordinateSequence.X);
+            xyz[1] = seq.getOrdinate(i, CoordinateSequence.Y);
+            double z = seq.getDimension() > 2 ? seq.getOrdinate(i, CoordinateSequence.Z) : Double.NaN;
+            xyz[2] = Double.isNaN(z) ? 0 : z;
+            try {
+                double[] res = coordinateOperation.transform(xyz);
+                seq.setOrdinate(i, CoordinateSequence.X, res[0]);
+                seq.setOrdinate(i, CoordinateSequence.Y, res[1]);
+                if (seq.getDimension() > 2) {
+                    seq.setOrdinate(i, CoordinateSequence.Z, res.length > 2 ? res[2] : Double.NaN);
+                }
+            } catch (IllegalCoordinateException ice) {
+                LOG.error("Cannot transform the coordinate " + i, ice);
+            }
+        }
+
+        @Override
+        public boolean isDone() {
+            return false;
+        }
+
+        @Override
+        public boolean isGeometryChanged() {
+            return true;
+        }
+    }
+
+    /**
+     * Key of the transformation cache.
+     */
+    private static final class CRSPair {
+
+        private final CoordinateReferenceSystem source;
+        private final CoordinateReferenceSystem target;
+
+        CRSPair(CoordinateReferenceSystem source, CoordinateReferenceSystem target) {
+            this.source = source;
+            this.target = target;
         }
 
-        return gt;
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof CRSPair)) {
+                return false;
+            }
+            CRSPair other = (CRSPair) obj;
+            return equal(source, other.source) && equal(target, other.target);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = source == null ? 0 : source.hashCode();
+            return 31 * h + (target == null ? 0 : target.hashCode());
+        }
+
+        private static boolean equal(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
     }
 }
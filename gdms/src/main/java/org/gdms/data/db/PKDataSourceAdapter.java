@@ -33,6 +33,10 @@
  */
 package org.gdms.data.db;
 
+import java.util.Iterator;
+
+import com.vividsolutions.jts.geom.Envelope;
+
 import org.gdms.data.AbstractDataSourceDecorator;
 import org.gdms.data.DataSource;
 import org.gdms.data.schema.DefaultMetadata;
@@ -43,7 +47,9 @@ import org.gdms.data.types.PrimaryKeyConstraint;
 import org.gdms.data.types.Type;
 import org.gdms.data.types.TypeFactory;
 import org.gdms.data.values.Value;
+import org.gdms.data.values.ValueBatch;
 import org.gdms.driver.DriverException;
+import org.gdms.driver.DataSetBatchIterator;
 
 /**
  * This class simulates a DataSource with primary key that uses the getPK method
@@ -87,6 +93,20 @@ final class PKDataSourceAdapter extends AbstractDataSourceDecorator {
 		}
 	}
 
+        @Override
+        public Envelope getEnvelope(long rowIndex, int fieldId) throws DriverException {
+                if (fieldId == 0) {
+                        throw new DriverException("The primary key field is not a geometry field");
+                }
+                return getDataSource().getEnvelope(rowIndex, fieldId - 1);
+        }
+
+        @Override
+        public Iterator<ValueBatch> batchIterator(int batchSize) throws DriverException {
+                // the primary key column is added in front of the columns of the source
+                return new DataSetBatchIterator(this, batchSize);
+        }
+
         @Override
 	public long getRowCount() throws DriverException {
 		return getDataSource().getRowCount();
@@ -62,9 +62,11 @@ import org.gdms.data.types.Constraint;
 import org.gdms.data.types.Type;
 import org.gdms.data.types.TypeFactory;
 import org.gdms.data.values.Value;
+import org.gdms.data.values.ValueBatch;
 import org.gdms.data.values.ValueFactory;
 import org.gdms.driver.DataSet;
 import org.gdms.driver.DriverException;
+import org.gdms.driver.DataSetBatchIterator;
 import org.gdms.source.CommitListener;
 import org.gdms.source.SourceManager;
 
@@ -296,33 +298,6 @@ public final class EditionDecorator extends AbstractDataSourceDecorator implemen
                 return row;
         }
 
-        /**
-         * Gets the values of the original row
-         *
-         * @param dir
-         * address of the row to be retrieved
-         *
-         * @return Row values
-         *
-         * @throws DriverException
-         * if the operation fails
-         */
-        private Value[] getOriginalRow(PhysicalRowAddress dir)
-                throws DriverException {
-                ArrayList<Value> ret = new ArrayList<Value>();
-
-                for (int i = 0; i < getFields().size(); i++) {
-                        int originalIndex = getFields().get(i).getOriginalIndex();
-                        if (originalIndex == -1) {
-                                ret.add(ValueFactory.createNullValue());
-                        } else {
-                                ret.add(dir.getFieldValue(originalIndex));
-                        }
-                }
-
-                return ret.toArray(new Value[ret.size()]);
-        }
-
         @Override
         public void setFieldValue(long row, int fieldId, Value value)
                 throws DriverException {
@@ -347,13 +322,13 @@ public final class EditionDecorator extends AbstractDataSourceDecorator implemen
                 ModifyCommand.ModifyInfo ret;
                 PhysicalRowAddress dir = rowsAddresses.get((int) row);
                 dirty = true;
-                setFieldValueInIndex((int) row, fieldId, getFieldValue(row, fieldId),
-                        val);
+                Value currentValue = getFieldValue(row, fieldId);
+                setFieldValueInIndex((int) row, fieldId, currentValue, val);
                 if (dir instanceof OriginalRowAddress) {
-                        Value[] original = getOriginalRow(dir);
-                        Value previousValue = original[fieldId];
-                        original[fieldId] = val;
-                        PhysicalRowAddress newAddress = internalBuffer.insertRow(dir.getPK(), original);
+                        // only the modified cell is buffered, the others are still read from the original row
+                        Value previousValue = currentValue;
+                        PhysicalRowAddress newAddress = internalBuffer.insertDelta(dir.getPK(),
+                                (OriginalRowAddress) dir, fieldId, val);
                         rowsAddresses.set((int) row, newAddress);
                         UpdateEditionInfo info = new UpdateEditionInfo(dir.getPK(),
                                 rowsAddresses.get((int) row));
@@ -618,6 +593,29 @@ public final class EditionDecorator extends AbstractDataSourceDecorator implemen
                 }
         }
 
+        @Override
+        public Envelope getEnvelope(long rowIndex, int fieldId)
+                throws DriverException {
+                if (isModified()) {
+                        Value v = getFieldValue(rowIndex, fieldId);
+                        if (v == null || v.isNull()) {
+                                return null;
+                        }
+                        return v.getAsGeometry().getEnvelopeInternal();
+                } else {
+                        return getDataSource().getEnvelope(rowIndex, fieldId);
+                }
+        }
+
+        @Override
+        public Iterator<ValueBatch> batchIterator(int batchSize) throws DriverException {
+                if (isModified()) {
+                        return new DataSetBatchIterator(this, batchSize);
+                } else {
+                        return getDataSource().batchIterator(batchSize);
+                }
+        }
+
         @Override
         public long getRowCount() throws DriverException {
                 if (initialized) {
@@ -713,6 +711,17 @@ public final class EditionDecorator extends AbstractDataSourceDecorator implemen
                 undoRedo = false;
         }
 
+        /**
+         * Gets the index in the original source of a field of this data source.
+         *
+         * @param fieldId the index of a field
+         * @return the original index, or -1 if the field has been added during the edition
+         * @throws DriverException
+         */
+        int getOriginalFieldIndex(int fieldId) throws DriverException {
+                return getFields().get(fieldId).getOriginalIndex();
+        }
+
         private synchronized List<Field> getFields() throws DriverException {
                 if (null == fields) {
                         ArrayList<Field> fieldArray = new ArrayList<Field>();
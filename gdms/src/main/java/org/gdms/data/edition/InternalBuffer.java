@@ -35,6 +35,7 @@ package org.gdms.data.edition;
 
 import org.gdms.data.values.Value;
 import org.gdms.data.values.ValueCollection;
+import org.gdms.driver.DriverException;
 
 public interface InternalBuffer {
 
@@ -48,6 +49,18 @@ public interface InternalBuffer {
 	 */
 	PhysicalRowAddress insertRow(ValueCollection pk, Value[] newRow);
 
+	/**
+	 * Stores a modification of an original row. Only the modified cell is kept, the
+	 * other ones are still read from the original row.
+	 *
+	 * @param pk the primary key of the row
+	 * @param original the address of the original row
+	 * @param fieldId the index of the modified field
+	 * @param value the new value of the field
+	 * @return the address of the modified row
+	 */
+	PhysicalRowAddress insertDelta(ValueCollection pk, OriginalRowAddress original, int fieldId, Value value);
+
 	/**
 	 * Sets the specified field in the specified direction to the new value
 	 *
@@ -63,8 +76,10 @@ public interface InternalBuffer {
 	 * @param row
 	 * @param fieldId
 	 * @return
+	 * @throws DriverException if the cell is read from the original row and it
+	 * cannot be accessed
 	 */
-	Value getFieldValue(int row, int fieldId);
+	Value getFieldValue(int row, int fieldId) throws DriverException;
 
 	/**
 	 * Notifies the internal buffer that a new field has been added to the
@@ -77,8 +92,10 @@ public interface InternalBuffer {
 	 *
          * @param index
          * @return  
+	 * @throws DriverException if the removed values cannot be read from the
+	 * original rows
 	 */
-	Value[] removeField(int index);
+	Value[] removeField(int index) throws DriverException;
 
 	/**
 	 * Restores a previously deleted field
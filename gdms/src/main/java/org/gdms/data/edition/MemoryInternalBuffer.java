@@ -37,32 +37,46 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-import org.gdms.data.DataSource;
 import org.gdms.data.values.Value;
 import org.gdms.data.values.ValueCollection;
 import org.gdms.data.values.ValueFactory;
+import org.gdms.driver.DriverException;
 
+/**
+ * In-memory buffer of the rows inserted or modified by an {@link EditionDecorator}.
+ *
+ * Inserted rows are stored in full. Modified original rows only store their modified
+ * cells, sorted by field index, the other cells being read from the original row.
+ *
+ * The buffer is not spilled to disk: every edition also keeps its new and previous
+ * values in the {@link ModifyCommand} of the undo stack, so the memory used by the
+ * deltas is at most that of the commands and spilling them alone would not bound it.
+ */
 public final class MemoryInternalBuffer implements InternalBuffer {
 
-        private List<List<Value>> rows = new ArrayList<List<Value>>();
-        private DataSource dataSource;
+        private List<BufferRow> rows = new ArrayList<BufferRow>();
+        private EditionDecorator dataSource;
 
-        public MemoryInternalBuffer(DataSource dataSource) {
+        public MemoryInternalBuffer(EditionDecorator dataSource) {
                 this.dataSource = dataSource;
         }
 
-        private List<Value> getRow(Value[] values) {
-                List<Value> row = new ArrayList<Value>();
-                row.addAll(Arrays.asList(values));
-
-                return row;
+        private PhysicalRowAddress addRow(ValueCollection pk, BufferRow row) {
+                rows.add(row);
+                return new InternalBufferRowAddress(pk, this, rows.size() - 1,
+                        dataSource);
         }
 
         @Override
         public PhysicalRowAddress insertRow(ValueCollection pk, Value[] newRow) {
-                rows.add(getRow(newRow));
-                return new InternalBufferRowAddress(pk, this, rows.size() - 1,
-                        dataSource);
+                return addRow(pk, new FullRow(newRow));
+        }
+
+        @Override
+        public PhysicalRowAddress insertDelta(ValueCollection pk, OriginalRowAddress original, int fieldId, Value value) {
+                DeltaRow row = new DeltaRow(original);
+                row.set(fieldId, value);
+                return addRow(pk, row);
         }
 
         @Override
@@ -71,7 +85,7 @@ public final class MemoryInternalBuffer implements InternalBuffer {
         }
 
         @Override
-        public Value getFieldValue(int row, int fieldId) {
+        public Value getFieldValue(int row, int fieldId) throws DriverException {
                 Value v = rows.get(row).get(fieldId);
                 if (v == null) {
                         return ValueFactory.createNullValue();
@@ -81,30 +95,178 @@ public final class MemoryInternalBuffer implements InternalBuffer {
         }
 
         @Override
-        public Value[] removeField(int index) {
-                List<Value> ret = new ArrayList<Value>();
+        public Value[] removeField(int index) throws DriverException {
+                Value[] ret = new Value[rows.size()];
                 for (int i = 0; i < rows.size(); i++) {
-                        List<Value> row = rows.get(i);
-                        ret.add(row.remove(index));
+                        ret[i] = rows.get(i).remove(index);
                 }
 
-                return ret.toArray(new Value[ret.size()]);
+                return ret;
         }
 
         @Override
         public void addField() {
                 Value nullValue = ValueFactory.createNullValue();
                 for (int i = 0; i < rows.size(); i++) {
-                        List<Value> row = rows.get(i);
-                        row.add(nullValue);
+                        rows.get(i).add(nullValue);
                 }
         }
 
         @Override
         public void restoreField(int fieldIndex, Value[] values) {
                 for (int i = 0; i < rows.size(); i++) {
-                        List<Value> row = rows.get(i);
-                        row.add(fieldIndex, values[i]);
+                        rows.get(i).add(fieldIndex, values[i]);
+                }
+        }
+
+        /**
+         * A row of the buffer.
+         */
+        private interface BufferRow {
+
+                Value get(int fieldId) throws DriverException;
+
+                void set(int fieldId, Value value);
+
+                /**
+                 * Removes a field, the following fields are shifted.
+                 * @return the value of the removed field
+                 */
+                Value remove(int fieldId) throws DriverException;
+
+                /**
+                 * Appends a new field.
+                 */
+                void add(Value value);
+
+                /**
+                 * Inserts a field, the following fields are shifted.
+                 */
+                void add(int fieldId, Value value);
+        }
+
+        /**
+         * A row that holds all its values.
+         */
+        private static final class FullRow implements BufferRow {
+
+                private final List<Value> values;
+
+                FullRow(Value[] values) {
+                        this.values = new ArrayList<Value>(Arrays.asList(values));
+                }
+
+                @Override
+                public Value get(int fieldId) {
+                        return values.get(fieldId);
+                }
+
+                @Override
+                public void set(int fieldId, Value value) {
+                        values.set(fieldId, value);
+                }
+
+                @Override
+                public Value remove(int fieldId) {
+                        return values.remove(fieldId);
+                }
+
+                @Override
+                public void add(Value value) {
+                        values.add(value);
+                }
+
+                @Override
+                public void add(int fieldId, Value value) {
+                        values.add(fieldId, value);
+                }
+        }
+
+        /**
+         * A modified original row: only the modified cells are stored, in arrays sorted
+         * by field index.
+         */
+        private final class DeltaRow implements BufferRow {
+
+                private final OriginalRowAddress original;
+                private int[] fieldIds = new int[1];
+                private Value[] values = new Value[1];
+                private int size;
+
+                DeltaRow(OriginalRowAddress original) {
+                        this.original = original;
+                }
+
+                private int find(int fieldId) {
+                        return Arrays.binarySearch(fieldIds, 0, size, fieldId);
+                }
+
+                @Override
+                public Value get(int fieldId) throws DriverException {
+                        int pos = find(fieldId);
+                        if (pos >= 0) {
+                                return values[pos];
+                        }
+                        int originalIndex = dataSource.getOriginalFieldIndex(fieldId);
+                        if (originalIndex == -1) {
+                                return ValueFactory.createNullValue();
+                        } else {
+                                return original.getFieldValue(originalIndex);
+                        }
+                }
+
+                @Override
+                public void set(int fieldId, Value value) {
+                        int pos = find(fieldId);
+                        if (pos >= 0) {
+                                values[pos] = value;
+                                return;
+                        }
+                        pos = -pos - 1;
+                        if (size == fieldIds.length) {
+                                fieldIds = Arrays.copyOf(fieldIds, size * 2);
+                                values = Arrays.copyOf(values, size * 2);
+                        }
+                        System.arraycopy(fieldIds, pos, fieldIds, pos + 1, size - pos);
+                        System.arraycopy(values, pos, values, pos + 1, size - pos);
+                        fieldIds[pos] = fieldId;
+                        values[pos] = value;
+                        size++;
+                }
+
+                @Override
+                public Value remove(int fieldId) throws DriverException {
+                        Value ret = get(fieldId);
+                        int pos = find(fieldId);
+                        if (pos >= 0) {
+                                System.arraycopy(fieldIds, pos + 1, fieldIds, pos, size - pos - 1);
+                                System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+                                size--;
+                                values[size] = null;
+                        } else {
+                                pos = -pos - 1;
+                        }
+                        for (int i = pos; i < size; i++) {
+                                fieldIds[i]--;
+                        }
+                        return ret;
+                }
+
+                @Override
+                public void add(Value value) {
+                        // a new field has no original value: it reads as null until modified
+                }
+
+                @Override
+                public void add(int fieldId, Value value) {
+                        int pos = find(fieldId);
+                        if (pos < 0) {
+                                pos = -pos - 1;
+                        }
+                        for (int i = pos; i < size; i++) {
+                                fieldIds[i]++;
+                        }
+                        set(fieldId, value);
                 }
         }
 }
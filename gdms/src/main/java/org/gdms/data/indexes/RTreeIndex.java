@@ -46,7 +46,6 @@ import org.gdms.data.indexes.rtree.DiskRTree;
 import org.gdms.data.indexes.tree.IndexVisitor;
 import org.gdms.data.schema.MetadataUtilities;
 import org.gdms.data.types.IncompatibleTypesException;
-import org.gdms.data.types.Type;
 import org.gdms.data.values.Value;
 import org.gdms.driver.DataSet;
 import org.gdms.driver.DriverException;
@@ -89,13 +88,10 @@ public final class RTreeIndex implements DataSourceIndex<Envelope> {
                                         }
                                         pm.progressTo(i);
                                 }
-                                Value fieldValue = dataSource.getFieldValue(i, fieldId);
-                                if (fieldValue.getType() != Type.NULL) {
-                                        Geometry g = fieldValue.getAsGeometry();
-                                        if (g != null && !g.isEmpty()) {
-                                                index.insert(g.getEnvelopeInternal(),
-                                                        Integer.valueOf(i));
-                                        }
+                                // only the envelope is needed, drivers may give it without decoding the geometry
+                                Envelope env = dataSource.getEnvelope(i, fieldId);
+                                if (env != null && !env.isNull()) {
+                                        index.insert(env, Integer.valueOf(i));
                                 }
                         }
                         pm.progressTo(rowCount);
@@ -152,4 +152,14 @@ public class Block {
         public int getSize() {
                 return Math.min(content.length, blockMaxSize);
         }
+
+        /**
+         * Returns the maximum size of the content of the block, that is the fixed
+         * block size of the <code>BlockProvider</code> it comes from.
+         *
+         * @return the maximum size of the content of this block.
+         */
+        public int getMaxSize() {
+                return blockMaxSize;
+        }
 }
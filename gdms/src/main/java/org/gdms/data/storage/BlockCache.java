@@ -0,0 +1,308 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.data.storage;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Byte-budgeted block cache that can be used concurrently.
+ *
+ * The cache is split into stripes, each one guarded by its own lock and holding
+ * a part of the byte budget. Each stripe uses a simplified 2Q replacement policy:
+ * blocks accessed once stay in a FIFO queue, blocks accessed again are promoted to a LRU
+ * queue, so that a single scan over a large file does not flush the frequently used
+ * blocks.
+ *
+ * Pinned blocks are never evicted; dirty evicted blocks are handed back to the
+ * <code>BufferManager</code> to be written. Blocks are read outside of the stripe locks.
+ */
+final class BlockCache {
+
+        private static final int STRIPE_COUNT = 16;
+        private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+        private final BufferManager bm;
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+
+        /**
+         * Instantiate a new cache that can hold up to <tt>maxBytes</tt> bytes of block content and
+         * that uses the given <code>BufferManager</code> to read/write blocks.
+         * @param maxBytes the maximum size of the loaded blocks, in bytes
+         * @param bufferManager the buffer manager
+         */
+        BlockCache(long maxBytes, BufferManager bufferManager) {
+                this.bm = bufferManager;
+                for (int i = 0; i < STRIPE_COUNT; i++) {
+                        stripes[i] = new Stripe(maxBytes / STRIPE_COUNT);
+                }
+        }
+
+        private Stripe getStripe(BlockFullId id) {
+                int h = id.hashCode();
+                h ^= (h >>> 16);
+                return stripes[(h & 0x7fffffff) % STRIPE_COUNT];
+        }
+
+        /**
+         * Gets a block, loading it through the buffer manager if it is not in cache.
+         *
+         * The block is loaded outside of the lock of its stripe; other threads asking for the
+         * same block wait for that load instead of reading it a second time.
+         * @param id a block id
+         * @return the block
+         */
+        Block get(BlockFullId id) {
+                Stripe s = getStripe(id);
+                Block b;
+                boolean interrupted = false;
+                synchronized (s) {
+                        while (true) {
+                                b = s.lookUp(id);
+                                if (b != null) {
+                                        hits.incrementAndGet();
+                                        if (interrupted) {
+                                                Thread.currentThread().interrupt();
+                                        }
+                                        return b;
+                                }
+                                if (!s.loading.contains(id)) {
+                                        break;
+                                }
+                                try {
+                                        s.wait();
+                                } catch (InterruptedException ex) {
+                                        interrupted = true;
+                                }
+                        }
+                        misses.incrementAndGet();
+                        s.loading.add(id);
+                }
+                if (interrupted) {
+                        Thread.currentThread().interrupt();
+                }
+                try {
+                        b = bm.loadBlock(id);
+                } finally {
+                        synchronized (s) {
+                                s.loading.remove(id);
+                                if (b != null) {
+                                        s.recent.put(id, b);
+                                        s.recentBytes += sizeOf(b);
+                                        s.usedBytes += sizeOf(b);
+                                        // dirty blocks are queued before they leave the lock, so that
+                                        // a concurrent load finds them in the pending writes
+                                        unload(s.evict());
+                                }
+                                s.notifyAll();
+                        }
+                }
+                return b;
+        }
+
+        /**
+         * Removes from the cache all blocks of the given group.
+         * @param groupId a group id
+         * @return the removed blocks that are dirty, they have to be written by the caller
+         */
+        List<Block> invalidateGroup(int groupId) {
+                List<Block> dirty = new ArrayList<Block>();
+                for (Stripe s : stripes) {
+                        synchronized (s) {
+                                s.removeGroup(s.recent, groupId, true, dirty);
+                                s.removeGroup(s.frequent, groupId, false, dirty);
+                        }
+                }
+                return dirty;
+        }
+
+        /**
+         * Removes all blocks from the cache.
+         * @return the removed blocks that are dirty, they have to be written by the caller
+         */
+        List<Block> clear() {
+                List<Block> dirty = new ArrayList<Block>();
+                for (Stripe s : stripes) {
+                        synchronized (s) {
+                                collectDirty(s.recent, dirty);
+                                collectDirty(s.frequent, dirty);
+                                s.recent.clear();
+                                s.frequent.clear();
+                                s.usedBytes = 0;
+                                s.recentBytes = 0;
+                        }
+                }
+                return dirty;
+        }
+
+        private static void collectDirty(Map<BlockFullId, Block> queue, List<Block> dirty) {
+                for (Block b : queue.values()) {
+                        if (b.isDirty()) {
+                                dirty.add(b);
+                        }
+                }
+        }
+
+        private void unload(List<Block> evicted) {
+                for (Block e : evicted) {
+                        evictions.incrementAndGet();
+                        if (e.isDirty()) {
+                                bm.scheduleWrite(e);
+                        }
+                }
+        }
+
+        long getHitCount() {
+                return hits.get();
+        }
+
+        long getMissCount() {
+                return misses.get();
+        }
+
+        long getEvictionCount() {
+                return evictions.get();
+        }
+
+        private static long sizeOf(Block b) {
+                // the content can change while the block is cached, its maximum size cannot
+                return b.getMaxSize();
+        }
+
+        /**
+         * A part of the cache, with its own byte budget.
+         */
+        private final class Stripe {
+
+                private final long maxBytes;
+                private long usedBytes;
+                private long recentBytes;
+                // blocks accessed once, in insertion order
+                private final Map<BlockFullId, Block> recent = new LinkedHashMap<BlockFullId, Block>();
+                // blocks accessed more than once, in access order
+                private final Map<BlockFullId, Block> frequent = new LinkedHashMap<BlockFullId, Block>(16, 0.75f, true);
+
+                // blocks being loaded by a thread
+                private final Set<BlockFullId> loading = new HashSet<BlockFullId>();
+
+                Stripe(long maxBytes) {
+                        this.maxBytes = maxBytes;
+                }
+
+                /**
+                 * Finds a cached block, promoting it to the frequent queue on its second access.
+                 * @param id a block id
+                 * @return the block, or null if it is not cached
+                 */
+                Block lookUp(BlockFullId id) {
+                        Block b = recent.remove(id);
+                        if (b != null) {
+                                recentBytes -= sizeOf(b);
+                                frequent.put(id, b);
+                                return b;
+                        }
+                        return frequent.get(id);
+                }
+
+                /**
+                 * Evicts blocks until the stripe fits in its budget.
+                 * @return the evicted blocks
+                 */
+                List<Block> evict() {
+                        List<Block> evicted = new ArrayList<Block>();
+                        while (usedBytes > maxBytes) {
+                                // the FIFO queue is allowed a quarter of the budget
+                                Block e = null;
+                                if (recentBytes > maxBytes / 4) {
+                                        e = removeEldestUnpinned(recent);
+                                        if (e != null) {
+                                                recentBytes -= sizeOf(e);
+                                        }
+                                }
+                                if (e == null) {
+                                        e = removeEldestUnpinned(frequent);
+                                }
+                                if (e == null) {
+                                        e = removeEldestUnpinned(recent);
+                                        if (e != null) {
+                                                recentBytes -= sizeOf(e);
+                                        }
+                                }
+                                if (e == null) {
+                                        // everything is pinned
+                                        break;
+                                }
+                                usedBytes -= sizeOf(e);
+                                evicted.add(e);
+                        }
+                        return evicted;
+                }
+
+                private Block removeEldestUnpinned(Map<BlockFullId, Block> queue) {
+                        Iterator<Block> it = queue.values().iterator();
+                        while (it.hasNext()) {
+                                Block b = it.next();
+                                if (!bm.isPinned(b.getId())) {
+                                        it.remove();
+                                        return b;
+                                }
+                        }
+                        return null;
+                }
+
+                void removeGroup(Map<BlockFullId, Block> queue, int groupId, boolean isRecent, List<Block> dirty) {
+                        Iterator<Block> it = queue.values().iterator();
+                        while (it.hasNext()) {
+                                Block b = it.next();
+                                if (b.getId().getGroupId() == groupId) {
+                                        it.remove();
+                                        if (b.isDirty()) {
+                                                dirty.add(b);
+                                        }
+                                        usedBytes -= sizeOf(b);
+                                        if (isRecent) {
+                                                recentBytes -= sizeOf(b);
+                                        }
+                                }
+                        }
+                }
+        }
+}
@@ -34,22 +34,34 @@
 package org.gdms.data.storage;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.log4j.Logger;
 
 /**
- * Class the handles the available in-memory buffer for data-blocks
+ * Class the handles the available in-memory buffer for data-blocks.
+ *
+ * This class can be used by several threads at once. Dirty blocks that are evicted from
+ * the buffer are written back to their provider by a background thread; several evictions
+ * of the same block before it is written only lead to one write. A block evicted again
+ * while being written is written once more.
  * @author Antoine Gourlay
  */
 public final class BufferManager {
 
-        private TwoQueueBlockBuffer blocks = new TwoQueueBlockBuffer(10000, this);
-        private Map<Integer, BlockProvider> providers = new HashMap<Integer, BlockProvider>();
-        private Set<BlockFullId> pinned = new HashSet<BlockFullId>();
+        private final BlockCache blocks;
+        private final Map<Integer, BlockProvider> providers = new ConcurrentHashMap<Integer, BlockProvider>();
+        private final Set<BlockFullId> pinned = Collections.newSetFromMap(new ConcurrentHashMap<BlockFullId, Boolean>());
+        private final Map<BlockFullId, PendingWrite> pendingWrites = new ConcurrentHashMap<BlockFullId, PendingWrite>();
+        private final Object writeLock = new Object();
+        private final ExecutorService writer;
         private long totalAvailableBytes = Long.MAX_VALUE;
         private static final Logger LOG = Logger.getLogger(BufferManager.class);
 
@@ -60,6 +72,16 @@ public final class BufferManager {
         public BufferManager(long bufferSize) {
                 totalAvailableBytes = bufferSize;
                 init();
+                blocks = new BlockCache(totalAvailableBytes, this);
+                writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                                Thread t = new Thread(r, "gdms-block-writer");
+                                t.setDaemon(true);
+                                return t;
+                        }
+                });
                 LOG.info("Initialized with a buffer of " + totalAvailableBytes + " bytes.");
         }
 
@@ -100,12 +122,112 @@ public final class BufferManager {
                 return blocks.get(id);
         }
 
+        /**
+         * Loads a block that is not in cache, either from the blocks waiting to be written
+         * or from its provider.
+         * @param id a block id
+         * @return the block
+         */
+        Block loadBlock(BlockFullId id) {
+                PendingWrite w = pendingWrites.get(id);
+                if (w != null) {
+                        return w.block;
+                }
+                BlockProvider p = getProviderForId(id);
+                if (p == null) {
+                        throw new IllegalStateException("The given block Id does not correspond to any registered provider.");
+                }
+                try {
+                        return p.readBlock(id.getBlockId());
+                } catch (IOException ex) {
+                        throw new IllegalStateException(ex);
+                }
+        }
+
+        /**
+         * Writes a block to its provider right away.
+         * @param b a block
+         * @throws IOException
+         */
         public void saveBlock(Block b) throws IOException {
                 BlockProvider p = providers.get(b.getId().getGroupId());
                 if (p == null) {
                         throw new IllegalArgumentException("The given Id does not correspond to any registered provider.");
                 }
-                p.writeBlock(b);
+                synchronized (writeLock) {
+                        // this version supersedes any pending one
+                        pendingWrites.remove(b.getId());
+                        p.writeBlock(b);
+                }
+        }
+
+        /**
+         * Queues a dirty block to be written by the background writer.
+         * @param b a block
+         */
+        void scheduleWrite(final Block b) {
+                final BlockFullId id = b.getId();
+                if (pendingWrites.put(id, new PendingWrite(b)) == null) {
+                        writer.execute(new Runnable() {
+
+                                @Override
+                                public void run() {
+                                        try {
+                                                writePending(id);
+                                        } catch (IOException ex) {
+                                                LOG.error("Failed to write block " + id.getBlockId()
+                                                        + " of group " + id.getGroupId(), ex);
+                                        }
+                                }
+                        });
+                }
+        }
+
+        private void writePending(BlockFullId id) throws IOException {
+                synchronized (writeLock) {
+                        PendingWrite w = pendingWrites.get(id);
+                        while (w != null) {
+                                BlockProvider p = getProviderForId(id);
+                                if (p != null) {
+                                        p.writeBlock(w.block);
+                                }
+                                if (pendingWrites.remove(id, w)) {
+                                        return;
+                                }
+                                // scheduled again while being written: the newer version is written too
+                                w = pendingWrites.get(id);
+                        }
+                }
+        }
+
+        /**
+         * Writes all the blocks waiting for the background writer.
+         * @throws IOException
+         */
+        public void flush() throws IOException {
+                for (BlockFullId id : pendingWrites.keySet()) {
+                        writePending(id);
+                }
+        }
+
+        /**
+         * Writes all dirty blocks, pending or still in cache, and stops the background writer.
+         * This buffer manager cannot be used anymore after this call.
+         * @throws IOException
+         */
+        public void close() throws IOException {
+                try {
+                        writeAll(blocks.clear());
+                        flush();
+                } finally {
+                        writer.shutdown();
+                }
+        }
+
+        private void writeAll(List<Block> dirty) throws IOException {
+                for (Block b : dirty) {
+                        saveBlock(b);
+                }
         }
 
         /**
@@ -147,10 +269,16 @@ public final class BufferManager {
         }
 
         /**
-         * Unregisters a block provider.
+         * Unregisters a block provider. Its dirty blocks are written to it first.
          * @param pr
          */
         public void unRegisterBlockProvider(BlockProvider pr) {
+                try {
+                        writeAll(blocks.invalidateGroup(pr.getGroupId()));
+                        flush();
+                } catch (IOException ex) {
+                        LOG.error("Failed to write the pending blocks", ex);
+                }
                 providers.remove(pr.getGroupId());
         }
 
@@ -161,4 +289,49 @@ public final class BufferManager {
         public long getBufferSize() {
                 return totalAvailableBytes;
         }
+
+        /**
+         * Gets the number of block requests that were served from the buffer.
+         * @return a number of requests
+         */
+        public long getHitCount() {
+                return blocks.getHitCount();
+        }
+
+        /**
+         * Gets the number of block requests that needed to load the block.
+         * @return a number of requests
+         */
+        public long getMissCount() {
+                return blocks.getMissCount();
+        }
+
+        /**
+         * Gets the number of blocks evicted from the buffer to free memory.
+         * @return a number of blocks
+         */
+        public long getEvictionCount() {
+                return blocks.getEvictionCount();
+        }
+
+        /**
+         * Gets the number of dirty blocks waiting to be written.
+         * @return a number of blocks
+         */
+        public int getPendingWriteCount() {
+                return pendingWrites.size();
+        }
+
+        /**
+         * A block waiting to be written. Each scheduling of a block gets its own instance,
+         * so that a writer knows whether the block has been scheduled again in the meantime.
+         */
+        private static final class PendingWrite {
+
+                private final Block block;
+
+                PendingWrite(Block block) {
+                        this.block = block;
+                }
+        }
 }
@@ -40,7 +40,10 @@ import java.io.RandomAccessFile;
 import org.gdms.driver.ReadWriteBufferManager;
 
 /**
- * Implementation of a file-based <code>BlockProvider</code>
+ * Implementation of a file-based <code>BlockProvider</code>.
+ *
+ * Access to the file is synchronized, so that the background writer of the
+ * <code>BufferManager</code> can write blocks while other threads read.
  * @author Antoine Gourlay
  */
 public class FileBlockProvider implements BlockProvider {
@@ -79,14 +82,14 @@ public class FileBlockProvider implements BlockProvider {
         }
 
         @Override
-        public void writeBlock(Block b) throws IOException {
+        public synchronized void writeBlock(Block b) throws IOException {
                 goToBlock(b.getId().getBlockId());
                 buffer.put(b.getContent());
                 buffer.flush();
         }
 
         @Override
-        public Block readBlock(long blockId) throws IOException {
+        public synchronized Block readBlock(long blockId) throws IOException {
                 goToBlock(blockId);
                 BlockFullId id = new BlockFullId(groupId, blockId);
                 byte[] content = new byte[blockSize];
@@ -105,7 +108,7 @@ public class FileBlockProvider implements BlockProvider {
         }
 
         @Override
-        public Block newBlock() {
+        public synchronized Block newBlock() {
                 lastBlockId++;
                 BlockFullId bi = new BlockFullId(groupId, lastBlockId);
 
@@ -113,7 +116,7 @@ public class FileBlockProvider implements BlockProvider {
         }
 
         @Override
-        public void close() throws IOException {
+        public synchronized void close() throws IOException {
                 buffer.position(8);
                 buffer.putLong(lastBlockId);
                 buffer.flush();
@@ -121,7 +124,7 @@ public class FileBlockProvider implements BlockProvider {
         }
 
         @Override
-        public void truncateToBlock(long blockId) throws IOException {
+        public synchronized void truncateToBlock(long blockId) throws IOException {
                 if (blockId < lastBlockId) {
                         buffer.position(0);
                         raf.setLength(16 + (blockId + 1) * blockSize);
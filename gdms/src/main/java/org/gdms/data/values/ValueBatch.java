@@ -0,0 +1,360 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.data.values;
+
+import java.util.Arrays;
+
+import org.gdms.data.types.Type;
+
+/**
+ * A batch of rows stored column by column.
+ *
+ * Numeric and boolean columns are stored in primitive arrays (integer types in a
+ * <code>long[]</code>, floating point types in a <code>double[]</code>), with a bitmap
+ * marking the null cells. Other types are stored as {@link Value} objects.
+ *
+ * This allows moving many rows around without creating one object per cell: operators
+ * can read the primitive columns directly, and {@link #get(int, int) } only creates a
+ * <code>Value</code> when asked to.
+ *
+ * A batch is meant to be reused: {@link #clear() } resets it without reallocating
+ * the columns.
+ */
+public final class ValueBatch {
+
+        private static final int LONG_COLUMN = 0;
+        private static final int DOUBLE_COLUMN = 1;
+        private static final int BOOLEAN_COLUMN = 2;
+        private static final int VALUE_COLUMN = 3;
+        private final int capacity;
+        private final int[] typeCodes;
+        private final int[] kinds;
+        private final long[][] longs;
+        private final double[][] doubles;
+        private final boolean[][] booleans;
+        private final Value[][] values;
+        private final long[][] nulls;
+        private int rowCount;
+
+        /**
+         * Creates a new empty batch.
+         * @param typeCodes the type codes of the columns, see {@link Type}
+         * @param capacity the maximum number of rows of the batch
+         */
+        public ValueBatch(int[] typeCodes, int capacity) {
+                if (capacity <= 0) {
+                        throw new IllegalArgumentException("The capacity must be strictly positive. Found " + capacity);
+                }
+                this.capacity = capacity;
+                this.typeCodes = typeCodes.clone();
+                int n = typeCodes.length;
+                kinds = new int[n];
+                longs = new long[n][];
+                doubles = new double[n][];
+                booleans = new boolean[n][];
+                values = new Value[n][];
+                nulls = new long[n][];
+                for (int i = 0; i < n; i++) {
+                        kinds[i] = getKind(typeCodes[i]);
+                        switch (kinds[i]) {
+                                case LONG_COLUMN:
+                                        longs[i] = new long[capacity];
+                                        break;
+                                case DOUBLE_COLUMN:
+                                        doubles[i] = new double[capacity];
+                                        break;
+                                case BOOLEAN_COLUMN:
+                                        booleans[i] = new boolean[capacity];
+                                        break;
+                                default:
+                                        values[i] = new Value[capacity];
+                        }
+                        nulls[i] = new long[(capacity + 63) >>> 6];
+                }
+        }
+
+        private static int getKind(int typeCode) {
+                switch (typeCode) {
+                        case Type.BYTE:
+                        case Type.SHORT:
+                        case Type.INT:
+                        case Type.LONG:
+                                return LONG_COLUMN;
+                        case Type.FLOAT:
+                        case Type.DOUBLE:
+                                return DOUBLE_COLUMN;
+                        case Type.BOOLEAN:
+                                return BOOLEAN_COLUMN;
+                        default:
+                                return VALUE_COLUMN;
+                }
+        }
+
+        /**
+         * Gets the maximum number of rows of this batch.
+         * @return the capacity
+         */
+        public int getCapacity() {
+                return capacity;
+        }
+
+        /**
+         * Gets the number of rows currently in this batch.
+         * @return the number of rows
+         */
+        public int getRowCount() {
+                return rowCount;
+        }
+
+        /**
+         * Sets the number of rows currently in this batch.
+         * @param rowCount a number of rows, at most the capacity
+         */
+        public void setRowCount(int rowCount) {
+                if (rowCount < 0 || rowCount > capacity) {
+                        throw new IllegalArgumentException("Invalid row count: " + rowCount);
+                }
+                this.rowCount = rowCount;
+        }
+
+        /**
+         * Gets the number of columns.
+         * @return the number of columns
+         */
+        public int getColumnCount() {
+                return typeCodes.length;
+        }
+
+        /**
+         * Gets the type code of a column.
+         * @param col a column index
+         * @return a type code, see {@link Type}
+         */
+        public int getTypeCode(int col) {
+                return typeCodes[col];
+        }
+
+        /**
+         * Empties the batch. The columns are kept for reuse.
+         */
+        public void clear() {
+                for (int i = 0; i < nulls.length; i++) {
+                        Arrays.fill(nulls[i], 0L);
+                        if (values[i] != null) {
+                                Arrays.fill(values[i], 0, rowCount, null);
+                        }
+                }
+                rowCount = 0;
+        }
+
+        /**
+         * Checks if the cell is null.
+         * @param row a row index in this batch
+         * @param col a column index
+         * @return true if the cell is null
+         */
+        public boolean isNull(int row, int col) {
+                return (nulls[col][row >>> 6] & (1L << row)) != 0;
+        }
+
+        /**
+         * Marks the cell as null.
+         * @param row a row index in this batch
+         * @param col a column index
+         */
+        public void setNull(int row, int col) {
+                nulls[col][row >>> 6] |= 1L << row;
+                if (values[col] != null) {
+                        values[col][row] = null;
+                }
+        }
+
+        private void setNotNull(int row, int col) {
+                nulls[col][row >>> 6] &= ~(1L << row);
+        }
+
+        /**
+         * Gets the value of an integer cell (byte, short, int or long).
+         * @param row a row index in this batch
+         * @param col a column index
+         * @return the value, undefined if the cell is null
+         */
+        public long getLong(int row, int col) {
+                return longs[col][row];
+        }
+
+        /**
+         * Gets the value of a floating point cell (float or double).
+         * @param row a row index in this batch
+         * @param col a column index
+         * @return the value, undefined if the cell is null
+         */
+        public double getDouble(int row, int col) {
+                return doubles[col][row];
+        }
+
+        /**
+         * Gets the value of a boolean cell.
+         * @param row a row index in this batch
+         * @param col a column index
+         * @return the value, undefined if the cell is null
+         */
+        public boolean getBoolean(int row, int col) {
+                return booleans[col][row];
+        }
+
+        /**
+         * Sets the value of an integer cell (byte, short, int or long).
+         * @param row a row index in this batch
+         * @param col a column index
+         * @param v a value
+         */
+        public void setLong(int row, int col, long v) {
+                longs[col][row] = v;
+                setNotNull(row, col);
+        }
+
+        /**
+         * Sets the value of a floating point cell (float or double).
+         * @param row a row index in this batch
+         * @param col a column index
+         * @param v a value
+         */
+        public void setDouble(int row, int col, double v) {
+                doubles[col][row] = v;
+                setNotNull(row, col);
+        }
+
+        /**
+         * Sets the value of a boolean cell.
+         * @param row a row index in this batch
+         * @param col a column index
+         * @param v a value
+         */
+        public void setBoolean(int row, int col, boolean v) {
+                booleans[col][row] = v;
+                setNotNull(row, col);
+        }
+
+        /**
+         * Gets the primitive array backing an integer column. Only the first
+         * {@link #getRowCount() } cells are meaningful.
+         * @param col a column index
+         * @return the array, or null if the column is not of an integer type
+         */
+        public long[] getLongColumn(int col) {
+                return longs[col];
+        }
+
+        /**
+         * Gets the primitive array backing a floating point column. Only the first
+         * {@link #getRowCount() } cells are meaningful.
+         * @param col a column index
+         * @return the array, or null if the column is not of a floating point type
+         */
+        public double[] getDoubleColumn(int col) {
+                return doubles[col];
+        }
+
+        /**
+         * Sets a cell from a Value. The value is unboxed if the column is stored in a
+         * primitive array.
+         * @param row a row index in this batch
+         * @param col a column index
+         * @param v a value, can be null
+         */
+        public void set(int row, int col, Value v) {
+                if (v == null || v.isNull()) {
+                        setNull(row, col);
+                        return;
+                }
+                switch (kinds[col]) {
+                        case LONG_COLUMN:
+                                setLong(row, col, v.getAsLong());
+                                break;
+                        case DOUBLE_COLUMN:
+                                setDouble(row, col, v.getAsDouble());
+                                break;
+                        case BOOLEAN_COLUMN:
+                                setBoolean(row, col, v.getAsBoolean());
+                                break;
+                        default:
+                                values[col][row] = v;
+                                setNotNull(row, col);
+                }
+        }
+
+        /**
+         * Gets a cell as a Value. For primitive columns, a new Value is created.
+         * @param row a row index in this batch
+         * @param col a column index
+         * @return the value, a null value if the cell is null
+         */
+        public Value get(int row, int col) {
+                if (isNull(row, col)) {
+                        return ValueFactory.createNullValue();
+                }
+                switch (typeCodes[col]) {
+                        case Type.BYTE:
+                                return ValueFactory.createValue((byte) longs[col][row]);
+                        case Type.SHORT:
+                                return ValueFactory.createValue((short) longs[col][row]);
+                        case Type.INT:
+                                return ValueFactory.createValue((int) longs[col][row]);
+                        case Type.LONG:
+                                return ValueFactory.createValue(longs[col][row]);
+                        case Type.FLOAT:
+                                return ValueFactory.createValue((float) doubles[col][row]);
+                        case Type.DOUBLE:
+                                return ValueFactory.createValue(doubles[col][row]);
+                        case Type.BOOLEAN:
+                                return ValueFactory.createValue(booleans[col][row]);
+                        default:
+                                return values[col][row];
+                }
+        }
+
+        /**
+         * Gets a row of this batch as an array of values.
+         * @param row a row index in this batch
+         * @return a new array
+         */
+        public Value[] getRow(int row) {
+                Value[] r = new Value[typeCodes.length];
+                for (int i = 0; i < r.length; i++) {
+                        r[i] = get(row, i);
+                }
+                return r;
+        }
+}
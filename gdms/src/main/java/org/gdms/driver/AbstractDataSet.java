@@ -47,6 +47,7 @@ import org.gdms.data.types.CRSConstraint;
 import org.gdms.data.types.Constraint;
 import org.gdms.data.types.IncompatibleTypesException;
 import org.gdms.data.values.Value;
+import org.gdms.data.values.ValueBatch;
 
 /**
  * Abstract implementation of DataSet that implements the getRow method.
@@ -75,6 +76,11 @@ public abstract class AbstractDataSet implements DataSet {
                 return dsf.getIndexManager().iterateUsingIndexQuery(this, queryIndex);
         }
 
+        @Override
+        public Iterator<ValueBatch> batchIterator(int batchSize) throws DriverException {
+                return new DataSetBatchIterator(this, batchSize);
+        }
+
         @Override
         public final int getInt(long row, String fieldName) throws DriverException {
                 return getInt(row, getMetadata().getFieldIndex(fieldName));
@@ -254,6 +260,19 @@ public abstract class AbstractDataSet implements DataSet {
                 }
         }
 
+        @Override
+        public Envelope getEnvelope(long rowIndex, int fieldId) throws DriverException {
+                Value v = getFieldValue(rowIndex, fieldId);
+                if (v == null || v.isNull()) {
+                        return null;
+                }
+                try {
+                        return v.getAsGeometry().getEnvelopeInternal();
+                } catch (IncompatibleTypesException e) {
+                        throw new DriverException(e);
+                }
+        }
+
         @Override
         public Envelope getFullExtent() throws DriverException {
                 return DriverUtilities.getFullExtent(this);
@@ -44,6 +44,7 @@ import org.gdms.data.DataSourceFactory;
 import org.gdms.data.indexes.IndexQuery;
 import org.gdms.data.schema.Metadata;
 import org.gdms.data.values.Value;
+import org.gdms.data.values.ValueBatch;
 
 /**
  * A readable set of data. DataSet gives access to a set of rows of {@link Value} objects, grouped
@@ -129,6 +130,19 @@ public interface DataSet extends Iterable<Value[]> {
          */
         Iterator<Integer> queryIndex(DataSourceFactory dsf, IndexQuery indexQuery) throws DriverException;
 
+        /**
+         * Returns an iterator over the rows of this DataSet, by batches of at most
+         * <tt>batchSize</tt> rows stored column by column.
+         *
+         * The returned batch object is reused by the iterator: its content is only valid
+         * until the next call to <code>next()</code>.
+         *
+         * @param batchSize the maximum number of rows of a batch
+         * @return a new iterator
+         * @throws DriverException
+         */
+        Iterator<ValueBatch> batchIterator(int batchSize) throws DriverException;
+
         /**
          * Gets a binary at the specified row and column.
          *
@@ -259,6 +273,20 @@ public interface DataSet extends Iterable<Value[]> {
          */
         Geometry getGeometry(long rowIndex, int fieldId) throws DriverException;
 
+        /**
+         * Gets the envelope of the geometry at the specified row and column.
+         *
+         * Implementations that store the bounding box of their geometries can return it
+         * without decoding the geometry itself.
+         *
+         * @param rowIndex the row index
+         * @param fieldId the column index
+         * @return the envelope, or null if the value is null. The envelope of an empty
+         * geometry is a null envelope (see {@link Envelope#isNull()}).
+         * @throws DriverException
+         */
+        Envelope getEnvelope(long rowIndex, int fieldId) throws DriverException;
+
         /**
          * Gets an int at the specified row and column.
          *
@@ -0,0 +1,123 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.driver;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.gdms.data.schema.Metadata;
+import org.gdms.data.values.ValueBatch;
+
+/**
+ * An iterator over a {@link DataSet } that returns its rows by batches.
+ *
+ * The same {@link ValueBatch } instance is filled and returned by every call to
+ * {@link #next() }: its content is only valid until the next call.
+ *
+ * Calling the {@link #remove() } method on this iterator will throw an {@code UnsupportedOperationException }.
+ */
+public class DataSetBatchIterator implements Iterator<ValueBatch> {
+
+        private DataSet dataSet;
+        private ValueBatch batch;
+        private long index;
+        private long count;
+
+        /**
+         * Creates a new batch iterator over a DataSet.
+         * @param dataSet a data set
+         * @param batchSize the maximum number of rows of each batch
+         * @throws DriverException if there is an error accessing the dataset
+         */
+        public DataSetBatchIterator(DataSet dataSet, int batchSize) throws DriverException {
+                if (dataSet == null) {
+                        throw new NullPointerException("The DataSet cannot be null!");
+                }
+                this.dataSet = dataSet;
+                count = dataSet.getRowCount();
+                Metadata m = dataSet.getMetadata();
+                int[] typeCodes = new int[m.getFieldCount()];
+                for (int i = 0; i < typeCodes.length; i++) {
+                        typeCodes[i] = m.getFieldType(i).getTypeCode();
+                }
+                batch = new ValueBatch(typeCodes, batchSize);
+        }
+
+        @Override
+        public boolean hasNext() {
+                return index < count;
+        }
+
+        @Override
+        public ValueBatch next() {
+                if (!hasNext()) {
+                        throw new NoSuchElementException();
+                }
+                batch.clear();
+                int size = (int) Math.min(batch.getCapacity(), count - index);
+                try {
+                        for (int col = 0; col < batch.getColumnCount(); col++) {
+                                fillColumn(batch, col, index, size);
+                        }
+                } catch (DriverException ex) {
+                        throw new IllegalStateException(ex);
+                }
+                batch.setRowCount(size);
+                index += size;
+                return batch;
+        }
+
+        /**
+         * Fills a column of the batch with consecutive rows of the data set.
+         *
+         * This implementation reads each cell through {@link DataSet#getFieldValue(long, int) }.
+         * Drivers that can decode their numeric columns directly override it to fill the
+         * primitive columns of the batch without creating any <code>Value</code>.
+         * @param batch the batch to fill
+         * @param col the column index, in the data set and in the batch
+         * @param firstRow the index of the first row to read
+         * @param size the number of rows to read
+         * @throws DriverException if there is an error accessing the dataset
+         */
+        protected void fillColumn(ValueBatch batch, int col, long firstRow, int size) throws DriverException {
+                for (int row = 0; row < size; row++) {
+                        batch.set(row, col, dataSet.getFieldValue(firstRow + row, col));
+                }
+        }
+
+        @Override
+        public void remove() {
+                throw new UnsupportedOperationException();
+        }
+}
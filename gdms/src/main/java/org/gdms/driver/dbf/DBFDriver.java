@@ -37,6 +37,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Iterator;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.log4j.Logger;
@@ -56,8 +57,10 @@ import org.gdms.data.types.Type;
 import org.gdms.data.types.TypeDefinition;
 import org.gdms.data.types.TypeFactory;
 import org.gdms.data.values.Value;
+import org.gdms.data.values.ValueBatch;
 import org.gdms.driver.AbstractDataSet;
 import org.gdms.driver.DataSet;
+import org.gdms.driver.DataSetBatchIterator;
 import org.gdms.driver.DriverException;
 import org.gdms.driver.FileReadWriteDriver;
 import org.gdms.driver.driverManager.DriverManager;
@@ -175,6 +178,22 @@ public final class DBFDriver extends AbstractDataSet implements FileReadWriteDri
                 }
         }
 
+        @Override
+        public Iterator<ValueBatch> batchIterator(int batchSize) throws DriverException {
+                return new DataSetBatchIterator(this, batchSize) {
+
+                        @Override
+                        protected void fillColumn(ValueBatch batch, int col, long firstRow, int size)
+                                throws DriverException {
+                                try {
+                                        dbaseReader.readColumn(batch, col, (int) firstRow, size);
+                                } catch (IOException e) {
+                                        throw new DriverException(e);
+                                }
+                        }
+                };
+        }
+
         @Override
         public long getRowCount() throws DriverException {
                 return dbaseReader.getHeader().getNumRecords();
@@ -108,6 +108,8 @@ public class DbaseFileReader {
         private int[] fieldLengths;
         private int cnt = 1;
         private static final Logger LOG = Logger.getLogger(DbaseFileReader.class);
+        private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8,
+                1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
 
         /**
          * Creates a new instance of DBaseFileReader
@@ -211,6 +213,173 @@ public class DbaseFileReader {
 
         }
 
+        /**
+         * Reads a column of consecutive records into a batch.
+         *
+         * Numeric and logical fields are decoded from the record bytes straight into the
+         * primitive columns of the batch. Other fields, and the numbers that are not plain
+         * decimal numbers, are read through {@link #getFieldValue(int, int) }, so both paths
+         * give the same values.
+         *
+         * @param batch the batch to fill, column <tt>column</tt> of the batch is filled
+         * @param column the field index
+         * @param firstRow the first record to read
+         * @param rowCount the number of records to read
+         * @throws IOException
+         */
+        public void readColumn(ValueBatch batch, int column, int firstRow, int rowCount) throws IOException {
+                final char type = fieldTypes[column];
+                final int fieldLen = fieldLengths[column];
+                final boolean logical = type == 'l' || type == 'L';
+                final boolean numeric = type == 'n' || type == 'N' || type == 'f' || type == 'F';
+                if (fieldLen <= 0 || !(logical || numeric)) {
+                        for (int i = 0; i < rowCount; i++) {
+                                batch.set(i, column, getFieldValue(firstRow + i, column));
+                        }
+                        return;
+                }
+                final boolean integral = (type == 'n' || type == 'N') && header.getFieldDecimalCount(column) == 0;
+                final byte[] field = new byte[fieldLen];
+                final int recordLength = header.getRecordLength();
+                int pos = getPositionFor(firstRow, column);
+                for (int i = 0; i < rowCount; i++, pos += recordLength) {
+                        buffer.get(pos, field);
+                        boolean done;
+                        if (logical) {
+                                done = readLogical(batch, i, column, field);
+                        } else if (integral) {
+                                done = readIntegral(batch, i, column, field);
+                        } else {
+                                done = readDecimal(batch, i, column, field);
+                        }
+                        if (!done) {
+                                batch.set(i, column, getFieldValue(firstRow + i, column));
+                        }
+                }
+        }
+
+        private static boolean readLogical(ValueBatch batch, int row, int column, byte[] field) {
+                if (batch.getTypeCode(column) != Type.BOOLEAN) {
+                        return false;
+                }
+                switch (field[0]) {
+                        case 't':
+                        case 'T':
+                        case 'Y':
+                        case 'y':
+                                batch.setBoolean(row, column, true);
+                                return true;
+                        case 'f':
+                        case 'F':
+                        case 'N':
+                        case 'n':
+                                batch.setBoolean(row, column, false);
+                                return true;
+                        default:
+                                return false;
+                }
+        }
+
+        /**
+         * Parses a field made of an optional sign and at most 18 digits, surrounded by blanks.
+         */
+        private static boolean readIntegral(ValueBatch batch, int row, int column, byte[] field) {
+                int start = 0;
+                int end = field.length;
+                while (start < end && field[start] <= ' ') {
+                        start++;
+                }
+                while (end > start && field[end - 1] <= ' ') {
+                        end--;
+                }
+                boolean negative = false;
+                if (start < end && (field[start] == '-' || field[start] == '+')) {
+                        negative = field[start] == '-';
+                        start++;
+                }
+                int digits = end - start;
+                if (digits == 0 || digits > 18) {
+                        return false;
+                }
+                long v = 0;
+                for (int k = start; k < end; k++) {
+                        int d = field[k] - '0';
+                        if (d < 0 || d > 9) {
+                                return false;
+                        }
+                        v = v * 10 + d;
+                }
+                return setNumber(batch, row, column, negative ? -v : v);
+        }
+
+        /**
+         * Parses a field made of an optional sign, digits and an optional fractional part,
+         * surrounded by blanks. Only numbers with at most 15 digits are parsed here: their
+         * mantissa and the power of ten are exact doubles, so one division gives the correctly
+         * rounded value, as <code>Double.parseDouble</code> does.
+         */
+        private static boolean readDecimal(ValueBatch batch, int row, int column, byte[] field) {
+                int start = 0;
+                int end = field.length;
+                while (start < end && field[start] <= ' ') {
+                        start++;
+                }
+                while (end > start && field[end - 1] <= ' ') {
+                        end--;
+                }
+                boolean negative = false;
+                if (start < end && (field[start] == '-' || field[start] == '+')) {
+                        negative = field[start] == '-';
+                        start++;
+                }
+                long mantissa = 0;
+                int digits = 0;
+                int fractionDigits = -1;
+                for (int k = start; k < end; k++) {
+                        byte c = field[k];
+                        if (c == '.' && fractionDigits < 0) {
+                                fractionDigits = 0;
+                        } else if (c >= '0' && c <= '9') {
+                                mantissa = mantissa * 10 + (c - '0');
+                                digits++;
+                                if (fractionDigits >= 0) {
+                                        fractionDigits++;
+                                }
+                        } else {
+                                return false;
+                        }
+                }
+                if (digits == 0 || digits > 15) {
+                        return false;
+                }
+                double v = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+                if (negative) {
+                        v = -v;
+                }
+                if (batch.getTypeCode(column) == Type.DOUBLE || batch.getTypeCode(column) == Type.FLOAT) {
+                        batch.setDouble(row, column, v);
+                        return true;
+                }
+                return false;
+        }
+
+        private static boolean setNumber(ValueBatch batch, int row, int column, long v) {
+                switch (batch.getTypeCode(column)) {
+                        case Type.BYTE:
+                        case Type.SHORT:
+                        case Type.INT:
+                        case Type.LONG:
+                                batch.setLong(row, column, v);
+                                return true;
+                        case Type.FLOAT:
+                        case Type.DOUBLE:
+                                batch.setDouble(row, column, v);
+                                return true;
+                        default:
+                                return false;
+                }
+        }
+
         private int getLengthFor(int column) {
                 return header.getFieldLength(column);
         }
@@ -727,6 +727,20 @@ public final class ShapefileDriver extends AbstractDataSet implements FileReadWr
                 }
         }
 
+        @Override
+        public Envelope getEnvelope(long rowIndex, int fieldId) throws DriverException {
+                if (fieldId != 0) {
+                        return super.getEnvelope(rowIndex, fieldId);
+                }
+                try {
+                        Envelope env = reader.envelopeAt(shxFile.getOffset((int) rowIndex));
+                        // a NULL shape is read as a null value
+                        return env.isNull() ? null : env;
+                } catch (IOException e) {
+                        throw new DriverException(e);
+                }
+        }
+
         @Override
         public long getRowCount() throws DriverException {
                 return shxFile.getRecordCount();
@@ -56,6 +56,7 @@ import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 
 import org.gdms.driver.ReadBufferManager;
@@ -194,6 +195,41 @@ public class ShapefileReader {
                 return handler.read(buffer, recordType);
         }
 
+        /**
+         * Reads the bounding box of the record at the given offset, without decoding its
+         * coordinates. The box is the one stored in the record content for multi-point,
+         * line and polygon shapes; for points it is the point itself.
+         *
+         * @param offset the offset of the record, as given by the shx file
+         * @return the envelope of the record, a null envelope for a NULL shape
+         * @throws IOException
+         */
+        public Envelope envelopeAt(int offset) throws IOException {
+                buffer.position(offset);
+                buffer.skip(8);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+                ShapeType recordType = ShapeType.forID(buffer.getInt());
+                if (recordType == ShapeType.NULL) {
+                        return new Envelope();
+                } else if (recordType != fileShapeType) {
+                        throw new IllegalStateException("ShapeType changed illegally from "
+                                + fileShapeType + " to " + recordType);
+                }
+
+                if (recordType.isPointType()) {
+                        double x = buffer.getDouble();
+                        double y = buffer.getDouble();
+                        return new Envelope(x, x, y, y);
+                } else {
+                        double minX = buffer.getDouble();
+                        double minY = buffer.getDouble();
+                        double maxX = buffer.getDouble();
+                        double maxY = buffer.getDouble();
+                        return new Envelope(minX, maxX, minY, maxY);
+                }
+        }
+
         /**
          * @param handler
          *            The handler to set.
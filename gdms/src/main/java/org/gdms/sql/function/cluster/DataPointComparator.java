@@ -1,54 +0,0 @@
-/**
- * The GDMS library (Generic Datasource Management System)
- * is a middleware dedicated to the management of various kinds of
- * data-sources such as spatial vectorial data or alphanumeric. Based
- * on the JTS library and conform to the OGC simple feature access
- * specifications, it provides a complete and robust API to manipulate
- * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
- * .csv...).
- *
- * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
- * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
- *
- * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
- *
- * This file is part of Gdms.
- *
- * Gdms is free software: you can redistribute it and/or modify it under the
- * terms of the GNU General Public License as published by the Free Software
- * Foundation, either version 3 of the License, or (at your option) any later
- * version.
- *
- * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
- * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
- * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
- *
- * You should have received a copy of the GNU General Public License along with
- * Gdms. If not, see <http://www.gnu.org/licenses/>.
- *
- * For more information, please consult: <http://www.orbisgis.org/>
- *
- * or contact directly:
- * info@orbisgis.org
- */
-package org.gdms.sql.function.cluster;
-
-import java.io.Serializable;
-import java.util.Comparator;
-
-public class DataPointComparator implements Comparator<DataPoint>, Serializable {
-        @Override
-	public int compare(final DataPoint dp1, final DataPoint dp2) {
-		final int dimension = dp1.getDimension();
-		for (int i = 0; i < dimension; i++) {
-			final double delta = dp1.getComponents()[i]
-					- dp2.getComponents()[i];
-			if (0 < delta) {
-				return 1;
-			} else if (0 > delta) {
-				return -1;
-			}
-		}
-		return 0;
-	}
-}
\ No newline at end of file
@@ -0,0 +1,327 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.sql.function.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * K-Means clustering of points stored in a primitive array.
+ *
+ * The points are the rows of a row-major {@code double[]} of
+ * {@code n * dimension} components. Centroids are seeded with k-means++, then
+ * refined either by Lloyd iterations, whose assignment step is split across
+ * a shared worker pool, or by mini-batch updates on random samples of the
+ * points.
+ */
+public final class KMeans {
+
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+        // number of points assigned by a single task
+        private static final int CHUNK_SIZE = 1 << 14;
+        private final double[] points;
+        private final int dimension;
+        private final int n;
+        private int maxIterations = 100;
+        private int miniBatchSize = 0;
+        private long seed = 0;
+        private double[] centroids;
+
+        /**
+         * @param points the components of the points, row-major
+         * @param dimension the number of components of a point
+         */
+        public KMeans(double[] points, int dimension) {
+                if (dimension < 1 || points.length % dimension != 0) {
+                        throw new IllegalArgumentException("Invalid dimension " + dimension
+                                + " for " + points.length + " components");
+                }
+                this.points = points;
+                this.dimension = dimension;
+                this.n = points.length / dimension;
+        }
+
+        /**
+         * Sets the maximum number of iterations (100 by default).
+         *
+         * @param maxIterations
+         */
+        public void setMaxIterations(int maxIterations) {
+                this.maxIterations = maxIterations;
+        }
+
+        /**
+         * Sets the number of points sampled at each iteration. If 0 (the
+         * default), every iteration goes over all the points.
+         *
+         * @param miniBatchSize
+         */
+        public void setMiniBatchSize(int miniBatchSize) {
+                this.miniBatchSize = miniBatchSize;
+        }
+
+        /**
+         * Sets the seed of the random seeding and sampling, so that results
+         * are reproducible.
+         *
+         * @param seed
+         */
+        public void setSeed(long seed) {
+                this.seed = seed;
+        }
+
+        /**
+         * @return the centroids of the last clustering, row-major
+         */
+        public double[] getCentroids() {
+                return centroids;
+        }
+
+        /**
+         * Clusters the points.
+         *
+         * @param k the number of clusters
+         * @return the index of the cluster of each point
+         */
+        public int[] cluster(int k) {
+                if (k < 1) {
+                        throw new IllegalArgumentException("The number of clusters must be positive. Found " + k);
+                }
+                Random random = new Random(seed);
+                centroids = seed(Math.min(k, n), random);
+                int[] assignment = new int[n];
+                Arrays.fill(assignment, -1);
+                if (miniBatchSize > 0) {
+                        miniBatch(random);
+                        assign(assignment);
+                } else {
+                        for (int i = 0; i < maxIterations; i++) {
+                                Step step = assign(assignment);
+                                updateCentroids(step);
+                                if (step.changes == 0) {
+                                        break;
+                                }
+                        }
+                }
+                return assignment;
+        }
+
+        /**
+         * k-means++ seeding: each new centroid is drawn with a probability
+         * proportional to the squared distance to the closest centroid.
+         */
+        private double[] seed(int k, Random random) {
+                double[] c = new double[k * dimension];
+                if (n == 0) {
+                        return c;
+                }
+                System.arraycopy(points, random.nextInt(n) * dimension, c, 0, dimension);
+                double[] minDist = new double[n];
+                double sum = 0;
+                for (int p = 0; p < n; p++) {
+                        minDist[p] = distance(p, c, 0);
+                        sum += minDist[p];
+                }
+                for (int j = 1; j < k; j++) {
+                        int chosen = n - 1;
+                        if (sum > 0) {
+                                double r = random.nextDouble() * sum;
+                                for (int p = 0; p < n; p++) {
+                                        r -= minDist[p];
+                                        if (r < 0) {
+                                                chosen = p;
+                                                break;
+                                        }
+                                }
+                        } else {
+                                chosen = random.nextInt(n);
+                        }
+                        System.arraycopy(points, chosen * dimension, c, j * dimension, dimension);
+                        sum = 0;
+                        for (int p = 0; p < n; p++) {
+                                minDist[p] = Math.min(minDist[p], distance(p, c, j));
+                                sum += minDist[p];
+                        }
+                }
+                return c;
+        }
+
+        /**
+         * Assigns every point to its closest centroid, in parallel.
+         *
+         * @return the sums and counts of the points of each cluster
+         */
+        private Step assign(final int[] assignment) {
+                List<Future<Step>> tasks = new ArrayList<Future<Step>>();
+                for (int start = 0; start < n; start += CHUNK_SIZE) {
+                        final int from = start;
+                        final int to = Math.min(n, start + CHUNK_SIZE);
+                        tasks.add(POOL.submit(new Callable<Step>() {
+
+                                @Override
+                                public Step call() {
+                                        Step step = new Step(centroids.length / dimension, dimension);
+                                        for (int p = from; p < to; p++) {
+                                                int c = closest(p);
+                                                if (assignment[p] != c) {
+                                                        assignment[p] = c;
+                                                        step.changes++;
+                                                }
+                                                step.add(c, points, p);
+                                        }
+                                        return step;
+                                }
+                        }));
+                }
+                Step total = new Step(centroids.length / dimension, dimension);
+                try {
+                        for (Future<Step> task : tasks) {
+                                total.merge(task.get());
+                        }
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while clustering", e);
+                } catch (ExecutionException e) {
+                        throw new IllegalStateException("Cannot assign the points to clusters", e.getCause());
+                }
+                return total;
+        }
+
+        private void updateCentroids(Step step) {
+                int k = centroids.length / dimension;
+                for (int j = 0; j < k; j++) {
+                        // an empty cluster keeps its centroid
+                        if (step.counts[j] > 0) {
+                                for (int d = 0; d < dimension; d++) {
+                                        centroids[j * dimension + d] = step.sums[j * dimension + d] / step.counts[j];
+                                }
+                        }
+                }
+        }
+
+        /**
+         * Mini-batch updates: each sampled point moves its centroid towards it
+         * with a rate decreasing with the number of points seen by the centroid.
+         */
+        private void miniBatch(Random random) {
+                int k = centroids.length / dimension;
+                long[] seen = new long[k];
+                int[] sample = new int[Math.min(miniBatchSize, n)];
+                int[] sampleCluster = new int[sample.length];
+                for (int i = 0; i < maxIterations; i++) {
+                        for (int s = 0; s < sample.length; s++) {
+                                sample[s] = random.nextInt(n);
+                                sampleCluster[s] = closest(sample[s]);
+                        }
+                        for (int s = 0; s < sample.length; s++) {
+                                int j = sampleCluster[s];
+                                seen[j]++;
+                                double rate = 1.0 / seen[j];
+                                int p = sample[s] * dimension;
+                                for (int d = 0; d < dimension; d++) {
+                                        int o = j * dimension + d;
+                                        centroids[o] += rate * (points[p + d] - centroids[o]);
+                                }
+                        }
+                }
+        }
+
+        private int closest(int p) {
+                int k = centroids.length / dimension;
+                int best = 0;
+                double bestDist = Double.POSITIVE_INFINITY;
+                for (int j = 0; j < k; j++) {
+                        double dist = distance(p, centroids, j);
+                        if (dist < bestDist) {
+                                bestDist = dist;
+                                best = j;
+                        }
+                }
+                return best;
+        }
+
+        /**
+         * Squared euclidean distance between point p and centroid j of c.
+         */
+        private double distance(int p, double[] c, int j) {
+                double dist = 0;
+                int po = p * dimension;
+                int co = j * dimension;
+                for (int d = 0; d < dimension; d++) {
+                        double delta = points[po + d] - c[co + d];
+                        dist += delta * delta;
+                }
+                return dist;
+        }
+
+        /**
+         * Result of an assignment step over some points.
+         */
+        private static final class Step {
+
+                private final double[] sums;
+                private final long[] counts;
+                private final int dimension;
+                private long changes;
+
+                Step(int k, int dimension) {
+                        this.sums = new double[k * dimension];
+                        this.counts = new long[k];
+                        this.dimension = dimension;
+                }
+
+                void add(int j, double[] points, int p) {
+                        counts[j]++;
+                        for (int d = 0; d < dimension; d++) {
+                                sums[j * dimension + d] += points[p * dimension + d];
+                        }
+                }
+
+                void merge(Step other) {
+                        for (int i = 0; i < sums.length; i++) {
+                                sums[i] += other.sums[i];
+                        }
+                        for (int j = 0; j < counts.length; j++) {
+                                counts[j] += other.counts[j];
+                        }
+                        changes += other.changes;
+                }
+        }
+}
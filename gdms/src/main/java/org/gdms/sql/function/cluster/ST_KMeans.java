@@ -33,32 +33,22 @@
  */
 package org.gdms.sql.function.cluster;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Iterator;
 
 import org.apache.log4j.Logger;
 import org.orbisgis.progress.ProgressMonitor;
 
-import org.gdms.data.DataSource;
-import org.gdms.data.DataSourceCreationException;
 import org.gdms.data.DataSourceFactory;
-import org.gdms.data.NoSuchTableException;
 import org.gdms.data.schema.DefaultMetadata;
 import org.gdms.data.schema.Metadata;
-import org.gdms.data.types.InvalidTypeException;
 import org.gdms.data.types.Type;
 import org.gdms.data.types.TypeFactory;
 import org.gdms.data.values.Value;
+import org.gdms.data.values.ValueBatch;
 import org.gdms.data.values.ValueFactory;
 import org.gdms.driver.DataSet;
 import org.gdms.driver.DriverException;
-import org.gdms.driver.MemoryDriver;
-import org.gdms.driver.driverManager.DriverLoadException;
-import org.gdms.driver.driverManager.DriverManager;
 import org.gdms.driver.memory.MemoryDataSetDriver;
-import org.gdms.sql.engine.ParseException;
-import org.gdms.sql.engine.SemanticException;
 import org.gdms.sql.function.FunctionException;
 import org.gdms.sql.function.FunctionSignature;
 import org.gdms.sql.function.ScalarArgument;
@@ -67,14 +57,19 @@ import org.gdms.sql.function.table.TableArgument;
 import org.gdms.sql.function.table.TableDefinition;
 import org.gdms.sql.function.table.TableFunctionSignature;
 
+/**
+ * K-Means clustering of the rows of a table, using all the numeric fields but
+ * the key field as components.
+ *
+ * The components are loaded once into a primitive array, see {@link KMeans}.
+ * An optional fourth argument gives the size of the random samples used for
+ * mini-batch iterations.
+ */
 public class ST_KMeans extends AbstractTableFunction {
 
-        private DataSourceFactory dsf;
-        private DataSet inDs;
+        private static final int BATCH_SIZE = 4096;
         private String cellIndexFieldName;
         private int cellIndexFieldId;
-        private Metadata metadata;
-        private int dimension;
         private static final Logger LOG = Logger.getLogger(ST_KMeans.class);
 
         @Override
@@ -84,7 +79,7 @@ public class ST_KMeans extends AbstractTableFunction {
 
         @Override
         public String getSqlOrder() {
-                return "SELECT * FROM ST_KMeans(myTable, 'cellIndexFieldName', 7);";
+                return "SELECT * FROM ST_KMeans(myTable, 'cellIndexFieldName', 7[, miniBatchSize]);";
         }
 
         @Override
@@ -96,94 +91,86 @@ public class ST_KMeans extends AbstractTableFunction {
         public DataSet evaluate(DataSourceFactory dsf, DataSet[] tables,
                 Value[] values, ProgressMonitor pm) throws FunctionException {
                 LOG.trace("Evaluating");
-                this.dsf = dsf;
                 cellIndexFieldName = values[0].toString();
-                inDs = tables[0];
+                DataSet inDs = tables[0];
 
                 try {
-                        long rowCount = inDs.getRowCount();
-                        cellIndexFieldId = inDs.getMetadata().getFieldIndex(cellIndexFieldName);
-                        check();
-
-                        // K-Means initialization
-                        List<DataPoint> listOfCentroids;
-                        List<DataPoint> listOfNewCentroids = initialization();
-                        // for (DataPoint dp : listOfNewCentroids) {
-                        // dp.print();
-                        // }
-                        Cluster[] clusters;
-                        Cluster[] newClusters = new Cluster[listOfNewCentroids.size()];
-
-                        // K-Means iterations
-                        int count = 0;
-                        do {
-                                listOfCentroids = listOfNewCentroids;
-                                clusters = newClusters;
-
-                                // find the closest centroid for each DataPoint
-                                newClusters = new Cluster[listOfNewCentroids.size()];
-                                for (long rowIndex = 0; rowIndex < rowCount; rowIndex++) {
-                                        final DataPoint dataPoint = new DataPoint(inDs.getRow(rowIndex), cellIndexFieldId);
-                                        final int clusterIndex = dataPoint.findClosestCentroidIndex(listOfCentroids);
-                                        if (null == newClusters[clusterIndex]) {
-                                                newClusters[clusterIndex] = new Cluster(dimension,
-                                                        inDs, cellIndexFieldId);
-                                        }
-                                        newClusters[clusterIndex].addDataPointIndex(rowIndex);
-                                }
+                        Metadata metadata = inDs.getMetadata();
+                        cellIndexFieldId = metadata.getFieldIndex(cellIndexFieldName);
+                        check(metadata);
 
-                                // calculate the new centroid of each cluster
-                                listOfNewCentroids = new ArrayList<DataPoint>(listOfCentroids.size());
-                                for (Cluster cluster : newClusters) {
-                                        if (null != cluster) {
-                                                listOfNewCentroids.add(cluster.getCentroid());
-                                        }
-                                }
-                        } while (continueTheIterations(listOfCentroids, listOfNewCentroids,
-                                clusters, newClusters)
-                                && (count < 15));
-
-                        // built the driver for the resulting datasource, register it and
-                        // populate it...
-                        return populateResultingDatasource(newClusters);
+                        KMeans kMeans = new KMeans(loadComponents(inDs), metadata.getFieldCount() - 1);
+                        if (values.length > 2) {
+                                kMeans.setMiniBatchSize(values[2].getAsInt());
+                        }
+                        int[] clusters = kMeans.cluster(values[1].getAsInt());
+
+                        // built the driver for the resulting datasource and populate it...
+                        LOG.trace("Populating resulting datasource");
+                        final MemoryDataSetDriver driver = new MemoryDataSetDriver(
+                                new String[]{cellIndexFieldName, "clusterNumber"},
+                                new Type[]{metadata.getFieldType(cellIndexFieldId),
+                                        TypeFactory.createType(Type.INT)});
+                        for (int rowIndex = 0; rowIndex < clusters.length; rowIndex++) {
+                                driver.addValues(new Value[]{inDs.getFieldValue(rowIndex, cellIndexFieldId),
+                                                ValueFactory.createValue(clusters[rowIndex])});
+                        }
+                        return driver;
                 } catch (DriverException e) {
                         throw new FunctionException(e);
-                } catch (InvalidTypeException e) {
-                        throw new FunctionException(e);
-                } catch (DriverLoadException e) {
-                        throw new FunctionException(e);
-                } catch (DataSourceCreationException e) {
-                        throw new FunctionException(e);
-                } catch (ParseException e) {
-                        throw new FunctionException(e);
-                } catch (NoSuchTableException e) {
-                        throw new FunctionException(e);
-                } catch (SemanticException e) {
+                } catch (IllegalArgumentException e) {
                         throw new FunctionException(e);
                 }
         }
 
-        private DataSet populateResultingDatasource(final Cluster[] newClusters)
-                throws DriverException {
-                LOG.trace("Populating resulting datasource");
-                final MemoryDataSetDriver driver = new MemoryDataSetDriver(
-                        new String[]{cellIndexFieldName, "clusterNumber"},
-                        new Type[]{metadata.getFieldType(cellIndexFieldId),
-                                TypeFactory.createType(Type.INT)});
-                for (int clusterIndex = 0; clusterIndex < newClusters.length; clusterIndex++) {
-                        final Value clusterIndexValue = ValueFactory.createValue(clusterIndex);
-                        for (long rowIndex : newClusters[clusterIndex].getListOfDataPointsIndex()) {
-                                final Value keyValue = inDs.getFieldValue(rowIndex,
-                                        cellIndexFieldId);
-                                driver.addValues(new Value[]{keyValue, clusterIndexValue});
+        /**
+         * Reads the numeric fields of all the rows, batch by batch.
+         *
+         * @return the components of the points, row-major
+         */
+        private double[] loadComponents(DataSet inDs) throws DriverException, FunctionException {
+                long rowCount = inDs.getRowCount();
+                int dimension = inDs.getMetadata().getFieldCount() - 1;
+                if (rowCount * dimension > Integer.MAX_VALUE) {
+                        throw new FunctionException("Too many rows to cluster: " + rowCount);
+                }
+                double[] components = new double[(int) rowCount * dimension];
+                int offset = 0;
+                Iterator<ValueBatch> it = inDs.batchIterator(BATCH_SIZE);
+                while (it.hasNext()) {
+                        ValueBatch batch = it.next();
+                        int rows = batch.getRowCount();
+                        for (int col = 0, d = 0; col < batch.getColumnCount(); col++) {
+                                if (col == cellIndexFieldId) {
+                                        continue;
+                                }
+                                double[] doubles = batch.getDoubleColumn(col);
+                                long[] longs = batch.getLongColumn(col);
+                                for (int row = 0; row < rows; row++) {
+                                        double v;
+                                        if (batch.isNull(row, col)) {
+                                                v = 0;
+                                        } else if (doubles != null) {
+                                                v = doubles[row];
+                                        } else if (longs != null) {
+                                                v = longs[row];
+                                        } else {
+                                                v = batch.get(row, col).getAsDouble();
+                                        }
+                                        components[offset + row * dimension + d] = v;
+                                }
+                                d++;
                         }
+                        offset += rows * dimension;
                 }
-                return driver;
+                return components;
         }
 
-        private void check() throws DriverException, FunctionException {
+        private void check(Metadata metadata) throws DriverException, FunctionException {
                 LOG.trace("Checking");
-                metadata = inDs.getMetadata();
+                if (cellIndexFieldId == -1) {
+                        throw new FunctionException("Field '" + cellIndexFieldName + "' does not exist !");
+                }
                 final int fieldCount = metadata.getFieldCount();
                 for (int fieldId = 0; fieldId < fieldCount; fieldId++) {
                         if (cellIndexFieldId != fieldId && !TypeFactory.isNumerical(metadata.getFieldType(fieldId).getTypeCode())) {
@@ -194,90 +181,6 @@ public class ST_KMeans extends AbstractTableFunction {
                 }
         }
 
-        private List<DataPoint> initialization() throws DriverException,
-                DataSourceCreationException, ParseException,
-                NoSuchTableException {
-                int fieldCount = inDs.getMetadata().getFieldCount();
-                Value[] resultingValues = computeStatistics();
-                dimension = fieldCount - 1;
-                final double[] averages = new double[dimension];
-                final double[] standardDeviations = new double[dimension];
-                for (int i = 0; i < dimension; i++) {
-                        averages[i] = resultingValues[i].getAsDouble();
-                        standardDeviations[i] = resultingValues[i + dimension].getAsDouble();
-                }
-
-                // initialize the default list of clusters' centroids with average and
-                // standard deviation values...
-                final List<DataPoint> centroids = new ArrayList<DataPoint>();
-                for (int centroidIdx = 0; centroidIdx < dimension; centroidIdx++) {
-                        final double[] tmp1 = new double[dimension];
-                        final double[] tmp2 = new double[dimension];
-                        final double[] tmp3 = new double[dimension];
-                        final double[] tmp4 = new double[dimension];
-                        final double[] tmp5 = new double[dimension];
-                        final double[] tmp6 = new double[dimension];
-                        final double[] tmp7 = new double[dimension];
-                        final double[] tmp8 = new double[dimension];
-                        for (int i = 0; i < dimension; i++) {
-                                tmp1[i] = averages[i] - standardDeviations[i];
-                                tmp2[i] = averages[i] + standardDeviations[i];
-                                tmp5[i] = averages[i] - 0.5 * standardDeviations[i];
-                                tmp6[i] = averages[i] + 0.5 * standardDeviations[i];
-                                if (i == centroidIdx) {
-                                        tmp3[i] = tmp1[i];
-                                        tmp4[i] = tmp2[i];
-                                        tmp7[i] = tmp5[i];
-                                        tmp8[i] = tmp6[i];
-                                } else {
-                                        tmp3[i] = averages[i];
-                                        tmp4[i] = averages[i];
-                                        tmp7[i] = averages[i];
-                                        tmp8[i] = averages[i];
-                                }
-                        }
-                        centroids.add(new DataPoint(tmp1));
-                        centroids.add(new DataPoint(tmp2));
-                        centroids.add(new DataPoint(tmp3));
-                        centroids.add(new DataPoint(tmp4));
-                        centroids.add(new DataPoint(tmp5));
-                        centroids.add(new DataPoint(tmp6));
-                        centroids.add(new DataPoint(tmp7));
-                        centroids.add(new DataPoint(tmp8));
-                }
-                centroids.add(new DataPoint(averages));
-                return centroids;
-        }
-
-        private boolean continueTheIterations(
-                final List<DataPoint> listOfCentroids,
-                final List<DataPoint> listOfNewCentroids, final Cluster[] clusters,
-                final Cluster[] newClusters) {
-                // compare the two lists of centroids
-                if (listOfCentroids.size() != listOfNewCentroids.size()) {
-                        return true;
-                }
-                final DataPointComparator dataPointComparator = new DataPointComparator();
-                Collections.sort(listOfCentroids, dataPointComparator);
-                Collections.sort(listOfNewCentroids, dataPointComparator);
-                for (int i = 0; i < listOfCentroids.size(); i++) {
-                        if (0 != dataPointComparator.compare(listOfCentroids.get(i),
-                                listOfNewCentroids.get(i))) {
-                                return true;
-                        }
-                }
-                // compare the two arrays of clusters
-                if (clusters.length != newClusters.length) {
-                        return true;
-                }
-                for (int i = 0; i < clusters.length; i++) {
-                        if (clusters[i].isDifferentFrom(newClusters[i])) {
-                                return true;
-                        }
-                }
-                return false;
-        }
-
         @Override
         public Metadata getMetadata(Metadata[] tables) throws DriverException {
                 return new DefaultMetadata(new Type[]{
@@ -292,57 +195,12 @@ public class ST_KMeans extends AbstractTableFunction {
                                 new TableFunctionSignature(TableDefinition.ANY,
                                 new TableArgument(TableDefinition.ANY),
                                 ScalarArgument.STRING,
+                                ScalarArgument.INT),
+                                new TableFunctionSignature(TableDefinition.ANY,
+                                new TableArgument(TableDefinition.ANY),
+                                ScalarArgument.STRING,
+                                ScalarArgument.INT,
                                 ScalarArgument.INT)
                         };
         }
-
-        /**
-         * Compute average and standard deviation for all fields in the table.
-         *
-         * @return
-         * @throws ParseException
-         * @throws SemanticException
-         * @throws DriverLoadException
-         * @throws DriverException
-         * @throws NoSuchTableException
-         * @throws DataSourceCreationException
-         */
-        private Value[] computeStatistics() throws ParseException, DriverException, NoSuchTableException, DataSourceCreationException {
-
-                // build the sql query
-                final StringBuilder queryAvgSb = new StringBuilder();
-                final StringBuilder queryStdDevSb = new StringBuilder();
-
-                int fieldCount = metadata.getFieldCount();
-                for (int fieldId = 0; fieldId < fieldCount; fieldId++) {
-                        if (cellIndexFieldId != fieldId) {
-                                queryAvgSb.append(
-                                        (queryAvgSb.length() == 0) ? "Avg(" : ", Avg(").append(
-                                        metadata.getFieldName(fieldId)).append(")");
-                                queryStdDevSb.append(
-                                        (queryStdDevSb.length() == 0) ? "StandardDeviation("
-                                        : ", StandardDeviation(").append(
-                                        metadata.getFieldName(fieldId)).append(")");
-                        }
-                }
-
-                MemoryDriver d = new MemoryDataSetDriver(inDs, true);
-                String name = dsf.getSourceManager().nameAndRegister(d, DriverManager.DEFAULT_SINGLE_TABLE_NAME);
-
-                final String query = "select " + queryAvgSb.toString() + ", "
-                        + queryStdDevSb.toString() + " from \"" + name + "\"";
-
-                // execute the query (CollectiveAvg + CollectiveStandardDeviation
-                // computations) and retrieve the averages and the standard deviations
-                // ValueCollection and arrays of double
-                final String tmpDsName = dsf.getSourceManager().nameAndRegister(query);
-                final DataSource tmpDs = dsf.getDataSource(tmpDsName);
-                tmpDs.open();
-                final Value[] resultingValues = tmpDs.getRow(0);
-                tmpDs.close();
-                dsf.remove(tmpDsName);
-                dsf.remove(name);
-
-                return resultingValues;
-        }
 }
@@ -0,0 +1,230 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.sql.function.spatial.geometry.create;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import org.orbisgis.progress.ProgressMonitor;
+
+import org.gdms.data.schema.Metadata;
+import org.gdms.data.values.Value;
+import org.gdms.data.values.ValueFactory;
+import org.gdms.driver.AbstractDataSet;
+import org.gdms.driver.DataSet;
+import org.gdms.driver.DriverException;
+
+/**
+ * A grid whose cells are computed on demand from their row index.
+ *
+ * The cells are laid out in {@code rows} lines of {@code columns} cells. Nothing
+ * is stored apart from the indexes of the cells kept by {@link #clip(DataSet, ProgressMonitor) },
+ * so a grid of any size can be streamed to the SQL engine without writing it
+ * to disk first.
+ */
+abstract class GridDataSet extends AbstractDataSet {
+
+        private final Metadata metadata;
+        private final int rows;
+        private final int columns;
+        // indexes of the cells kept after clipping, null if all cells are kept
+        private long[] cells;
+
+        /**
+         * @param metadata the metadata of the grid, the geometry being the first field
+         * @param rows the number of lines of cells
+         * @param columns the number of cells in a line
+         */
+        GridDataSet(Metadata metadata, int rows, int columns) {
+                this.metadata = metadata;
+                this.rows = Math.max(0, rows);
+                this.columns = Math.max(0, columns);
+        }
+
+        /**
+         * Gets the geometry of a cell.
+         *
+         * @param row a line of cells
+         * @param column a cell in the line
+         * @return a new geometry
+         */
+        protected abstract Geometry getCell(int row, int column);
+
+        /**
+         * Gets an envelope containing all the cells of a line.
+         *
+         * @param row a line of cells
+         * @return an envelope
+         */
+        protected abstract Envelope getRowEnvelope(int row);
+
+        /**
+         * Gets the value of a non-spatial field of a cell.
+         *
+         * @param cell the index of the cell in the whole grid
+         * @param row the line of the cell
+         * @param column the position of the cell in the line
+         * @param fieldId a field index, greater than 0
+         * @return a value
+         */
+        protected abstract Value getAttribute(long cell, int row, int column, int fieldId);
+
+        /**
+         * Only keeps the cells that intersect a geometry of the given table.
+         *
+         * The geometries are indexed in an R-tree: the lines of cells that do not
+         * intersect any envelope are skipped without building their cells.
+         *
+         * @param input a spatial table
+         * @param pm a progress monitor
+         * @throws DriverException
+         */
+        final void clip(DataSet input, ProgressMonitor pm) throws DriverException {
+                clip(input, 0, rows, pm);
+        }
+
+        /**
+         * Only keeps the cells of some lines that intersect a geometry of the
+         * given table. The cells of the other lines are dropped.
+         *
+         * @param input a spatial table
+         * @param firstRow the first line of cells, included
+         * @param endRow the last line of cells, excluded
+         * @param pm a progress monitor
+         * @throws DriverException
+         */
+        final void clip(DataSet input, int firstRow, int endRow, ProgressMonitor pm) throws DriverException {
+                Envelope lines = new Envelope();
+                for (int row = firstRow; columns > 0 && row < endRow; row++) {
+                        lines.expandToInclude(getRowEnvelope(row));
+                }
+                final int spatialFieldIndex = input.getSpatialFieldIndex();
+                final long rowCount = lines.isNull() ? 0 : input.getRowCount();
+                STRtree index = new STRtree();
+                for (long i = 0; i < rowCount; i++) {
+                        Value v = input.getFieldValue(i, spatialFieldIndex);
+                        if (!v.isNull()) {
+                                Geometry g = v.getAsGeometry();
+                                if (!g.isEmpty() && g.getEnvelopeInternal().intersects(lines)) {
+                                        index.insert(g.getEnvelopeInternal(), PreparedGeometryFactory.prepare(g));
+                                }
+                        }
+                }
+
+                long[] kept = new long[16];
+                int count = 0;
+                pm.startTask("Clipping grid", endRow - firstRow);
+                for (int row = firstRow; row < endRow; row++) {
+                        if (row - firstRow >= 100 && (row - firstRow) % 100 == 0) {
+                                if (pm.isCancelled()) {
+                                        break;
+                                } else {
+                                        pm.progressTo(row - firstRow);
+                                }
+                        }
+                        @SuppressWarnings("unchecked")
+                        List<PreparedGeometry> candidates = index.query(getRowEnvelope(row));
+                        if (candidates.isEmpty()) {
+                                continue;
+                        }
+                        for (int column = 0; column < columns; column++) {
+                                Geometry cell = getCell(row, column);
+                                Envelope env = cell.getEnvelopeInternal();
+                                for (PreparedGeometry p : candidates) {
+                                        if (env.intersects(p.getGeometry().getEnvelopeInternal()) && p.intersects(cell)) {
+                                                if (count == kept.length) {
+                                                        kept = Arrays.copyOf(kept, count * 2);
+                                                }
+                                                kept[count++] = (long) row * columns + column;
+                                                break;
+                                        }
+                                }
+                        }
+                }
+                cells = Arrays.copyOf(kept, count);
+                pm.progressTo(endRow - firstRow);
+                pm.endTask();
+        }
+
+        @Override
+        public Value getFieldValue(long rowIndex, int fieldId) throws DriverException {
+                final long cell = cells == null ? rowIndex : cells[(int) rowIndex];
+                final int row = (int) (cell / columns);
+                final int column = (int) (cell % columns);
+                if (fieldId == 0) {
+                        return ValueFactory.createValue(getCell(row, column));
+                }
+                return getAttribute(cell, row, column, fieldId);
+        }
+
+        @Override
+        public long getRowCount() throws DriverException {
+                return cells == null ? (long) rows * columns : cells.length;
+        }
+
+        @Override
+        public Number[] getScope(int dimension) throws DriverException {
+                Envelope env = getFullExtent();
+                switch (dimension) {
+                        case X:
+                                return new Number[]{env.getMinX(), env.getMaxX()};
+                        case Y:
+                                return new Number[]{env.getMinY(), env.getMaxY()};
+                        default:
+                                return null;
+                }
+        }
+
+        @Override
+        public Envelope getFullExtent() throws DriverException {
+                if (cells != null) {
+                        return super.getFullExtent();
+                }
+                Envelope env = new Envelope();
+                for (int row = 0; columns > 0 && row < rows; row++) {
+                        env.expandToInclude(getRowEnvelope(row));
+                }
+                return env;
+        }
+
+        @Override
+        public Metadata getMetadata() throws DriverException {
+                return metadata;
+        }
+}
@@ -38,6 +38,8 @@ import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.LinearRing;
+import java.util.Arrays;
+import java.util.Collections;
 import org.apache.log4j.Logger;
 import org.orbisgis.progress.ProgressMonitor;
 
@@ -50,19 +52,19 @@ import org.gdms.data.types.TypeFactory;
 import org.gdms.data.values.Value;
 import org.gdms.data.values.ValueFactory;
 import org.gdms.driver.DataSet;
-import org.gdms.driver.DiskBufferDriver;
 import org.gdms.driver.DriverException;
 import org.gdms.driver.DriverUtilities;
-import org.gdms.driver.driverManager.DriverLoadException;
 import org.gdms.sql.function.FunctionException;
 import org.gdms.sql.function.FunctionSignature;
 import org.gdms.sql.function.ScalarArgument;
 import org.gdms.sql.function.table.AbstractTableFunction;
+import org.gdms.sql.function.table.PartitionableTableFunction;
 import org.gdms.sql.function.table.TableArgument;
 import org.gdms.sql.function.table.TableDefinition;
 import org.gdms.sql.function.table.TableFunctionSignature;
+import org.gdms.sql.function.table.TablePartition;
 
-public final class ST_CreateGrid extends AbstractTableFunction {
+public final class ST_CreateGrid extends AbstractTableFunction implements PartitionableTableFunction {
 
         private static final GeometryFactory GF = new GeometryFactory();
         private boolean isAnOrientedGrid;
@@ -74,44 +76,91 @@ public final class ST_CreateGrid extends AbstractTableFunction {
         private double sinInvAngle;
         private double llcX;
         private double llcY;
+        // Below this number of cells, a clipped grid is not split
+        private static final long MIN_PARTITIONED_CELLS = 100000;
+        // envelope of the grid, in its own coordinates, computed by getPartitions
+        private Envelope gridEnvelope;
         private static final Logger LOG = Logger.getLogger(ST_CreateGrid.class);
-        private DiskBufferDriver driver;
 
         @Override
         public DataSet evaluate(DataSourceFactory dsf, DataSet[] tables,
                 Value[] values, ProgressMonitor pm) throws FunctionException {
                 LOG.trace("Evaluating");
                 try {
-                        final DataSet inSds = tables[0];
-
-                        deltaX = values[0].getAsDouble();
-                        deltaY = values[1].getAsDouble();
-
-                        // built the driver for the resulting datasource and register it...
-                        driver = new DiskBufferDriver(dsf,
-                                getMetadata(null));
-
-                        if (3 == values.length) {
-                                isAnOrientedGrid = true;
-                                final double angle = (values[2].getAsDouble() * Math.PI) / 180;
-                                createGrid(driver, prepareOrientedGrid(inSds, angle), pm);
-                        } else {
-                                isAnOrientedGrid = false;
-                                createGrid(driver, DriverUtilities.getFullExtent(inSds), pm);
+                        // the cells are built on demand when the result is read
+                        final Grid grid = new Grid(prepareGrid(tables[0], values));
+                        if (isClipped(values)) {
+                                grid.clip(tables[0], pm);
                         }
 
-                        return driver;
-                } catch (DriverLoadException e) {
+                        return grid;
+                } catch (DriverException e) {
                         throw new FunctionException(e);
+                }
+        }
+
+        /**
+         * Splits a clipped grid into bands of lines of cells, from the top one so
+         * that the cells keep their order. A grid that is not clipped is not
+         * split: its cells are only built when they are read.
+         */
+        @Override
+        public TablePartition[] getPartitions(DataSet[] tables, Value[] values) throws FunctionException {
+                if (!isClipped(values)) {
+                        return null;
+                }
+                try {
+                        gridEnvelope = prepareGrid(tables[0], values);
+                        final Grid grid = new Grid(gridEnvelope);
+                        if ((long) grid.lines * grid.columns < MIN_PARTITIONED_CELLS) {
+                                return null;
+                        }
+                        final TablePartition[] tiles = TablePartition.splitTiles(grid.getCellsEnvelope(), 1,
+                                Math.min(grid.lines, Runtime.getRuntime().availableProcessors() * 4));
+                        Collections.reverse(Arrays.asList(tiles));
+                        return tiles;
                 } catch (DriverException e) {
                         throw new FunctionException(e);
                 }
         }
 
+        /**
+         * Clips the lines of cells whose centre is in the tile. The parts only
+         * read the settings of the grid computed by {@link #getPartitions}.
+         */
         @Override
-        public void workFinished() throws DriverException {
-                if (driver != null) {
-                        driver.close();
+        public DataSet evaluate(DataSourceFactory dsf, DataSet[] tables,
+                Value[] values, TablePartition partition, ProgressMonitor pm) throws FunctionException {
+                try {
+                        final Grid grid = new Grid(gridEnvelope);
+                        final Envelope tile = partition.getTile();
+                        grid.clip(tables[0], grid.getLineBelow(tile.getMaxY()), grid.getLineBelow(tile.getMinY()), pm);
+                        return grid;
+                } catch (DriverException e) {
+                        throw new FunctionException(e);
+                }
+        }
+
+        private static boolean isClipped(Value[] values) {
+                final Value last = values[values.length - 1];
+                return last.getType() == Type.BOOLEAN && last.getAsBoolean();
+        }
+
+        /**
+         * Reads the settings of the grid.
+         *
+         * @return the envelope of the grid, in its own coordinates
+         */
+        private Envelope prepareGrid(DataSet inSds, Value[] values) throws DriverException {
+                deltaX = values[0].getAsDouble();
+                deltaY = values[1].getAsDouble();
+                if (values.length > 2 && values[2].getType() != Type.BOOLEAN) {
+                        isAnOrientedGrid = true;
+                        final double angle = (values[2].getAsDouble() * Math.PI) / 180;
+                        return prepareOrientedGrid(inSds, angle);
+                } else {
+                        isAnOrientedGrid = false;
+                        return DriverUtilities.getFullExtent(inSds);
                 }
         }
 
@@ -122,49 +171,13 @@ public final class ST_CreateGrid extends AbstractTableFunction {
 
         @Override
         public String getDescription() {
-                return "Calculate a regular grid that may be optionnaly oriented";
+                return "Calculate a regular grid that may be optionnaly oriented. If the last argument is true, "
+                        + "only the cells that intersect a geometry of the table are returned";
         }
 
         @Override
         public String getSqlOrder() {
-                return "select * from " + getName() + "(table, 4000,1000[,15]);";
-        }
-
-        private void createGrid(final DiskBufferDriver driver,
-                final Envelope env, final ProgressMonitor pm)
-                throws DriverException {
-
-                final int nbX = (int) Math.ceil((env.getMaxX() - env.getMinX())
-                        / deltaX);
-                pm.startTask("Creating grid", nbX);
-                int gridCellIndex = 0;
-                int row = 0;
-                for (double y = env.getMaxY(); y > env.getMinY(); y -= deltaY) {
-                        if (row >= 100 && row % 100 == 0) {
-                                if (pm.isCancelled()) {
-                                        break;
-                                } else {
-                                        pm.progressTo(row);
-                                }
-                        }
-                        row++;
-                        int col = 1;
-                        for (double x = env.getMinX(); x < env.getMaxX(); x += deltaX) {
-                                gridCellIndex++;
-                                final Coordinate[] summits = new Coordinate[5];
-                                summits[0] = invTranslateAndRotate(x, y);
-                                summits[1] = invTranslateAndRotate(x + deltaX, y);
-                                summits[2] = invTranslateAndRotate(x + deltaX, y - deltaY);
-                                summits[3] = invTranslateAndRotate(x, y - deltaY);
-                                summits[4] = invTranslateAndRotate(x, y);
-                                createGridCell(driver, summits, gridCellIndex, col, row);
-                                col++;
-                        }
-                }
-                driver.writingFinished();
-                driver.open();
-                pm.progressTo(nbX);
-                pm.endTask();
+                return "select * from " + getName() + "(table, 4000,1000[,15][, true]);";
         }
 
         private Envelope prepareOrientedGrid(
@@ -228,15 +241,6 @@ public final class ST_CreateGrid extends AbstractTableFunction {
                 }
         }
 
-        private void createGridCell(final DiskBufferDriver driver,
-                final Coordinate[] summits, final int gridCellIndex, int col, int row) throws DriverException {
-                final LinearRing g = GF.createLinearRing(summits);
-                final Geometry gg = GF.createPolygon(g, null);
-                driver.addValues(new Value[]{ValueFactory.createValue(gg),
-                                ValueFactory.createValue(gridCellIndex),
-                                ValueFactory.createValue(col), ValueFactory.createValue(row)});
-        }
-
         @Override
         public Metadata getMetadata(Metadata[] tables) throws DriverException {
                 return new DefaultMetadata(new Type[]{
@@ -256,7 +260,95 @@ public final class ST_CreateGrid extends AbstractTableFunction {
                                 new TableArgument(TableDefinition.GEOMETRY),
                                 ScalarArgument.DOUBLE,
                                 ScalarArgument.DOUBLE,
-                                ScalarArgument.DOUBLE)
+                                ScalarArgument.DOUBLE),
+                                new TableFunctionSignature(TableDefinition.GEOMETRY,
+                                new TableArgument(TableDefinition.GEOMETRY),
+                                ScalarArgument.DOUBLE,
+                                ScalarArgument.DOUBLE,
+                                ScalarArgument.BOOLEAN),
+                                new TableFunctionSignature(TableDefinition.GEOMETRY,
+                                new TableArgument(TableDefinition.GEOMETRY),
+                                ScalarArgument.DOUBLE,
+                                ScalarArgument.DOUBLE,
+                                ScalarArgument.DOUBLE,
+                                ScalarArgument.BOOLEAN)
                         };
         }
+
+        /**
+         * Square cells, numbered line by line from the upper left corner.
+         */
+        private final class Grid extends GridDataSet {
+
+                private final int lines;
+                private final int columns;
+                private final double minX;
+                private final double maxX;
+                private final double maxY;
+
+                Grid(Envelope env) throws DriverException {
+                        super(getMetadata(null), (int) Math.ceil(env.getHeight() / deltaY),
+                                (int) Math.ceil(env.getWidth() / deltaX));
+                        lines = Math.max(0, (int) Math.ceil(env.getHeight() / deltaY));
+                        columns = Math.max(0, (int) Math.ceil(env.getWidth() / deltaX));
+                        minX = env.getMinX();
+                        maxX = minX + Math.ceil(env.getWidth() / deltaX) * deltaX;
+                        maxY = env.getMaxY();
+                }
+
+                /**
+                 * @return the envelope of the cells, in the coordinates of the grid
+                 */
+                Envelope getCellsEnvelope() {
+                        return new Envelope(minX, maxX, maxY - lines * deltaY, maxY);
+                }
+
+                /**
+                 * @return the first line of cells whose centre is below {@code y},
+                 * in the coordinates of the grid
+                 */
+                int getLineBelow(double y) {
+                        int line = 0;
+                        while (line < lines && maxY - (line + 0.5) * deltaY >= y) {
+                                line++;
+                        }
+                        return line;
+                }
+
+                @Override
+                protected Geometry getCell(int row, int column) {
+                        final double x = minX + column * deltaX;
+                        final double y = maxY - row * deltaY;
+                        final Coordinate[] summits = new Coordinate[5];
+                        summits[0] = invTranslateAndRotate(x, y);
+                        summits[1] = invTranslateAndRotate(x + deltaX, y);
+                        summits[2] = invTranslateAndRotate(x + deltaX, y - deltaY);
+                        summits[3] = invTranslateAndRotate(x, y - deltaY);
+                        summits[4] = invTranslateAndRotate(x, y);
+                        final LinearRing g = GF.createLinearRing(summits);
+                        return GF.createPolygon(g, null);
+                }
+
+                @Override
+                protected Envelope getRowEnvelope(int row) {
+                        final double y = maxY - row * deltaY;
+                        final Envelope env = new Envelope(invTranslateAndRotate(minX, y));
+                        env.expandToInclude(invTranslateAndRotate(maxX, y));
+                        env.expandToInclude(invTranslateAndRotate(maxX, y - deltaY));
+                        env.expandToInclude(invTranslateAndRotate(minX, y - deltaY));
+                        return env;
+                }
+
+                @Override
+                protected Value getAttribute(long cell, int row, int column, int fieldId) {
+                        switch (fieldId) {
+                                case 1:
+                                        return ValueFactory.createValue((int) cell + 1);
+                                case 2:
+                                        return ValueFactory.createValue(column + 1);
+                                default:
+                                        return ValueFactory.createValue(row + 1);
+                        }
+                }
+        }
 }
@@ -81,18 +81,20 @@ public final class ST_CreatePointsGrid extends AbstractTableFunction {
                         deltaY = values[1].getAsDouble();
                         final DataSet inSds = tables[0];
 
-                        // built the driver for the resulting datasource and register it...
-                        driver = new DiskBufferDriver(dsf, getMetadata(null));
-
-                        if (values.length == 2) {
-                                createGrid(driver, DriverUtilities.getFullExtent(inSds), pm);
+                        if (values.length == 3 && values[2].getAsBoolean()) {
+                                // built the driver for the resulting datasource and register it...
+                                driver = new DiskBufferDriver(dsf, getMetadata(null));
+                                createPointsInsidePolygon(driver, inSds, pm);
+                                driver.writingFinished();
+                                driver.open();
+                                return driver;
                         } else {
-
-                                createPointsInsidePolygon(driver, inSds, values[2].getAsBoolean(), pm);
+                                if (values.length == 3) {
+                                        checkPolygons(inSds);
+                                }
+                                // the points are built on demand when the result is read
+                                return new PointsGrid(DriverUtilities.getFullExtent(inSds));
                         }
-                        driver.writingFinished();
-                        driver.open();
-                        return driver;
                 } catch (DriverLoadException e) {
                         throw new FunctionException(e);
                 } catch (DriverException e) {
@@ -122,35 +124,15 @@ public final class ST_CreatePointsGrid extends AbstractTableFunction {
                 return "select * from " + getName() + "(table, 4000,1000 [, true]);";
         }
 
-        private void createGrid(final DiskBufferDriver driver, final Envelope env,
-                final ProgressMonitor pm) throws DriverException {
-                final int nbX = (int) Math.ceil((env.getMaxX() - env.getMinX())
-                        / deltaX);
-                pm.startTask("Creating grid", nbX);
-                int gridCellIndex = 0;
-                int i = 0;
-                for (double x = env.getMinX(); x < env.getMaxX(); x += deltaX) {
-                        if (i >= 100 && i % 100 == 0) {
-                                if (pm.isCancelled()) {
-                                        break;
-                                } else {
-                                        pm.progressTo(i);
-                                }
-                        }
-
-                        for (double y = env.getMinY(); y < env.getMaxY(); y += deltaY) {
-                                gridCellIndex++;
-                                Geometry g = GF.createPoint(new Coordinate(x, y));
-                                driver.addValues(new Value[]{ValueFactory.createValue(g),
-                                                ValueFactory.createValue(gridCellIndex)});
-                        }
-                        i++;
+        private void checkPolygons(DataSet inSds) throws FunctionException, DriverException {
+                Metadata met = inSds.getMetadata();
+                int geomIndex = MetadataUtilities.getGeometryFieldIndex(met);
+                if (MetadataUtilities.getGeometryDimension(met, geomIndex) != 2) {
+                        throw new FunctionException("Only multi or simple polygon are allowed");
                 }
-                pm.progressTo(nbX);
-                pm.endTask();
         }
 
-        public void createPointsInsidePolygon(final DiskBufferDriver driver, DataSet inSds, boolean mask,
+        public void createPointsInsidePolygon(final DiskBufferDriver driver, DataSet inSds,
                 final ProgressMonitor pm) throws FunctionException, DriverException {
                 int gridCellIndex = 0;
                 long rowCount = inSds.getRowCount();
@@ -158,22 +140,18 @@ public final class ST_CreatePointsGrid extends AbstractTableFunction {
                 int geomIndex = MetadataUtilities.getGeometryFieldIndex(met);
                 int geomDim = MetadataUtilities.getGeometryDimension(met, geomIndex);
                 if (geomDim == 2) {
-                        if (mask) {
-                                for (int i = 0; i < rowCount; i++) {
-                                        Geometry geom = inSds.getGeometry(i, geomIndex);
-                                        int numGeom = geom.getNumGeometries();
-                                        if (numGeom > 1) {
-                                                for (int j = 0; j < numGeom; j++) {
-                                                        createGeometryGrid(driver, (Polygon) geom.getGeometryN(j), Location.INTERIOR, gridCellIndex, pm);
-                                                        gridCellIndex++;
-                                                }
-                                        } else {
-                                                createGeometryGrid(driver, (Polygon) geom.getGeometryN(0), Location.INTERIOR, gridCellIndex, pm);
+                        for (int i = 0; i < rowCount; i++) {
+                                Geometry geom = inSds.getGeometry(i, geomIndex);
+                                int numGeom = geom.getNumGeometries();
+                                if (numGeom > 1) {
+                                        for (int j = 0; j < numGeom; j++) {
+                                                createGeometryGrid(driver, (Polygon) geom.getGeometryN(j), Location.INTERIOR, gridCellIndex, pm);
                                                 gridCellIndex++;
                                         }
+                                } else {
+                                        createGeometryGrid(driver, (Polygon) geom.getGeometryN(0), Location.INTERIOR, gridCellIndex, pm);
+                                        gridCellIndex++;
                                 }
-                        } else {
-                                createGrid(driver, DriverUtilities.getFullExtent(inSds), pm);
                         }
                 } else {
                         throw new FunctionException("Only multi or simple polygon are allowed");
@@ -236,4 +214,38 @@ public final class ST_CreatePointsGrid extends AbstractTableFunction {
                                 ScalarArgument.DOUBLE, ScalarArgument.BOOLEAN)
                         };
         }
+
+        /**
+         * Points numbered column by column from the lower left corner.
+         */
+        private final class PointsGrid extends GridDataSet {
+
+                private final double minX;
+                private final double minY;
+                private final double maxY;
+
+                PointsGrid(Envelope env) throws DriverException {
+                        super(getMetadata(null), (int) Math.ceil(env.getWidth() / deltaX),
+                                (int) Math.ceil(env.getHeight() / deltaY));
+                        minX = env.getMinX();
+                        minY = env.getMinY();
+                        maxY = minY + (Math.ceil(env.getHeight() / deltaY) - 1) * deltaY;
+                }
+
+                @Override
+                protected Geometry getCell(int column, int row) {
+                        return GF.createPoint(new Coordinate(minX + column * deltaX, minY + row * deltaY));
+                }
+
+                @Override
+                protected Envelope getRowEnvelope(int column) {
+                        final double x = minX + column * deltaX;
+                        return new Envelope(x, x, minY, maxY);
+                }
+
+                @Override
+                protected Value getAttribute(long cell, int column, int row, int fieldId) {
+                        return ValueFactory.createValue((int) cell + 1);
+                }
+        }
 }
@@ -50,10 +50,8 @@ import org.gdms.data.types.TypeFactory;
 import org.gdms.data.values.Value;
 import org.gdms.data.values.ValueFactory;
 import org.gdms.driver.DataSet;
-import org.gdms.driver.DiskBufferDriver;
 import org.gdms.driver.DriverException;
 import org.gdms.driver.DriverUtilities;
-import org.gdms.driver.driverManager.DriverLoadException;
 import org.gdms.sql.function.FunctionException;
 import org.gdms.sql.function.FunctionSignature;
 import org.gdms.sql.function.ScalarArgument;
@@ -67,7 +65,6 @@ public final class ST_CreateWebGrid extends AbstractTableFunction {
         private static final double DPI = 2 * Math.PI;
         private final GeometryFactory gf = new GeometryFactory();
         private static final Logger LOG = Logger.getLogger(ST_CreateWebGrid.class);
-        private DiskBufferDriver driver;
 
         @Override
         public DataSet evaluate(DataSourceFactory dsf, DataSet[] tables,
@@ -79,26 +76,22 @@ public final class ST_CreateWebGrid extends AbstractTableFunction {
 
                         final DataSet inSds = tables[0];
 
-                        // built the driver for the resulting datasource and register it...
-                        driver = new DiskBufferDriver(dsf, getMetadata(null));
-                        final Envelope envelope = DriverUtilities.getFullExtent(inSds);
-                        createGrid(driver, envelope, deltaR, deltaT, pm);
-                        driver.writingFinished();
-                        driver.open();
-                        return driver;
+                        // the cells are built on demand when the result is read
+                        final Envelope env = DriverUtilities.getFullExtent(inSds);
+                        final double r = 0.5 * Math.sqrt(env.getWidth() * env.getWidth()
+                                + env.getHeight() * env.getHeight());
+                        final double perimeter = DPI * r;
+                        final int nr = (int) Math.ceil(r / deltaR);
+                        final int nt = (int) Math.ceil(perimeter / (2 * deltaT));
+                        final WebGrid grid = new WebGrid(env.centre(), nt, nr, r / nr, DPI / nt);
+                        if (values.length == 3 && values[2].getAsBoolean()) {
+                                grid.clip(inSds, pm);
+                        }
+                        return grid;
                 } catch (AlreadyClosedException e) {
                         throw new FunctionException(e);
                 } catch (DriverException e) {
                         throw new FunctionException(e);
-                } catch (DriverLoadException e) {
-                        throw new FunctionException(e);
-                }
-        }
-
-        @Override
-        public void workFinished() throws DriverException {
-                if (driver != null) {
-                        driver.close();
                 }
         }
 
@@ -109,74 +102,13 @@ public final class ST_CreateWebGrid extends AbstractTableFunction {
 
         @Override
         public String getDescription() {
-                return "Calculate a regular grid that may be optionnaly oriented";
+                return "Calculate a polar grid around the center of the table. If the last argument is true, "
+                        + "only the cells that intersect a geometry of the table are returned";
         }
 
         @Override
         public String getSqlOrder() {
-                return "select * from " + getName() + "(table, 4000,1000);";
-        }
-
-        private void createGrid(final DiskBufferDriver driver,
-                final Envelope env, double deltaR, double deltaT,
-                final ProgressMonitor pm) throws DriverException {
-                final double r = 0.5 * Math.sqrt(env.getWidth() * env.getWidth()
-                        + env.getHeight() * env.getHeight());
-                final Coordinate centroid = env.centre();
-                final double perimeter = DPI * r;
-                final int nr = (int) Math.ceil(r / deltaR);
-                deltaR = r / nr; // TODO : to be comment
-                final int nt = (int) Math.ceil(perimeter / (2 * deltaT));
-                deltaT = DPI / nt;
-                pm.startTask("Creating grid", nt);
-
-                int gridCellIndex = 0;
-                for (int t = 0; t < nt; t++) {
-
-                        if (t >= 100 && t % 100 == 0) {
-                                if (pm.isCancelled()) {
-                                        break;
-                                } else {
-                                        pm.progressTo((100 * t / nt));
-                                }
-                        }
-
-                        for (int i = 0; i < nr; i++) {
-                                createGridCell(driver, centroid, i, t, gridCellIndex, deltaR,
-                                        deltaT);
-                                gridCellIndex++;
-                        }
-                }
-                pm.progressTo(nt);
-                pm.endTask();
-        }
-
-        private void createGridCell(final DiskBufferDriver driver,
-                final Coordinate centroid, final int r, final int t,
-                final int gridCellIndex, final double deltaR, final double deltaT) throws DriverException {
-                final Coordinate[] summits = new Coordinate[5];
-                summits[0] = polar2cartesian(centroid, r, t, deltaR, deltaT);
-                summits[1] = polar2cartesian(centroid, r + 1, t, deltaR, deltaT);
-                summits[2] = polar2cartesian(centroid, r + 1, t + 1, deltaR, deltaT);
-                summits[3] = polar2cartesian(centroid, r, t + 1, deltaR, deltaT);
-                summits[4] = summits[0];
-                createGridCell(driver, summits, gridCellIndex);
-        }
-
-        private Coordinate polar2cartesian(final Coordinate centroid, final int r,
-                final int t, final double deltaR, final double deltaT) {
-                final double rr = r * deltaR;
-                final double tt = t * deltaT;
-                return new Coordinate(centroid.x + rr * Math.cos(tt), centroid.y + rr
-                        * Math.sin(tt));
-        }
-
-        private void createGridCell(final DiskBufferDriver driver,
-                final Coordinate[] summits, final int gridCellIndex) throws DriverException {
-                final LinearRing g = gf.createLinearRing(summits);
-                final Geometry gg = gf.createPolygon(g, null);
-                driver.addValues(new Value[]{ValueFactory.createValue(gg),
-                                ValueFactory.createValue(gridCellIndex)});
+                return "select * from " + getName() + "(table, 4000,1000[, true]);";
         }
 
         @Override
@@ -193,7 +125,78 @@ public final class ST_CreateWebGrid extends AbstractTableFunction {
                                 new TableFunctionSignature(TableDefinition.GEOMETRY,
                                 new TableArgument(TableDefinition.GEOMETRY),
                                 ScalarArgument.DOUBLE,
-                                ScalarArgument.DOUBLE)
+                                ScalarArgument.DOUBLE),
+                                new TableFunctionSignature(TableDefinition.GEOMETRY,
+                                new TableArgument(TableDefinition.GEOMETRY),
+                                ScalarArgument.DOUBLE,
+                                ScalarArgument.DOUBLE,
+                                ScalarArgument.BOOLEAN)
                         };
         }
+
+        /**
+         * Polar cells, numbered sector by sector from the center.
+         */
+        private final class WebGrid extends GridDataSet {
+
+                private final Coordinate centroid;
+                private final double deltaR;
+                private final double deltaT;
+                private final int nr;
+
+                WebGrid(Coordinate centroid, int nt, int nr, double deltaR, double deltaT) throws DriverException {
+                        super(getMetadata(null), nt, nr);
+                        this.centroid = centroid;
+                        this.nr = nr;
+                        this.deltaR = deltaR;
+                        this.deltaT = deltaT;
+                }
+
+                @Override
+                protected Geometry getCell(int t, int r) {
+                        final Coordinate[] summits = new Coordinate[5];
+                        summits[0] = polar2cartesian(centroid, r, t, deltaR, deltaT);
+                        summits[1] = polar2cartesian(centroid, r + 1, t, deltaR, deltaT);
+                        summits[2] = polar2cartesian(centroid, r + 1, t + 1, deltaR, deltaT);
+                        summits[3] = polar2cartesian(centroid, r, t + 1, deltaR, deltaT);
+                        summits[4] = summits[0];
+                        final LinearRing g = gf.createLinearRing(summits);
+                        return gf.createPolygon(g, null);
+                }
+
+                @Override
+                protected Envelope getRowEnvelope(int t) {
+                        final double radius = nr * deltaR;
+                        if (deltaT >= Math.PI / 2) {
+                                // wide sectors: the whole disc
+                                return new Envelope(centroid.x - radius, centroid.x + radius,
+                                        centroid.y - radius, centroid.y + radius);
+                        }
+                        // the sector, including the extremes of its arc on the axes
+                        final Envelope env = new Envelope(centroid);
+                        env.expandToInclude(polar2cartesian(centroid, nr, t, deltaR, deltaT));
+                        env.expandToInclude(polar2cartesian(centroid, nr, t + 1, deltaR, deltaT));
+                        final double start = t * deltaT;
+                        final double end = (t + 1) * deltaT;
+                        for (int k = (int) Math.ceil(start / (Math.PI / 2)); k * (Math.PI / 2) < end; k++) {
+                                final double angle = k * (Math.PI / 2);
+                                env.expandToInclude(centroid.x + radius * Math.cos(angle),
+                                        centroid.y + radius * Math.sin(angle));
+                        }
+                        return env;
+                }
+
+                @Override
+                protected Value getAttribute(long cell, int t, int r, int fieldId) {
+                        return ValueFactory.createValue((int) cell);
+                }
+        }
+
+        private Coordinate polar2cartesian(final Coordinate centroid, final int r,
+                final int t, final double deltaR, final double deltaT) {
+                final double rr = r * deltaR;
+                final double tt = t * deltaT;
+                return new Coordinate(centroid.x + rr * Math.cos(tt), centroid.y + rr
+                        * Math.sin(tt));
+        }
 }
@@ -51,45 +51,48 @@ import org.gdms.sql.function.spatial.geometry.AbstractScalarSpatialFunction;
  */
 public final class ST_Transform extends AbstractScalarSpatialFunction {
 
-    private SpatialReferenceSystem spatialReferenceSystem;
-    private boolean doNotTransform = false;
-    private boolean isVisited = false;
+    /**
+     * Last resolved target crs, with the argument it was resolved from.
+     */
+    private volatile TargetCRS lastTarget;
 
     @Override
     public Value evaluate(DataSourceFactory dsf, Value... values) throws FunctionException {
         GeometryValue geomVal = (GeometryValue) values[0];
-        try {
-            if (spatialReferenceSystem == null || isVisited != true) {
-                CoordinateReferenceSystem inputCRS = geomVal.getCRS();
-                CoordinateReferenceSystem targetCRS;
-                if (inputCRS == null) {
-                    throw new FunctionException("The input crs cannot be null");
-                } else {
-                    if (values[1].getType() == Type.INT) {
-                        int outPutEPSG = values[1].getAsInt();
-                        if (outPutEPSG == -1) {
-                            throw new FunctionException(" -1 is an invalid target SRID");
-                        } else {
-                            targetCRS = DataSourceFactory.getCRSFactory().getCRS("epsg:" + outPutEPSG);
-                        }
-                    } else {
-                        targetCRS = DataSourceFactory.getCRSFactory().getCRS(values[1].getAsString());
-                    }
+        CoordinateReferenceSystem inputCRS = geomVal.getCRS();
+        if (inputCRS == null) {
+            throw new FunctionException("The input crs cannot be null");
+        }
+        CoordinateReferenceSystem targetCRS = getTargetCRS(values[1]);
+        if (inputCRS.equals(targetCRS)) {
+            return geomVal;
+        }
+        // the operation of each (input, target) pair is resolved once and
+        // shared, so the input crs can change from one row to another.
+        return SpatialReferenceSystem.getInstance((GeodeticCRS) inputCRS, (GeodeticCRS) targetCRS)
+                .transform(geomVal.getAsGeometry());
+    }
 
-                    if (inputCRS.equals(targetCRS)) {
-                        doNotTransform = true;
-                    } else {
-                        spatialReferenceSystem = new SpatialReferenceSystem((GeodeticCRS) inputCRS, (GeodeticCRS) targetCRS);
-                    }
-                }
-                isVisited = true;
-            }
-            if (doNotTransform == false) {
-                return spatialReferenceSystem.transform(geomVal.getAsGeometry());
+    private CoordinateReferenceSystem getTargetCRS(Value arg) throws FunctionException {
+        String code;
+        if (arg.getType() == Type.INT) {
+            int outPutEPSG = arg.getAsInt();
+            if (outPutEPSG == -1) {
+                throw new FunctionException(" -1 is an invalid target SRID");
             }
+            code = "epsg:" + outPutEPSG;
+        } else {
+            code = arg.getAsString();
+        }
 
-            return geomVal;
-
+        TargetCRS last = lastTarget;
+        if (last != null && last.code.equals(code)) {
+            return last.crs;
+        }
+        try {
+            CoordinateReferenceSystem crs = DataSourceFactory.getCRSFactory().getCRS(code);
+            lastTarget = new TargetCRS(code, crs);
+            return crs;
         } catch (CRSException ex) {
             throw new FunctionException("No such authority code", ex);
         }
@@ -120,4 +123,15 @@ public final class ST_Transform extends AbstractScalarSpatialFunction {
             ScalarArgument.INT)
         };
     }
+
+    private static final class TargetCRS {
+
+        private final String code;
+        private final CoordinateReferenceSystem crs;
+
+        TargetCRS(String code, CoordinateReferenceSystem crs) {
+            this.code = code;
+            this.crs = crs;
+        }
+    }
 }
@@ -36,7 +36,13 @@ package org.gdms.sql.function.spatial.geometry.operators;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.operation.union.UnaryUnionOp;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import org.cts.crs.CoordinateReferenceSystem;
 import org.gdms.data.DataSourceFactory;
 import org.gdms.data.values.Value;
@@ -45,11 +51,21 @@ import org.gdms.sql.function.FunctionException;
 import org.gdms.sql.function.spatial.geometry.AbstractAggregateSpatialFunction;
 
 /**
- * Compute the union of current and all previous geometries
+ * Compute the union of current and all previous geometries.
+ *
+ * Geometries are united by batches as they arrive, on a shared pool of threads. The partial
+ * unions are then merged two by two, like a binary counter, so that only a logarithmic
+ * number of partial results is kept in memory whatever the number of input rows.
  */
 public final class ST_GeomUnion extends AbstractAggregateSpatialFunction {
 
+        private static final int BATCH_SIZE = 4096;
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+        private static final int MAX_PENDING_BATCHES = 2 * POOL.getParallelism();
         private List<Geometry> toUnite = new ArrayList<Geometry>();
+        private LinkedList<Future<Geometry>> pendingBatches = new LinkedList<Future<Geometry>>();
+        // levels.get(k) is null or the union of 2^k batches
+        private List<Geometry> levels = new ArrayList<Geometry>();
         private CoordinateReferenceSystem crs;
 
         @Override
@@ -60,6 +76,19 @@ public final class ST_GeomUnion extends AbstractAggregateSpatialFunction {
                                 crs = args[0].getCRS();
                         }
                         addGeometry(geom);
+                        if (toUnite.size() >= BATCH_SIZE) {
+                                submitBatch();
+                                try {
+                                        // bound the number of batches in memory
+                                        while (pendingBatches.size() > MAX_PENDING_BATCHES) {
+                                                addPartialUnion(pendingBatches.removeFirst().get());
+                                        }
+                                } catch (InterruptedException ex) {
+                                        throw new FunctionException(ex);
+                                } catch (ExecutionException ex) {
+                                        throw new FunctionException(ex.getCause());
+                                }
+                        }
                 }
         }
 
@@ -73,10 +102,63 @@ public final class ST_GeomUnion extends AbstractAggregateSpatialFunction {
                 }
         }
 
+        private void submitBatch() {
+                final List<Geometry> batch = toUnite;
+                toUnite = new ArrayList<Geometry>();
+                pendingBatches.add(POOL.submit(new Callable<Geometry>() {
+
+                        @Override
+                        public Geometry call() {
+                                return UnaryUnionOp.union(batch);
+                        }
+                }));
+        }
+
+        private void addPartialUnion(Geometry partial) {
+                Geometry g = partial;
+                int k = 0;
+                while (k < levels.size() && levels.get(k) != null) {
+                        g = UnaryUnionOp.union(Arrays.asList(levels.get(k), g));
+                        levels.set(k, null);
+                        k++;
+                }
+                if (k == levels.size()) {
+                        levels.add(g);
+                } else {
+                        levels.set(k, g);
+                }
+        }
+
         @Override
         public Value getAggregateResult() {
-	                return ValueFactory.createValue(UnaryUnionOp.union(toUnite), crs);
-	        }
+                if (pendingBatches.isEmpty() && levels.isEmpty()) {
+                        return ValueFactory.createValue(UnaryUnionOp.union(toUnite), crs);
+                }
+                if (!toUnite.isEmpty()) {
+                        submitBatch();
+                }
+                List<Geometry> partials = new ArrayList<Geometry>();
+                try {
+                        for (Future<Geometry> f : pendingBatches) {
+                                partials.add(f.get());
+                        }
+                } catch (InterruptedException ex) {
+                        throw new IllegalStateException(ex);
+                } catch (ExecutionException ex) {
+                        throw new IllegalStateException(ex.getCause());
+                }
+                pendingBatches.clear();
+                for (Geometry g : levels) {
+                        if (g != null) {
+                                partials.add(g);
+                        }
+                }
+                levels.clear();
+                Geometry union = UnaryUnionOp.union(partials);
+                // keep the result, more rows can still be aggregated
+                levels.add(union);
+                return ValueFactory.createValue(union, crs);
+        }
 
         @Override
         public String getName() {
@@ -33,6 +33,10 @@
  */
 package org.gdms.sql.function.spatial.geometry.predicates;
 
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+
 import org.gdms.data.DataSourceFactory;
 import org.gdms.data.types.Type;
 import org.gdms.data.values.Value;
@@ -44,10 +48,17 @@ import org.gdms.sql.function.ScalarArgument;
 import org.gdms.sql.function.spatial.geometry.AbstractScalarSpatialFunction;
 
 /**
- * Represent a spatial and predicate-based function
+ * Represent a spatial and predicate-based function.
+ *
+ * Subclasses can use {@link #getPreparedArgument(int, Geometry) } to evaluate the predicate
+ * against a prepared geometry when one of the arguments does not change from one
+ * evaluation to the next, for example a constant study area or the outer row of a join.
  */
 public abstract class AbstractSpatialPredicateFunction extends AbstractScalarSpatialFunction {
 
+        private final InvariantArgument[] invariantArguments = new InvariantArgument[]{
+                new InvariantArgument(), new InvariantArgument()};
+
         @Override
         public final Value evaluate(DataSourceFactory dsf, Value... args)
                 throws FunctionException {
@@ -61,6 +72,18 @@ public abstract class AbstractSpatialPredicateFunction extends AbstractScalarSpa
         protected abstract Value evaluateResult(DataSourceFactory dsf, Value... args)
                 throws FunctionException;
 
+        /**
+         * Gets a prepared version of a geometry argument, if the same geometry was already
+         * given for this argument at the previous evaluation.
+         *
+         * @param argIndex the index of the argument, 0 or 1
+         * @param geom the geometry of the argument for this evaluation
+         * @return the prepared geometry, or null if the argument has changed
+         */
+        protected final PreparedGeometry getPreparedArgument(int argIndex, Geometry geom) {
+                return invariantArguments[argIndex].getPrepared(geom);
+        }
+
         @Override
         public int getType(int[] types) {
                 return Type.BOOLEAN;
@@ -73,4 +96,33 @@ public abstract class AbstractSpatialPredicateFunction extends AbstractScalarSpa
                                 ScalarArgument.GEOMETRY, ScalarArgument.GEOMETRY)
                         };
         }
+
+        /**
+         * Keeps track of the last geometry given for an argument, and of its prepared version.
+         */
+        private static final class InvariantArgument {
+
+                private Geometry last;
+                private PreparedGeometry prepared;
+
+                PreparedGeometry getPrepared(Geometry geom) {
+                        if (geom == last || isSameGeometry(geom, last)) {
+                                if (prepared == null) {
+                                        prepared = PreparedGeometryFactory.prepare(last);
+                                }
+                                return prepared;
+                        }
+                        last = geom;
+                        prepared = null;
+                        return null;
+                }
+
+                private static boolean isSameGeometry(Geometry g1, Geometry g2) {
+                        // cheap tests first, the exact comparison is linear in the number of vertices
+                        return g2 != null
+                                && g1.getNumPoints() == g2.getNumPoints()
+                                && g1.getEnvelopeInternal().equals(g2.getEnvelopeInternal())
+                                && g1.equalsExact(g2);
+                }
+        }
 }
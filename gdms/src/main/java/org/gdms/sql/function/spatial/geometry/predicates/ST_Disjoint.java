@@ -34,6 +34,7 @@
 package org.gdms.sql.function.spatial.geometry.predicates;
 
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
 
 import org.gdms.data.DataSourceFactory;
 import org.gdms.data.values.Value;
@@ -50,6 +51,14 @@ public final class ST_Disjoint extends AbstractSpatialPredicateFunction implemen
         public Value evaluateResult(DataSourceFactory dsf, Value... args) throws FunctionException {
                 final Geometry geom1 = args[0].getAsGeometry();
                 final Geometry geom2 = args[1].getAsGeometry();
+                PreparedGeometry prepared = getPreparedArgument(0, geom1);
+                if (prepared != null) {
+                        return ValueFactory.createValue(prepared.disjoint(geom2));
+                }
+                prepared = getPreparedArgument(1, geom2);
+                if (prepared != null) {
+                        return ValueFactory.createValue(prepared.disjoint(geom1));
+                }
                 return ValueFactory.createValue(geom1.disjoint(geom2));
         }
 
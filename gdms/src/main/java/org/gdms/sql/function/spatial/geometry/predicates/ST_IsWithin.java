@@ -34,6 +34,7 @@
 package org.gdms.sql.function.spatial.geometry.predicates;
 
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
 
 import org.gdms.data.DataSourceFactory;
 import org.gdms.data.values.Value;
@@ -51,6 +52,11 @@ public final class ST_IsWithin extends AbstractSpatialPredicateFunction implemen
         public Value evaluateResult(DataSourceFactory dsf, Value... args) throws FunctionException {
                 final Geometry geom1 = args[0].getAsGeometry();
                 final Geometry geom2 = args[1].getAsGeometry();
+                // A within B is B contains A
+                PreparedGeometry prepared = getPreparedArgument(1, geom2);
+                if (prepared != null) {
+                        return ValueFactory.createValue(prepared.contains(geom1));
+                }
                 return ValueFactory.createValue(geom1.within(geom2));
         }
 
@@ -33,16 +33,19 @@
  */
 package org.gdms.sql.function.spatial.geometry.qa;
 
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
-import com.vividsolutions.jts.geom.GeometryCollection;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.Polygon;
 import com.vividsolutions.jts.index.SpatialIndex;
 import com.vividsolutions.jts.index.strtree.STRtree;
 import com.vividsolutions.jts.operation.union.CascadedPolygonUnion;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import org.apache.log4j.Logger;
 import org.cts.crs.CoordinateReferenceSystem;
 import org.gdms.data.DataSourceFactory;
@@ -53,9 +56,27 @@ import org.gdms.driver.DiskBufferDriver;
 import org.gdms.driver.DriverException;
 import org.orbisgis.progress.ProgressMonitor;
 
+/**
+ * Finds the gaps of a polygonal layer, i.e. the holes of the union of its
+ * polygons.
+ *
+ * The rows are sorted into the tiles of a regular grid by the center of
+ * their envelope, read without decoding the geometries. The polygons of each
+ * tile are united in parallel, then the tile unions are merged four by four
+ * up to the whole layer. Only the polygons of one tile per worker are in
+ * memory at once: a union is much smaller than its input, since it only
+ * keeps the outline of the polygons and their gaps.
+ */
 public final class InternalGapFinder {
 
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+        /**
+         * Expected number of rows in each tile.
+         */
+        private static final int ROWS_PER_TILE = 10000;
         private DataSet sds;
+        // the source is not required to be read concurrently
+        private final Object readLock = new Object();
         private ProgressMonitor pm;
         private int spatialFieldIndex;
         private DiskBufferDriver driver;
@@ -66,7 +87,6 @@ public final class InternalGapFinder {
         /**
          * This method extract all gap in a set of geometries : polygon and multi-polygon.
          * It returns a new table that contains identified gaps as polygons.
-         * It can produce some out of memory due to the use of JTS union method.
          * @param dsf
          * @param sds
          * @param spatialFieldIndex
@@ -83,76 +103,190 @@ public final class InternalGapFinder {
         public void findGaps() throws DriverException {
                 LOG.trace("Finding gaps");
 
-                long rowCount = sds.getRowCount();
-                pm.startTask("Read data", rowCount);
-                
                 CoordinateReferenceSystem crs = sds.getCRS();
+                driver = new DiskBufferDriver(dsf, sds.getMetadata());
 
-                SpatialIndex spatialIndex = new STRtree(10);
+                Geometry union = unionByTiles();
+                if (union != null && !pm.isCancelled()) {
+                        writeGaps(union, crs);
+                }
 
-                List<Geometry> geometries = new ArrayList<Geometry>();
-                for (int i = 0; i < rowCount; i++) {
-                        Geometry geom = sds.getGeometry(i, spatialFieldIndex);
+                driver.writingFinished();
+                driver.open();
+        }
+
+        /**
+         * Unites all the polygons of the layer.
+         *
+         * @return the union, or null if there is none
+         */
+        private Geometry unionByTiles() throws DriverException {
+                long rowCount = sds.getRowCount();
+                Envelope extent = sds.getFullExtent();
+                if (rowCount == 0 || extent == null || extent.isNull()) {
+                        return null;
+                }
+                int gridSize = Math.max(1, (int) Math.ceil(Math.sqrt((double) rowCount / ROWS_PER_TILE)));
+                double tileWidth = extent.getWidth() > 0 ? extent.getWidth() / gridSize : 1;
+                double tileHeight = extent.getHeight() > 0 ? extent.getHeight() / gridSize : 1;
 
+                pm.startTask("Read data", rowCount);
+                int[] tileSizes = new int[gridSize * gridSize];
+                int[] rowTiles = new int[(int) rowCount];
+                for (int i = 0; i < rowCount; i++) {
                         if (i >= 100 && i % 100 == 0) {
                                 if (pm.isCancelled()) {
-                                        break;
+                                        pm.endTask();
+                                        return null;
                                 } else {
                                         pm.progressTo(i);
                                 }
                         }
-                        if (geom instanceof GeometryCollection) {
-                                final int nbOfGeometries = geom.getNumGeometries();
-                                for (int j = 0; j < nbOfGeometries; j++) {
-                                        Geometry simpleGeom = geom.getGeometryN(j);
-                                        if (geom.getDimension() == 2) {
-                                                geometries.add(simpleGeom);
-                                        }
+                        Envelope env = sds.getEnvelope(i, spatialFieldIndex);
+                        if (env == null || env.isNull()) {
+                                rowTiles[i] = -1;
+                                continue;
+                        }
+                        int col = Math.min(gridSize - 1, (int) ((env.centre().x - extent.getMinX()) / tileWidth));
+                        int row = Math.min(gridSize - 1, (int) ((env.centre().y - extent.getMinY()) / tileHeight));
+                        rowTiles[i] = row * gridSize + col;
+                        tileSizes[rowTiles[i]]++;
+                }
+                final long[][] tileRows = new long[tileSizes.length][];
+                for (int t = 0; t < tileSizes.length; t++) {
+                        tileRows[t] = new long[tileSizes[t]];
+                        tileSizes[t] = 0;
+                }
+                for (int i = 0; i < rowTiles.length; i++) {
+                        if (rowTiles[i] != -1) {
+                                tileRows[rowTiles[i]][tileSizes[rowTiles[i]]++] = i;
+                        }
+                }
+                pm.endTask();
 
+                pm.startTask("Union processing", tileRows.length);
+                List<Future<Geometry>> tiles = new ArrayList<Future<Geometry>>(tileRows.length);
+                for (final long[] rows : tileRows) {
+                        tiles.add(POOL.submit(new Callable<Geometry>() {
+
+                                @Override
+                                public Geometry call() throws DriverException {
+                                        return uniteRows(rows);
                                 }
-                        } else {
+                        }));
+                }
+                Geometry[] unions = new Geometry[tiles.size()];
+                for (int t = 0; t < unions.length; t++) {
+                        unions[t] = get(tiles.get(t));
+                        pm.progressTo(t);
+                }
 
-                                if (geom.getDimension() == 2) {
-                                        geometries.add(geom);
+                // merges the unions of 2x2 neighbour tiles until there is only one
+                int size = gridSize;
+                while (size > 1) {
+                        final int parentSize = (size + 1) / 2;
+                        List<Future<Geometry>> parents = new ArrayList<Future<Geometry>>(parentSize * parentSize);
+                        for (int row = 0; row < parentSize; row++) {
+                                for (int col = 0; col < parentSize; col++) {
+                                        final List<Geometry> children = new ArrayList<Geometry>(4);
+                                        for (int r = 2 * row; r < Math.min(size, 2 * row + 2); r++) {
+                                                for (int c = 2 * col; c < Math.min(size, 2 * col + 2); c++) {
+                                                        if (unions[r * size + c] != null) {
+                                                                children.add(unions[r * size + c]);
+                                                        }
+                                                }
+                                        }
+                                        parents.add(POOL.submit(new Callable<Geometry>() {
 
+                                                @Override
+                                                public Geometry call() {
+                                                        return unite(children);
+                                                }
+                                        }));
                                 }
                         }
-
+                        unions = new Geometry[parents.size()];
+                        for (int t = 0; t < unions.length; t++) {
+                                unions[t] = get(parents.get(t));
+                        }
+                        size = parentSize;
                 }
-
                 pm.endTask();
+                return unions[0];
+        }
 
-                Geometry cascadedPolygonUnion = CascadedPolygonUnion.union(geometries);
-                int nbOfGeometries = cascadedPolygonUnion.getNumGeometries();
-
-                pm.startTask("Gap processing", nbOfGeometries);
+        private Geometry uniteRows(long[] rows) throws DriverException {
+                List<Geometry> polygons = new ArrayList<Geometry>(rows.length);
+                for (long row : rows) {
+                        Value value;
+                        synchronized (readLock) {
+                                value = sds.getFieldValue(row, spatialFieldIndex);
+                        }
+                        // the geometry is built out of the lock
+                        if (value == null || value.isNull()) {
+                                continue;
+                        }
+                        Geometry geom = value.getAsGeometry();
+                        final int nbOfGeometries = geom.getNumGeometries();
+                        for (int j = 0; j < nbOfGeometries; j++) {
+                                Geometry simpleGeom = geom.getGeometryN(j);
+                                if (simpleGeom.getDimension() == 2) {
+                                        polygons.add(simpleGeom);
+                                }
+                        }
+                }
+                return unite(polygons);
+        }
 
-                driver = new DiskBufferDriver(dsf, sds.getMetadata());
-                final Value[] fieldsValues = new Value[spatialFieldIndex];
+        private static Geometry unite(List<Geometry> polygons) {
+                if (polygons.isEmpty()) {
+                        return null;
+                }
+                List<Geometry> simple = new ArrayList<Geometry>();
+                for (Geometry g : polygons) {
+                        for (int i = 0; i < g.getNumGeometries(); i++) {
+                                simple.add(g.getGeometryN(i));
+                        }
+                }
+                return CascadedPolygonUnion.union(simple);
+        }
 
-                GeometryFactory gf = new GeometryFactory();
+        private Geometry get(Future<Geometry> f) throws DriverException {
+                try {
+                        return f.get();
+                } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new DriverException("Interrupted while uniting the polygons", ex);
+                } catch (ExecutionException ex) {
+                        if (ex.getCause() instanceof DriverException) {
+                                throw (DriverException) ex.getCause();
+                        }
+                        throw new DriverException("Cannot unite the polygons", ex.getCause());
+                }
+        }
 
+        /**
+         * Writes the holes of the union, without the islands they contain.
+         */
+        private void writeGaps(Geometry union, CoordinateReferenceSystem crs) throws DriverException {
+                int nbOfGeometries = union.getNumGeometries();
 
+                pm.startTask("Gap processing", nbOfGeometries);
+                SpatialIndex spatialIndex = new STRtree(10);
                 for (int i = 0; i < nbOfGeometries; i++) {
-                        if (i >= 100 && i % 100 == 0) {
-                                if (pm.isCancelled()) {
-                                        break;
-                                } else {
-                                        pm.progressTo(i);
-                                }
-                        }
-                        Geometry simpleGeom = cascadedPolygonUnion.getGeometryN(i);
-                        spatialIndex.insert(simpleGeom.getEnvelopeInternal(),
-                                simpleGeom);
+                        Geometry simpleGeom = union.getGeometryN(i);
+                        spatialIndex.insert(simpleGeom.getEnvelopeInternal(), simpleGeom);
                 }
-
                 pm.endTask();
 
                 pm.startTask("Result saving", nbOfGeometries);
-
+                final Value[] fieldsValues = new Value[sds.getMetadata().getFieldCount()];
+                for (int i = 0; i < fieldsValues.length; i++) {
+                        fieldsValues[i] = ValueFactory.createNullValue();
+                }
+                GeometryFactory gf = new GeometryFactory();
                 for (int i = 0; i < nbOfGeometries; i++) {
-                        Geometry simpleGeom = cascadedPolygonUnion.getGeometryN(i);
-                        Polygon poly = (Polygon) simpleGeom;
+                        Polygon poly = (Polygon) union.getGeometryN(i);
                         if (i >= 100 && i % 100 == 0) {
                                 if (pm.isCancelled()) {
                                         break;
@@ -160,33 +294,25 @@ public final class InternalGapFinder {
                                         pm.progressTo(i);
                                 }
                         }
-                        if (poly.getNumInteriorRing() > 0) {
-                                for (int j = 0; j < poly.getNumInteriorRing(); j++) {
-                                        Polygon result = gf.createPolygon(gf.createLinearRing(poly.getInteriorRingN(j).getCoordinates()), null);
+                        for (int j = 0; j < poly.getNumInteriorRing(); j++) {
+                                Polygon result = gf.createPolygon(gf.createLinearRing(poly.getInteriorRingN(j).getCoordinates()), null);
 
-                                        List query = spatialIndex.query(result.getEnvelopeInternal());
-                                        Geometry geomDiff = result;
-
-                                        for (Iterator k = query.iterator(); k.hasNext();) {
-                                                Geometry queryGeom = (Geometry) k.next();
-
-                                                if (result.contains(queryGeom)) {
-                                                        geomDiff = result.difference(queryGeom);
-
-                                                }
-                                        }
-                                        //EPSYLON value used to limit small polygon.
-                                        if (geomDiff.getArea() > minGapArea) {
-                                                fieldsValues[spatialFieldIndex] = ValueFactory.createValue(geomDiff, crs);
-                                                driver.addValues(fieldsValues);
+                                List query = spatialIndex.query(result.getEnvelopeInternal());
+                                Geometry geomDiff = result;
+                                for (Object o : query) {
+                                        Geometry queryGeom = (Geometry) o;
+                                        // islands inside the gap
+                                        if (result.contains(queryGeom)) {
+                                                geomDiff = geomDiff.difference(queryGeom);
                                         }
-
+                                }
+                                //EPSYLON value used to limit small polygon.
+                                if (geomDiff.getArea() > minGapArea) {
+                                        fieldsValues[spatialFieldIndex] = ValueFactory.createValue(geomDiff, crs);
+                                        driver.addValues(fieldsValues);
                                 }
                         }
-
                 }
-                driver.writingFinished();
-                driver.open();
                 pm.endTask();
         }
 
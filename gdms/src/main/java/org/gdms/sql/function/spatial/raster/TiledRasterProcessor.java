@@ -0,0 +1,297 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.sql.function.spatial.raster;
+
+import ij.process.ImageProcessor;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.grap.model.GeoRaster;
+import org.grap.model.GeoRasterFactory;
+import org.grap.model.RasterMetadata;
+import org.grap.processing.Operation;
+import org.grap.processing.OperationException;
+
+/**
+ * Runs a raster operation tile by tile on a shared worker pool.
+ *
+ * Tiles are horizontal bands of the source raster. Each band is extended by
+ * a halo of {@code halo} rows on both sides so that focal operations (a 3x3
+ * window needs a halo of 1) see the same neighbours as on the whole raster;
+ * only the rows inside the band are kept from the result of a tile.
+ *
+ * This only fits local and focal operations: global ones (flow accumulation,
+ * sink filling...) need the whole grid and must be run directly.
+ *
+ * Tiles and results keep the pixel type of the source and of the operation
+ * result. Besides the source and the result, which the whole-raster operation
+ * holds too, each running tile holds its band and the result of the band, so
+ * the extra memory is about two tiles per thread of the pool, not a copy of
+ * the raster.
+ */
+public final class TiledRasterProcessor {
+
+        /**
+         * Default number of rows of a tile.
+         */
+        public static final int DEFAULT_TILE_ROWS = 512;
+        /**
+         * Rasters with fewer pixels than this are processed in one piece.
+         */
+        public static final int MIN_TILED_PIXELS = 2048 * 2048;
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+        private final int tileRows;
+        private final int halo;
+
+        /**
+         * Creates a processor with the default tile height.
+         *
+         * @param halo number of neighbour rows needed above and below each row
+         */
+        public TiledRasterProcessor(int halo) {
+                this(DEFAULT_TILE_ROWS, halo);
+        }
+
+        /**
+         * @param tileRows number of rows of a tile
+         * @param halo number of neighbour rows needed above and below each row
+         */
+        public TiledRasterProcessor(int tileRows, int halo) {
+                if (tileRows < 1 || halo < 0) {
+                        throw new IllegalArgumentException("Invalid tile size: " + tileRows + " rows, halo " + halo);
+                }
+                this.tileRows = tileRows;
+                this.halo = halo;
+        }
+
+        /**
+         * Applies the operation given by {@code factory} to {@code source}.
+         *
+         * Small rasters are processed directly. Otherwise, a new operation is
+         * created for each tile, so operations do not need to be thread-safe.
+         *
+         * @param source a raster
+         * @param factory builds the operation of a tile
+         * @return the resulting raster
+         * @throws OperationException
+         * @throws IOException if the pixels cannot be read
+         */
+        public GeoRaster process(GeoRaster source, OperationFactory factory) throws OperationException, IOException {
+                source.open();
+                final int width = source.getWidth();
+                final int height = source.getHeight();
+                if ((long) width * height < MIN_TILED_PIXELS) {
+                        return source.doOperation(factory.createOperation(null));
+                }
+                return processTiles(source, factory);
+        }
+
+        /**
+         * Applies the operation tile by tile, whatever the size of the raster.
+         *
+         * @param source a raster
+         * @param factory builds the operation of a tile
+         * @return the resulting raster, with the pixel type of the operation result
+         * @throws OperationException
+         * @throws IOException if the pixels cannot be read
+         */
+        public GeoRaster processTiles(GeoRaster source, final OperationFactory factory) throws OperationException, IOException {
+                source.open();
+                final RasterMetadata md = source.getMetadata();
+                final int width = source.getWidth();
+                final int height = source.getHeight();
+
+                // the first tile gives the pixel type and the nodata value of the result
+                Tile first = new Tile(source, 0, Math.min(tileRows, height), halo, height);
+                GeoRaster firstResult = first.getRaster().doOperation(factory.createOperation(first));
+                firstResult.open();
+                ImageProcessor firstIp = firstResult.getImagePlus().getProcessor();
+                final ImageProcessor out = firstIp.createProcessor(width, height);
+                final float noData = firstResult.getMetadata().getNoDataValue();
+                copyRows(first, firstIp, out);
+
+                List<Future<Void>> tiles = new ArrayList<Future<Void>>();
+                for (int row = first.getRowCount(); row < height; row += tileRows) {
+                        final Tile tile = new Tile(source, row, Math.min(tileRows, height - row), halo, height);
+                        tiles.add(POOL.submit(new Callable<Void>() {
+
+                                @Override
+                                public Void call() throws Exception {
+                                        GeoRaster result = tile.getRaster().doOperation(factory.createOperation(tile));
+                                        result.open();
+                                        copyRows(tile, result.getImagePlus().getProcessor(), out);
+                                        return null;
+                                }
+                        }));
+                }
+
+                try {
+                        for (Future<Void> f : tiles) {
+                                f.get();
+                        }
+                } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while processing the raster tiles", ex);
+                } catch (ExecutionException ex) {
+                        Throwable cause = ex.getCause();
+                        if (cause instanceof OperationException) {
+                                throw (OperationException) cause;
+                        } else if (cause instanceof IOException) {
+                                throw (IOException) cause;
+                        } else if (cause instanceof RuntimeException) {
+                                throw (RuntimeException) cause;
+                        }
+                        throw new IllegalStateException(cause);
+                } finally {
+                        for (Future<Void> f : tiles) {
+                                f.cancel(false);
+                        }
+                }
+
+                out.resetMinAndMax();
+                return GeoRasterFactory.createGeoRaster(out, new RasterMetadata(md.getXulcorner(), md.getYulcorner(),
+                        md.getPixelSize_X(), md.getPixelSize_Y(), width, height, noData));
+        }
+
+        /**
+         * Copies the rows of a tile, halo excluded, from the result of the tile
+         * to the result of the raster.
+         */
+        private static void copyRows(Tile tile, ImageProcessor from, ImageProcessor to) {
+                int width = to.getWidth();
+                int offset = tile.getFirstRow() - tile.getFirstHaloRow();
+                if (from.getClass() == to.getClass()) {
+                        System.arraycopy(from.getPixels(), offset * width, to.getPixels(),
+                                tile.getFirstRow() * width, tile.getRowCount() * width);
+                } else {
+                        for (int y = 0; y < tile.getRowCount(); y++) {
+                                for (int x = 0; x < width; x++) {
+                                        to.putPixelValue(x, tile.getFirstRow() + y, from.getPixelValue(x, y + offset));
+                                }
+                        }
+                }
+        }
+
+        /**
+         * Builds the operation to run on a tile.
+         */
+        public interface OperationFactory {
+
+                /**
+                 * @param tile the tile to process, or null if the whole raster is
+                 * processed at once
+                 * @return a new operation
+                 * @throws IOException if the pixels of another raster cannot be read
+                 */
+                Operation createOperation(Tile tile) throws IOException;
+        }
+
+        /**
+         * A band of rows of a raster, with its halo.
+         */
+        public static final class Tile {
+
+                private final GeoRaster source;
+                private final int firstRow;
+                private final int rowCount;
+                private final int firstHaloRow;
+                private final int haloRowCount;
+
+                Tile(GeoRaster source, int firstRow, int rowCount, int halo, int height) {
+                        this.source = source;
+                        this.firstRow = firstRow;
+                        this.rowCount = rowCount;
+                        this.firstHaloRow = Math.max(0, firstRow - halo);
+                        this.haloRowCount = Math.min(height, firstRow + rowCount + halo) - firstHaloRow;
+                }
+
+                /**
+                 * @return the first row of the tile in the source raster
+                 */
+                public int getFirstRow() {
+                        return firstRow;
+                }
+
+                /**
+                 * @return the number of rows of the tile, halo excluded
+                 */
+                public int getRowCount() {
+                        return rowCount;
+                }
+
+                /**
+                 * @return the first row of the tile in the source raster, halo included
+                 */
+                public int getFirstHaloRow() {
+                        return firstHaloRow;
+                }
+
+                /**
+                 * @return the tile of the source raster, halo included
+                 * @throws IOException if the pixels cannot be read
+                 */
+                public GeoRaster getRaster() throws IOException {
+                        return extract(source);
+                }
+
+                /**
+                 * Extracts the same tile from another raster with the same grid,
+                 * for operations that combine several rasters.
+                 *
+                 * @param raster a raster
+                 * @return the tile of {@code raster}, halo included
+                 * @throws IOException if the pixels cannot be read
+                 */
+                public GeoRaster extract(GeoRaster raster) throws IOException {
+                        raster.open();
+                        RasterMetadata md = raster.getMetadata();
+                        int width = raster.getWidth();
+                        ImageProcessor ip = raster.getImagePlus().getProcessor();
+                        // same pixel type as the raster, rows are contiguous
+                        ImageProcessor tileIp = ip.createProcessor(width, haloRowCount);
+                        System.arraycopy(ip.getPixels(), firstHaloRow * width, tileIp.getPixels(), 0,
+                                width * haloRowCount);
+                        tileIp.resetMinAndMax();
+                        RasterMetadata tileMd = new RasterMetadata(md.getXulcorner(),
+                                md.getYulcorner() + firstHaloRow * (double) md.getPixelSize_Y(),
+                                md.getPixelSize_X(), md.getPixelSize_Y(), width, haloRowCount, md.getNoDataValue());
+                        return GeoRasterFactory.createGeoRaster(tileIp, tileMd);
+                }
+        }
+}
@@ -33,9 +33,11 @@
  */
 package org.gdms.sql.function.spatial.raster.algebra;
 
+import java.io.IOException;
 import java.util.Map;
 
 import org.grap.model.GeoRaster;
+import org.grap.processing.Operation;
 import org.grap.processing.OperationException;
 import org.grap.processing.operation.GeoRasterCalculator;
 import org.grap.processing.operation.GeoRasterMath;
@@ -49,12 +51,18 @@ import org.gdms.sql.function.FunctionException;
 import org.gdms.sql.function.FunctionSignature;
 import org.gdms.sql.function.ScalarArgument;
 import org.gdms.sql.function.spatial.raster.AbstractScalarRasterFunction;
+import org.gdms.sql.function.spatial.raster.TiledRasterProcessor;
+import org.gdms.sql.function.spatial.raster.TiledRasterProcessor.Tile;
 
 /**
  * A function to divide, multiple, substract raster.
+ *
+ * This is a local operation: large rasters are processed tile by tile.
  */
 public final class ST_RasterAlgebra extends AbstractScalarRasterFunction {
 
+        private static final TiledRasterProcessor PROCESSOR = new TiledRasterProcessor(0);
+
         @Override
         public Value evaluate(DataSourceFactory dsf, Value... args) throws FunctionException {
                 final GeoRaster raster1 = args[0].getAsRaster();
@@ -65,24 +73,42 @@ public final class ST_RasterAlgebra extends AbstractScalarRasterFunction {
                         try {
                                 Map<String, Integer> methods = GeoRasterCalculator.operators;
                                 if (methods.containsKey(method.toLowerCase())) {
-                                        final GeoRaster grResult = raster1.doOperation(new GeoRasterCalculator(raster2,
-                                                methods.get(method)));
+                                        final int operator = methods.get(method);
+                                        final GeoRaster grResult = PROCESSOR.process(raster1, new TiledRasterProcessor.OperationFactory() {
+
+                                                @Override
+                                                public Operation createOperation(Tile tile) throws IOException {
+                                                        GeoRaster other = tile == null ? raster2 : tile.extract(raster2);
+                                                        return new GeoRasterCalculator(other, operator);
+                                                }
+                                        });
                                         return ValueFactory.createValue(grResult);
                                 }
                         } catch (OperationException e) {
                                 throw new FunctionException("Cannot do the operation", e);
+                        } catch (IOException e) {
+                                throw new FunctionException("Cannot read the raster", e);
                         }
                 } else {
                         String method = value2.getAsString();
-                        double value = args[2].getAsDouble();
+                        final double value = args[2].getAsDouble();
                         try {
                                 Map<String, Integer> methods = GeoRasterMath.operators;
                                 if (methods.containsKey(method.toLowerCase())) {
-                                        final GeoRaster grResult = raster1.doOperation(new GeoRasterMath(value, methods.get(method)));
+                                        final int operator = methods.get(method);
+                                        final GeoRaster grResult = PROCESSOR.process(raster1, new TiledRasterProcessor.OperationFactory() {
+
+                                                @Override
+                                                public Operation createOperation(Tile tile) {
+                                                        return new GeoRasterMath(value, operator);
+                                                }
+                                        });
                                         return ValueFactory.createValue(grResult);
                                 }
                         } catch (OperationException e) {
                                 throw new FunctionException("Cannot do the operation", e);
+                        } catch (IOException e) {
+                                throw new FunctionException("Cannot read the raster", e);
                         }
                 }
 
@@ -33,6 +33,8 @@
  */
 package org.gdms.sql.function.spatial.raster.hydrology;
 
+import java.io.IOException;
+
 import org.grap.model.GeoRaster;
 import org.grap.processing.Operation;
 import org.grap.processing.OperationException;
@@ -43,21 +45,33 @@ import org.gdms.data.values.Value;
 import org.gdms.data.values.ValueFactory;
 import org.gdms.sql.function.FunctionException;
 import org.gdms.sql.function.spatial.raster.AbstractScalarRasterFunction;
+import org.gdms.sql.function.spatial.raster.TiledRasterProcessor;
+import org.gdms.sql.function.spatial.raster.TiledRasterProcessor.Tile;
 
 /**
- * Compute the slopes directions using a GRAY16/32 DEM as input table
+ * Compute the slopes directions using a GRAY16/32 DEM as input table.
+ * The direction of a cell only depends on its 3x3 neighbourhood: large DEMs are
+ * processed tile by tile.
  */
 public final class ST_D8Direction extends AbstractScalarRasterFunction {
 
+        private static final TiledRasterProcessor PROCESSOR = new TiledRasterProcessor(1);
+
         @Override
         public Value evaluate(DataSourceFactory dsf, Value... args) throws FunctionException {
                 final GeoRaster geoRasterSrc = args[0].getAsRaster();
-                final Operation slopesDirections = new D8OpDirection();
                 try {
+                        return ValueFactory.createValue(PROCESSOR.process(geoRasterSrc, new TiledRasterProcessor.OperationFactory() {
 
-                        return ValueFactory.createValue(geoRasterSrc.doOperation(slopesDirections));
+                                @Override
+                                public Operation createOperation(Tile tile) {
+                                        return new D8OpDirection();
+                                }
+                        }));
                 } catch (OperationException e) {
                         throw new FunctionException("Cannot do the operation", e);
+                } catch (IOException e) {
+                        throw new FunctionException("Cannot read the raster", e);
                 } catch (UnsupportedOperationException e) {
                         throw new FunctionException("Cannot set nodata value", e);
                 }
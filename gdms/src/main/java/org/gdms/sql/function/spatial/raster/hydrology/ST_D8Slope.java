@@ -33,6 +33,8 @@
  */
 package org.gdms.sql.function.spatial.raster.hydrology;
 
+import java.io.IOException;
+
 import org.grap.model.GeoRaster;
 import org.grap.processing.Operation;
 import org.grap.processing.OperationException;
@@ -48,37 +50,52 @@ import org.gdms.sql.function.FunctionException;
 import org.gdms.sql.function.FunctionSignature;
 import org.gdms.sql.function.ScalarArgument;
 import org.gdms.sql.function.spatial.raster.AbstractScalarRasterFunction;
+import org.gdms.sql.function.spatial.raster.TiledRasterProcessor;
+import org.gdms.sql.function.spatial.raster.TiledRasterProcessor.Tile;
 
 /**
  * Compute the slopes using a GRAY16/32 DEM as input table.
  * Default unit is percent, but it is also possible to specify
  * it as: radian, degree, percent.
+ * The slope of a cell only depends on its 3x3 neighbourhood: large DEMs are
+ * processed tile by tile.
  */
 public final class ST_D8Slope extends AbstractScalarRasterFunction {
 
+        private static final TiledRasterProcessor PROCESSOR = new TiledRasterProcessor(1);
+
         @Override
         public Value evaluate(DataSourceFactory dsf, Value... args) throws FunctionException {
                 final GeoRaster geoRasterSrc = args[0].getAsRaster();
                 try {
-                        Operation slopesOp;
+                        final String unit;
                         if (2 == args.length) {
-                                if (args[1].toString().equalsIgnoreCase("radian")) {
-                                        slopesOp = new D8OpSlopeInRadians();
-                                } else if (args[1].toString().equalsIgnoreCase("degree")) {
-                                        slopesOp = new D8OpSlopeInDegrees();
-                                } else if (args[1].toString().equalsIgnoreCase("percent")) {
-                                        slopesOp = new D8OpSlope();
-                                } else {
+                                unit = args[1].toString().toLowerCase();
+                                if (!unit.equals("radian") && !unit.equals("degree") && !unit.equals("percent")) {
                                         throw new FunctionException(
                                                 "You have to choose between: radian, degree or percent!");
                                 }
                         } else {
-                                slopesOp = new D8OpSlope();
+                                unit = "percent";
                         }
                         // compute the slopes directions
-                        return ValueFactory.createValue(geoRasterSrc.doOperation(slopesOp));
+                        return ValueFactory.createValue(PROCESSOR.process(geoRasterSrc, new TiledRasterProcessor.OperationFactory() {
+
+                                @Override
+                                public Operation createOperation(Tile tile) {
+                                        if (unit.equals("radian")) {
+                                                return new D8OpSlopeInRadians();
+                                        } else if (unit.equals("degree")) {
+                                                return new D8OpSlopeInDegrees();
+                                        } else {
+                                                return new D8OpSlope();
+                                        }
+                                }
+                        }));
                 } catch (OperationException e) {
                         throw new FunctionException("Cannot do the operation", e);
+                } catch (IOException e) {
+                        throw new FunctionException("Cannot read the raster", e);
                 }
         }
 
@@ -35,6 +35,12 @@ package org.gdms.sql.function.spatial.raster.interpolation;
 
 import ij.IJ;
 import ij.process.FloatProcessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import org.grap.model.GeoRaster;
 import org.grap.model.GeoRasterFactory;
 import org.grap.model.RasterMetadata;
@@ -99,6 +105,11 @@ public final class TINToRaster {
         private static final int DEFAULT_BACKGROUND = -9999;
         private static final double DEFAULT_TOLERANCE = 1.0E-20;
         private static final String XYZIMPORT = "XYZ_Import ";
+        // Number of image rows of the bands that are interpolated in parallel
+        private static final int BAND_ROWS = 64;
+        // Pixel centers this close to a triangle edge are considered inside
+        private static final double ROW_EPSILON = 1.0E-9;
+        private static final ForkJoinPool POOL = new ForkJoinPool();
         private double myPixelSize = 1.0;
         private int numberOfPoints = 0;
         private double myBackground = DEFAULT_BACKGROUND;
@@ -189,7 +200,7 @@ public final class TINToRaster {
                 float[] myPixelValues = (float[]) ip.getPixels();
 
                 // Perform image interpolation (linear interpolation within a triangle):
-                interpolateImageLinear(til, tnbr, xVcl, yVcl, zVcl, stack,
+                interpolateImageLinear(til, xVcl, yVcl, zVcl, stack,
                         myPixelValues, tol);
 
                 // Adjust brightness and contrast:
@@ -609,54 +620,35 @@ public final class TINToRaster {
         }
 
         /**
-         * Interpolate a depth image from given z-values: For each pixel position,
-         * find the triangle corresponding to the pixel position. This is done
-         * pretty fast by 'walking' through neighbouring triangles. Afterwards
-         * interpolate the depth value for the pixel position using barycentric
-         * coordinates (linear interpolation, tilted plane within three points). If
-         * the pixel position is outside the convex hull of the given points or is
-         * within a triangle which exceeds a specified maximum edge length, a
-         * background value is assigned.
+         * Interpolate a depth image from given z-values: every triangle is
+         * rasterized by scanlines, i.e. for each image row crossing the triangle
+         * the span of covered pixel positions is computed from its edges and
+         * the depth value of each of these pixels is interpolated using
+         * barycentric coordinates (linear interpolation, tilted plane within
+         * three points). Pixel positions outside the convex hull of the given
+         * points or only within triangles which exceed a specified maximum edge
+         * length keep the background value.
          *
          * myMaximumEdgeLength=0 - use every triangle for interpolation
          * myMaximumEdgeLength>0 - disregard triangles if the length of one edge >
          * myMaximumEdgeLength
          *
-         * Note: The triangulation offers very fast access to neighbouring
-         * triangles. It should be straightforward to implement complexer
-         * interpolation schemes which need access to a larger surrounding (not only
-         * to three points) of a given pixel position.
+         * Triangles are first sorted into bands of BAND_ROWS image rows, then
+         * the bands are filled in parallel: no pixel is ever searched for.
          */
-        private void interpolateImageLinear(int[][] til, int[][] tnbr,
-                double[] xVcl, double[] yVcl, double[] zVcl, int[] stack, // temporarily
+        private void interpolateImageLinear(final int[][] til,
+                final double[] xVcl, final double[] yVcl, final double[] zVcl, final int[] stack, // temporarily
                 // used
                 // to
                 // mark
                 // triangles
                 // to be
                 // disregarded
-                float[] myPixelValues, // depth image
-                double tol) {
+                final float[] myPixelValues, // depth image
+                final double tol) {
 
-                double x = 0.0;
-                double y = 0.0;
-                int i1 = 0;
-                int i2 = 0;
-                int triangleIndex = 1;
-                int triangleIndexBeginningOfNextLine = 1;
-                double[] bary = new double[3];
-                double[] xse = new double[3];
-                double[] yse = new double[3];
-                double sk1 = 0.0;
-                double sk2 = 0.0;
-                double sk3 = 0.0;
-
-                int za = boundaryOfImageCoordSysImage[2] + 1;
-                int sa = boundaryOfImageCoordSysImage[1] + 1;
-
-                int progressOld = 0;
-                int progressNew = 0;
-                double progressCounter = 0.0;
+                final int za = boundaryOfImageCoordSysImage[2] + 1;
+                final int sa = boundaryOfImageCoordSysImage[1] + 1;
 
                 // square maximum edge length to avoid calculation of square roots in
                 // future:
@@ -664,21 +656,15 @@ public final class TINToRaster {
                         (myMaximumEdgeLength / myPixelSize), 2);
 
                 // mark triangles to be disregarded:
-                for (i1 = 1; i1 <= numberOfTriangles; i1++) {
-                        xse[0] = xVcl[(til[0][i1])];
-                        xse[1] = xVcl[(til[1][i1])];
-                        xse[2] = xVcl[(til[2][i1])];
-                        yse[0] = yVcl[(til[0][i1])];
-                        yse[1] = yVcl[(til[1][i1])];
-                        yse[2] = yVcl[(til[2][i1])];
+                for (int i1 = 1; i1 <= numberOfTriangles; i1++) {
+                        int a = til[0][i1];
+                        int b = til[1][i1];
+                        int c = til[2][i1];
 
                         // calculate squared edge lengths and do comparison:
-                        sk3 = (Math.pow((xse[1] - xse[0]), 2) + Math.pow((yse[1] - yse[0]),
-                                2));
-                        sk2 = (Math.pow((xse[2] - xse[0]), 2) + Math.pow((yse[2] - yse[0]),
-                                2));
-                        sk1 = (Math.pow((xse[2] - xse[1]), 2) + Math.pow((yse[2] - yse[1]),
-                                2));
+                        double sk3 = (Math.pow((xVcl[b] - xVcl[a]), 2) + Math.pow((yVcl[b] - yVcl[a]), 2));
+                        double sk2 = (Math.pow((xVcl[c] - xVcl[a]), 2) + Math.pow((yVcl[c] - yVcl[a]), 2));
+                        double sk1 = (Math.pow((xVcl[c] - xVcl[b]), 2) + Math.pow((yVcl[c] - yVcl[b]), 2));
                         if (myMaximumEdgeLengthSquared <= tol) {
                                 stack[i1] = 1;
                         } else if (sk1 > myMaximumEdgeLengthSquared
@@ -690,48 +676,138 @@ public final class TINToRaster {
                         }
                 }
 
-                // go and get a value for each image pixel:
-                int i0 = 0;
-                for (i1 = 0; i1 < za; i1++) {
-                        progressCounter = ((float) (i1 + 1)) / ((float) (za));
-                        progressNew = (int) (progressCounter * 100.0);
-                        if (progressNew != progressOld) {
-                                progressOld = progressNew;
-                                IJ.showStatus("XYZ_Import generates 32-bit image: "
-                                        + Integer.toString(i1 + 1) + " of "
-                                        + Integer.toString(za + 1) + " lines");
-                                IJ.showProgress(progressCounter);
+                Arrays.fill(myPixelValues, (float) myBackground);
+
+                // sort the triangles into bands of rows (compressed lists: the
+                // triangles of band k are bandTriangles[bandStart[k]..bandStart[k+1]-1])
+                final int bandCount = (za + BAND_ROWS - 1) / BAND_ROWS;
+                final int[] bandStart = new int[bandCount + 1];
+                for (int t = 1; t <= numberOfTriangles; t++) {
+                        if (stack[t] == 1) {
+                                int first = firstRow(til, yVcl, t);
+                                int last = Math.min(za - 1, lastRow(til, yVcl, t));
+                                for (int k = first / BAND_ROWS; first <= last && k <= last / BAND_ROWS; k++) {
+                                        bandStart[k + 1]++;
+                                }
                         }
+                }
+                for (int k = 0; k < bandCount; k++) {
+                        bandStart[k + 1] += bandStart[k];
+                }
+                final int[] bandTriangles = new int[bandStart[bandCount]];
+                int[] next = Arrays.copyOf(bandStart, bandCount);
+                for (int t = 1; t <= numberOfTriangles; t++) {
+                        if (stack[t] == 1) {
+                                int first = firstRow(til, yVcl, t);
+                                int last = Math.min(za - 1, lastRow(til, yVcl, t));
+                                for (int k = first / BAND_ROWS; first <= last && k <= last / BAND_ROWS; k++) {
+                                        bandTriangles[next[k]++] = t;
+                                }
+                        }
+                }
 
-                        triangleIndex = triangleIndexBeginningOfNextLine;
-                        for (i2 = 0; i2 < sa; i2++) {
-                                y = (double) (i1);
-                                x = (double) (i2);
+                IJ.showStatus("XYZ_Import generates 32-bit image: " + Integer.toString(za) + " lines");
+                List<Future<?>> bands = new ArrayList<Future<?>>(bandCount);
+                for (int k = 0; k < bandCount; k++) {
+                        final int band = k;
+                        bands.add(POOL.submit(new Runnable() {
+
+                                @Override
+                                public void run() {
+                                        int bandFirstRow = band * BAND_ROWS;
+                                        int bandLastRow = Math.min(za, bandFirstRow + BAND_ROWS) - 1;
+                                        for (int i = bandStart[band]; i < bandStart[band + 1]; i++) {
+                                                rasterizeTriangle(bandTriangles[i], til, xVcl, yVcl, zVcl,
+                                                        myPixelValues, sa, bandFirstRow, bandLastRow, tol);
+                                        }
+                                }
+                        }));
+                }
+                try {
+                        for (int k = 0; k < bandCount; k++) {
+                                bands.get(k).get();
+                                IJ.showProgress(((double) (k + 1)) / bandCount);
+                        }
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while interpolating the image", e);
+                } catch (ExecutionException e) {
+                        throw new IllegalStateException("Cannot interpolate the image", e.getCause());
+                }
+        }
 
-                                // find the corresponding triangle by 'walking' through the
-                                // triangulation:
-                                triangleIndex = walkThroughTriangulation(x, y, bary, xVcl,
-                                        yVcl, til, tnbr, triangleIndex, tol);
+        /**
+         * First image row whose pixel centers may lie within triangle t.
+         */
+        private int firstRow(int[][] til, double[] yVcl, int t) {
+                double min = Math.min(yVcl[til[0][t]], Math.min(yVcl[til[1][t]], yVcl[til[2][t]]));
+                return Math.max(0, (int) Math.ceil(min - ROW_EPSILON));
+        }
 
-                                // interpolate pixel value using barycentric coordinates:
-                                if ((triangleIndex >= 0) && (stack[(triangleIndex)] == 1)) {
-                                        myPixelValues[i0++] = (float) (bary[0]
-                                                * zVcl[(til[0][(triangleIndex)])] + bary[1]
-                                                * zVcl[(til[1][(triangleIndex)])] + bary[2]
-                                                * zVcl[(til[2][(triangleIndex)])]);
-                                } else {
-                                        myPixelValues[i0++] = (float) myBackground;
-                                        if (triangleIndex < 0) {
-                                                triangleIndex *= (-1); // reset if
-                                        }					// point was
-                                        // outside of
-                                        // convex hull
-                                }
+        /**
+         * Last image row whose pixel centers may lie within triangle t.
+         */
+        private int lastRow(int[][] til, double[] yVcl, int t) {
+                double max = Math.max(yVcl[til[0][t]], Math.max(yVcl[til[1][t]], yVcl[til[2][t]]));
+                return (int) Math.floor(max + ROW_EPSILON);
+        }
 
-                                if (i2 == 1) {
-                                        triangleIndexBeginningOfNextLine = triangleIndex;
+        /**
+         * Fills the pixels of triangle t lying in rows [firstRow, lastRow].
+         */
+        private void rasterizeTriangle(int t, int[][] til, double[] xVcl, double[] yVcl,
+                double[] zVcl, float[] myPixelValues, int sa, int firstRow, int lastRow, double tol) {
+                int a = til[0][t];
+                int b = til[1][t];
+                int c = til[2][t];
+                double dxa = xVcl[a] - xVcl[c];
+                double dya = yVcl[a] - yVcl[c];
+                double dxb = xVcl[b] - xVcl[c];
+                double dyb = yVcl[b] - yVcl[c];
+                double det = dxa * dyb - dya * dxb;
+                if (Math.abs(det) <= tol) {
+                        return; // degenerated triangle
+                }
+
+                int from = Math.max(firstRow, firstRow(til, yVcl, t));
+                int to = Math.min(lastRow, lastRow(til, yVcl, t));
+                for (int row = from; row <= to; row++) {
+                        // horizontal span of the triangle on this row:
+                        double xmin = Double.POSITIVE_INFINITY;
+                        double xmax = Double.NEGATIVE_INFINITY;
+                        for (int e = 0; e < 3; e++) {
+                                int p = til[e][t];
+                                int q = til[(e + 1) % 3][t];
+                                double y0 = yVcl[p];
+                                double y1 = yVcl[q];
+                                if ((row < Math.min(y0, y1) - ROW_EPSILON) || (row > Math.max(y0, y1) + ROW_EPSILON)) {
+                                        continue;
+                                }
+                                double x;
+                                if (y0 == y1) {
+                                        xmin = Math.min(xmin, Math.min(xVcl[p], xVcl[q]));
+                                        xmax = Math.max(xmax, Math.max(xVcl[p], xVcl[q]));
+                                        continue;
                                 }
+                                x = xVcl[p] + (row - y0) * (xVcl[q] - xVcl[p]) / (y1 - y0);
+                                xmin = Math.min(xmin, x);
+                                xmax = Math.max(xmax, x);
+                        }
+                        if (xmin > xmax) {
+                                continue;
+                        }
 
+                        int colFrom = Math.max(0, (int) Math.ceil(xmin - ROW_EPSILON));
+                        int colTo = Math.min(sa - 1, (int) Math.floor(xmax + ROW_EPSILON));
+                        double dy = row - yVcl[c];
+                        int i0 = row * sa + colFrom;
+                        for (int col = colFrom; col <= colTo; col++) {
+                                double dx = col - xVcl[c];
+                                // interpolate pixel value using barycentric coordinates:
+                                double bary0 = (dx * dyb - dy * dxb) / det;
+                                double bary1 = (dxa * dy - dya * dx) / det;
+                                double bary2 = 1.0e0 - bary0 - bary1;
+                                myPixelValues[i0++] = (float) (bary0 * zVcl[a] + bary1 * zVcl[b] + bary2 * zVcl[c]);
                         }
                 }
         }
@@ -1238,93 +1314,4 @@ public final class TINToRaster {
                 }
                 return leftOrRightOfLine;
         }
-
-        /**
-         * Walk through neighbouring triangles of 2-D (Delaunay) triangulation until
-         * a triangle is found containing point (x,y) or (x,y) is found to be
-         * outside the convex hull. Search is guaranteed to terminate for a Delaunay
-         * triangulation, else a cycle may occur.
-         *
-         * This method is based on code originally written and copyrighted by Dr.
-         * Barry Joe, Canada. Inclusion by courtesy of Barry Joe.
-         */
-        private int walkThroughTriangulation(double x, double y,
-                double[] bary, // uses barycentric coordinates to determine where
-                // (x,y) is located
-                double[] xVcl, double[] yVcl, int[][] til, int[][] tnbr,
-                int triangleIndex, // index of triangle to begin search at
-                double tol) {
-                int i = 0;
-                for (int cnt = 1; cnt <= numberOfTriangles; cnt++) {
-                        int a = til[0][triangleIndex];
-                        int b = til[1][triangleIndex];
-                        int c = til[2][triangleIndex];
-                        double dxa = xVcl[a] - xVcl[c];
-                        double dya = yVcl[a] - yVcl[c];
-                        double dxb = xVcl[b] - xVcl[c];
-                        double dyb = yVcl[b] - yVcl[c];
-                        double dx = x - xVcl[c];
-                        double dy = y - yVcl[c];
-                        double det = dxa * dyb - dya * dxb;
-                        bary[0] = (dx * dyb - dy * dxb) / det;
-                        bary[1] = (dxa * dy - dya * dx) / det;
-                        bary[2] = 1.0e0 - bary[0] - bary[1];
-
-                        if ((bary[0] > tol) && (bary[1] > tol) && (bary[2] > tol)) {
-                                return triangleIndex; // (x,y) is in the interior of triangle
-                                // triangleIndex
-                        } else if (bary[0] < -(tol)) {
-                                i = tnbr[1][triangleIndex];
-                                if (i <= 0) {
-                                        // iedg = -2; // (x,y) is outside convex hull due to walking
-                                        // past edge 2 of triangle triangleIndex
-                                        return triangleIndex * (-1); // point is outside convex
-                                        // hull
-                                }
-                        } else if (bary[1] < -(tol)) {
-                                i = tnbr[2][triangleIndex];
-                                if (i <= 0) {
-                                        // iedg = -3; // (x,y) is outside convex hull due to walking
-                                        // past edge 3 of triangle triangleIndex
-                                        return triangleIndex * (-1); // point is outside convex
-                                        // hull
-                                }
-                        } else if (bary[2] < -(tol)) {
-                                i = tnbr[0][triangleIndex];
-                                if (i <= 0) {
-                                        // iedg = -1; // (x,y) is outside convex hull due to walking
-                                        // past edge 1 of triangle triangleIndex
-                                        return triangleIndex * (-1); // (x,y) is outside convex
-                                        // hull
-                                }
-                        } else if (bary[0] <= tol) {
-                                // if (bary[1] <= tol) {
-                                // iedg = 6; // (x,y) is (nearly) vertex 3 of triangleIndex;
-                                // }
-                                // else if (bary[2] <= tol) {
-                                // iedg = 5; // (x,y) is (nearly) vertex 2 of triangleIndex;
-                                // }
-                                // else {
-                                // iedg = 2; // (x,y) is on interior of edge 2 of triangleIndex;
-                                // }
-                                return triangleIndex;
-
-                        } else if (bary[1] <= tol) {
-                                // if (bary[2] <= tol) {
-                                // iedg = 4; // (x,y) is (nearly) vertex 1 of triangleIndex;
-                                // }
-                                // else {
-                                // iedg = 3; // (x,y) is on interior of edge 3 of triangleIndex;
-                                // }
-                                return triangleIndex;
-
-                        } else {
-                                // iedg = 1; // (x,y) is on interior of edge 1 of triangleIndex;
-                                return triangleIndex;
-                        }
-
-                        triangleIndex = i;
-                }
-                return -1; // abnormal return (cycle)
-        }
 }
@@ -53,6 +53,7 @@ import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.Polygon;
+import org.apache.log4j.Logger;
 import org.orbisgis.progress.ProgressMonitor;
 
 import org.gdms.data.DataSourceFactory;
@@ -71,19 +72,24 @@ import org.gdms.sql.function.FunctionException;
 import org.gdms.sql.function.FunctionSignature;
 import org.gdms.sql.function.ScalarArgument;
 import org.gdms.sql.function.table.AbstractTableFunction;
+import org.gdms.sql.function.table.PartitionableTableFunction;
 import org.gdms.sql.function.table.TableArgument;
 import org.gdms.sql.function.table.TableDefinition;
 import org.gdms.sql.function.table.TableFunctionSignature;
+import org.gdms.sql.function.table.TablePartition;
 
 /**
  * Split triangle into area within the specified range values.
  */
-public class ST_TriangleContouring extends AbstractTableFunction {
+public class ST_TriangleContouring extends AbstractTableFunction implements PartitionableTableFunction {
     // Parameter index of Iso intervals if the function take the Z for iso
     private static final int ISO_FIELD_ID_Z_SIGNATURE = 0;
     // Parameter index of Iso intervals if the function take other columns values for iso
     private static final int ISO_FIELD_ID_FIELD_SIGNATURE = 3;
     private static final double EPSILON = 1E-15;
+    // Below this number of triangles, the function is not split
+    private static final long MIN_PARTITIONED_ROWS = 10000;
+    private static final Logger LOG = Logger.getLogger(ST_TriangleContouring.class);
         private GeometryFactory factory = new GeometryFactory();
 
         private static boolean isoEqual(double isoValue1, double isoValue2) {
@@ -605,6 +611,30 @@ public class ST_TriangleContouring extends AbstractTableFunction {
         @Override
         public DataSet evaluate(DataSourceFactory dsf, DataSet[] tables,
                 Value[] values, ProgressMonitor pm) throws FunctionException {
+                try {
+                        return evaluate(dsf, tables, values, TablePartition.ofRows(0, tables[0].getRowCount()), pm);
+                } catch (DriverException e) {
+                        throw new FunctionException(e);
+                }
+        }
+
+        @Override
+        public TablePartition[] getPartitions(DataSet[] tables, Value[] values) throws FunctionException {
+                try {
+                        long rowCount = tables[0].getRowCount();
+                        if (rowCount < MIN_PARTITIONED_ROWS) {
+                                return null;
+                        }
+                        return TablePartition.splitRows(rowCount, Runtime.getRuntime().availableProcessors() * 4);
+                } catch (DriverException e) {
+                        throw new FunctionException(e);
+                }
+        }
+
+        @Override
+        public DataSet evaluate(DataSourceFactory dsf, DataSet[] tables,
+                Value[] values, TablePartition partition, ProgressMonitor pm) throws FunctionException {
+                DiskBufferDriver driver = null;
                 try {
                         // Declare source and Destination tables
                         final DataSet sds = tables[0];
@@ -636,11 +666,14 @@ public class ST_TriangleContouring extends AbstractTableFunction {
 
                         int fieldCount = sds.getMetadata().getFieldCount();
 
-                        final DiskBufferDriver driver = new DiskBufferDriver(dsf, this.getMetadata(new Metadata[]{tables[0].getMetadata()}));
+                        driver = new DiskBufferDriver(dsf, this.getMetadata(new Metadata[]{tables[0].getMetadata()}));
 
-                        final long rowCount = sds.getRowCount();
-                        // For each triangle
-                        for (long rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+                        final long endRow = partition.getEndRow();
+                        // For each triangle of the partition
+                        for (long rowIndex = partition.getFirstRow(); rowIndex < endRow; rowIndex++) {
+                                if (rowIndex % 100 == 0 && pm.isCancelled()) {
+                                        break;
+                                }
                                 final Geometry geometry = sds.getFieldValue(rowIndex, spatialFieldIndex).getAsGeometry();
                                 if (geometry instanceof Polygon && geometry.getNumPoints() == 4) {
                                         Coordinate[] pts = geometry.getCoordinates();
@@ -682,11 +715,22 @@ public class ST_TriangleContouring extends AbstractTableFunction {
                         }
                         driver.writingFinished();
                         driver.open();
-                        return driver;
+                        DiskBufferDriver ret = driver;
+                        driver = null;
+                        return ret;
                 } catch (DriverLoadException e) {
                         throw new FunctionException(e);
                 } catch (DriverException e) {
                         throw new FunctionException(e);
+                } finally {
+                        if (driver != null) {
+                                // releases the file of a failed evaluation
+                                try {
+                                        driver.writingFinished();
+                                } catch (DriverException e) {
+                                        LOG.warn("Cannot release the result of a failed evaluation", e);
+                                }
+                        }
                 }
         }
 
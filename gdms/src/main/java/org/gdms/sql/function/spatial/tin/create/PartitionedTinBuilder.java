@@ -0,0 +1,547 @@
+/**
+ * TANATO  is a library dedicated to the modelling of water pathways based on 
+ * triangulate irregular network. TANATO takes into account anthropogenic and 
+ * natural artifacts to evaluate their impacts on the watershed response. 
+ * It ables to compute watershed, main slope directions and water flow pathways.
+ * 
+ * This library has been originally created  by Erwan Bocher during his thesis 
+ * “Impacts des activités humaines sur le parcours des écoulements de surface dans 
+ * un bassin versant bocager : essai de modélisation spatiale. Application au 
+ * Bassin versant du Jaudy-Guindy-Bizien (France)”. It has been funded by the 
+ * Bassin versant du Jaudy-Guindy-Bizien and Syndicat d’Eau du Trégor.
+ * 
+ * The new version is developed at French IRSTV institut as part of the 
+ * AvuPur project, funded by the French Agence Nationale de la Recherche 
+ * (ANR) under contract ANR-07-VULN-01.
+ * 
+ * TANATO is distributed under GPL 3 license. It is produced by the "Atelier SIG" team of
+ * the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2010-2014 IRSTV FR CNRS 2488
+ * 
+ * TANATO is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * TANATO is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * TANATO. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.gdms.sql.function.spatial.tin.create;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.algorithm.ConvexHull;
+import com.vividsolutions.jts.geom.impl.CoordinateArraySequence;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gdms.data.DataSourceFactory;
+import org.gdms.data.values.Value;
+import org.gdms.data.values.ValueFactory;
+import org.gdms.driver.DataSet;
+import org.gdms.driver.DiskBufferDriver;
+import org.gdms.driver.DriverException;
+import org.gdms.sql.function.FunctionException;
+import org.gdms.sql.function.spatial.tin.model.TINMetadataFactory;
+import org.jdelaunay.delaunay.ConstrainedMesh;
+import org.jdelaunay.delaunay.error.DelaunayError;
+import org.jdelaunay.delaunay.geometries.DPoint;
+import org.jdelaunay.delaunay.geometries.DTriangle;
+
+/**
+ * Builds the Delaunay triangulation of a large set of points without holding
+ * the whole mesh in memory.
+ *
+ * The points are first streamed into the buckets of a regular grid, stored
+ * on disk. Each cell of the grid is then triangulated independently, on a
+ * worker pool, together with the points of its neighbour cells. The local
+ * triangles that share the same circumcircle form a polygon of the Delaunay
+ * subdivision, which does not depend on the diagonals chosen by the local
+ * triangulation when points are cocircular (regular grids...). A cell owns
+ * the polygons whose vertex centroid lies in it, and splits them into
+ * triangles the same way whatever the cell, so that every triangle is written
+ * exactly once and the triangles of neighbour cells never overlap. The
+ * triangles of a cell are only written once all the local triangles crossing
+ * the cell have their circumcircle in the area whose points have been read:
+ * they are then triangles of the global triangulation. Otherwise the
+ * neighbourhood of the cell is doubled, up to {@link #MAX_RING} cells around
+ * it, and the cell is triangulated again. Past it, {@link #build} gives up and
+ * the points must be triangulated at once.
+ *
+ * This only applies to points: constraint edges need the whole mesh.
+ */
+final class PartitionedTinBuilder {
+
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+        // number of points buffered in memory for each bucket
+        private static final int BUCKET_BUFFER = 1024;
+        // number of points added at once to the convex hull
+        private static final int HULL_BATCH = 1 << 16;
+        // largest neighbourhood of a cell, in cells around it, read to triangulate it
+        static final int MAX_RING = 4;
+        // relative tolerance of the distance of a point to a circumcircle it lies on
+        private static final double COCIRCULAR_TOLERANCE = 1e-9;
+        private final DataSet ds;
+        private final int geomFieldIndex;
+        private final Envelope extent;
+        private final int gridSize;
+        private final double cellWidth;
+        private final double cellHeight;
+        private File[] buckets;
+        // convex hull of all the points
+        private Geometry hull;
+
+        /**
+         * @param ds the points
+         * @param geomFieldIndex the index of the geometry field
+         * @param extent the extent of the points
+         * @param pointCount the number of points
+         * @param pointsPerCell the expected number of points in each cell
+         */
+        PartitionedTinBuilder(DataSet ds, int geomFieldIndex, Envelope extent, long pointCount, int pointsPerCell) {
+                this.ds = ds;
+                this.geomFieldIndex = geomFieldIndex;
+                this.extent = extent;
+                this.gridSize = Math.max(1, (int) Math.ceil(Math.sqrt((double) pointCount / pointsPerCell)));
+                this.cellWidth = extent.getWidth() > 0 ? extent.getWidth() / gridSize : 1;
+                this.cellHeight = extent.getHeight() > 0 ? extent.getHeight() / gridSize : 1;
+        }
+
+        /**
+         * Triangulates the points.
+         *
+         * @param dsf
+         * @return the triangles, with the same schema as {@link TinBuilder#getTriangles(DataSourceFactory)}.
+         * The edges are not shared between cells: their GIDs are all -1. Null if
+         * a cell cannot be triangulated from the points of its neighbourhood.
+         * @throws DriverException
+         * @throws FunctionException
+         */
+        DiskBufferDriver build(DataSourceFactory dsf) throws DriverException, FunctionException {
+                File dir = new File(dsf.getTempFile());
+                if (!dir.mkdirs()) {
+                        throw new DriverException("Cannot create the directory " + dir);
+                }
+                try {
+                        fillBuckets(dir);
+                        return triangulate(dsf);
+                } finally {
+                        if (buckets != null) {
+                                for (File f : buckets) {
+                                        f.delete();
+                                }
+                        }
+                        dir.delete();
+                }
+        }
+
+        private int getColumn(double x) {
+                return Math.max(0, Math.min(gridSize - 1, (int) Math.floor((x - extent.getMinX()) / cellWidth)));
+        }
+
+        private int getRow(double y) {
+                return Math.max(0, Math.min(gridSize - 1, (int) Math.floor((y - extent.getMinY()) / cellHeight)));
+        }
+
+        private void fillBuckets(File dir) throws DriverException {
+                buckets = new File[gridSize * gridSize];
+                double[][] buffers = new double[buckets.length][];
+                int[] counts = new int[buckets.length];
+                for (int i = 0; i < buckets.length; i++) {
+                        buckets[i] = new File(dir, i + ".bin");
+                }
+                try {
+                        GeometryFactory gf = new GeometryFactory();
+                        List<Coordinate> hullInput = new ArrayList<Coordinate>();
+                        hull = gf.createGeometryCollection(new Geometry[0]);
+                        long count = ds.getRowCount();
+                        for (long i = 0; i < count; i++) {
+                                Geometry geom = ds.getGeometry(i, geomFieldIndex);
+                                if (geom == null) {
+                                        continue;
+                                }
+                                for (Coordinate c : geom.getCoordinates()) {
+                                        hullInput.add(c);
+                                        if (hullInput.size() == HULL_BATCH) {
+                                                hull = updateHull(hull, hullInput, gf);
+                                        }
+                                        int cell = getRow(c.y) * gridSize + getColumn(c.x);
+                                        if (buffers[cell] == null) {
+                                                buffers[cell] = new double[3 * BUCKET_BUFFER];
+                                        }
+                                        double[] buffer = buffers[cell];
+                                        int k = 3 * counts[cell];
+                                        buffer[k] = c.x;
+                                        buffer[k + 1] = c.y;
+                                        buffer[k + 2] = Double.isNaN(c.z) ? 0 : c.z;
+                                        counts[cell]++;
+                                        if (counts[cell] == BUCKET_BUFFER) {
+                                                appendBucket(buckets[cell], buffer, counts[cell]);
+                                                counts[cell] = 0;
+                                        }
+                                }
+                        }
+                        hull = updateHull(hull, hullInput, gf);
+                        for (int cell = 0; cell < buckets.length; cell++) {
+                                appendBucket(buckets[cell], buffers[cell], counts[cell]);
+                        }
+                } catch (IOException ex) {
+                        throw new DriverException("Cannot write the points to the temporary buckets", ex);
+                }
+        }
+
+        private static Geometry updateHull(Geometry hull, List<Coordinate> coords, GeometryFactory gf) {
+                coords.addAll(Arrays.asList(hull.getCoordinates()));
+                Geometry newHull = new ConvexHull(coords.toArray(new Coordinate[coords.size()]), gf).getConvexHull();
+                coords.clear();
+                return newHull;
+        }
+
+        private static void appendBucket(File bucket, double[] buffer, int count) throws IOException {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(bucket, true)));
+                try {
+                        for (int i = 0; i < 3 * count; i++) {
+                                out.writeDouble(buffer[i]);
+                        }
+                } finally {
+                        out.close();
+                }
+        }
+
+        private void readBucket(int cell, List<DPoint> points) throws IOException, DelaunayError {
+                File bucket = buckets[cell];
+                long size = bucket.length() / (3 * 8);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(bucket)));
+                try {
+                        for (long i = 0; i < size; i++) {
+                                points.add(new DPoint(in.readDouble(), in.readDouble(), in.readDouble()));
+                        }
+                } finally {
+                        in.close();
+                }
+        }
+
+        private DiskBufferDriver triangulate(DataSourceFactory dsf) throws DriverException, FunctionException {
+                final DiskBufferDriver triangles = new DiskBufferDriver(dsf, TINMetadataFactory.createTrianglesMetadata());
+                final AtomicInteger gid = new AtomicInteger();
+                final AtomicBoolean failed = new AtomicBoolean();
+                List<Future<Void>> cells = new ArrayList<Future<Void>>();
+                for (int row = 0; row < gridSize; row++) {
+                        for (int col = 0; col < gridSize; col++) {
+                                final int r = row;
+                                final int c = col;
+                                cells.add(POOL.submit(new Callable<Void>() {
+
+                                        @Override
+                                        public Void call() throws Exception {
+                                                if (!failed.get() && !triangulateCell(r, c, triangles, gid)) {
+                                                        failed.set(true);
+                                                }
+                                                return null;
+                                        }
+                                }));
+                        }
+                }
+                try {
+                        for (Future<Void> f : cells) {
+                                f.get();
+                        }
+                } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new FunctionException("Generation of the mesh was interrupted.\n", ex);
+                } catch (ExecutionException ex) {
+                        if (ex.getCause() instanceof DriverException) {
+                                throw (DriverException) ex.getCause();
+                        }
+                        throw new FunctionException("Generation of the mesh failed.\n", ex.getCause());
+                } finally {
+                        for (Future<Void> f : cells) {
+                                f.cancel(false);
+                        }
+                }
+                triangles.writingFinished();
+                triangles.close();
+                return failed.get() ? null : triangles;
+        }
+
+        /**
+         * Writes the triangles owned by a cell.
+         * @return false if the neighbourhood of the cell grew past {@link #MAX_RING}
+         */
+        private boolean triangulateCell(int row, int col, DiskBufferDriver triangles, AtomicInteger gid)
+                throws IOException, DelaunayError, DriverException {
+                GeometryFactory gf = new GeometryFactory();
+                double cellMinX = extent.getMinX() + col * cellWidth;
+                double cellMinY = extent.getMinY() + row * cellHeight;
+                Envelope cell = new Envelope(cellMinX, cellMinX + cellWidth, cellMinY, cellMinY + cellHeight);
+                Geometry cellHull = gf.toGeometry(cell).intersection(hull);
+                if (cellHull.isEmpty()) {
+                        // no triangle can have its centroid out of the hull
+                        return true;
+                }
+                for (int ring = 1; ring <= MAX_RING; ring *= 2) {
+                        int minRow = Math.max(0, row - ring);
+                        int maxRow = Math.min(gridSize - 1, row + ring);
+                        int minCol = Math.max(0, col - ring);
+                        int maxCol = Math.min(gridSize - 1, col + ring);
+                        boolean whole = minRow == 0 && minCol == 0 && maxRow == gridSize - 1 && maxCol == gridSize - 1;
+
+                        List<DPoint> points = new ArrayList<DPoint>();
+                        for (int r = minRow; r <= maxRow; r++) {
+                                for (int c = minCol; c <= maxCol; c++) {
+                                        readBucket(r * gridSize + c, points);
+                                }
+                        }
+                        if (whole && points.size() < 3) {
+                                return true;
+                        }
+                        if (!whole && (points.size() < 3 || !covers(points, cellHull, gf))) {
+                                // part of the cell may be covered by triangles with
+                                // vertices we have not read yet
+                                continue;
+                        }
+
+                        // covered area, unbounded on the sides of the grid
+                        double coverMinX = minCol == 0 ? Double.NEGATIVE_INFINITY : extent.getMinX() + minCol * cellWidth;
+                        double coverMaxX = maxCol == gridSize - 1 ? Double.POSITIVE_INFINITY : extent.getMinX() + (maxCol + 1) * cellWidth;
+                        double coverMinY = minRow == 0 ? Double.NEGATIVE_INFINITY : extent.getMinY() + minRow * cellHeight;
+                        double coverMaxY = maxRow == gridSize - 1 ? Double.POSITIVE_INFINITY : extent.getMinY() + (maxRow + 1) * cellHeight;
+
+                        ConstrainedMesh mesh = new ConstrainedMesh();
+                        mesh.setPoints(points);
+                        mesh.processDelaunay();
+
+                        List<DTriangle> local = mesh.getTriangleList();
+                        Coordinate[][] vertices = new Coordinate[local.size()][];
+                        Map<Edge, List<Integer>> edges = new HashMap<Edge, List<Integer>>();
+                        for (int t = 0; t < vertices.length; t++) {
+                                DTriangle dt = local.get(t);
+                                vertices[t] = new Coordinate[]{dt.getPoint(0).getCoordinate(),
+                                        dt.getPoint(1).getCoordinate(), dt.getPoint(2).getCoordinate()};
+                                for (int k = 0; k < 3; k++) {
+                                        Edge e = new Edge(vertices[t][k], vertices[t][(k + 1) % 3]);
+                                        List<Integer> sides = edges.get(e);
+                                        if (sides == null) {
+                                                sides = new ArrayList<Integer>(2);
+                                                edges.put(e, sides);
+                                        }
+                                        sides.add(t);
+                                }
+                        }
+
+                        List<Coordinate[]> owned = new ArrayList<Coordinate[]>();
+                        boolean[] visited = new boolean[vertices.length];
+                        boolean complete = true;
+                        for (int t = 0; t < vertices.length; t++) {
+                                if (visited[t]) {
+                                        continue;
+                                }
+                                Coordinate a = vertices[t][0];
+                                Coordinate b = vertices[t][1];
+                                Coordinate c = vertices[t][2];
+                                Envelope env = new Envelope(a, b);
+                                env.expandToInclude(c);
+                                if (!env.intersects(cell)) {
+                                        continue;
+                                }
+                                if (!whole && !isFinal(a, b, c, coverMinX, coverMaxX, coverMinY, coverMaxY)) {
+                                        complete = false;
+                                        break;
+                                }
+                                // the cell owns the polygon if its vertex centroid is in it
+                                List<Coordinate> polygon = getDelaunayPolygon(t, vertices, edges, visited);
+                                double x = 0;
+                                double y = 0;
+                                for (Coordinate v : polygon) {
+                                        x += v.x;
+                                        y += v.y;
+                                }
+                                if (getRow(y / polygon.size()) == row && getColumn(x / polygon.size()) == col) {
+                                        owned.addAll(split(polygon, x / polygon.size(), y / polygon.size()));
+                                }
+                        }
+
+                        if (complete) {
+                                for (Coordinate[] triangle : owned) {
+                                        Coordinate[] coords = new Coordinate[DTriangle.PT_NB + 1];
+                                        coords[0] = triangle[0];
+                                        coords[1] = triangle[1];
+                                        coords[2] = triangle[2];
+                                        coords[3] = triangle[0];
+                                        CoordinateSequence cs = new CoordinateArraySequence(coords);
+                                        Polygon poly = new Polygon(new LinearRing(cs, gf), null, gf);
+                                        Value[] values = new Value[]{ValueFactory.createValue(poly),
+                                                ValueFactory.createValue(gid.incrementAndGet()),
+                                                ValueFactory.createValue(-1),
+                                                ValueFactory.createValue(-1),
+                                                ValueFactory.createValue(-1)};
+                                        synchronized (triangles) {
+                                                triangles.addValues(values);
+                                        }
+                                }
+                                return true;
+                        }
+                }
+                return false;
+        }
+
+        /**
+         * Gets the vertices of the polygon of the Delaunay subdivision that
+         * contains the local triangle {@code t}: the triangles reached through
+         * their edges whose vertices all lie on the circumcircle of {@code t}.
+         * These triangles are marked as visited.
+         */
+        private static List<Coordinate> getDelaunayPolygon(int t, Coordinate[][] vertices,
+                Map<Edge, List<Integer>> edges, boolean[] visited) {
+                Coordinate a = vertices[t][0];
+                Coordinate b = vertices[t][1];
+                Coordinate c = vertices[t][2];
+                double ax = a.x - c.x;
+                double ay = a.y - c.y;
+                double bx = b.x - c.x;
+                double by = b.y - c.y;
+                double d = 2 * (ax * by - bx * ay);
+                double ux = ((ax * ax + ay * ay) * by - (bx * bx + by * by) * ay) / d;
+                double uy = ((bx * bx + by * by) * ax - (ax * ax + ay * ay) * bx) / d;
+                Coordinate center = new Coordinate(c.x + ux, c.y + uy);
+                double radius = Math.sqrt(ux * ux + uy * uy);
+
+                Set<Coordinate> polygon = new LinkedHashSet<Coordinate>();
+                List<Integer> queue = new ArrayList<Integer>();
+                queue.add(t);
+                visited[t] = true;
+                for (int i = 0; i < queue.size(); i++) {
+                        Coordinate[] triangle = vertices[queue.get(i)];
+                        polygon.addAll(Arrays.asList(triangle));
+                        for (int k = 0; k < 3; k++) {
+                                for (int n : edges.get(new Edge(triangle[k], triangle[(k + 1) % 3]))) {
+                                        if (!visited[n] && isOnCircle(vertices[n], center, radius)) {
+                                                visited[n] = true;
+                                                queue.add(n);
+                                        }
+                                }
+                        }
+                }
+                return new ArrayList<Coordinate>(polygon);
+        }
+
+        private static boolean isOnCircle(Coordinate[] triangle, Coordinate center, double radius) {
+                for (Coordinate v : triangle) {
+                        // also false for the NaN radius of a flat triangle
+                        if (!(Math.abs(v.distance(center) - radius) <= COCIRCULAR_TOLERANCE * radius)) {
+                                return false;
+                        }
+                }
+                return true;
+        }
+
+        /**
+         * Splits a convex polygon into triangles, the same way whatever the
+         * order of its vertices: a fan from its smallest vertex, the others
+         * being sorted by angle around the vertex centroid.
+         */
+        private static List<Coordinate[]> split(List<Coordinate> polygon, final double x, final double y) {
+                List<Coordinate> ring = new ArrayList<Coordinate>(polygon);
+                Collections.sort(ring, new Comparator<Coordinate>() {
+
+                        @Override
+                        public int compare(Coordinate p, Coordinate q) {
+                                return Double.compare(Math.atan2(p.y - y, p.x - x), Math.atan2(q.y - y, q.x - x));
+                        }
+                });
+                int first = ring.indexOf(Collections.min(ring));
+                List<Coordinate[]> triangles = new ArrayList<Coordinate[]>(ring.size() - 2);
+                for (int k = 1; k < ring.size() - 1; k++) {
+                        triangles.add(new Coordinate[]{ring.get(first),
+                                ring.get((first + k) % ring.size()), ring.get((first + k + 1) % ring.size())});
+                }
+                return triangles;
+        }
+
+        /**
+         * Checks that the triangulation of {@code points} covers the given part
+         * of the cell: every point of it is then in a triangle of the local
+         * mesh.
+         */
+        private static boolean covers(List<DPoint> points, Geometry cellHull, GeometryFactory gf) {
+                Coordinate[] coords = new Coordinate[points.size()];
+                for (int i = 0; i < coords.length; i++) {
+                        coords[i] = points.get(i).getCoordinate();
+                }
+                return new ConvexHull(coords, gf).getConvexHull().covers(cellHull);
+        }
+
+        /**
+         * A triangle of the local mesh is a triangle of the global one if its
+         * circumcircle is in the area whose points have all been read: the
+         * circle is empty of local points, thus of all points.
+         */
+        private static boolean isFinal(Coordinate a, Coordinate b, Coordinate c,
+                double coverMinX, double coverMaxX, double coverMinY, double coverMaxY) {
+                double ax = a.x - c.x;
+                double ay = a.y - c.y;
+                double bx = b.x - c.x;
+                double by = b.y - c.y;
+                double d = 2 * (ax * by - bx * ay);
+                if (d == 0) {
+                        return false;
+                }
+                double ux = ((ax * ax + ay * ay) * by - (bx * bx + by * by) * ay) / d;
+                double uy = ((bx * bx + by * by) * ax - (ax * ax + ay * ay) * bx) / d;
+                double cx = c.x + ux;
+                double cy = c.y + uy;
+                double radius = Math.sqrt(ux * ux + uy * uy);
+                return cx - radius >= coverMinX && cx + radius <= coverMaxX
+                        && cy - radius >= coverMinY && cy + radius <= coverMaxY;
+        }
+
+        /**
+         * An edge of the local mesh, whatever the order of its vertices.
+         */
+        private static final class Edge {
+
+                private final Coordinate p;
+                private final Coordinate q;
+
+                Edge(Coordinate p, Coordinate q) {
+                        boolean ordered = p.compareTo(q) <= 0;
+                        this.p = ordered ? p : q;
+                        this.q = ordered ? q : p;
+                }
+
+                @Override
+                public boolean equals(Object obj) {
+                        if (!(obj instanceof Edge)) {
+                                return false;
+                        }
+                        Edge other = (Edge) obj;
+                        return p.equals2D(other.p) && q.equals2D(other.q);
+                }
+
+                @Override
+                public int hashCode() {
+                        return 31 * p.hashCode() + q.hashCode();
+                }
+        }
+}
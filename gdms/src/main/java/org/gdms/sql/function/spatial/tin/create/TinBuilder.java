@@ -42,6 +42,7 @@ import com.vividsolutions.jts.geom.impl.CoordinateArraySequence;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import org.apache.log4j.Logger;
 import org.gdms.data.DataSourceFactory;
 import org.gdms.data.values.Value;
 import org.gdms.data.values.ValueFactory;
@@ -62,10 +63,19 @@ import org.jdelaunay.delaunay.geometries.DTriangle;
  */
 public class TinBuilder {
 
+        /**
+         * Default number of points triangulated together when the input is
+         * too large to be triangulated at once.
+         */
+        public static final int DEFAULT_PARTITION_SIZE = 100000;
+        private static final Logger LOG = Logger.getLogger(TinBuilder.class);
         private final DataSet ds;
         private boolean intersection = true;
         private boolean flatTriangles = false;
+        private int partitionSize = DEFAULT_PARTITION_SIZE;
+        private static final int PARTITION_FACTOR = 10;
         private ConstrainedMesh mesh;
+        private PartitionedTinBuilder partitioned;
 
         public TinBuilder(DataSet ds) {
                 this.ds = ds;
@@ -74,52 +84,87 @@ public class TinBuilder {
         public void build() throws DriverException, FunctionException {
                 int geomFieldIndex = ds.getSpatialFieldIndex();
                 if (geomFieldIndex != -1) {
-                        Geometry geom;
-                        long count = ds.getRowCount();
-                        //We prepare our input structures.
-                        List<DPoint> pointsToAdd = new ArrayList<DPoint>();
-                        ArrayList<DEdge> edges = new ArrayList<DEdge>();
-                        //We fill the input structures with our table.
-                        for (long i = 0; i < count; i++) {
-
-                                geom = ds.getGeometry(i, geomFieldIndex);
-
-                                if (geom instanceof Point) {
-                                        addPoint(pointsToAdd, (Point) geom);
-                                } else if (geom instanceof MultiPoint) {
-                                        addMultiPoint(pointsToAdd, (MultiPoint) geom);
-                                } else if (geom instanceof GeometryCollection) {
-                                        addGeometryCollection(edges, (GeometryCollection) geom);
-                                } else {
-                                        addGeometry(edges, geom);
-                                }
+                        long pointCount = countPoints(geomFieldIndex);
+                        if (pointCount > PARTITION_FACTOR * partitionSize) {
+                                // too many points for a single mesh: they will be
+                                // triangulated by parts when the triangles are written
+                                partitioned = new PartitionedTinBuilder(ds, geomFieldIndex, ds.getFullExtent(),
+                                        pointCount, partitionSize);
+                                return;
                         }
-                        //We have filled the input of our mesh. We can close our source.
-                        Collections.sort(edges);
+                        buildMesh(geomFieldIndex);
+                } else {
+                        throw new FunctionException("The datasource must contain a geometry field.\n");
+                }
+        }
 
-                        //Build triangulation                        
-                        mesh = new ConstrainedMesh();
-                        mesh.setVerbose(true);
-                        try {
-                                //We actually fill the mesh
-                                mesh.setPoints(pointsToAdd);
-                                mesh.setConstraintEdges(edges);
-                                if (isIntersection()) {
-                                        //If needed, we use the intersection algorithm
-                                        mesh.forceConstraintIntegrity();
-                                }
-                                //we process delaunay
-                                mesh.processDelaunay();
-                                if (isFlatTriangles()) {
-                                        //If needed, we remove flat triangles.
-                                        mesh.removeFlatTriangles();
-                                }
-                        } catch (DelaunayError ex) {
-                                throw new FunctionException("Generation of the mesh failed.\n", ex);
+        /**
+         * Counts the points of the source, if it is only made of points that
+         * can be triangulated by parts.
+         *
+         * @return the number of points, or -1 if the whole mesh must be built at once
+         */
+        private long countPoints(int geomFieldIndex) throws DriverException {
+                long count = ds.getRowCount();
+                if (flatTriangles || count <= PARTITION_FACTOR * partitionSize) {
+                        return -1;
+                }
+                long points = 0;
+                for (long i = 0; i < count; i++) {
+                        Geometry geom = ds.getGeometry(i, geomFieldIndex);
+                        if (geom instanceof Point || geom instanceof MultiPoint) {
+                                points += geom.getNumPoints();
+                        } else if (geom != null) {
+                                // constraint edges
+                                return -1;
                         }
+                }
+                return points;
+        }
 
-                } else {
-                        throw new FunctionException("The datasource must contain a geometry field.\n");
+        private void buildMesh(int geomFieldIndex) throws DriverException, FunctionException {
+                Geometry geom;
+                long count = ds.getRowCount();
+                //We prepare our input structures.
+                List<DPoint> pointsToAdd = new ArrayList<DPoint>();
+                ArrayList<DEdge> edges = new ArrayList<DEdge>();
+                //We fill the input structures with our table.
+                for (long i = 0; i < count; i++) {
+
+                        geom = ds.getGeometry(i, geomFieldIndex);
+
+                        if (geom instanceof Point) {
+                                addPoint(pointsToAdd, (Point) geom);
+                        } else if (geom instanceof MultiPoint) {
+                                addMultiPoint(pointsToAdd, (MultiPoint) geom);
+                        } else if (geom instanceof GeometryCollection) {
+                                addGeometryCollection(edges, (GeometryCollection) geom);
+                        } else {
+                                addGeometry(edges, geom);
+                        }
+                }
+                //We have filled the input of our mesh. We can close our source.
+                Collections.sort(edges);
+
+                //Build triangulation                        
+                mesh = new ConstrainedMesh();
+                mesh.setVerbose(true);
+                try {
+                        //We actually fill the mesh
+                        mesh.setPoints(pointsToAdd);
+                        mesh.setConstraintEdges(edges);
+                        if (isIntersection()) {
+                                //If needed, we use the intersection algorithm
+                                mesh.forceConstraintIntegrity();
+                        }
+                        //we process delaunay
+                        mesh.processDelaunay();
+                        if (isFlatTriangles()) {
+                                //If needed, we remove flat triangles.
+                                mesh.removeFlatTriangles();
+                        }
+                } catch (DelaunayError ex) {
+                        throw new FunctionException("Generation of the mesh failed.\n", ex);
                 }
         }
 
@@ -139,6 +184,39 @@ public class TinBuilder {
                 this.intersection = intersection;
         }
 
+        public int getPartitionSize() {
+                return partitionSize;
+        }
+
+        /**
+         * Sets the number of points triangulated together. Sources made of
+         * more than ten times this number of points (and no constraint) are
+         * triangulated by parts, in parallel, without keeping the whole mesh
+         * in memory.
+         *
+         * @param partitionSize a number of points
+         */
+        public void setPartitionSize(int partitionSize) {
+                this.partitionSize = partitionSize;
+        }
+
+        /**
+         * @return true if the triangulation is built by parts
+         */
+        public boolean isPartitioned() {
+                return partitioned != null;
+        }
+
+        private void ensureMesh() throws DriverException {
+                if (mesh == null) {
+                        try {
+                                buildMesh(ds.getSpatialFieldIndex());
+                        } catch (FunctionException ex) {
+                                throw new DriverException(ex);
+                        }
+                }
+        }
+
         /**
          * We add a point to the given list
          * @param points
@@ -214,7 +292,18 @@ public class TinBuilder {
                 }
         }
 
-        public DiskBufferDriver getTriangles(DataSourceFactory dsf) throws DriverException {
+        public DiskBufferDriver getTriangles(DataSourceFactory dsf) throws DriverException, FunctionException {
+                if (partitioned != null) {
+                        DiskBufferDriver triangles = partitioned.build(dsf);
+                        if (triangles != null) {
+                                return triangles;
+                        }
+                        // a cell needs more points than its neighbourhood: degenerate
+                        // or very uneven input, triangulated at once
+                        LOG.warn("The points cannot be triangulated by parts, they are triangulated at once");
+                        partitioned = null;
+                        ensureMesh();
+                }
                 DiskBufferDriver triangles = new DiskBufferDriver(dsf, TINMetadataFactory.createTrianglesMetadata());
                 GeometryFactory gf = new GeometryFactory();
                 for (DTriangle dt : mesh.getTriangleList()) {
@@ -238,6 +327,7 @@ public class TinBuilder {
         }
 
         public DiskBufferDriver getEdges(DataSourceFactory dsf) throws DriverException {
+                ensureMesh();
 
                 DiskBufferDriver edges = new DiskBufferDriver(dsf, TINMetadataFactory.createEdgesMetadata());
 
@@ -264,6 +354,7 @@ public class TinBuilder {
         }
 
         public DiskBufferDriver getPoints(DataSourceFactory dsf) throws DriverException {
+                ensureMesh();
                 DiskBufferDriver points = new DiskBufferDriver(dsf, TINMetadataFactory.createPointsMetadata());
                 GeometryFactory gf = new GeometryFactory();
                 for (DPoint dt : mesh.getPoints()) {
@@ -285,5 +376,6 @@ public class TinBuilder {
 
         public void close() {
                 mesh = null;
+                partitioned = null;
         }
 }
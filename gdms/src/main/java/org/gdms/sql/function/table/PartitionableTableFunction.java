@@ -0,0 +1,81 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.sql.function.table;
+
+import org.orbisgis.progress.ProgressMonitor;
+
+import org.gdms.data.DataSourceFactory;
+import org.gdms.data.values.Value;
+import org.gdms.driver.DataSet;
+import org.gdms.sql.function.FunctionException;
+
+/**
+ * A table function whose work can be split into independent parts.
+ *
+ * The SQL engine evaluates the parts concurrently and concatenates their
+ * results, in the order of the partitions, into a single table (see
+ * {@link PartitionedEvaluation}). Thus the parts must not share mutable state,
+ * and each row of the result must be produced by exactly one part: a function
+ * split into tiles only outputs the features it owns in a tile.
+ *
+ * The tables given to the parts are read under a common lock. The parts should
+ * check the cancellation of their progress monitor; the progress they report is
+ * ignored, the caller's progress advances as the parts are merged.
+ */
+public interface PartitionableTableFunction extends TableFunction {
+
+        /**
+         * Splits the work of the function.
+         *
+         * @param tables tables involved in the query
+         * @param values values passed to the query
+         * @return the partitions, or null if the work is not worth splitting
+         * @throws FunctionException
+         */
+        TablePartition[] getPartitions(DataSet[] tables, Value[] values) throws FunctionException;
+
+        /**
+         * Executes the part of the function for the given partition.
+         *
+         * @param dsf the current DataSourceFactory
+         * @param tables tables involved in the query
+         * @param values values passed to the query
+         * @param partition the partition to process
+         * @param pm a progress monitor to report progress
+         * @return the result of this part, with the metadata of the whole result
+         * @throws FunctionException
+         */
+        DataSet evaluate(DataSourceFactory dsf, DataSet[] tables,
+                Value[] values, TablePartition partition, ProgressMonitor pm) throws FunctionException;
+}
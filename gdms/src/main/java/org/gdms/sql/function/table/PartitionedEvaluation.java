@@ -0,0 +1,204 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.sql.function.table;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.log4j.Logger;
+import org.orbisgis.progress.NullProgressMonitor;
+import org.orbisgis.progress.ProgressMonitor;
+
+import org.gdms.data.DataSourceFactory;
+import org.gdms.data.schema.Metadata;
+import org.gdms.data.values.Value;
+import org.gdms.driver.DataSet;
+import org.gdms.driver.DiskBufferDriver;
+import org.gdms.driver.DriverException;
+import org.gdms.sql.function.FunctionException;
+
+/**
+ * Evaluates a {@link PartitionableTableFunction} on a shared fork-join pool.
+ *
+ * The parts share the tables of the query through views that serialize the
+ * reads, since tables are not required to be read concurrently. Only the work
+ * done on the values read runs in parallel.
+ */
+public final class PartitionedEvaluation {
+
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+        private static final Logger LOG = Logger.getLogger(PartitionedEvaluation.class);
+
+        /**
+         * Evaluates the parts of the function concurrently and concatenates their
+         * results into a single table. If the function returns no more than one
+         * partition, it is evaluated directly.
+         *
+         * The parts see the cancellation of {@code pm}, which advances as the
+         * parts are merged. If the evaluation is cancelled, the result is empty.
+         *
+         * @param f a function
+         * @param dsf the current DataSourceFactory
+         * @param tables tables involved in the query
+         * @param values values passed to the query
+         * @param pm a progress monitor to report progress
+         * @return the result of the function
+         * @throws FunctionException
+         */
+        public static DataSet evaluate(final PartitionableTableFunction f, final DataSourceFactory dsf,
+                DataSet[] tables, final Value[] values, final ProgressMonitor pm) throws FunctionException {
+                TablePartition[] partitions = f.getPartitions(tables, values);
+                if (partitions == null || partitions.length <= 1) {
+                        return f.evaluate(dsf, tables, values, pm);
+                }
+
+                final Object readLock = new Object();
+                final DataSet[] sharedTables = new DataSet[tables.length];
+                for (int i = 0; i < tables.length; i++) {
+                        sharedTables[i] = new SynchronizedDataSet(tables[i], readLock);
+                }
+                // set when the parts that are still running must stop
+                final AtomicBoolean aborted = new AtomicBoolean();
+                final ProgressMonitor partPm = new NullProgressMonitor() {
+
+                        @Override
+                        public boolean isCancelled() {
+                                return aborted.get() || pm.isCancelled();
+                        }
+                };
+
+                List<Future<DataSet>> parts = new ArrayList<Future<DataSet>>(partitions.length);
+                for (final TablePartition partition : partitions) {
+                        parts.add(POOL.submit(new Callable<DataSet>() {
+
+                                @Override
+                                public DataSet call() throws FunctionException {
+                                        return f.evaluate(dsf, sharedTables, values, partition, partPm);
+                                }
+                        }));
+                }
+
+                pm.startTask("Merging partitions", partitions.length);
+                DiskBufferDriver result = null;
+                // index of the first part whose result has not been merged
+                int merged = 0;
+                try {
+                        Metadata[] metadata = new Metadata[tables.length];
+                        for (int i = 0; i < tables.length; i++) {
+                                metadata[i] = tables[i].getMetadata();
+                        }
+                        result = new DiskBufferDriver(dsf, f.getMetadata(metadata));
+                        for (; merged < partitions.length && !pm.isCancelled(); merged++) {
+                                DataSet part = parts.get(merged).get();
+                                try {
+                                        long rowCount = part.getRowCount();
+                                        for (long row = 0; row < rowCount; row++) {
+                                                result.addValues(part.getRow(row));
+                                        }
+                                } finally {
+                                        discard(part);
+                                }
+                                pm.progressTo(merged + 1);
+                        }
+                        if (pm.isCancelled()) {
+                                // a partial result would look complete: return nothing
+                                discard(result);
+                                result = new DiskBufferDriver(dsf, f.getMetadata(metadata));
+                        }
+                        result.writingFinished();
+                        result.open();
+                        DiskBufferDriver ret = result;
+                        result = null;
+                        return ret;
+                } catch (DriverException ex) {
+                        throw new FunctionException(ex);
+                } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new FunctionException("Interrupted while evaluating " + f.getName(), ex);
+                } catch (ExecutionException ex) {
+                        if (ex.getCause() instanceof FunctionException) {
+                                throw (FunctionException) ex.getCause();
+                        }
+                        throw new FunctionException("Cannot evaluate " + f.getName(), ex.getCause());
+                } finally {
+                        aborted.set(true);
+                        // releases the results of the parts that have not been merged
+                        for (int i = merged; i < parts.size(); i++) {
+                                discard(parts.get(i));
+                        }
+                        if (result != null) {
+                                discard(result);
+                        }
+                        pm.endTask();
+                }
+        }
+
+        /**
+         * Releases the result of a part, waiting for it if the part has already
+         * started.
+         */
+        private static void discard(Future<DataSet> part) {
+                if (part.cancel(false)) {
+                        return;
+                }
+                try {
+                        discard(part.get());
+                } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                        // already reported, or hidden by the error being reported
+                        LOG.debug("Part failed after the evaluation was aborted", ex.getCause());
+                }
+        }
+
+        private static void discard(DataSet part) {
+                if (part instanceof DiskBufferDriver) {
+                        DiskBufferDriver driver = (DiskBufferDriver) part;
+                        try {
+                                driver.writingFinished();
+                                driver.close();
+                        } catch (DriverException ex) {
+                                LOG.warn("Cannot release a partial result", ex);
+                        }
+                }
+        }
+
+        private PartitionedEvaluation() {
+        }
+}
@@ -0,0 +1,134 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.sql.function.table;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import org.cts.crs.CoordinateReferenceSystem;
+
+import org.gdms.data.schema.Metadata;
+import org.gdms.data.values.Value;
+import org.gdms.driver.AbstractDataSet;
+import org.gdms.driver.DataSet;
+import org.gdms.driver.DriverException;
+
+/**
+ * A view of a table that reads it while holding a lock, so that the parts of a
+ * {@link PartitionableTableFunction} can share tables that are not required to be
+ * read concurrently. Reads are serialized, the work done on the values is not.
+ */
+final class SynchronizedDataSet extends AbstractDataSet {
+
+        private final DataSet set;
+        private final Object lock;
+
+        /**
+         * @param set a table
+         * @param lock the lock shared by all the views that may read the same tables
+         */
+        SynchronizedDataSet(DataSet set, Object lock) {
+                this.set = set;
+                this.lock = lock;
+        }
+
+        @Override
+        public Value getFieldValue(long rowIndex, int fieldId) throws DriverException {
+                synchronized (lock) {
+                        return set.getFieldValue(rowIndex, fieldId);
+                }
+        }
+
+        @Override
+        public Value[] getRow(long rowIndex) throws DriverException {
+                synchronized (lock) {
+                        return set.getRow(rowIndex);
+                }
+        }
+
+        @Override
+        public long getRowCount() throws DriverException {
+                synchronized (lock) {
+                        return set.getRowCount();
+                }
+        }
+
+        @Override
+        public Number[] getScope(int dimension) throws DriverException {
+                synchronized (lock) {
+                        return set.getScope(dimension);
+                }
+        }
+
+        @Override
+        public Metadata getMetadata() throws DriverException {
+                synchronized (lock) {
+                        return set.getMetadata();
+                }
+        }
+
+        @Override
+        public Geometry getGeometry(long rowIndex, int fieldId) throws DriverException {
+                synchronized (lock) {
+                        return set.getGeometry(rowIndex, fieldId);
+                }
+        }
+
+        @Override
+        public Envelope getEnvelope(long rowIndex, int fieldId) throws DriverException {
+                synchronized (lock) {
+                        return set.getEnvelope(rowIndex, fieldId);
+                }
+        }
+
+        @Override
+        public Envelope getFullExtent() throws DriverException {
+                synchronized (lock) {
+                        return set.getFullExtent();
+                }
+        }
+
+        @Override
+        public CoordinateReferenceSystem getCRS() throws DriverException {
+                synchronized (lock) {
+                        return set.getCRS();
+                }
+        }
+
+        @Override
+        public int getSpatialFieldIndex() throws DriverException {
+                synchronized (lock) {
+                        return set.getSpatialFieldIndex();
+                }
+        }
+}
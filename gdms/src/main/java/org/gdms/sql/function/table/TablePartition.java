@@ -0,0 +1,159 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.sql.function.table;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * A part of the work of a {@link PartitionableTableFunction}: either a range of
+ * rows of its first table or a spatial tile.
+ */
+public final class TablePartition {
+
+        private final long firstRow;
+        private final long endRow;
+        private final Envelope tile;
+
+        private TablePartition(long firstRow, long endRow, Envelope tile) {
+                this.firstRow = firstRow;
+                this.endRow = endRow;
+                this.tile = tile;
+        }
+
+        /**
+         * Creates a partition over a range of rows.
+         *
+         * @param firstRow the first row, included
+         * @param endRow the last row, excluded
+         * @return a new partition
+         */
+        public static TablePartition ofRows(long firstRow, long endRow) {
+                if (firstRow < 0 || endRow < firstRow) {
+                        throw new IllegalArgumentException("Invalid row range: [" + firstRow + ", " + endRow + "[");
+                }
+                return new TablePartition(firstRow, endRow, null);
+        }
+
+        /**
+         * Creates a partition over a spatial tile.
+         *
+         * @param tile an envelope
+         * @return a new partition
+         */
+        public static TablePartition ofTile(Envelope tile) {
+                if (tile == null) {
+                        throw new IllegalArgumentException("The tile cannot be null");
+                }
+                return new TablePartition(-1, -1, tile);
+        }
+
+        /**
+         * Splits rows into ranges of about the same size.
+         *
+         * @param rowCount the number of rows
+         * @param count the maximum number of ranges
+         * @return the ranges, in row order
+         */
+        public static TablePartition[] splitRows(long rowCount, int count) {
+                int n = (int) Math.max(1, Math.min(count, rowCount));
+                TablePartition[] partitions = new TablePartition[n];
+                for (int i = 0; i < n; i++) {
+                        partitions[i] = ofRows(rowCount * i / n, rowCount * (i + 1) / n);
+                }
+                return partitions;
+        }
+
+        /**
+         * Splits an extent into a grid of tiles.
+         *
+         * Neighbour tiles share the exact same edge, so that a point with
+         * {@code minX <= x < maxX} and {@code minY <= y < maxY} lies in exactly
+         * one tile, apart from the points on the upper or right side of the
+         * extent.
+         *
+         * @param extent an envelope
+         * @param columns the number of tiles along X
+         * @param rows the number of tiles along Y
+         * @return the tiles, row by row from the lower left corner
+         */
+        public static TablePartition[] splitTiles(Envelope extent, int columns, int rows) {
+                TablePartition[] partitions = new TablePartition[columns * rows];
+                double width = extent.getWidth() / columns;
+                double height = extent.getHeight() / rows;
+                for (int r = 0; r < rows; r++) {
+                        for (int c = 0; c < columns; c++) {
+                                double minX = extent.getMinX() + c * width;
+                                double minY = extent.getMinY() + r * height;
+                                // the last tiles end exactly on the extent
+                                double maxX = c == columns - 1 ? extent.getMaxX() : extent.getMinX() + (c + 1) * width;
+                                double maxY = r == rows - 1 ? extent.getMaxY() : extent.getMinY() + (r + 1) * height;
+                                partitions[r * columns + c] = ofTile(new Envelope(minX, maxX, minY, maxY));
+                        }
+                }
+                return partitions;
+        }
+
+        /**
+         * @return true if this partition is a range of rows, false if it is a tile
+         */
+        public boolean isRowRange() {
+                return tile == null;
+        }
+
+        /**
+         * @return the first row of the range, included
+         */
+        public long getFirstRow() {
+                return firstRow;
+        }
+
+        /**
+         * @return the last row of the range, excluded
+         */
+        public long getEndRow() {
+                return endRow;
+        }
+
+        /**
+         * @return the tile, or null for a range of rows
+         */
+        public Envelope getTile() {
+                return tile;
+        }
+
+        @Override
+        public String toString() {
+                return isRowRange() ? "rows [" + firstRow + ", " + endRow + "[" : "tile " + tile;
+        }
+}
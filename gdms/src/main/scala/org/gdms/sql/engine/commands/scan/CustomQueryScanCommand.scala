@@ -40,7 +40,7 @@ import org.gdms.driver.DataSet
 import org.gdms.sql.engine.commands._
 import org.gdms.sql.evaluator.{CastEvaluator, Expression}
 import org.gdms.sql.function.{FunctionValidator, ScalarArgument}
-import org.gdms.sql.function.table.TableFunction
+import org.gdms.sql.function.table.{PartitionableTableFunction, PartitionedEvaluation, TableFunction}
 import org.orbisgis.progress.NullProgressMonitor
 import org.gdms.sql.engine.GdmSQLPredef._
 import org.orbisgis.progress.ProgressMonitor
@@ -125,10 +125,15 @@ class CustomQueryScanCommand(e: Seq[Expression], tables: Seq[Either[String, Outp
     children map (_ execute)
     
     pm.map(_.startTask("Running table function", 0))
-    // evaluates the function
-    ds = f.evaluate(dsf,
-                    openedTables map (_ fold(identity, _.getResult)) toArray,
-                    e map { _ evaluate(emptyRow)} toArray, pm.getOrElse(new NullProgressMonitor))
+    val t: Array[DataSet] = openedTables map (_ fold(identity, _.getResult)) toArray
+    val v = e map { _ evaluate(emptyRow)} toArray
+    val p = pm.getOrElse(new NullProgressMonitor)
+    
+    // evaluates the function, in parallel if it can be split
+    ds = f match {
+      case pf: PartitionableTableFunction => PartitionedEvaluation.evaluate(pf, dsf, t, v, p)
+      case _ => f.evaluate(dsf, t, v, p)
+    }
 
     // gives the result
     val res = (for (i <- (0l until ds.getRowCount).par.view.toIterator) yield {
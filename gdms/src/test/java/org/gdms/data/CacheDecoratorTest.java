@@ -0,0 +1,82 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.data;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import org.gdms.TestBase;
+import org.gdms.data.memory.MemorySourceDefinition;
+import org.gdms.data.types.Type;
+import org.gdms.data.types.TypeFactory;
+import org.gdms.data.values.ValueFactory;
+import org.gdms.driver.memory.MemoryDataSetDriver;
+
+public class CacheDecoratorTest extends TestBase {
+
+        @Before
+        public void setUp() throws Exception {
+                super.setUpTestsWithoutEdition();
+        }
+
+        @Test
+        public void testExtentFromEnvelopes() throws Exception {
+                // a driver without scope makes the decorator read the envelope of each row
+                MemoryDataSetDriver omd = new MemoryDataSetDriver(
+                        new String[]{"the_geom"},
+                        new Type[]{TypeFactory.createType(Type.GEOMETRY)}) {
+
+                        @Override
+                        public Number[] getScope(int dimension) {
+                                return null;
+                        }
+                };
+                GeometryFactory gf = new GeometryFactory();
+                omd.addValues(ValueFactory.createValue(gf.createPoint(new Coordinate(2, 8))));
+                omd.addValues(ValueFactory.createNullValue());
+                omd.addValues(ValueFactory.createValue(gf.createLineString(new Coordinate[]{
+                                new Coordinate(-1, 3), new Coordinate(4, 5)})));
+                sm.register("noscope", new MemorySourceDefinition(omd, "main"));
+                DataSource ds = dsf.getDataSource("noscope");
+                ds.open();
+                assertNull(ds.getEnvelope(1, 0));
+                assertEquals(new Envelope(-1, 4, 3, 8), ds.getFullExtent());
+                ds.close();
+        }
+}
@@ -0,0 +1,208 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.data.edition;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.gdms.TestBase;
+import org.gdms.data.DataSource;
+import org.gdms.data.DataSourceFactory;
+import org.gdms.data.types.Type;
+import org.gdms.data.types.TypeFactory;
+import org.gdms.data.values.Value;
+import org.gdms.data.values.ValueFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the modifications of original rows, which are buffered as cell deltas,
+ * together with the schema changes and undo/redo.
+ */
+public class DeltaEditionTest extends TestBase {
+
+        private DataSource d;
+
+        @Before
+        public void setUp() throws Exception {
+                super.setUpTestsWithEdition(false);
+                dsf.getSourceManager().register("big", getTempCopyOf(super.getAnyNonSpatialResource()));
+                d = dsf.getDataSource("big", DataSourceFactory.EDITABLE);
+                d.open();
+        }
+
+        private void assertContents(Value[][] expected) throws Exception {
+                Value[][] actual = getDataSourceContents(d);
+                assertEquals(expected.length, actual.length);
+                for (int i = 0; i < expected.length; i++) {
+                        assertEquals(expected[i].length, actual[i].length);
+                        assertTrue(equals(expected[i], actual[i]));
+                }
+        }
+
+        @Test
+        public void testModifiedRowReadsOtherFieldsFromOriginal() throws Exception {
+                Value[][] content = getDataSourceContents(d);
+                Value v = d.getFieldValue(1, 2);
+                d.setFieldValue(0, 2, v);
+                content[0][2] = v;
+                assertContents(content);
+
+                // a second cell before the first one in the same delta
+                Value v0 = d.getFieldValue(1, 0);
+                d.setFieldValue(0, 0, v0);
+                content[0][0] = v0;
+                assertContents(content);
+
+                // modifying an already modified cell
+                Value v2 = d.getFieldValue(2, 2);
+                d.setFieldValue(0, 2, v2);
+                content[0][2] = v2;
+                assertContents(content);
+
+                d.commit();
+                d.close();
+                d.open();
+                assertContents(content);
+                d.close();
+        }
+
+        @Test
+        public void testAddFieldAfterModification() throws Exception {
+                Value[][] original = getDataSourceContents(d);
+                int fc = d.getMetadata().getFieldCount();
+                d.setFieldValue(0, 1, d.getFieldValue(1, 1));
+                Value[][] modified = getDataSourceContents(d);
+
+                d.addField("newfield", TypeFactory.createType(Type.STRING));
+                assertEquals(fc + 1, d.getMetadata().getFieldCount());
+                for (int i = 0; i < d.getRowCount(); i++) {
+                        assertTrue(d.getFieldValue(i, fc).isNull());
+                        for (int j = 0; j < fc; j++) {
+                                assertTrue(equals(modified[i][j], d.getFieldValue(i, j)));
+                        }
+                }
+
+                d.setFieldValue(0, fc, ValueFactory.createValue("new"));
+                d.setFieldValue(1, fc, ValueFactory.createValue("other"));
+                assertEquals("new", d.getFieldValue(0, fc).getAsString());
+                assertEquals("other", d.getFieldValue(1, fc).getAsString());
+                assertTrue(equals(modified[0][1], d.getFieldValue(0, 1)));
+                assertTrue(equals(modified[1][0], d.getFieldValue(1, 0)));
+
+                d.undo();
+                d.undo();
+                d.undo();
+                assertContents(modified);
+                d.undo();
+                assertContents(original);
+                d.close();
+        }
+
+        @Test
+        public void testRemoveFieldBeforeModifiedField() throws Exception {
+                Value[][] original = getDataSourceContents(d);
+                Value v = d.getFieldValue(1, 2);
+                d.setFieldValue(0, 2, v);
+                d.removeField(1);
+
+                // the modified cell has been shifted with its field
+                assertTrue(equals(v, d.getFieldValue(0, 1)));
+                assertTrue(equals(original[0][0], d.getFieldValue(0, 0)));
+                for (int j = 3; j < original[0].length; j++) {
+                        assertTrue(equals(original[0][j], d.getFieldValue(0, j - 1)));
+                }
+                for (int j = 2; j < original[1].length; j++) {
+                        assertTrue(equals(original[1][j], d.getFieldValue(1, j - 1)));
+                }
+
+                d.undo();
+                assertTrue(equals(v, d.getFieldValue(0, 2)));
+                assertTrue(equals(original[0][1], d.getFieldValue(0, 1)));
+                d.undo();
+                assertContents(original);
+                d.close();
+        }
+
+        @Test
+        public void testRemoveAndRestoreModifiedField() throws Exception {
+                Value[][] original = getDataSourceContents(d);
+                Value v = d.getFieldValue(1, 1);
+                d.setFieldValue(0, 1, v);
+                Value[][] modified = getDataSourceContents(d);
+                d.removeField(1);
+                assertEquals(original[0].length - 1, d.getMetadata().getFieldCount());
+                assertTrue(equals(original[0][2], d.getFieldValue(0, 1)));
+
+                d.undo();
+                assertContents(modified);
+                d.redo();
+                assertTrue(equals(original[0][2], d.getFieldValue(0, 1)));
+                d.undo();
+                d.undo();
+                assertContents(original);
+                d.redo();
+                assertContents(modified);
+                d.close();
+        }
+
+        @Test
+        public void testUndoRedoAcrossDeltas() throws Exception {
+                int steps = 5;
+                Value[][][] states = new Value[steps + 1][][];
+                states[0] = getDataSourceContents(d);
+                for (int i = 0; i < steps; i++) {
+                        int row = i % 2;
+                        int field = (steps - i) % d.getMetadata().getFieldCount();
+                        d.setFieldValue(row, field, d.getFieldValue(row + 2, field));
+                        states[i + 1] = getDataSourceContents(d);
+                }
+
+                for (int i = steps; i > 0; i--) {
+                        assertContents(states[i]);
+                        d.undo();
+                }
+                assertContents(states[0]);
+                for (int i = 1; i <= steps; i++) {
+                        d.redo();
+                        assertContents(states[i]);
+                }
+
+                d.commit();
+                d.close();
+                d.open();
+                assertContents(states[steps]);
+                d.close();
+        }
+}
@@ -38,6 +38,7 @@ import org.junit.Test;
 import java.io.File;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Set;
 
 
 import org.gdms.TestBase;
@@ -447,6 +448,31 @@ public class IndexesTest extends TestBase {
                 ds.close();
         }
 
+        @Test
+        public void testSpatialIndexFromEnvelopes() throws Exception {
+                im.buildIndex("source", "the_geom", IndexManager.RTREE_SPATIAL_INDEX,
+                        null);
+                DataSource ds = dsf.getDataSource("source");
+                ds.open();
+                Envelope full = ds.getFullExtent();
+                Envelope query = new Envelope(full.getMinX(), full.centre().x,
+                        full.getMinY(), full.centre().y);
+                Set<Integer> expected = new HashSet<Integer>();
+                for (int i = 0; i < ds.getRowCount(); i++) {
+                        if (ds.getGeometry(i).getEnvelopeInternal().intersects(query)) {
+                                expected.add(i);
+                        }
+                }
+                Set<Integer> found = new HashSet<Integer>();
+                Iterator<Integer> it = ds.queryIndex(new DefaultSpatialIndexQuery("the_geom", query));
+                while (it.hasNext()) {
+                        found.add(it.next());
+                }
+                assertFalse(expected.isEmpty());
+                assertEquals(expected, found);
+                ds.close();
+        }
+
         @Before
         public void setUp() throws Exception {
                 super.setUpTestsWithEdition(false);
@@ -35,7 +35,12 @@ package org.gdms.data.storage;
 
 import org.junit.Test;
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.orbisgis.utils.ByteUtils;
 
 import static org.junit.Assert.*;
@@ -52,8 +57,11 @@ public class BufferManagerTest {
                 // smaller size: 50 MB
                 assertEquals(bf.getBufferSize(), 50 * 1024 * 1024);
 
+                bf.close();
+
                 bf = new BufferManager(52 * 1024 * 1024);
                 assertEquals(bf.getBufferSize(), 52 * 1024 * 1024);
+                bf.close();
         }
 
         @Test
@@ -76,7 +84,198 @@ public class BufferManagerTest {
 
                 Block bl2 = bf2.getBlock(bl.getId());
 
+                bf.close();
+                bf2.close();
+                b.close();
                 f.delete();
                 assertEquals(ByteUtils.bytesToLong(Arrays.copyOfRange(bl2.getContent(), 0, 8)), 123456789);
         }
+
+        @Test
+        public void testEvictionAndWriteBack() throws Exception {
+                // 1 MB blocks: 64 of them do not fit in a 50 MB buffer
+                MemoryBlockProvider p = new MemoryBlockProvider(12, 1024 * 1024);
+                BufferManager bf = new BufferManager(0);
+                bf.registerBlockProvider(p);
+
+                for (int i = 0; i < 64; i++) {
+                        Block b = bf.getBlock(new BlockFullId(12, i));
+                        b.setContent(ByteUtils.longToBytes(i));
+                }
+                assertEquals(64, bf.getMissCount());
+                assertTrue(bf.getEvictionCount() > 0);
+
+                bf.flush();
+                assertEquals(0, bf.getPendingWriteCount());
+                assertEquals(bf.getEvictionCount(), p.written.size());
+                for (Map.Entry<Long, byte[]> e : p.written.entrySet()) {
+                        assertEquals(e.getKey().longValue(), ByteUtils.bytesToLong(Arrays.copyOfRange(e.getValue(), 0, 8)));
+                }
+
+                // the last block is still in cache
+                long misses = bf.getMissCount();
+                Block b = bf.getBlock(new BlockFullId(12, 63));
+                assertEquals(63, ByteUtils.bytesToLong(Arrays.copyOfRange(b.getContent(), 0, 8)));
+                assertEquals(misses, bf.getMissCount());
+                assertEquals(1, bf.getHitCount());
+                bf.close();
+        }
+
+        @Test
+        public void testUnregisterWritesDirtyBlocks() throws Exception {
+                MemoryBlockProvider p = new MemoryBlockProvider(3, 64);
+                BufferManager bf = new BufferManager(0);
+                bf.registerBlockProvider(p);
+                for (int i = 0; i < 4; i++) {
+                        bf.getBlock(new BlockFullId(3, i)).setContent(ByteUtils.longToBytes(10 + i));
+                }
+                // read only: not written
+                bf.getBlock(new BlockFullId(3, 4));
+                assertEquals(0, bf.getEvictionCount());
+                assertTrue(p.written.isEmpty());
+
+                bf.unRegisterBlockProvider(p);
+                assertEquals(4, p.written.size());
+                for (int i = 0; i < 4; i++) {
+                        assertEquals(10 + i, ByteUtils.bytesToLong(Arrays.copyOfRange(p.written.get((long) i), 0, 8)));
+                }
+                bf.close();
+        }
+
+        @Test
+        public void testCloseWritesDirtyBlocks() throws Exception {
+                MemoryBlockProvider p = new MemoryBlockProvider(5, 64);
+                BufferManager bf = new BufferManager(0);
+                bf.registerBlockProvider(p);
+                bf.getBlock(new BlockFullId(5, 7)).setContent(ByteUtils.longToBytes(77));
+                bf.close();
+                assertEquals(1, p.written.size());
+                assertEquals(77, ByteUtils.bytesToLong(Arrays.copyOfRange(p.written.get(7L), 0, 8)));
+        }
+
+        @Test
+        public void testConcurrentLoadsReadOnce() throws Exception {
+                final MemoryBlockProvider p = new MemoryBlockProvider(8, 64);
+                final BufferManager bf = new BufferManager(0);
+                bf.registerBlockProvider(p);
+                final int blockCount = 32;
+                Thread[] threads = new Thread[4];
+                final Throwable[] failure = new Throwable[1];
+                for (int t = 0; t < threads.length; t++) {
+                        threads[t] = new Thread(new Runnable() {
+
+                                @Override
+                                public void run() {
+                                        try {
+                                                for (int k = 0; k < 100; k++) {
+                                                        for (int i = 0; i < blockCount; i++) {
+                                                                Block b = bf.getBlock(new BlockFullId(8, i));
+                                                                assertEquals(i, b.getId().getBlockId());
+                                                        }
+                                                }
+                                        } catch (Throwable e) {
+                                                failure[0] = e;
+                                        }
+                                }
+                        });
+                        threads[t].start();
+                }
+                for (Thread t : threads) {
+                        t.join();
+                }
+                assertNull(failure[0]);
+                // everything fits in the buffer: each block is read from the provider once
+                assertEquals(blockCount, p.reads);
+                assertEquals(blockCount, bf.getMissCount());
+                assertEquals(threads.length * 100 * blockCount - blockCount, bf.getHitCount());
+                bf.close();
+        }
+
+        @Test
+        public void testRescheduledWhileWriting() throws Exception {
+                MemoryBlockProvider p = new MemoryBlockProvider(9, 64);
+                p.writeStarted = new CountDownLatch(1);
+                p.resumeWrite = new CountDownLatch(1);
+                BufferManager bf = new BufferManager(0);
+                bf.registerBlockProvider(p);
+                BlockFullId id = new BlockFullId(9, 2);
+                Block b = bf.loadBlock(id);
+                b.setContent(ByteUtils.longToBytes(1));
+                bf.scheduleWrite(b);
+                // the background writer is writing the first version
+                assertTrue(p.writeStarted.await(10, TimeUnit.SECONDS));
+                // the pending block is loaded again, modified and evicted again
+                Block again = bf.loadBlock(id);
+                again.setContent(ByteUtils.longToBytes(2));
+                bf.scheduleWrite(again);
+                p.resumeWrite.countDown();
+                bf.flush();
+                assertEquals(0, bf.getPendingWriteCount());
+                assertEquals(2, ByteUtils.bytesToLong(Arrays.copyOfRange(p.written.get(2L), 0, 8)));
+                bf.close();
+        }
+
+        private static final class MemoryBlockProvider implements BlockProvider {
+
+                private final int groupId;
+                private final int blockSize;
+                private final Map<Long, byte[]> written = new HashMap<Long, byte[]>();
+                private int reads;
+                // when set, the first write waits for resumeWrite once writeStarted is counted down
+                private volatile CountDownLatch writeStarted;
+                private volatile CountDownLatch resumeWrite;
+
+                MemoryBlockProvider(int groupId, int blockSize) {
+                        this.groupId = groupId;
+                        this.blockSize = blockSize;
+                }
+
+                @Override
+                public int getGroupId() {
+                        return groupId;
+                }
+
+                @Override
+                public void writeBlock(Block b) throws IOException {
+                        byte[] content = b.getContent();
+                        CountDownLatch started = writeStarted;
+                        if (started != null && started.getCount() > 0) {
+                                started.countDown();
+                                try {
+                                        resumeWrite.await();
+                                } catch (InterruptedException ex) {
+                                        throw new IOException(ex);
+                                }
+                        }
+                        synchronized (this) {
+                                written.put(b.getId().getBlockId(), content);
+                        }
+                }
+
+                @Override
+                public synchronized Block readBlock(long blockId) throws IOException {
+                        reads++;
+                        byte[] content = written.get(blockId);
+                        return new Block(new BlockFullId(groupId, blockId), content == null ? new byte[blockSize] : content);
+                }
+
+                @Override
+                public Block newBlock() throws IOException {
+                        throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void truncateToBlock(long blockId) throws IOException {
+                        throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public long getNumberOfBlocks() {
+                        return Long.MAX_VALUE;
+                }
+
+                @Override
+                public void close() throws IOException {
+                }
+        }
 }
@@ -0,0 +1,91 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.data.values;
+
+import org.junit.Test;
+
+import org.gdms.data.types.Type;
+
+import static org.junit.Assert.*;
+
+public class ValueBatchTest {
+
+        @Test
+        public void testPrimitiveColumns() throws Exception {
+                ValueBatch b = new ValueBatch(new int[]{Type.INT, Type.DOUBLE, Type.BOOLEAN, Type.STRING}, 100);
+                for (int i = 0; i < 100; i++) {
+                        b.set(i, 0, ValueFactory.createValue(i));
+                        b.set(i, 1, i % 2 == 0 ? ValueFactory.createNullValue() : ValueFactory.createValue(i / 2.0));
+                        b.set(i, 2, ValueFactory.createValue(i > 50));
+                        b.set(i, 3, ValueFactory.createValue("v" + i));
+                }
+                b.setRowCount(100);
+
+                assertNotNull(b.getLongColumn(0));
+                assertNull(b.getDoubleColumn(0));
+                assertNotNull(b.getDoubleColumn(1));
+                for (int i = 0; i < 100; i++) {
+                        assertEquals(i, b.getLong(i, 0));
+                        assertEquals(i % 2 == 0, b.isNull(i, 1));
+                        assertEquals(i > 50, b.getBoolean(i, 2));
+                        assertEquals("v" + i, b.get(i, 3).getAsString());
+                }
+                assertEquals(3.5, b.getDouble(7, 1), 0);
+
+                Value v = b.get(42, 0);
+                assertEquals(Type.INT, v.getType());
+                assertEquals(42, v.getAsInt());
+                assertTrue(b.get(42, 1).isNull());
+                assertEquals(Type.DOUBLE, b.get(43, 1).getType());
+
+                b.clear();
+                assertEquals(0, b.getRowCount());
+                assertFalse(b.isNull(42, 1));
+        }
+
+        @Test
+        public void testNullBitmap() throws Exception {
+                ValueBatch b = new ValueBatch(new int[]{Type.LONG}, 130);
+                b.setNull(0, 0);
+                b.setNull(64, 0);
+                b.setNull(129, 0);
+                b.setLong(65, 0, 12L);
+                for (int i = 0; i < 130; i++) {
+                        assertEquals(i == 0 || i == 64 || i == 129, b.isNull(i, 0));
+                }
+                b.setLong(64, 0, 3L);
+                assertFalse(b.isNull(64, 0));
+                assertEquals(3L, b.get(64, 0).getAsLong());
+        }
+}
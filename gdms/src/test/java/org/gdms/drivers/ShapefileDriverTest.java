@@ -50,6 +50,7 @@ import org.gdms.data.types.Type;
 import org.gdms.data.types.TypeFactory;
 import org.gdms.data.values.GeometryCollectionValue;
 import org.gdms.data.values.Value;
+import org.gdms.data.values.ValueBatch;
 import org.gdms.data.values.ValueFactory;
 import org.gdms.driver.DriverException;
 import org.gdms.driver.memory.MemoryDataSetDriver;
@@ -67,6 +68,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Iterator;
 import org.cts.crs.CoordinateReferenceSystem;
 import org.gdms.data.types.CRSConstraint;
 
@@ -389,6 +391,55 @@ public class ShapefileDriverTest extends TestBase {
                 ds.close();
         }
 
+        @Test
+        public void testDBFBatches() throws Exception {
+                MemoryDataSetDriver omd = new MemoryDataSetDriver(
+                        new String[]{"i", "l", "d", "s", "b"},
+                        new Type[]{
+                                TypeFactory.createType(Type.INT),
+                                TypeFactory.createType(Type.LONG),
+                                TypeFactory.createType(Type.DOUBLE),
+                                TypeFactory.createType(Type.STRING),
+                                TypeFactory.createType(Type.BOOLEAN)
+                        });
+                for (int i = 0; i < 300; i++) {
+                        omd.addValues(
+                                i % 7 == 0 ? ValueFactory.createNullValue() : ValueFactory.createValue(i * 31 - 4000),
+                                ValueFactory.createValue(i * 1234567891L - 99999999L),
+                                i % 5 == 0 ? ValueFactory.createNullValue() : ValueFactory.createValue(i / 7.0 - 20),
+                                ValueFactory.createValue("s" + i),
+                                ValueFactory.createValue(i % 2 == 0));
+                }
+                sm.register("obj", new MemorySourceDefinition(omd, "main"));
+                sm.register("dbf", new FileSourceCreation(getTempFile(".dbf"), null));
+                DataSource ds = dsf.getDataSource("obj");
+                ds.open();
+                dsf.saveContents("dbf", ds);
+                ds.close();
+
+                // the batches are decoded from the record bytes, the values through getFieldValue
+                DataSource dbf = dsf.getDataSource("dbf");
+                dbf.open();
+                Iterator<ValueBatch> it = dbf.batchIterator(64);
+                long row = 0;
+                while (it.hasNext()) {
+                        ValueBatch batch = it.next();
+                        for (int r = 0; r < batch.getRowCount(); r++, row++) {
+                                for (int c = 0; c < batch.getColumnCount(); c++) {
+                                        Value expected = dbf.getFieldValue(row, c);
+                                        Value actual = batch.get(r, c);
+                                        if (expected.isNull()) {
+                                                assertTrue(actual.isNull());
+                                        } else {
+                                                assertTrue(expected.equals(actual).getAsBoolean());
+                                        }
+                                }
+                        }
+                }
+                assertEquals(dbf.getRowCount(), row);
+                dbf.close();
+        }
+
         @Test
         public void testReadAndWriteSHP() throws Exception {
                 DataSource ds = dsf.getDataSource(getTempCopyOf(new File(
@@ -525,4 +576,55 @@ public class ShapefileDriverTest extends TestBase {
                         new WKTWriter(3).write(geom));
             }
         }
+
+        @Test
+        public void testEnvelopeAt() throws Exception {
+                File shp = new File(TestResourceHandler.TESTRESOURCES, "landcover2000.shp");
+                try (FileInputStream shpFis = new FileInputStream(shp);
+                     FileInputStream shxFis = new FileInputStream(FileUtils.getFileWithExtension(shp, "shx"))) {
+                        ShapefileReader reader = new ShapefileReader(shpFis.getChannel());
+                        IndexFile shxFile = new IndexFile(shxFis.getChannel());
+                        for (int i = 0; i < shxFile.getRecordCount(); i++) {
+                                Envelope env = reader.envelopeAt(shxFile.getOffset(i));
+                                Geometry geom = reader.geomAt(shxFile.getOffset(i));
+                                assertEquals(geom.getEnvelopeInternal(), env);
+                        }
+                }
+        }
+
+        @Test
+        public void testEnvelopeOfPoints() throws Exception {
+                DataSource ds = dsf.getDataSource(new File(TestResourceHandler.TESTRESOURCES, "points.shp"));
+                ds.open();
+                for (int i = 0; i < ds.getRowCount(); i++) {
+                        assertEquals(ds.getGeometry(i).getEnvelopeInternal(), ds.getEnvelope(i, 0));
+                }
+                ds.close();
+        }
+
+        @Test
+        public void testEnvelopeOfNullShape() throws Exception {
+                MemoryDataSetDriver omd = new MemoryDataSetDriver(
+                        new String[]{"the_geom", "id"},
+                        new Type[]{
+                                TypeFactory.createType(Type.POINT),
+                                TypeFactory.createType(Type.STRING)
+                        });
+                omd.addValues(ValueFactory.createValue(new GeometryFactory().createPoint(new Coordinate(3, 4))),
+                        ValueFactory.createValue("0"));
+                omd.addValues(ValueFactory.createNullValue(), ValueFactory.createValue("1"));
+                sm.register("obj", new MemorySourceDefinition(omd, "main"));
+                DataSource ds = dsf.getDataSource("obj");
+                sm.register("buffer", new FileSourceCreation(getTempFile(".shp"), null));
+                ds.open();
+                dsf.saveContents("buffer", ds);
+                ds.close();
+
+                DataSource otherDs = dsf.getDataSource("buffer");
+                otherDs.open();
+                assertEquals(new Envelope(3, 3, 4, 4), otherDs.getEnvelope(0, 0));
+                assertTrue(otherDs.isNull(1, 0));
+                assertNull(otherDs.getEnvelope(1, 0));
+                otherDs.close();
+        }
 }
\ No newline at end of file
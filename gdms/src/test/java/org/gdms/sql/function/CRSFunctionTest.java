@@ -34,9 +34,11 @@
 package org.gdms.sql.function;
 
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Polygon;
 import com.vividsolutions.jts.io.WKTReader;
 import org.gdms.TestBase;
 import org.gdms.data.DataSource;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
@@ -111,4 +113,24 @@ public class CRSFunctionTest extends TestBase {
         assertTrue(ds.getGeometry(0).equalsExact(targetGeom, 0.01));
         ds.close();
     }
+
+    @Test
+    public void testST_TransformPolygonWithHole() throws Exception {
+        dsf.executeSQL("CREATE TABLE init AS SELECT 'POLYGON((584000 2594000, 585000 2594000, 585000 2595000, 584000 2595000, 584000 2594000), "
+                + "(584173.736059813 2594514.82833411, 584500 2594514.82833411, 584500 2594800, 584173.736059813 2594514.82833411))'::GEOMETRY as the_geom;");
+        WKTReader wKTReader = new WKTReader();
+        Geometry targetGeom = wKTReader.read("POINT(2.114551393 50.345609791)");
+        DataSource ds = dsf.getDataSourceFromSQL("SELECT ST_TRANSFORM(ST_SetSRID(the_geom, 'EPSG:27572'), 'EPSG:4326') from init;");
+        ds.open();
+        Polygon p = (Polygon) ds.getGeometry(0);
+        assertEquals(5, p.getExteriorRing().getNumPoints());
+        assertEquals(1, p.getNumInteriorRing());
+        assertEquals(4, p.getInteriorRingN(0).getNumPoints());
+        assertTrue(p.getInteriorRingN(0).getStartPoint().equalsExact(targetGeom, 0.01));
+        ds.close();
+        DataSource source = dsf.getDataSourceFromSQL("SELECT * from init;");
+        source.open();
+        assertEquals(584173.736059813, ((Polygon) source.getGeometry(0)).getInteriorRingN(0).getCoordinateN(0).x, 0);
+        source.close();
+    }
 }
@@ -47,10 +47,12 @@ import org.gdms.data.values.ValueFactory;
 import org.gdms.sql.FunctionTest;
 import org.gdms.sql.function.spatial.geometry.create.ST_CreateGrid;
 import org.gdms.sql.function.spatial.geometry.create.ST_CreatePointsGrid;
+import org.gdms.sql.function.spatial.geometry.create.ST_CreateWebGrid;
 import org.gdms.sql.function.spatial.geometry.create.ST_Expand;
 import org.gdms.sql.function.spatial.geometry.create.ST_MakeEnvelope;
 import org.gdms.sql.function.spatial.geometry.create.ST_RemoveDuplicateCoordinate;
 import org.gdms.sql.function.spatial.geometry.properties.ST_Extent;
+import org.gdms.sql.function.table.PartitionedEvaluation;
 import org.orbisgis.progress.NullProgressMonitor;
 
 import static org.junit.Assert.*;
@@ -207,6 +209,99 @@ public class CreateFunctionTest extends FunctionTest {
                 checkGrid(result, false);
         }
         
+        /**
+         * Test to create a regular square grid clipped by the input geometries
+         * @throws Exception
+         */
+        @Test
+        public void testST_CreateClippedSquareGRID() throws Exception {
+                ST_CreateGrid sT_CreateGrid = new ST_CreateGrid();
+                Polygon polygon = (Polygon) wktReader.read("POLYGON((0 0, 1 0, 1 0, 2 10, 0 0 ))");
+
+                // first datasource
+                final MemoryDataSetDriver driver1 = new MemoryDataSetDriver(
+                        new String[]{"the_geom"},
+                        new Type[]{TypeFactory.createType(Type.POLYGON)});
+                // insert all filled rows...
+                driver1.addValues(new Value[]{ValueFactory.createValue(polygon)});
+
+                Value[] values = new Value[]{ValueFactory.createValue(1), ValueFactory.createValue(1), ValueFactory.createValue(true)};
+
+                DataSet[] tables = new DataSet[]{driver1};
+                DataSet result = sT_CreateGrid.evaluate(dsf, tables, values, new NullProgressMonitor());
+                assertTrue(result.getRowCount() > 0);
+                assertTrue(result.getRowCount() < 20);
+                for (long i = 0; i < result.getRowCount(); i++) {
+                        assertTrue(polygon.intersects(result.getGeometry(i, 0)));
+                }
+                checkGrid(result, false);
+        }
+
+        /**
+         * Test that a large clipped grid gives the same cells when it is split
+         * into tiles
+         * @throws Exception
+         */
+        @Test
+        public void testST_CreateClippedGRIDByTiles() throws Exception {
+                final MemoryDataSetDriver driver1 = new MemoryDataSetDriver(
+                        new String[]{"the_geom"},
+                        new Type[]{TypeFactory.createType(Type.POLYGON)});
+                driver1.addValues(new Value[]{ValueFactory.createValue(wktReader.read("POLYGON((0 0, 400 0, 0 300, 0 0))"))});
+                driver1.addValues(new Value[]{ValueFactory.createValue(wktReader.read("POLYGON((300 250, 400 250, 400 300, 300 300, 300 250))"))});
+                DataSet[] tables = new DataSet[]{driver1};
+
+                Value[][] allValues = new Value[][]{
+                        new Value[]{ValueFactory.createValue(1), ValueFactory.createValue(1), ValueFactory.createValue(true)},
+                        new Value[]{ValueFactory.createValue(1), ValueFactory.createValue(1), ValueFactory.createValue(15),
+                                ValueFactory.createValue(true)}};
+                for (Value[] values : allValues) {
+                        assertTrue(new ST_CreateGrid().getPartitions(tables, values).length > 1);
+                        DataSet serial = new ST_CreateGrid().evaluate(dsf, tables, values, new NullProgressMonitor());
+                        DataSet tiled = PartitionedEvaluation.evaluate(new ST_CreateGrid(), dsf, tables, values,
+                                new NullProgressMonitor());
+                        assertTrue(serial.getRowCount() > 0);
+                        assertEquals(serial.getRowCount(), tiled.getRowCount());
+                        for (long i = 0; i < serial.getRowCount(); i++) {
+                                assertTrue(serial.getGeometry(i, 0).equalsExact(tiled.getGeometry(i, 0)));
+                                assertEquals(serial.getFieldValue(i, 1).getAsInt(), tiled.getFieldValue(i, 1).getAsInt());
+                        }
+                }
+        }
+
+        /**
+         * Test to create a polar grid with wide sectors clipped by the input geometries
+         * @throws Exception
+         */
+        @Test
+        public void testST_CreateClippedWebGRID() throws Exception {
+                ST_CreateWebGrid sT_CreateWebGrid = new ST_CreateWebGrid();
+                final MemoryDataSetDriver driver1 = new MemoryDataSetDriver(
+                        new String[]{"the_geom"},
+                        new Type[]{TypeFactory.createType(Type.POLYGON)});
+                driver1.addValues(new Value[]{ValueFactory.createValue(wktReader.read("POLYGON((0 0, 1 0, 1 1, 0 1, 0 0))"))});
+                driver1.addValues(new Value[]{ValueFactory.createValue(wktReader.read("POLYGON((4.5 9, 5.5 9, 5.5 10, 4.5 10, 4.5 9))"))});
+                DataSet[] tables = new DataSet[]{driver1};
+
+                // three sectors of 120 degrees
+                DataSet all = sT_CreateWebGrid.evaluate(dsf, tables, new Value[]{ValueFactory.createValue(1),
+                                ValueFactory.createValue(8)}, new NullProgressMonitor());
+                DataSet clipped = sT_CreateWebGrid.evaluate(dsf, tables, new Value[]{ValueFactory.createValue(1),
+                                ValueFactory.createValue(8), ValueFactory.createValue(true)}, new NullProgressMonitor());
+                assertTrue(all.getFullExtent().contains(driver1.getFullExtent()));
+
+                int kept = 0;
+                for (long i = 0; i < all.getRowCount(); i++) {
+                        Geometry cell = all.getGeometry(i, 0);
+                        if (cell.intersects(driver1.getGeometry(0, 0)) || cell.intersects(driver1.getGeometry(1, 0))) {
+                                assertEquals(all.getFieldValue(i, 1).getAsInt(), clipped.getFieldValue(kept, 1).getAsInt());
+                                kept++;
+                        }
+                }
+                assertTrue(kept > 0);
+                assertEquals(kept, clipped.getRowCount());
+        }
+
         private void checkGrid(final DataSet dataSource, final boolean checkCentroid)
                 throws Exception {
                 final long rowCount = dataSource.getRowCount();
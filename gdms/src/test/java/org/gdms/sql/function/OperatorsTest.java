@@ -33,6 +33,13 @@
  */
 package org.gdms.sql.function;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.operation.union.UnaryUnionOp;
 import org.junit.Test;
 import org.gdms.data.types.Type;
 import org.gdms.data.values.Value;
@@ -151,6 +158,41 @@ public class OperatorsTest extends FunctionTest {
                 assertTrue(evaluateAggregatedZeroRows(new ST_GeomUnion()).isNull());
         }
 
+        private void assertSameUnion(Geometry expected, Value actual) {
+                Geometry g = actual.getAsGeometry();
+                assertEquals(expected.getArea(), g.getArea(), 1e-6);
+                assertEquals(0, expected.symDifference(g).getArea(), 1e-6);
+        }
+
+        @Test
+        public void testGeomUnionByBatches() throws Exception {
+                // more rows than several 4096 rows batches, overlapping squares around a hole
+                GeometryFactory gf = new GeometryFactory();
+                List<Geometry> all = new ArrayList<Geometry>();
+                for (int i = 0; i < 120; i++) {
+                        for (int j = 0; j < 120; j++) {
+                                if (i < 50 || i > 60 || j < 50 || j > 60) {
+                                        all.add(gf.toGeometry(new Envelope(i, i + 1.5, j, j + 1.5)));
+                                }
+                        }
+                }
+                assertTrue(all.size() > 3 * 4096);
+
+                ST_GeomUnion function = new ST_GeomUnion();
+                int partial = 5000;
+                for (int i = 0; i < partial; i++) {
+                        function.evaluate(dsf, ValueFactory.createValue(all.get(i)));
+                }
+                // an intermediate result does not stop the aggregation
+                assertSameUnion(UnaryUnionOp.union(all.subList(0, partial)), function.getAggregateResult());
+                for (int i = partial; i < all.size(); i++) {
+                        function.evaluate(dsf, ValueFactory.createValue(all.get(i)));
+                }
+                Geometry expected = UnaryUnionOp.union(all);
+                assertEquals(1, expected.getNumGeometries());
+                assertSameUnion(expected, function.getAggregateResult());
+        }
+
         @Test
         public void testIntersection() throws Exception {
                 // Test null input
@@ -70,6 +70,25 @@ public class PredicatesTest extends FunctionTest {
                 testPredicate(new ST_Touches(), JTSMultiPolygon2D, JTSMultiLineString2D);
         }
 
+        @Test
+        public void testPredicatesWithInvariantArgument() throws Exception {
+                Geometry[] others = new Geometry[]{JTSMultiLineString2D, JTSMultiPoint2D, JTSPoint2D,
+                        JTSLineString2D, JTSPolygon2D, JTSMultiPolygon2D};
+                ST_Intersects intersects = new ST_Intersects();
+                ST_Contains contains = new ST_Contains();
+                ST_IsWithin within = new ST_IsWithin();
+                // the same area is given at each evaluation, the prepared geometry is used after the first one
+                for (int k = 0; k < 2; k++) {
+                        for (Geometry g : others) {
+                                Value area = ValueFactory.createValue((Geometry) JTSPolygon2D.clone());
+                                Value other = ValueFactory.createValue(g);
+                                assertEquals(JTSPolygon2D.intersects(g), evaluate(intersects, area, other).getAsBoolean());
+                                assertEquals(JTSPolygon2D.contains(g), evaluate(contains, area, other).getAsBoolean());
+                                assertEquals(g.within(JTSPolygon2D), evaluate(within, other, area).getAsBoolean());
+                        }
+                }
+        }
+
         private void testPredicate(ScalarFunction function, Geometry g1, Geometry g2)
                 throws Exception {
                 // Test null input
@@ -41,11 +41,17 @@ import org.gdms.data.values.ValueFactory;
 import org.gdms.driver.DataSet;
 import org.gdms.driver.memory.MemoryDataSetDriver;
 import org.gdms.sql.FunctionTest;
+import org.gdms.sql.function.spatial.raster.TiledRasterProcessor;
+import org.gdms.sql.function.spatial.raster.TiledRasterProcessor.Tile;
 import org.gdms.sql.function.spatial.raster.convert.ST_RasterToPolygons;
 import org.gdms.sql.function.spatial.raster.properties.ST_PixelValue;
+import ij.process.ShortProcessor;
 import org.grap.model.GeoRaster;
 import org.grap.model.GeoRasterFactory;
 import org.grap.model.RasterMetadata;
+import org.grap.processing.Operation;
+import org.grap.processing.operation.hydrology.D8OpDirection;
+import org.grap.processing.operation.hydrology.D8OpSlope;
 import org.junit.Test;
 import org.orbisgis.progress.NullProgressMonitor;
 import static org.junit.Assert.*;
@@ -105,4 +111,66 @@ public class RasterFunctionTest extends FunctionTest {
 
                 assertTrue((result.getAsFloat() - 1) < 10E6);
         }
+
+        @Test
+        public void testTiledFocalOperation() throws Exception {
+                float[] pixels = new float[]{
+                        10, 11, 12, 13,
+                        11, 13, 15, 14,
+                        12, 15, 18, 16,
+                        13, 14, 16, 20,
+                        12, 13, 15, 17};
+                RasterMetadata rasterMetadata = new RasterMetadata(0, 5, 1, -1, 4, 5, -9999);
+                GeoRaster georaster = GeoRasterFactory.createGeoRaster(pixels, rasterMetadata);
+
+                GeoRaster expected = georaster.doOperation(new D8OpSlope());
+                GeoRaster tiled = new TiledRasterProcessor(2, 1).processTiles(georaster, new TiledRasterProcessor.OperationFactory() {
+
+                        @Override
+                        public Operation createOperation(Tile tile) {
+                                return new D8OpSlope();
+                        }
+                });
+
+                assertEquals(expected.getWidth(), tiled.getWidth());
+                assertEquals(expected.getHeight(), tiled.getHeight());
+                for (int y = 0; y < expected.getHeight(); y++) {
+                        for (int x = 0; x < expected.getWidth(); x++) {
+                                assertEquals(expected.getImagePlus().getProcessor().getPixelValue(x, y),
+                                        tiled.getImagePlus().getProcessor().getPixelValue(x, y), 1e-6);
+                        }
+                }
+        }
+
+        @Test
+        public void testTiledDirectionKeepsPixelType() throws Exception {
+                short[] pixels = new short[]{
+                        10, 11, 12, 13,
+                        11, 13, 15, 14,
+                        12, 15, 18, 16,
+                        13, 14, 16, 20,
+                        12, 13, 15, 17,
+                        11, 12, 14, 16};
+                RasterMetadata rasterMetadata = new RasterMetadata(0, 6, 1, -1, 4, 6, -9999);
+                GeoRaster georaster = GeoRasterFactory.createGeoRaster(new ShortProcessor(4, 6, pixels, null), rasterMetadata);
+
+                GeoRaster expected = georaster.doOperation(new D8OpDirection());
+                GeoRaster tiled = new TiledRasterProcessor(2, 1).processTiles(georaster, new TiledRasterProcessor.OperationFactory() {
+
+                        @Override
+                        public Operation createOperation(Tile tile) {
+                                return new D8OpDirection();
+                        }
+                });
+
+                assertEquals(expected.getImagePlus().getProcessor().getClass(),
+                        tiled.getImagePlus().getProcessor().getClass());
+                assertEquals(expected.getMetadata().getNoDataValue(), tiled.getMetadata().getNoDataValue(), 0);
+                for (int y = 0; y < expected.getHeight(); y++) {
+                        for (int x = 0; x < expected.getWidth(); x++) {
+                                assertEquals(expected.getImagePlus().getProcessor().getPixelValue(x, y),
+                                        tiled.getImagePlus().getProcessor().getPixelValue(x, y), 1e-6);
+                        }
+                }
+        }
 }
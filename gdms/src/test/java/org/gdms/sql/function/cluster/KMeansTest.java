@@ -0,0 +1,90 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.sql.function.cluster;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class KMeansTest {
+
+        private double[] createBlobs(int n) {
+                Random random = new Random(3);
+                double[] points = new double[2 * n];
+                for (int i = 0; i < n; i++) {
+                        int blob = i % 3;
+                        points[2 * i] = blob * 10 + random.nextGaussian();
+                        points[2 * i + 1] = blob * 5 + random.nextGaussian();
+                }
+                return points;
+        }
+
+        @Test
+        public void testSeparatedClusters() {
+                int n = 30000;
+                KMeans kMeans = new KMeans(createBlobs(n), 2);
+                int[] clusters = kMeans.cluster(3);
+
+                assertEquals(n, clusters.length);
+                assertTrue(clusters[0] != clusters[1] && clusters[1] != clusters[2] && clusters[0] != clusters[2]);
+                for (int i = 3; i < n; i++) {
+                        assertEquals(clusters[i % 3], clusters[i]);
+                }
+                double[] centroids = kMeans.getCentroids();
+                assertEquals(0, centroids[2 * clusters[0]], 0.1);
+                assertEquals(10, centroids[2 * clusters[1]], 0.1);
+                assertEquals(20, centroids[2 * clusters[2]], 0.1);
+        }
+
+        @Test
+        public void testMiniBatch() {
+                int n = 30000;
+                KMeans kMeans = new KMeans(createBlobs(n), 2);
+                kMeans.setMiniBatchSize(500);
+                int[] clusters = kMeans.cluster(3);
+
+                double[] centroids = kMeans.getCentroids();
+                assertEquals(0, centroids[2 * clusters[0]], 0.5);
+                assertEquals(10, centroids[2 * clusters[1]], 0.5);
+                assertEquals(20, centroids[2 * clusters[2]], 0.5);
+        }
+
+        @Test
+        public void testFewerPointsThanClusters() {
+                KMeans kMeans = new KMeans(new double[]{0, 0, 1, 1}, 2);
+                int[] clusters = kMeans.cluster(5);
+                assertEquals(2, clusters.length);
+                assertTrue(clusters[0] != clusters[1]);
+        }
+}
@@ -0,0 +1,107 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.sql.function.spatial.geometry.qa;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.orbisgis.progress.NullProgressMonitor;
+
+import org.gdms.TestBase;
+import org.gdms.data.types.Type;
+import org.gdms.data.types.TypeFactory;
+import org.gdms.data.values.Value;
+import org.gdms.data.values.ValueFactory;
+import org.gdms.driver.DiskBufferDriver;
+import org.gdms.driver.memory.MemoryDataSetDriver;
+
+import static org.junit.Assert.*;
+
+public class InternalGapFinderTest extends TestBase {
+
+        private GeometryFactory gf = new GeometryFactory();
+
+        @Before
+        public void setUp() throws Exception {
+                super.setUpTestsWithoutEdition();
+        }
+
+        private void addBox(MemoryDataSetDriver driver, int id, double minX, double maxX, double minY, double maxY)
+                throws Exception {
+                Geometry box = gf.toGeometry(new Envelope(minX, maxX, minY, maxY));
+                driver.addValues(ValueFactory.createValue(id), ValueFactory.createValue(box),
+                        ValueFactory.createValue("box" + id));
+        }
+
+        @Test
+        public void testGapWithTwoIslands() throws Exception {
+                // the geometry is not the first field and is followed by another one
+                MemoryDataSetDriver driver = new MemoryDataSetDriver(
+                        new String[]{"id", "the_geom", "name"},
+                        new Type[]{TypeFactory.createType(Type.INT),
+                                TypeFactory.createType(Type.POLYGON),
+                                TypeFactory.createType(Type.STRING)});
+                // a frame around the [3, 7] x [3, 7] gap
+                addBox(driver, 1, 0, 10, 0, 3);
+                addBox(driver, 2, 0, 10, 7, 10);
+                addBox(driver, 3, 0, 3, 3, 7);
+                addBox(driver, 4, 7, 10, 3, 7);
+                // two islands inside the gap
+                addBox(driver, 5, 3.5, 4.5, 3.5, 4.5);
+                addBox(driver, 6, 5.5, 6.5, 5.5, 6.5);
+
+                InternalGapFinder finder = new InternalGapFinder(dsf, driver, 1, new NullProgressMonitor());
+                finder.findGaps();
+                DiskBufferDriver result = finder.getDriver();
+                try {
+                        assertEquals(1, result.getRowCount());
+                        assertEquals(3, result.getMetadata().getFieldCount());
+                        Value[] row = new Value[3];
+                        for (int i = 0; i < row.length; i++) {
+                                row[i] = result.getFieldValue(0, i);
+                        }
+                        assertTrue(row[0].isNull());
+                        assertTrue(row[2].isNull());
+                        Geometry gap = row[1].getAsGeometry();
+                        // both islands are subtracted from the gap
+                        assertEquals(16 - 1 - 1, gap.getArea(), 1e-9);
+                        assertFalse(gap.intersects(gf.toGeometry(new Envelope(3.6, 4.4, 3.6, 4.4))));
+                        assertFalse(gap.intersects(gf.toGeometry(new Envelope(5.6, 6.4, 5.6, 6.4))));
+                } finally {
+                        result.close();
+                }
+        }
+}
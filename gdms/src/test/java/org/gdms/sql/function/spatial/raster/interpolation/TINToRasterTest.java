@@ -0,0 +1,91 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.sql.function.spatial.raster.interpolation;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the scanline rasterization of the TIN with the former location of
+ * the triangle of each pixel, {@link WalkTINToRaster}. Interpolated pixels
+ * match to 1e-4, the background pixels match exactly.
+ */
+public class TINToRasterTest {
+
+        private void assertSameRaster(double pixelSize, int n, long seed) {
+                Random r = new Random(seed);
+                double[] x = new double[n];
+                double[] y = new double[n];
+                double[] z = new double[n];
+                double minZ = Double.MAX_VALUE;
+                for (int i = 0; i < n; i++) {
+                        x[i] = 1000 + r.nextDouble() * 60;
+                        y[i] = 2000 + r.nextDouble() * 45;
+                        z[i] = r.nextDouble() * 100;
+                        minZ = Math.min(minZ, z[i]);
+                }
+
+                float[] walk = (float[]) new WalkTINToRaster(pixelSize, n, x, y, z)
+                        .getGeoRaster().getImagePlus().getProcessor().getPixels();
+                float[] scan = (float[]) new TINToRaster(pixelSize, n, x, y, z)
+                        .getGeoRaster().getImagePlus().getProcessor().getPixels();
+
+                assertEquals(walk.length, scan.length);
+                // the background is the minimum z
+                float backgroundValue = (float) minZ;
+                int background = 0;
+                for (int i = 0; i < walk.length; i++) {
+                        // pixels on a shared edge may be interpolated in either triangle
+                        assertEquals("pixel " + i, walk[i], scan[i], 1e-4);
+                        if (walk[i] == backgroundValue) {
+                                background++;
+                        }
+                }
+                // some pixels are outside of the convex hull
+                assertTrue(background > 0);
+        }
+
+        @Test
+        public void testSamePixels() throws Exception {
+                assertSameRaster(1, 50, 42);
+        }
+
+        @Test
+        public void testSamePixelsSmallPixels() throws Exception {
+                assertSameRaster(0.25, 200, 7);
+        }
+}
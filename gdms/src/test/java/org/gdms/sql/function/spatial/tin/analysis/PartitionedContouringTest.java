@@ -0,0 +1,123 @@
+/**
+ * The GDMS library (Generic Datasource Management System)
+ * is a middleware dedicated to the management of various kinds of
+ * data-sources such as spatial vectorial data or alphanumeric. Based
+ * on the JTS library and conform to the OGC simple feature access
+ * specifications, it provides a complete and robust API to manipulate
+ * in a SQL way remote DBMS (PostgreSQL, H2...) or flat files (.shp,
+ * .csv...).
+ *
+ * Gdms is distributed under GPL 3 license. It is produced by the "Atelier SIG"
+ * team of the IRSTV Institute <http://www.irstv.fr/> CNRS FR 2488.
+ *
+ * Copyright (C) 2007-2014 IRSTV FR CNRS 2488
+ *
+ * This file is part of Gdms.
+ *
+ * Gdms is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Gdms is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Gdms. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ *
+ * or contact directly:
+ * info@orbisgis.org
+ */
+package org.gdms.sql.function.spatial.tin.analysis;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.orbisgis.progress.NullProgressMonitor;
+
+import org.gdms.TestBase;
+import org.gdms.data.types.Type;
+import org.gdms.data.types.TypeFactory;
+import org.gdms.data.values.Value;
+import org.gdms.data.values.ValueFactory;
+import org.gdms.driver.DataSet;
+import org.gdms.driver.memory.MemoryDataSetDriver;
+import org.gdms.sql.function.table.PartitionedEvaluation;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that ST_TriangleContouring gives the same result by partitions as in
+ * one piece.
+ */
+public class PartitionedContouringTest extends TestBase {
+
+        private DataSet[] tables;
+        private Value[] values;
+
+        @Before
+        public void setUp() throws Exception {
+                super.setUpTestsWithoutEdition();
+                GeometryFactory gf = new GeometryFactory();
+                MemoryDataSetDriver triangles = new MemoryDataSetDriver(
+                        new String[]{"the_geom", "id"},
+                        new Type[]{TypeFactory.createType(Type.POLYGON),
+                                TypeFactory.createType(Type.INT)});
+                // more triangles than the partitioning threshold
+                int id = 0;
+                for (int i = 0; i < 80; i++) {
+                        for (int j = 0; j < 80; j++) {
+                                Coordinate a = new Coordinate(i, j, z(i, j));
+                                Coordinate b = new Coordinate(i + 1, j, z(i + 1, j));
+                                Coordinate c = new Coordinate(i + 1, j + 1, z(i + 1, j + 1));
+                                Coordinate d = new Coordinate(i, j + 1, z(i, j + 1));
+                                triangles.addValues(ValueFactory.createValue(gf.createPolygon(
+                                        gf.createLinearRing(new Coordinate[]{a, b, c, a}), null)),
+                                        ValueFactory.createValue(id++));
+                                triangles.addValues(ValueFactory.createValue(gf.createPolygon(
+                                        gf.createLinearRing(new Coordinate[]{a, c, d, a}), null)),
+                                        ValueFactory.createValue(id++));
+                        }
+                }
+                tables = new DataSet[]{triangles};
+                values = new Value[]{ValueFactory.createValue("10, 20, 30, 40, 50")};
+        }
+
+        private static double z(int x, int y) {
+                return 30 + 20 * Math.sin(x / 7.0) * Math.cos(y / 11.0);
+        }
+
+        @Test
+        public void testSameResultAsSerial() throws Exception {
+                ST_TriangleContouring function = new ST_TriangleContouring();
+                assertTrue(function.getPartitions(tables, values).length > 1);
+
+                DataSet serial = function.evaluate(dsf, tables, values, new NullProgressMonitor());
+                DataSet partitioned = PartitionedEvaluation.evaluate(new ST_TriangleContouring(), dsf, tables, values,
+                        new NullProgressMonitor());
+
+                assertTrue(serial.getRowCount() > tables[0].getRowCount());
+                assertEquals(serial.getRowCount(), partitioned.getRowCount());
+                assertEquals(serial.getMetadata().getFieldCount(), partitioned.getMetadata().getFieldCount());
+                for (long i = 0; i < serial.getRowCount(); i++) {
+                        assertTrue(equals(serial.getRow(i), partitioned.getRow(i)));
+                }
+        }
+
+        @Test
+        public void testCancelledGivesNothing() throws Exception {
+                DataSet partitioned = PartitionedEvaluation.evaluate(new ST_TriangleContouring(), dsf, tables, values,
+                        new NullProgressMonitor() {
+
+                                @Override
+                                public boolean isCancelled() {
+                                        return true;
+                                }
+                        });
+                assertEquals(0, partitioned.getRowCount());
+        }
+}
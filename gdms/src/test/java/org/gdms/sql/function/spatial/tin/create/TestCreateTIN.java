@@ -34,8 +34,15 @@
 package org.gdms.sql.function.spatial.tin.create;
 
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.operation.union.UnaryUnionOp;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
 import org.gdms.data.types.Type;
 import org.gdms.data.types.TypeFactory;
 import org.gdms.data.values.Value;
@@ -43,6 +50,8 @@ import org.gdms.data.values.ValueFactory;
 import org.gdms.driver.DataSet;
 import org.gdms.driver.memory.MemoryDataSetDriver;
 import org.gdms.sql.FunctionTest;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 import org.orbisgis.progress.NullProgressMonitor;
@@ -141,6 +150,124 @@ public class TestCreateTIN extends FunctionTest {
                 assertTrue(checkResult(result, geometries));
         }
 
+        @Test
+        public void ST_TIN_PARTITIONED() throws Exception {
+                GeometryFactory gf = new GeometryFactory();
+                Random random = new Random(42);
+                final MemoryDataSetDriver driver1 = new MemoryDataSetDriver(
+                        new String[]{"the_geom"},
+                        new Type[]{TypeFactory.createType(Type.POINT)});
+                for (int i = 0; i < 500; i++) {
+                        driver1.addValues(new Value[]{ValueFactory.createValue(gf.createPoint(
+                                new Coordinate(random.nextDouble() * 100, random.nextDouble() * 50, random.nextDouble())))});
+                }
+
+                TinBuilder whole = new TinBuilder(driver1);
+                whole.build();
+                assertTrue(!whole.isPartitioned());
+                DataSet expected = whole.getTriangles(dsf);
+                expected.open();
+
+                TinBuilder parts = new TinBuilder(driver1);
+                parts.setPartitionSize(20);
+                parts.build();
+                assertTrue(parts.isPartitioned());
+                DataSet result = parts.getTriangles(dsf);
+                result.open();
+
+                assertEquals(expected.getRowCount(), result.getRowCount());
+                assertEquals(getNormalizedTriangles(expected), getNormalizedTriangles(result));
+                expected.close();
+                result.close();
+        }
+
+        /**
+         * The points of a regular grid are cocircular four by four: whatever
+         * the diagonals chosen, the triangles of the cells must not overlap
+         * or leave holes.
+         */
+        @Test
+        public void ST_TIN_PARTITIONED_GRID() throws Exception {
+                GeometryFactory gf = new GeometryFactory();
+                final MemoryDataSetDriver driver1 = new MemoryDataSetDriver(
+                        new String[]{"the_geom"},
+                        new Type[]{TypeFactory.createType(Type.POINT)});
+                for (int i = 0; i < 30; i++) {
+                        for (int j = 0; j < 30; j++) {
+                                driver1.addValues(new Value[]{ValueFactory.createValue(gf.createPoint(
+                                        new Coordinate(i, j, 0)))});
+                        }
+                }
+
+                TinBuilder parts = new TinBuilder(driver1);
+                parts.setPartitionSize(20);
+                parts.build();
+                assertTrue(parts.isPartitioned());
+                DataSet result = parts.getTriangles(dsf);
+                result.open();
+
+                assertEquals(2 * 29 * 29, result.getRowCount());
+                List<Geometry> triangles = new ArrayList<Geometry>();
+                double area = 0;
+                for (long i = 0; i < result.getRowCount(); i++) {
+                        Geometry triangle = result.getGeometry(i, 0);
+                        assertEquals(0.5, triangle.getArea(), 1e-9);
+                        triangles.add(triangle);
+                        area += triangle.getArea();
+                }
+                assertEquals(29 * 29, area, 1e-6);
+                assertEquals(29 * 29, UnaryUnionOp.union(triangles).getArea(), 1e-6);
+                result.close();
+        }
+
+        /**
+         * Points a cell cannot be triangulated from, even with its largest
+         * neighbourhood, are triangulated at once.
+         */
+        @Test
+        public void ST_TIN_PARTITIONED_FALLBACK() throws Exception {
+                GeometryFactory gf = new GeometryFactory();
+                Random random = new Random(42);
+                final MemoryDataSetDriver driver1 = new MemoryDataSetDriver(
+                        new String[]{"the_geom"},
+                        new Type[]{TypeFactory.createType(Type.POINT)});
+                for (int i = 0; i < 400; i++) {
+                        driver1.addValues(new Value[]{ValueFactory.createValue(gf.createPoint(
+                                new Coordinate(1 + random.nextDouble() * 4, 1 + random.nextDouble() * 4, 0)))});
+                }
+                driver1.addValues(new Value[]{ValueFactory.createValue(gf.createPoint(new Coordinate(0, 0, 0)))});
+                driver1.addValues(new Value[]{ValueFactory.createValue(gf.createPoint(new Coordinate(100, 3, 0)))});
+                driver1.addValues(new Value[]{ValueFactory.createValue(gf.createPoint(new Coordinate(2, 100, 0)))});
+                driver1.addValues(new Value[]{ValueFactory.createValue(gf.createPoint(new Coordinate(97, 95, 0)))});
+
+                TinBuilder whole = new TinBuilder(driver1);
+                whole.build();
+                DataSet expected = whole.getTriangles(dsf);
+                expected.open();
+
+                TinBuilder parts = new TinBuilder(driver1);
+                parts.setPartitionSize(3);
+                parts.build();
+                assertTrue(parts.isPartitioned());
+                DataSet result = parts.getTriangles(dsf);
+                assertFalse(parts.isPartitioned());
+                result.open();
+
+                assertEquals(getNormalizedTriangles(expected), getNormalizedTriangles(result));
+                expected.close();
+                result.close();
+        }
+
+        private Set<String> getNormalizedTriangles(DataSet dataSet) throws Exception {
+                Set<String> triangles = new TreeSet<String>();
+                for (long i = 0; i < dataSet.getRowCount(); i++) {
+                        Geometry geom = dataSet.getGeometry(i, 0);
+                        geom.normalize();
+                        triangles.add(geom.toText());
+                }
+                return triangles;
+        }
+
         public boolean checkResult(DataSet dataSet, ArrayList<Geometry> geometries) {
                 int inputContains = geometries.size();
 
@@ -326,7 +326,7 @@ public abstract class LegendUIRecodePanel extends LegendUIComponent
 
 		@Override
 		public void colorChanged(ColorParameter newColor) {
-			LegendUIRecodePanel.this.recode.getMapItem(index).setValue(newColor);
+			LegendUIRecodePanel.this.recode.setMapItemValue(index, newColor);
 		}
 
 		@Override
@@ -347,7 +347,7 @@ public abstract class LegendUIRecodePanel extends LegendUIComponent
 
 		@Override
 		public void realChanged(RealParameter newReal) {
-			LegendUIRecodePanel.this.recode.getMapItem(index).setValue(newReal);
+			LegendUIRecodePanel.this.recode.setMapItemValue(index, newReal);
 		}
 
 		@Override
@@ -368,7 +368,7 @@ public abstract class LegendUIRecodePanel extends LegendUIComponent
 
 		@Override
 		public void stringChanged(StringParameter newString) {
-			LegendUIRecodePanel.this.recode.getMapItem(index).setValue(newString);
+			LegendUIRecodePanel.this.recode.setMapItemValue(index, newString);
 		}
 
 		@Override
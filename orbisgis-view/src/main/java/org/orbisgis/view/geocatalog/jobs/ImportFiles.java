@@ -30,6 +30,7 @@ package org.orbisgis.view.geocatalog.jobs;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.log4j.Logger;
 import org.h2gis.h2spatialapi.DriverFunction;
+import org.h2gis.h2spatialapi.ProgressVisitor;
 import org.h2gis.utilities.JDBCUtilities;
 import org.h2gis.utilities.TableLocation;
 import org.orbisgis.corejdbc.DataManager;
@@ -42,20 +43,36 @@ import org.orbisgis.viewapi.geocatalog.ext.GeoCatalogExt;
 import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
-import javax.sql.DataSource;
 import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
- * This job load a bunch of files into a DataSource
+ * This job load a bunch of files into a DataSource.
+ * Files are imported concurrently, each one through its own connection.
+ * Each import advances its own child of the progress monitor, the monitor is only used by one thread at a time.
+ * On cancel, the running imports are awaited and the tables of the unfinished ones are dropped.
  * @author Nicolas Fortin
  */
 public class ImportFiles implements BackgroundJob {
     private static final I18n I18N = I18nFactory.getI18n(ImportFiles.class);
     private static Logger LOGGER = Logger.getLogger(ImportFiles.class);
+    // Delay between two checks of the cancel state while waiting for the imports
+    private static final long CANCEL_POLL_MS = 200;
 
     private GeoCatalogExt catalog;
     private List<File> files;
@@ -78,31 +95,226 @@ public class ImportFiles implements BackgroundJob {
 
     @Override
     public void run(ProgressMonitor pm) {
+        ProgressMonitor filePm = pm.startTask(files.size());
+        List<ImportFile> importTasks = new ArrayList<>(files.size());
         try(Connection connection = dataManager.getDataSource().getConnection()) {
-            ProgressMonitor filePm = pm.startTask(files.size());
             boolean isH2 = JDBCUtilities.isH2DataBase(connection.getMetaData());
+            // Table names are reserved before the parallel import, two files may share the same name
+            Set<String> reservedNames = new HashSet<>();
             for(File file : files) {
                 String ext = FilenameUtils.getExtension(file.getName());
                 DriverFunction driverFunction = driverFunctionContainer.getDriverFromExt(ext, driverType);
                 if(driverFunction != null) {
-                    TableLocation tableName = TableLocation.parse(dataManager.findUniqueTableName(
-                            FileUtils.getNameFromURI(file.toURI())), isH2);
-                    driverFunction.importFile(connection, tableName.toString() ,file, new H2GISProgressMonitor(filePm));
+                    String tableName = findUniqueTableName(FileUtils.getNameFromURI(file.toURI()), reservedNames);
+                    importTasks.add(new ImportFile(driverFunction, TableLocation.parse(tableName, isH2).toString(),
+                            file, filePm));
                 } else {
                     LOGGER.error(I18N.tr("No driver found for {0} extension", ext));
                 }
             }
         } catch (SQLException ex) {
-            LOGGER.error(I18N.tr("Cannot import the file"), ex);
-            // Print additional information
-            while((ex = ex.getNextException()) != null) {
-                LOGGER.error(ex.getLocalizedMessage());
+            logSQLException(ex);
+        }
+        if(!importTasks.isEmpty()) {
+            // Each file is imported through its own connection
+            int poolSize = Math.min(importTasks.size(), Runtime.getRuntime().availableProcessors());
+            ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+            CompletionService<File> completionService = new ExecutorCompletionService<>(executor);
+            try {
+                int pending = 0;
+                for (ImportFile importTask : importTasks) {
+                    if (pm.isCancelled()) {
+                        break;
+                    }
+                    synchronized (filePm) {
+                        importTask.progress = filePm.startTask(1);
+                    }
+                    completionService.submit(importTask);
+                    pending++;
+                }
+                while (pending > 0 && !pm.isCancelled()) {
+                    Future<File> importResult = completionService.poll(CANCEL_POLL_MS, TimeUnit.MILLISECONDS);
+                    if (importResult != null) {
+                        pending--;
+                        try {
+                            importResult.get();
+                        } catch (ExecutionException ex) {
+                            if (ex.getCause() instanceof SQLException) {
+                                logSQLException((SQLException) ex.getCause());
+                            } else {
+                                LOGGER.error(I18N.tr("Cannot import the file"), ex.getCause());
+                            }
+                        }
+                    }
+                }
+            } catch (InterruptedException ex) {
+                LOGGER.error(I18N.tr("Import of files has been interrupted"), ex);
+            } finally {
+                // On cancel, queued files are dropped and running imports are interrupted
+                executor.shutdownNow();
+                awaitTermination(executor);
             }
-
-        } catch (IOException ex) {
-            LOGGER.error(I18N.tr("Cannot import the file"), ex);
+            dropUnfinished(importTasks);
         }
         catalog.refreshSourceList();
     }
+
+    /**
+     * Wait for the running imports, they may not stop on interruption while in a JDBC call.
+     * @param executor Executor of the imports, already shut down
+     */
+    private static void awaitTermination(ExecutorService executor) {
+        boolean interrupted = false;
+        while(!executor.isTerminated()) {
+            try {
+                executor.awaitTermination(CANCEL_POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Drop the tables of the imports that have been cancelled or that failed, they may be partially filled.
+     * @param importTasks All the imports of this job
+     */
+    private void dropUnfinished(List<ImportFile> importTasks) {
+        boolean allFinished = true;
+        for(ImportFile importTask : importTasks) {
+            allFinished &= importTask.finished;
+        }
+        if(allFinished) {
+            return;
+        }
+        try(Connection connection = dataManager.getDataSource().getConnection();
+            Statement st = connection.createStatement()) {
+            for(ImportFile importTask : importTasks) {
+                if(!importTask.finished) {
+                    st.execute("DROP TABLE IF EXISTS " + importTask.tableName);
+                }
+            }
+        } catch (SQLException ex) {
+            LOGGER.error(I18N.tr("Cannot drop the tables of the cancelled imports"), ex);
+        }
+    }
+
+    /**
+     * Find a table name that is not used in the database and not reserved by another file of this job.
+     * @param originalTableName Proposed table name
+     * @param reservedNames Names already given to other files, the returned name is added to it
+     * @return Unique table name
+     * @throws SQLException
+     */
+    private String findUniqueTableName(String originalTableName, Set<String> reservedNames) throws SQLException {
+        String tableName = dataManager.findUniqueTableName(originalTableName);
+        int offset = 0;
+        while(reservedNames.contains(tableName.toUpperCase())) {
+            tableName = dataManager.findUniqueTableName(originalTableName + "_" + ++offset);
+        }
+        reservedNames.add(tableName.toUpperCase());
+        return tableName;
+    }
+
+    private static void logSQLException(SQLException ex) {
+        LOGGER.error(I18N.tr("Cannot import the file"), ex);
+        // Print additional information
+        while((ex = ex.getNextException()) != null) {
+            LOGGER.error(ex.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Import a single file into the database, using a dedicated connection.
+     */
+    private class ImportFile implements Callable<File> {
+        private final DriverFunction driverFunction;
+        private final String tableName;
+        private final File file;
+        // Lock of the progress monitor shared by all the imports
+        private final Object progressLock;
+        // Child of the progress monitor of this file, created when the import is submitted
+        private ProgressMonitor progress;
+        private volatile boolean finished = false;
+
+        private ImportFile(DriverFunction driverFunction, String tableName, File file, Object progressLock) {
+            this.driverFunction = driverFunction;
+            this.tableName = tableName;
+            this.file = file;
+            this.progressLock = progressLock;
+        }
+
+        @Override
+        public File call() throws SQLException, IOException {
+            try(Connection connection = dataManager.getDataSource().getConnection()) {
+                driverFunction.importFile(connection, tableName, file,
+                        new SynchronizedProgressVisitor(new H2GISProgressMonitor(progress), progressLock));
+                finished = true;
+            } finally {
+                synchronized (progressLock) {
+                    // The driver may not end its progression, a failed file is done too
+                    progress.progressTo(progress.getEnd());
+                }
+            }
+            return file;
+        }
+    }
+
+    /**
+     * Progress visitor of an import, the progress monitor being shared by the concurrent imports.
+     */
+    private static class SynchronizedProgressVisitor implements ProgressVisitor {
+        private final ProgressVisitor progressVisitor;
+        private final Object lock;
+
+        private SynchronizedProgressVisitor(ProgressVisitor progressVisitor, Object lock) {
+            this.progressVisitor = progressVisitor;
+            this.lock = lock;
+        }
+
+        @Override
+        public ProgressVisitor subProcess(int stepCount) {
+            synchronized (lock) {
+                return new SynchronizedProgressVisitor(progressVisitor.subProcess(stepCount), lock);
+            }
+        }
+
+        @Override
+        public void endStep() {
+            synchronized (lock) {
+                progressVisitor.endStep();
+            }
+        }
+
+        @Override
+        public void setStep(int idStep) {
+            synchronized (lock) {
+                progressVisitor.setStep(idStep);
+            }
+        }
+
+        @Override
+        public int getStepCount() {
+            synchronized (lock) {
+                return progressVisitor.getStepCount();
+            }
+        }
+
+        @Override
+        public void endOfProgress() {
+            synchronized (lock) {
+                progressVisitor.endOfProgress();
+            }
+        }
+
+        @Override
+        public double getProgression() {
+            synchronized (lock) {
+                return progressVisitor.getProgression();
+            }
+        }
+    }
 }
 
@@ -0,0 +1,191 @@
+package org.orbisgis.view.geocatalog.jobs;
+
+import org.h2gis.drivers.shp.SHPDriverFunction;
+import org.h2gis.h2spatial.ut.SpatialH2UT;
+import org.h2gis.h2spatialapi.DriverFunction;
+import org.h2gis.h2spatialapi.EmptyProgressVisitor;
+import org.h2gis.h2spatialapi.ProgressVisitor;
+import org.h2gis.utilities.JDBCUtilities;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.orbisgis.corejdbc.DataManager;
+import org.orbisgis.corejdbc.DriverFunctionContainer;
+import org.orbisgis.corejdbc.internal.DataManagerImpl;
+import org.orbisgis.progress.ProgressMonitor;
+import org.orbisgis.progress.RootProgressMonitor;
+import org.orbisgis.viewapi.geocatalog.ext.GeoCatalogExt;
+
+import javax.sql.DataSource;
+import javax.swing.ListSelectionModel;
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ImportFilesTest {
+    private static final int FILE_COUNT = 6;
+    private static Connection connection;
+    private static DataSource dataSource;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void tearUp() throws Exception {
+        dataSource = SpatialH2UT.createDataSource("ImportFilesTest", true);
+        connection = dataSource.getConnection();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private List<File> exportFiles(String prefix) throws Exception {
+        SHPDriverFunction driver = new SHPDriverFunction();
+        List<File> files = new ArrayList<>();
+        try(Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS SRC");
+            st.execute("CREATE TABLE SRC(the_geom POINT, id int)");
+            st.execute("INSERT INTO SRC VALUES ('POINT(1 2)', 1), ('POINT(3 4)', 2)");
+            for(int i = 0; i < FILE_COUNT; i++) {
+                File file = new File(folder.getRoot(), prefix + i + ".shp");
+                driver.exportTable(connection, "SRC", file, new EmptyProgressVisitor());
+                files.add(file);
+            }
+            st.execute("DROP TABLE SRC");
+        }
+        return files;
+    }
+
+    @Test
+    public void testImportConcurrently() throws Exception {
+        List<File> files = exportFiles("imported");
+        Catalog catalog = new Catalog();
+        DataManager dataManager = new DataManagerImpl(dataSource);
+        new ImportFiles(catalog, new ShpDriver(), files, dataManager,
+                DriverFunction.IMPORT_DRIVER_TYPE.COPY).run(new RootProgressMonitor(1));
+        assertEquals(1, catalog.refreshCount);
+        for(int i = 0; i < FILE_COUNT; i++) {
+            assertTrue(JDBCUtilities.tableExists(connection, "IMPORTED" + i));
+            assertEquals(2, JDBCUtilities.getRowCount(connection, "IMPORTED" + i));
+        }
+    }
+
+    @Test
+    public void testCancelledImport() throws Exception {
+        List<File> files = exportFiles("cancelled");
+        Catalog catalog = new Catalog();
+        DataManager dataManager = new DataManagerImpl(dataSource);
+        ProgressMonitor pm = new RootProgressMonitor(1);
+        pm.setCancelled(true);
+        new ImportFiles(catalog, new ShpDriver(), files, dataManager,
+                DriverFunction.IMPORT_DRIVER_TYPE.COPY).run(pm);
+        assertEquals(1, catalog.refreshCount);
+        for(int i = 0; i < FILE_COUNT; i++) {
+            assertFalse(JDBCUtilities.tableExists(connection, "CANCELLED" + i));
+        }
+    }
+
+    @Test
+    public void testCancelDuringImport() throws Exception {
+        List<File> files = exportFiles("interrupted");
+        Catalog catalog = new Catalog();
+        DataManager dataManager = new DataManagerImpl(dataSource);
+        final ProgressMonitor pm = new RootProgressMonitor(1);
+        BlockingShpDriver driver = new BlockingShpDriver();
+        final ImportFiles importFiles = new ImportFiles(catalog, new ShpDriver(driver), files, dataManager,
+                DriverFunction.IMPORT_DRIVER_TYPE.COPY);
+        Thread job = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                importFiles.run(pm);
+            }
+        });
+        job.start();
+        // A table is filled, the import is not finished
+        assertTrue(driver.started.await(10, TimeUnit.SECONDS));
+        pm.setCancelled(true);
+        job.join(10000);
+        assertFalse(job.isAlive());
+        assertEquals(1, catalog.refreshCount);
+        for(int i = 0; i < FILE_COUNT; i++) {
+            assertFalse(JDBCUtilities.tableExists(connection, "INTERRUPTED" + i));
+        }
+    }
+
+    /**
+     * Imports the file, then waits until the import is interrupted.
+     */
+    private static class BlockingShpDriver extends SHPDriverFunction {
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        @Override
+        public void importFile(Connection connection, String tableReference, File fileName,
+                               ProgressVisitor progress) throws SQLException, IOException {
+            super.importFile(connection, tableReference, fileName, progress);
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException ex) {
+                throw new IOException("Import of " + fileName + " interrupted", ex);
+            }
+        }
+    }
+
+    private static class ShpDriver implements DriverFunctionContainer {
+        private final DriverFunction driver;
+
+        private ShpDriver() {
+            this(new SHPDriverFunction());
+        }
+
+        private ShpDriver(DriverFunction driver) {
+            this.driver = driver;
+        }
+
+        @Override
+        public void addDriverFunction(DriverFunction driverFunction) {
+        }
+
+        @Override
+        public void removeDriverFunction(DriverFunction driverFunction) {
+        }
+
+        @Override
+        public DriverFunction getDriverFromExt(String ext, DriverFunction.IMPORT_DRIVER_TYPE type) {
+            return "shp".equalsIgnoreCase(ext) ? driver : null;
+        }
+    }
+
+    private static class Catalog implements GeoCatalogExt {
+        private int refreshCount = 0;
+
+        @Override
+        public String[] getSelectedSources() {
+            return new String[0];
+        }
+
+        @Override
+        public ListSelectionModel getListSelectionModel() {
+            return null;
+        }
+
+        @Override
+        public void refreshSourceList() {
+            refreshCount++;
+        }
+    }
+}